@@ -0,0 +1,50 @@
+package ee.forgr.audio.dsp;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A whole exponential fade and a whole crossfade, tick by tick, as the fade executor and the crossfader run them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GainRampBenchmark {
+
+    // Fade tick of the assets and of the crossfader
+    private static final long FADE_TICK_MS = 50;
+    private static final long CROSSFADE_TICK_MS = 20;
+
+    @Param({ "1000", "5000" })
+    public long durationMs;
+
+    public float from = 0.2f;
+    public float to = 0.9f;
+
+    @Benchmark
+    public float exponentialFade() {
+        int steps = GainRamp.stepCount(durationMs, FADE_TICK_MS);
+        double ratio = GainRamp.exponentialRatio(from, to, steps);
+        float volume = from;
+        for (int step = 0; step < steps; step++) {
+            volume = GainRamp.clamp(GainRamp.exponentialStep(volume, ratio, to), 0f, 1f);
+        }
+        return volume;
+    }
+
+    @Benchmark
+    public double equalPowerCrossfade() {
+        double sum = 0;
+        for (long elapsed = 0; elapsed <= durationMs; elapsed += CROSSFADE_TICK_MS) {
+            double progress = Math.min(1, (double) elapsed / durationMs);
+            sum += from * GainRamp.fadeOutGain(progress, true) + to * GainRamp.fadeInGain(progress, true);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,73 @@
+package ee.forgr.audio.dsp;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The per-buffer PCM work: level metering with its mono mix, as the audio thread does it for each rendered
+ * buffer, and waveform downsampling, as the extractor does it for each decoded buffer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PcmBenchmark {
+
+    // A typical audio sink buffer
+    private static final int FRAMES = 4096;
+    private static final int SAMPLE_RATE = 48000;
+
+    @Param({ "1", "2" })
+    public int channelCount;
+
+    @Param({ "2", "4" })
+    public int bytesPerSample;
+
+    private ByteBuffer buffer;
+    private LevelAccumulator levels;
+    private PeakDownsampler downsampler;
+    private long presentationTimeUs;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        buffer = ByteBuffer.allocateDirect(FRAMES * channelCount * bytesPerSample).order(ByteOrder.nativeOrder());
+        while (buffer.hasRemaining()) {
+            if (bytesPerSample == 2) {
+                buffer.putShort((short) random.nextInt());
+            } else {
+                buffer.putFloat(random.nextFloat() * 2 - 1);
+            }
+        }
+        buffer.flip();
+        levels = new LevelAccumulator(1024);
+        // A three minute track shown as 1000 buckets
+        long durationUs = 180_000_000L;
+        downsampler = new PeakDownsampler(new float[1000], new float[1000], durationUs);
+        downsampler.setFormat(SAMPLE_RATE, channelCount, bytesPerSample);
+    }
+
+    @Benchmark
+    public float levels() {
+        levels.add(buffer, bytesPerSample, channelCount);
+        float peak = levels.getPeak();
+        levels.reset();
+        return peak;
+    }
+
+    @Benchmark
+    public int downsample() {
+        downsampler.add(buffer, presentationTimeUs);
+        presentationTimeUs = (presentationTimeUs + FRAMES * 1_000_000L / SAMPLE_RATE) % 180_000_000L;
+        return downsampler.bucketAt(presentationTimeUs);
+    }
+}
@@ -0,0 +1,70 @@
+package ee.forgr.audio.dsp;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Bookkeeping between the engine and its events: progress coalescing and playOnce voice reuse.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SchedulingBenchmark {
+
+    @Param({ "4", "64" })
+    public int keyCount;
+
+    private ProgressCoalescer progress;
+    private double value;
+    private long nowMs;
+    private VoicePool<Object> pool;
+    private String[] keys;
+    private Object[] voices;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        progress = new ProgressCoalescer(1, 250);
+        pool = new VoicePool<>();
+        keys = new String[keyCount];
+        voices = new Object[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "url:https://example.com/sound" + i + ".mp3|DEFAULT|";
+            voices[i] = new Object();
+            pool.release(keys[i], voices[i]);
+        }
+    }
+
+    /**
+     * One download progress callback, most of them folded.
+     */
+    @Benchmark
+    public int coalesceProgress() {
+        value += 0.05;
+        nowMs += 3;
+        if (value >= 100) {
+            value = 0;
+            progress.reset(0, nowMs);
+        }
+        return progress.offer(value, nowMs, false);
+    }
+
+    /**
+     * A playOnce voice taken from the pool and released again once played.
+     */
+    @Benchmark
+    public Object acquireAndRelease() {
+        int index = next;
+        next = (next + 1) % keyCount;
+        Object voice = pool.acquire(keys[index]);
+        pool.release(keys[index], voice);
+        return voice;
+    }
+}
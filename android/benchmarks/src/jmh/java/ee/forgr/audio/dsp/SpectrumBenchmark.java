@@ -0,0 +1,58 @@
+package ee.forgr.audio.dsp;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * One spectrum read of the level meter: FFT of the window, then the band summary.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SpectrumBenchmark {
+
+    @Param({ "1024" })
+    public int size;
+
+    @Param({ "8", "32" })
+    public int bandCount;
+
+    private float[] source;
+    private float[] re;
+    private float[] im;
+    private float[] bands;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        source = new float[size];
+        for (int i = 0; i < size; i++) {
+            source[i] = random.nextFloat() * 2 - 1;
+        }
+        re = new float[size];
+        im = new float[size];
+        bands = new float[bandCount];
+    }
+
+    @Benchmark
+    public float[] fftAndBands() {
+        System.arraycopy(source, 0, re, 0, size);
+        Arrays.fill(im, 0f);
+        Spectrum.fft(re, im);
+        int binCount = size / 2;
+        for (int bin = 0; bin < binCount; bin++) {
+            re[bin] = (float) Math.hypot(re[bin], im[bin]) * 4f / size;
+        }
+        Spectrum.toBands(re, binCount, 48000f / size, bands);
+        return bands;
+    }
+}
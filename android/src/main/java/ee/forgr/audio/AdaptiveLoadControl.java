@@ -0,0 +1,242 @@
+package ee.forgr.audio;
+
+import androidx.media3.common.C;
+import androidx.media3.common.Timeline;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.common.util.Util;
+import androidx.media3.exoplayer.DefaultLoadControl;
+import androidx.media3.exoplayer.LoadControl;
+import androidx.media3.exoplayer.analytics.AnalyticsListener;
+import androidx.media3.exoplayer.analytics.PlayerId;
+import androidx.media3.exoplayer.source.LoadEventInfo;
+import androidx.media3.exoplayer.source.MediaLoadData;
+import androidx.media3.exoplayer.source.MediaSource;
+import androidx.media3.exoplayer.source.TrackGroupArray;
+import androidx.media3.exoplayer.trackselection.ExoTrackSelection;
+import androidx.media3.exoplayer.upstream.Allocator;
+import com.getcapacitor.JSObject;
+import java.io.IOException;
+
+/**
+ * Load control for stream players whose start threshold and buffer target follow the observed network.
+ *
+ * Every completed segment load gives a download ratio: the time it took to download divided by the media
+ * duration it holds. A smoothed mean and variance of that ratio give a risk score, mean plus two standard
+ * deviations. A fast, steady connection (risk at or below {@link #LOW_RISK}) gets the lowest start threshold
+ * and buffer target of the configured bounds, one that barely keeps up or jitters a lot (risk at or above
+ * {@link #HIGH_RISK}) gets the highest, and anything in between is interpolated.
+ *
+ * Loading stops at the buffer target and resumes below half of it. The global ceiling of {@link BufferBudget}
+ * applies as for the other load controls.
+ */
+@UnstableApi
+public class AdaptiveLoadControl implements LoadControl {
+
+    private static final String TAG = "AdaptiveLoadControl";
+    private static final Logger logger = new Logger(TAG);
+
+    public static final long DEFAULT_MIN_START_MS = 500;
+    public static final long DEFAULT_MAX_START_MS = 5000;
+    public static final long DEFAULT_MIN_BUFFER_MS = 10000;
+    public static final long DEFAULT_MAX_BUFFER_MS = 60000;
+
+    static final double LOW_RISK = 0.25;
+    static final double HIGH_RISK = 1.0;
+    // Weight of a new sample in the moving averages
+    private static final double SMOOTHING = 0.3;
+    // Before the first sample the thresholds sit halfway between the bounds
+    private static final double INITIAL_RISK = (LOW_RISK + HIGH_RISK) / 2;
+
+    private static volatile boolean enabled = false;
+    private static volatile long minStartMs = DEFAULT_MIN_START_MS;
+    private static volatile long maxStartMs = DEFAULT_MAX_START_MS;
+    private static volatile long minBufferMs = DEFAULT_MIN_BUFFER_MS;
+    private static volatile long maxBufferMs = DEFAULT_MAX_BUFFER_MS;
+
+    private final DefaultLoadControl delegate;
+
+    private int samples;
+    private double ratioMean;
+    private double ratioVariance;
+    private volatile long startThresholdUs;
+    private volatile long bufferTargetUs;
+    // Whether loading was continuing at the last check, for the hysteresis between half and full target
+    private volatile boolean isLoading;
+
+    public AdaptiveLoadControl(BufferBudget.Profile profile, int backBufferMs) {
+        this.delegate = BufferBudget.newDefaultLoadControl(profile, backBufferMs);
+        updateThresholds(INITIAL_RISK);
+    }
+
+    public static void configure(boolean enabled, long minStartMs, long maxStartMs, long minBufferMs, long maxBufferMs) {
+        AdaptiveLoadControl.enabled = enabled;
+        AdaptiveLoadControl.minStartMs = Math.max(0, minStartMs);
+        AdaptiveLoadControl.maxStartMs = Math.max(AdaptiveLoadControl.minStartMs, maxStartMs);
+        // The buffer target always covers the start threshold, otherwise playback could never start
+        AdaptiveLoadControl.minBufferMs = Math.max(AdaptiveLoadControl.maxStartMs, minBufferMs);
+        AdaptiveLoadControl.maxBufferMs = Math.max(AdaptiveLoadControl.minBufferMs, maxBufferMs);
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns a listener feeding the segment loads of the player using this load control.
+     */
+    public AnalyticsListener newAnalyticsListener() {
+        return new AnalyticsListener() {
+            @Override
+            public void onLoadCompleted(EventTime eventTime, LoadEventInfo loadEventInfo, MediaLoadData mediaLoadData) {
+                if (mediaLoadData.dataType != C.DATA_TYPE_MEDIA) {
+                    return;
+                }
+                if (mediaLoadData.mediaStartTimeMs == C.TIME_UNSET || mediaLoadData.mediaEndTimeMs == C.TIME_UNSET) {
+                    return;
+                }
+                long mediaDurationMs = mediaLoadData.mediaEndTimeMs - mediaLoadData.mediaStartTimeMs;
+                if (mediaDurationMs > 0) {
+                    addSample((double) loadEventInfo.loadDurationMs / mediaDurationMs);
+                }
+            }
+
+            @Override
+            public void onLoadError(
+                EventTime eventTime,
+                LoadEventInfo loadEventInfo,
+                MediaLoadData mediaLoadData,
+                IOException error,
+                boolean wasCanceled
+            ) {
+                if (!wasCanceled && mediaLoadData.dataType == C.DATA_TYPE_MEDIA) {
+                    // A failed segment is treated as one that barely arrived in time
+                    addSample(HIGH_RISK);
+                }
+            }
+        };
+    }
+
+    synchronized void addSample(double ratio) {
+        if (samples == 0) {
+            ratioMean = ratio;
+            ratioVariance = 0;
+        } else {
+            double delta = ratio - ratioMean;
+            ratioMean += SMOOTHING * delta;
+            ratioVariance = (1 - SMOOTHING) * (ratioVariance + SMOOTHING * delta * delta);
+        }
+        samples++;
+        updateThresholds(ratioMean + 2 * Math.sqrt(ratioVariance));
+    }
+
+    private void updateThresholds(double risk) {
+        double fraction = Math.min(1, Math.max(0, (risk - LOW_RISK) / (HIGH_RISK - LOW_RISK)));
+        startThresholdUs = Math.round(interpolate(minStartMs, maxStartMs, fraction) * 1000);
+        bufferTargetUs = Math.round(interpolate(minBufferMs, maxBufferMs, fraction) * 1000);
+    }
+
+    private static double interpolate(long from, long to, double fraction) {
+        return from + (to - from) * fraction;
+    }
+
+    /**
+     * Serializes the current measurements and the thresholds chosen from them.
+     */
+    public synchronized JSObject toJSObject() {
+        JSObject ret = new JSObject();
+        ret.put("samples", samples);
+        ret.put("downloadRatioMean", ratioMean);
+        ret.put("downloadRatioStdDev", Math.sqrt(ratioVariance));
+        ret.put("startThresholdMs", startThresholdUs / 1000);
+        ret.put("rebufferThresholdMs", getRebufferThresholdUs() / 1000);
+        ret.put("bufferTargetMs", bufferTargetUs / 1000);
+        ret.put("resumeLoadingBelowMs", getResumeLoadingUs() / 1000);
+        return ret;
+    }
+
+    private long getRebufferThresholdUs() {
+        // After a stall, wait for twice the usual threshold so the next one is less likely
+        return Math.min(2 * startThresholdUs, getResumeLoadingUs());
+    }
+
+    private long getResumeLoadingUs() {
+        return Math.max(startThresholdUs, bufferTargetUs / 2);
+    }
+
+    @Override
+    public void onPrepared(PlayerId playerId) {
+        delegate.onPrepared(playerId);
+    }
+
+    @Override
+    public void onTracksSelected(Parameters parameters, TrackGroupArray trackGroups, ExoTrackSelection[] trackSelections) {
+        delegate.onTracksSelected(parameters, trackGroups, trackSelections);
+    }
+
+    @Override
+    public void onStopped(PlayerId playerId) {
+        isLoading = false;
+        delegate.onStopped(playerId);
+    }
+
+    @Override
+    public void onReleased(PlayerId playerId) {
+        isLoading = false;
+        delegate.onReleased(playerId);
+    }
+
+    @Override
+    public Allocator getAllocator() {
+        return BufferBudget.getAllocator();
+    }
+
+    @Override
+    public long getBackBufferDurationUs(PlayerId playerId) {
+        return delegate.getBackBufferDurationUs(playerId);
+    }
+
+    @Override
+    public boolean retainBackBufferFromKeyframe(PlayerId playerId) {
+        return delegate.retainBackBufferFromKeyframe(playerId);
+    }
+
+    @Override
+    public boolean shouldContinueLoading(Parameters parameters) {
+        long bufferedUs = parameters.bufferedDurationUs;
+        if (BufferBudget.isOverCeiling()) {
+            // Only a playing player about to starve may dip into the ceiling
+            isLoading = parameters.playWhenReady && bufferedUs < getRebufferThresholdUs();
+            return isLoading;
+        }
+        long resumeUs = getResumeLoadingUs();
+        if (parameters.playbackSpeed > 1) {
+            resumeUs = Math.min(Util.getMediaDurationForPlayoutDuration(resumeUs, parameters.playbackSpeed), bufferTargetUs);
+        }
+        if (bufferedUs < resumeUs) {
+            isLoading = true;
+        } else if (bufferedUs >= bufferTargetUs) {
+            isLoading = false;
+        }
+        return isLoading;
+    }
+
+    @Override
+    public boolean shouldContinuePreloading(Timeline timeline, MediaSource.MediaPeriodId mediaPeriodId, long bufferedDurationUs) {
+        return !BufferBudget.isOverCeiling() && bufferedDurationUs < startThresholdUs;
+    }
+
+    @Override
+    public boolean shouldStartPlayback(Parameters parameters) {
+        long thresholdUs = parameters.rebuffering ? getRebufferThresholdUs() : startThresholdUs;
+        if (parameters.targetLiveOffsetUs != C.TIME_UNSET) {
+            // Near the live edge there may never be more buffered than the live offset
+            thresholdUs = Math.min(parameters.targetLiveOffsetUs / 2, thresholdUs);
+        }
+        long bufferedUs = Util.getPlayoutDurationForMediaDuration(parameters.bufferedDurationUs, parameters.playbackSpeed);
+        boolean ready = thresholdUs <= 0 || bufferedUs >= thresholdUs || BufferBudget.isOverCeiling();
+        if (ready && parameters.rebuffering) {
+            logger.debug("Resuming after a stall with " + bufferedUs / 1000 + " ms buffered");
+        }
+        return ready;
+    }
+}
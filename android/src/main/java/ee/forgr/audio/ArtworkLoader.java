@@ -0,0 +1,265 @@
+package ee.forgr.audio;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+import androidx.media3.common.C;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.DataSpec;
+import androidx.media3.datasource.DefaultHttpDataSource;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads notification artwork no larger than {@link #MAX_SIZE} pixels on a side.
+ *
+ * Images are decoded with the largest {@code inSampleSize} that keeps them at least that large, so a huge cover
+ * never needs its full resolution in memory, then scaled down exactly. Results are kept in a memory LRU cache and,
+ * for remote images, as downscaled files on disk, so the same artwork is downloaded and decoded only once. The
+ * disk cache drops its least recently used files beyond {@link #MAX_DISK_CACHE_BYTES}, like the media cache does
+ * beyond its own limit, and downloads larger than {@link #MAX_DOWNLOAD_BYTES} are abandoned. Decoding runs on one
+ * shared thread and concurrent requests for the same image share the work.
+ */
+@UnstableApi
+class ArtworkLoader {
+
+    private static final String TAG = "ArtworkLoader";
+    private static final Logger logger = new Logger(TAG);
+    private static final String CACHE_DIR = "artwork";
+    private static final String PARTIAL_SUFFIX = ".tmp";
+    private static final int MAX_MEMORY_CACHE_BYTES = 8 * 1024 * 1024;
+    static final long MAX_DISK_CACHE_BYTES = 20 * 1024 * 1024;
+    static final long MAX_DOWNLOAD_BYTES = 10 * 1024 * 1024;
+
+    static final int MAX_SIZE = 512;
+
+    public interface Callback {
+        /**
+         * Invoked on the main thread, with null when the image could not be loaded.
+         */
+        void onArtworkLoaded(Bitmap bitmap);
+    }
+
+    private final Context context;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final LruCache<String, Bitmap> memoryCache;
+    // Only touched on the main thread
+    private final Map<String, List<Callback>> pendingCallbacks = new HashMap<>();
+
+    ArtworkLoader(Context context) {
+        this.context = context.getApplicationContext();
+        int cacheBytes = (int) Math.min(MAX_MEMORY_CACHE_BYTES, Runtime.getRuntime().maxMemory() / 32);
+        this.memoryCache = new LruCache<String, Bitmap>(cacheBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+    }
+
+    /**
+     * Loads the artwork at the given file path or URL. Must be called on the main thread; a cached bitmap is
+     * delivered before this returns.
+     */
+    void load(final String urlString, final Callback callback) {
+        Bitmap cached = memoryCache.get(urlString);
+        if (cached != null) {
+            callback.onArtworkLoaded(cached);
+            return;
+        }
+        List<Callback> callbacks = pendingCallbacks.get(urlString);
+        if (callbacks != null) {
+            callbacks.add(callback);
+            return;
+        }
+        callbacks = new ArrayList<>();
+        callbacks.add(callback);
+        pendingCallbacks.put(urlString, callbacks);
+
+        executor.execute(() -> {
+            Bitmap bitmap = null;
+            try {
+                bitmap = decode(urlString);
+            } catch (Exception e) {
+                logger.error("Error loading artwork " + urlString, e);
+            }
+            final Bitmap result = bitmap;
+            mainHandler.post(() -> {
+                if (result != null) {
+                    memoryCache.put(urlString, result);
+                }
+                List<Callback> waiting = pendingCallbacks.remove(urlString);
+                if (waiting != null) {
+                    for (Callback waiter : waiting) {
+                        waiter.onArtworkLoaded(result);
+                    }
+                }
+            });
+        });
+    }
+
+    /**
+     * Stops the decoding thread and drops pending callbacks and the memory cache. Must be called on the main
+     * thread, and the loader cannot be used afterwards.
+     */
+    void release() {
+        executor.shutdownNow();
+        mainHandler.removeCallbacksAndMessages(null);
+        pendingCallbacks.clear();
+        memoryCache.evictAll();
+    }
+
+    /**
+     * Shrinks the memory cache according to the trim level. The disk cache is left alone.
+     */
+    void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            memoryCache.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            memoryCache.trimToSize(memoryCache.maxSize() / 2);
+        }
+    }
+
+    private Bitmap decode(String urlString) throws Exception {
+        Uri uri = Uri.parse(urlString);
+        if (uri.getScheme() == null || uri.getScheme().equals("file")) {
+            File file = new File(uri.getPath());
+            return file.exists() ? decodeFile(file) : null;
+        }
+
+        File cacheFile = new File(getCacheDir(context), DiskCache.key(urlString));
+        if (cacheFile.exists()) {
+            Bitmap bitmap = BitmapFactory.decodeFile(cacheFile.getAbsolutePath());
+            if (bitmap != null) {
+                // The modification time orders the files for eviction
+                cacheFile.setLastModified(System.currentTimeMillis());
+                return bitmap;
+            }
+            cacheFile.delete();
+        }
+
+        File download = new File(cacheFile.getPath() + ".download");
+        try {
+            download(urlString, download);
+            Bitmap bitmap = decodeFile(download);
+            if (bitmap != null) {
+                writeCache(cacheFile, bitmap);
+            }
+            return bitmap;
+        } finally {
+            download.delete();
+            DiskCache.trim(getCacheDir(context), MAX_DISK_CACHE_BYTES, PARTIAL_SUFFIX);
+        }
+    }
+
+    private static Bitmap decodeFile(File file) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        // Largest power of two keeping both sides at least MAX_SIZE, or the image's own size when smaller
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= MAX_SIZE && options.outHeight / (sampleSize * 2) >= MAX_SIZE) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        options.inScaled = false;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        Bitmap bitmap = BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+        if (bitmap == null || (bitmap.getWidth() <= MAX_SIZE && bitmap.getHeight() <= MAX_SIZE)) {
+            return bitmap;
+        }
+
+        float scale = Math.min((float) MAX_SIZE / bitmap.getWidth(), (float) MAX_SIZE / bitmap.getHeight());
+        int width = Math.max(1, Math.round(bitmap.getWidth() * scale));
+        int height = Math.max(1, Math.round(bitmap.getHeight() * scale));
+        Bitmap scaled = Bitmap.createScaledBitmap(bitmap, width, height, true);
+        if (scaled != bitmap) {
+            bitmap.recycle();
+        }
+        return scaled;
+    }
+
+    private static void download(String urlString, File target) throws Exception {
+        DefaultHttpDataSource dataSource = new DefaultHttpDataSource.Factory()
+            .setAllowCrossProtocolRedirects(true)
+            .setConnectTimeoutMs(15000)
+            .setReadTimeoutMs(15000)
+            .createDataSource();
+        try (OutputStream out = new FileOutputStream(target)) {
+            long length = dataSource.open(new DataSpec(Uri.parse(urlString)));
+            if (length != C.LENGTH_UNSET && length > MAX_DOWNLOAD_BYTES) {
+                throw new Exception("Artwork is " + length + " bytes, more than " + MAX_DOWNLOAD_BYTES);
+            }
+            byte[] buffer = new byte[16 * 1024];
+            long total = 0;
+            int read;
+            while ((read = dataSource.read(buffer, 0, buffer.length)) != C.RESULT_END_OF_INPUT) {
+                total += read;
+                if (total > MAX_DOWNLOAD_BYTES) {
+                    throw new Exception("Artwork is more than " + MAX_DOWNLOAD_BYTES + " bytes");
+                }
+                out.write(buffer, 0, read);
+            }
+        } finally {
+            dataSource.close();
+        }
+    }
+
+    private static void writeCache(File file, Bitmap bitmap) {
+        File partial = new File(file.getPath() + PARTIAL_SUFFIX);
+        try (OutputStream out = new FileOutputStream(partial)) {
+            // Covers rarely have transparency, JPEG keeps those files small
+            Bitmap.CompressFormat format = bitmap.hasAlpha() ? Bitmap.CompressFormat.PNG : Bitmap.CompressFormat.JPEG;
+            bitmap.compress(format, 90, out);
+        } catch (Exception e) {
+            logger.warning("Could not cache artwork " + file.getName() + ": " + e.getMessage());
+            partial.delete();
+            return;
+        }
+        if (!partial.renameTo(file)) {
+            partial.delete();
+        }
+    }
+
+    private static File getCacheDir(Context context) {
+        File dir = new File(context.getCacheDir(), CACHE_DIR);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        return dir;
+    }
+
+    /**
+     * Deletes every cached artwork file. Called from {@link NativeAudio#clearCache}.
+     */
+    public static void clearCache(Context context) {
+        File dir = new File(context.getCacheDir(), CACHE_DIR);
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!file.delete()) {
+                logger.warning("Could not delete cached artwork " + file.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package ee.forgr.audio;
+
+import android.content.Context;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Assets preloaded with {@code persist: true}, stored with their preload options so they can be loaded again on
+ * the next cold start. Kept as a small JSON file in the app's files directory and rewritten on every change.
+ *
+ * Options are stored as given, including any HTTP headers.
+ */
+class AssetManifest {
+
+    private static final String TAG = "AssetManifest";
+    private static final Logger logger = new Logger(TAG);
+    private static final String FILE_NAME = "native-audio-manifest.json";
+
+    /**
+     * Restore order. LAZY assets are restored last, after a delay, or as soon as they are played.
+     */
+    enum Priority {
+        CRITICAL,
+        HIGH,
+        NORMAL,
+        LAZY;
+
+        static Priority fromString(String value) {
+            if (value != null) {
+                for (Priority priority : values()) {
+                    if (priority.name().equalsIgnoreCase(value)) {
+                        return priority;
+                    }
+                }
+            }
+            return NORMAL;
+        }
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    static final class Entry {
+
+        final String assetId;
+        final JSObject options;
+        final Priority priority;
+
+        Entry(String assetId, JSObject options, Priority priority) {
+            this.assetId = assetId;
+            this.options = options;
+            this.priority = priority;
+        }
+
+        /**
+         * Whether {@code other} holds the same options, whatever the order of their keys.
+         */
+        boolean hasOptions(JSONObject other) {
+            return sameJson(options, other);
+        }
+    }
+
+    private static boolean sameJson(Object a, Object b) {
+        if (a instanceof JSONObject && b instanceof JSONObject) {
+            JSONObject objectA = (JSONObject) a;
+            JSONObject objectB = (JSONObject) b;
+            if (objectA.length() != objectB.length()) {
+                return false;
+            }
+            Iterator<String> keys = objectA.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                if (!objectB.has(key) || !sameJson(objectA.opt(key), objectB.opt(key))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (a instanceof JSONArray && b instanceof JSONArray) {
+            JSONArray arrayA = (JSONArray) a;
+            JSONArray arrayB = (JSONArray) b;
+            if (arrayA.length() != arrayB.length()) {
+                return false;
+            }
+            for (int i = 0; i < arrayA.length(); i++) {
+                if (!sameJson(arrayA.opt(i), arrayB.opt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (a instanceof Number && b instanceof Number) {
+            // 1 and 1.0 parse to different types
+            return ((Number) a).doubleValue() == ((Number) b).doubleValue();
+        }
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private final File file;
+    // Guarded by this, in insertion order
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private boolean loaded = false;
+
+    AssetManifest(Context context) {
+        this.file = new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    synchronized List<Entry> getEntries() {
+        ensureLoaded();
+        return new ArrayList<>(entries.values());
+    }
+
+    synchronized Entry get(String assetId) {
+        ensureLoaded();
+        return entries.get(assetId);
+    }
+
+    synchronized void put(String assetId, JSObject options, Priority priority) {
+        ensureLoaded();
+        entries.put(assetId, new Entry(assetId, options, priority));
+        save();
+    }
+
+    synchronized void remove(String assetId) {
+        ensureLoaded();
+        if (entries.remove(assetId) != null) {
+            save();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!file.exists()) {
+            return;
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] bytes = new byte[(int) file.length()];
+            int read = 0;
+            while (read < bytes.length) {
+                int count = in.read(bytes, read, bytes.length - read);
+                if (count < 0) {
+                    break;
+                }
+                read += count;
+            }
+            JSArray array = new JSArray(new String(bytes, 0, read, StandardCharsets.UTF_8));
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject json = array.getJSONObject(i);
+                String assetId = json.getString("assetId");
+                JSObject options = JSObject.fromJSONObject(json.getJSONObject("options"));
+                entries.put(assetId, new Entry(assetId, options, Priority.fromString(json.optString("priority", null))));
+            }
+        } catch (Exception e) {
+            logger.error("Discarding unreadable asset manifest", e);
+            entries.clear();
+            file.delete();
+        }
+    }
+
+    private void save() {
+        JSArray array = new JSArray();
+        for (Entry entry : entries.values()) {
+            JSObject json = new JSObject();
+            json.put("assetId", entry.assetId);
+            json.put("options", entry.options);
+            json.put("priority", entry.priority.toString());
+            array.put(json);
+        }
+        File partial = new File(file.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(partial)) {
+            out.write(array.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            logger.error("Could not save the asset manifest", e);
+            partial.delete();
+            return;
+        }
+        if (!partial.renameTo(file)) {
+            logger.warning("Could not move the asset manifest into place");
+            partial.delete();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package ee.forgr.audio;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the assets of the {@link AssetManifest} on a background thread, one priority tier after the other, and
+ * reports each tier once all its assets were tried. The LAZY tier is loaded after {@link #LAZY_DELAY_MS}, or
+ * earlier one asset at a time through {@link #restoreNow} when the app uses it.
+ *
+ * The restore thread has no {@link android.os.Looper} on purpose: media players built on it deliver their
+ * callbacks on the main looper, which outlives this thread, instead of on a looper that quits once the
+ * restore is done.
+ */
+class AssetRestorer {
+
+    private static final String TAG = "AssetRestorer";
+    private static final Logger logger = new Logger(TAG);
+
+    static final long LAZY_DELAY_MS = 5000;
+
+    interface Loader {
+        /**
+         * Loads one asset. Called on the restore thread, or on the thread calling {@link #restoreNow}.
+         */
+        void load(AssetManifest.Entry entry) throws Exception;
+    }
+
+    interface Listener {
+        /**
+         * @param failed {@code {assetId, error}} of the assets that could not be loaded
+         */
+        void onTierRestored(AssetManifest.Priority tier, JSArray assetIds, JSArray failed);
+    }
+
+    private final AssetManifest manifest;
+    private final Loader loader;
+    private final Listener listener;
+    // Lazy entries not restored yet
+    private final Map<String, AssetManifest.Entry> lazyPending = new ConcurrentHashMap<>();
+    // Errors of lazy assets restored on demand, reported with their tier
+    private final Map<String, String> onDemandErrors = new ConcurrentHashMap<>();
+    private ScheduledThreadPoolExecutor executor;
+
+    AssetRestorer(AssetManifest manifest, Loader loader, Listener listener) {
+        this.manifest = manifest;
+        this.loader = loader;
+        this.listener = listener;
+    }
+
+    synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = new ScheduledThreadPoolExecutor(1, (runnable) -> {
+            Thread thread = new Thread(
+                () -> {
+                    android.os.Process.setThreadPriority(android.os.Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                },
+                "NativeAudioRestore"
+            );
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Like quitting a looper safely, a stop drops the LAZY tier when it is still waiting for its delay
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        final ScheduledThreadPoolExecutor restoreExecutor = executor;
+        restoreExecutor.execute(() -> {
+            List<AssetManifest.Entry> entries = manifest.getEntries();
+            for (AssetManifest.Entry entry : entries) {
+                if (entry.priority == AssetManifest.Priority.LAZY) {
+                    lazyPending.put(entry.assetId, entry);
+                }
+            }
+            for (AssetManifest.Priority tier : AssetManifest.Priority.values()) {
+                if (tier == AssetManifest.Priority.LAZY) {
+                    restoreExecutor.schedule(
+                        () -> {
+                            restoreTier(tier, entries);
+                            stop();
+                        },
+                        LAZY_DELAY_MS,
+                        TimeUnit.MILLISECONDS
+                    );
+                } else {
+                    restoreTier(tier, entries);
+                }
+            }
+        });
+    }
+
+    synchronized void stop() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Loads a lazy asset right away if it is still waiting for its tier.
+     *
+     * @return true when the asset was loaded
+     */
+    boolean restoreNow(String assetId) {
+        AssetManifest.Entry entry = lazyPending.remove(assetId);
+        if (entry == null) {
+            return false;
+        }
+        try {
+            loader.load(entry);
+            logger.debug("Restored lazy asset " + assetId + " on demand");
+            return true;
+        } catch (Exception e) {
+            logger.error("Error restoring " + assetId, e);
+            manifest.remove(assetId);
+            onDemandErrors.put(assetId, String.valueOf(e.getMessage()));
+            return false;
+        }
+    }
+
+    private void restoreTier(AssetManifest.Priority tier, List<AssetManifest.Entry> entries) {
+        JSArray assetIds = new JSArray();
+        JSArray failed = new JSArray();
+        for (AssetManifest.Entry entry : entries) {
+            if (entry.priority != tier) {
+                continue;
+            }
+            String error = null;
+            if (tier == AssetManifest.Priority.LAZY && lazyPending.remove(entry.assetId) == null) {
+                // Already restored on demand
+                error = onDemandErrors.remove(entry.assetId);
+            } else {
+                try {
+                    loader.load(entry);
+                } catch (Exception e) {
+                    logger.error("Error restoring " + entry.assetId, e);
+                    // Most likely gone for good, the app can preload it again
+                    manifest.remove(entry.assetId);
+                    error = String.valueOf(e.getMessage());
+                }
+            }
+            if (error == null) {
+                assetIds.put(entry.assetId);
+            } else {
+                JSObject failure = new JSObject();
+                failure.put("assetId", entry.assetId);
+                failure.put("error", error);
+                failed.put(failure);
+            }
+        }
+        logger.debug("Restored " + assetIds.length() + " " + tier + " assets, " + failed.length() + " failed");
+        listener.onTierRestored(tier, assetIds, failed);
+    }
+}
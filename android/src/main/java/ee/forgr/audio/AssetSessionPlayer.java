@@ -0,0 +1,179 @@
+package ee.forgr.audio;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import androidx.media3.common.C;
+import androidx.media3.common.MediaItem;
+import androidx.media3.common.MediaMetadata;
+import androidx.media3.common.Player;
+import androidx.media3.common.SimpleBasePlayer;
+import androidx.media3.common.util.UnstableApi;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import java.util.Map;
+
+/**
+ * Exposes the asset currently shown in the notification as a media3 {@link Player}, so a media session can read
+ * its state, position and duration directly instead of being pushed a new snapshot on every change.
+ *
+ * The player owns no playback itself: commands from the session are forwarded to the {@link Host} and the state
+ * is read back from the asset. Call {@link #refresh} whenever the active asset or its play state changes.
+ */
+@UnstableApi
+class AssetSessionPlayer extends SimpleBasePlayer {
+
+    private static final String TAG = "AssetSessionPlayer";
+    private static final Logger logger = new Logger(TAG);
+
+    static final long SEEK_INCREMENT_MS = 15_000;
+
+    private static final Commands AVAILABLE_COMMANDS = new Commands.Builder()
+        .addAll(
+            Player.COMMAND_PLAY_PAUSE,
+            Player.COMMAND_STOP,
+            Player.COMMAND_SEEK_IN_CURRENT_MEDIA_ITEM,
+            Player.COMMAND_SEEK_BACK,
+            Player.COMMAND_SEEK_FORWARD,
+            Player.COMMAND_GET_CURRENT_MEDIA_ITEM,
+            Player.COMMAND_GET_TIMELINE,
+            Player.COMMAND_GET_METADATA
+        )
+        .build();
+
+    interface Host {
+        /**
+         * @return the id of the asset shown in the notification, or null when there is none
+         */
+        String getActiveAssetId();
+
+        AudioAsset getAsset(String assetId);
+
+        Map<String, String> getMetadata(String assetId);
+
+        void play(String assetId) throws Exception;
+
+        void pause(String assetId) throws Exception;
+
+        void stop(String assetId) throws Exception;
+    }
+
+    private final Host host;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    AssetSessionPlayer(Host host) {
+        super(Looper.getMainLooper());
+        this.host = host;
+    }
+
+    /**
+     * Reads the state of the active asset again. Safe to call from any thread, the state is read on the main
+     * thread after the caller's own changes.
+     */
+    void refresh() {
+        handler.post(this::invalidateState);
+    }
+
+    @Override
+    protected State getState() {
+        State.Builder builder = new State.Builder()
+            .setAvailableCommands(AVAILABLE_COMMANDS)
+            .setSeekBackIncrementMs(SEEK_INCREMENT_MS)
+            .setSeekForwardIncrementMs(SEEK_INCREMENT_MS);
+
+        final String assetId = host.getActiveAssetId();
+        final AudioAsset asset = assetId != null ? host.getAsset(assetId) : null;
+        if (asset == null) {
+            return builder.setPlaybackState(Player.STATE_IDLE).setPlayWhenReady(false, PLAY_WHEN_READY_CHANGE_REASON_USER_REQUEST).build();
+        }
+
+        boolean playing = false;
+        try {
+            playing = asset.isPlaying();
+        } catch (Exception e) {
+            logger.warning("Could not read the play state of " + assetId + ": " + e.getMessage());
+        }
+        double durationSecs = asset.getDuration();
+        long durationUs = durationSecs > 0 ? (long) (durationSecs * C.MICROS_PER_SECOND) : C.TIME_UNSET;
+
+        MediaItemData item = new MediaItemData.Builder(assetId)
+            .setMediaItem(new MediaItem.Builder().setMediaId(assetId).setMediaMetadata(buildMetadata(assetId)).build())
+            .setDurationUs(durationUs)
+            .setIsSeekable(durationUs != C.TIME_UNSET)
+            .build();
+
+        return builder
+            .setPlaylist(ImmutableList.of(item))
+            .setPlaybackState(Player.STATE_READY)
+            .setPlayWhenReady(playing, PLAY_WHEN_READY_CHANGE_REASON_USER_REQUEST)
+            .setContentPositionMs(() -> Math.max(0, Math.round(asset.getCurrentPosition() * 1000)))
+            .build();
+    }
+
+    private MediaMetadata buildMetadata(String assetId) {
+        Map<String, String> metadata = host.getMetadata(assetId);
+        MediaMetadata.Builder builder = new MediaMetadata.Builder().setTitle("Playing");
+        if (metadata == null) {
+            return builder.build();
+        }
+        if (metadata.containsKey("title")) {
+            builder.setTitle(metadata.get("title"));
+        }
+        builder.setArtist(metadata.get("artist"));
+        builder.setAlbumTitle(metadata.get("album"));
+        String artworkUrl = metadata.get("artworkUrl");
+        if (artworkUrl != null) {
+            builder.setArtworkUri(Uri.parse(artworkUrl));
+        }
+        return builder.build();
+    }
+
+    @Override
+    protected ListenableFuture<?> handleSetPlayWhenReady(boolean playWhenReady) {
+        String assetId = host.getActiveAssetId();
+        if (assetId != null) {
+            try {
+                if (playWhenReady) {
+                    host.play(assetId);
+                } else {
+                    host.pause(assetId);
+                }
+            } catch (Exception e) {
+                logger.error("Error handling " + (playWhenReady ? "play" : "pause") + " from the media session", e);
+            }
+        }
+        return Futures.immediateVoidFuture();
+    }
+
+    @Override
+    protected ListenableFuture<?> handleStop() {
+        String assetId = host.getActiveAssetId();
+        if (assetId != null) {
+            try {
+                host.stop(assetId);
+            } catch (Exception e) {
+                logger.error("Error handling stop from the media session", e);
+            }
+        }
+        return Futures.immediateVoidFuture();
+    }
+
+    @Override
+    protected ListenableFuture<?> handleSeek(int mediaItemIndex, long positionMs, @Player.Command int seekCommand) {
+        String assetId = host.getActiveAssetId();
+        AudioAsset asset = assetId != null ? host.getAsset(assetId) : null;
+        if (asset != null && positionMs != C.TIME_UNSET) {
+            double duration = asset.getDuration();
+            double position = Math.max(0, positionMs / 1000.0);
+            asset.setCurrentPosition(duration > 0 ? Math.min(duration, position) : position);
+        }
+        return Futures.immediateVoidFuture();
+    }
+
+    @Override
+    protected ListenableFuture<?> handleRelease() {
+        handler.removeCallbacksAndMessages(null);
+        return Futures.immediateVoidFuture();
+    }
+}
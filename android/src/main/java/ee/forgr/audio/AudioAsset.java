@@ -3,14 +3,15 @@ package ee.forgr.audio;
 import android.content.res.AssetFileDescriptor;
 import android.os.Handler;
 import android.os.Looper;
-import android.util.Log;
 import androidx.media3.common.util.UnstableApi;
+import com.getcapacitor.JSObject;
+import ee.forgr.audio.dsp.GainRamp;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 @UnstableApi
@@ -30,6 +31,9 @@ public class AudioAsset implements AutoCloseable {
     protected Runnable currentTimeRunnable;
     protected static final int FADE_DELAY_MS = 80;
 
+    // One timer thread drives the fades of every asset, so loading an asset does not start a thread
+    private static final ScheduledThreadPoolExecutor SHARED_FADE_EXECUTOR = newFadeExecutor();
+
     protected ScheduledExecutorService fadeExecutor;
     protected ScheduledFuture<?> fadeTask;
 
@@ -47,24 +51,189 @@ public class AudioAsset implements AutoCloseable {
     protected final float zeroVolume = 0.001f;
     protected final float maxVolume = 1.0f;
 
+    // Created on the first metered read of a MediaPlayer backed asset
+    private volatile VisualizerMeter visualizerMeter;
+
+    // Kept to recreate the MediaPlayers after releaseIfIdle
+    private final AssetFileDescriptor assetFileDescriptor;
+    private final int audioChannelNum;
+    // Guards the released state, which the bridge thread reads and writes through setVolume
+    private final Object releaseLock = new Object();
+    // Volume and duration of the released players, releasedVolume is -1 while they are loaded
+    private volatile float releasedVolume = -1;
+    private volatile double releasedDuration = 0;
+    // Last rate set through setRate, carried over when the asset is swapped for another one
+    protected float rate = 1;
+
     AudioAsset(NativeAudio owner, String assetId, AssetFileDescriptor assetFileDescriptor, int audioChannelNum, float volume)
         throws Exception {
         audioList = new ArrayList<>();
         this.owner = owner;
         this.assetId = assetId;
-        this.fadeExecutor = Executors.newSingleThreadScheduledExecutor();
+        this.fadeExecutor = SHARED_FADE_EXECUTOR;
 
         if (audioChannelNum < 0) {
             audioChannelNum = 1;
         }
+        this.assetFileDescriptor = assetFileDescriptor;
+        this.audioChannelNum = audioChannelNum;
+
+        createDispatchers(volume);
+    }
+
+    private static ScheduledThreadPoolExecutor newFadeExecutor() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, (runnable) -> {
+            Thread thread = new Thread(runnable, "NativeAudioFade");
+            thread.setDaemon(true);
+            return thread;
+        }) {
+            // Only touched by the single fade thread
+            private boolean traced;
+
+            // Every run of a fade task is one fade step
+            @Override
+            protected void beforeExecute(Thread thread, Runnable task) {
+                traced = Tracing.begin("AudioAsset.fadeTick");
+            }
+
+            @Override
+            protected void afterExecute(Runnable task, Throwable error) {
+                Tracing.end(traced);
+                traced = false;
+            }
+        };
+        // Cancelled fades would otherwise stay queued until their next tick
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
 
+    static int getFadeThreadCount() {
+        return SHARED_FADE_EXECUTOR.getPoolSize();
+    }
+
+    static int getScheduledFadeCount() {
+        return SHARED_FADE_EXECUTOR.getQueue().size();
+    }
+
+    private void createDispatchers(float volume) throws Exception {
         for (int x = 0; x < audioChannelNum; x++) {
             AudioDispatcher audioDispatcher = new AudioDispatcher(assetFileDescriptor, volume);
+            audioDispatcher.setLatencyTracking(owner.getLatencyTracker(), assetId);
             audioList.add(audioDispatcher);
             if (audioChannelNum == 1) audioDispatcher.setOwner(this);
         }
     }
 
+    /**
+     * Releases the players of this asset if it is neither playing nor paused, to free memory under pressure.
+     * They are recreated on the next play. Must be called on the main thread.
+     *
+     * @return true if something was released
+     */
+    public boolean releaseIfIdle() throws Exception {
+        synchronized (releaseLock) {
+            if (assetFileDescriptor == null || audioList.isEmpty()) {
+                return false;
+            }
+            for (AudioDispatcher audio : audioList) {
+                if (audio.isPlaying() || audio.isPaused()) {
+                    return false;
+                }
+            }
+            releasedDuration = audioList.get(0).getDuration();
+            releasedVolume = audioList.get(0).getVolume();
+            for (AudioDispatcher audio : audioList) {
+                audio.unload();
+            }
+            audioList.clear();
+            playIndex = 0;
+        }
+        logger.debug("Released idle players of {}", assetId);
+        return true;
+    }
+
+    /**
+     * Fills {@code reading} with the levels since the previous read. Called on the metering thread.
+     *
+     * @return false when the asset is not playing or cannot be metered
+     */
+    public boolean readLevels(LevelMeter.Reading reading) {
+        try {
+            if (!isPlaying()) {
+                return false;
+            }
+        } catch (Exception e) {
+            return false;
+        }
+        if (visualizerMeter == null) {
+            visualizerMeter = new VisualizerMeter();
+        }
+        return visualizerMeter.read(getMeteredSessionId(), reading);
+    }
+
+    /**
+     * Audio session of the MediaPlayer to meter, 0 when there is none.
+     */
+    protected int getMeteredSessionId() {
+        for (AudioDispatcher audio : new ArrayList<>(audioList)) {
+            if (audio != null && audio.isPlaying()) {
+                return audio.getAudioSessionId();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Frees the resources metering holds, when metering stops or the asset is unloaded.
+     */
+    public void releaseMeter() {
+        if (visualizerMeter != null) {
+            visualizerMeter.release();
+        }
+    }
+
+    /**
+     * Returns the range a time-shifted live stream can seek within, or null when time shifting is not enabled.
+     * Must be called on the main thread.
+     */
+    public JSObject getTimeShiftWindow() {
+        return null;
+    }
+
+    /**
+     * Returns the measurements and thresholds of the asset's adaptive load control, or null when it has none.
+     */
+    public JSObject getAdaptiveBufferState() {
+        return null;
+    }
+
+    /**
+     * Recreates the players dropped by {@link #releaseIfIdle()}, with the volume and rate set since. Only reloads
+     * on the main thread, where the players are used.
+     */
+    protected void ensureLoaded() throws Exception {
+        if (releasedVolume < 0) {
+            return;
+        }
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            logger.warning("Not reloading players of " + assetId + " off the main thread");
+            return;
+        }
+        synchronized (releaseLock) {
+            if (releasedVolume < 0) {
+                return;
+            }
+            logger.debug("Reloading players of {}", assetId);
+            createDispatchers(releasedVolume);
+            if (rate != 1) {
+                for (AudioDispatcher audio : audioList) {
+                    audio.setRate(rate);
+                }
+            }
+            releasedVolume = -1;
+        }
+    }
+
     public void dispatchComplete() {
         if (dispatchedCompleteMap.getOrDefault(this.assetId, false)) {
             return;
@@ -74,6 +243,7 @@ public class AudioAsset implements AutoCloseable {
     }
 
     public void play(double time, float volume) throws Exception {
+        ensureLoaded();
         if (audioList.isEmpty() || playIndex < 0 || playIndex >= audioList.size()) {
             throw new Exception("AudioDispatcher is null or playIndex out of bounds");
         }
@@ -96,6 +266,9 @@ public class AudioAsset implements AutoCloseable {
     }
 
     public double getDuration() {
+        if (releasedVolume >= 0) {
+            return releasedDuration;
+        }
         if (audioList.size() != 1 || playIndex < 0 || playIndex >= audioList.size()) return 0;
         AudioDispatcher audio = audioList.get(playIndex);
         if (audio != null) {
@@ -166,6 +339,7 @@ public class AudioAsset implements AutoCloseable {
     }
 
     public void loop() throws Exception {
+        ensureLoaded();
         AudioDispatcher audio = audioList.get(playIndex);
         if (audio != null) {
             audio.loop();
@@ -178,6 +352,7 @@ public class AudioAsset implements AutoCloseable {
     }
 
     public void unload() throws Exception {
+        releasedVolume = -1;
         this.stop();
 
         for (int x = 0; x < audioList.size(); x++) {
@@ -196,6 +371,13 @@ public class AudioAsset implements AutoCloseable {
     }
 
     public void setVolume(float volume, double duration) throws Exception {
+        synchronized (releaseLock) {
+            if (releasedVolume >= 0) {
+                // Applied when the players are recreated
+                releasedVolume = volume;
+                return;
+            }
+        }
         for (int x = 0; x < audioList.size(); x++) {
             AudioDispatcher audio = audioList.get(x);
 
@@ -217,6 +399,10 @@ public class AudioAsset implements AutoCloseable {
     }
 
     public float getVolume() throws Exception {
+        float released = releasedVolume;
+        if (released >= 0) {
+            return released;
+        }
         if (audioList.size() != 1 || playIndex < 0 || playIndex >= audioList.size()) return 0;
         AudioDispatcher audio = audioList.get(playIndex);
         if (audio != null) {
@@ -226,6 +412,7 @@ public class AudioAsset implements AutoCloseable {
     }
 
     public void setRate(float rate) throws Exception {
+        this.rate = rate;
         for (int x = 0; x < audioList.size(); x++) {
             AudioDispatcher audio = audioList.get(x);
             if (audio != null) {
@@ -234,6 +421,10 @@ public class AudioAsset implements AutoCloseable {
         }
     }
 
+    public float getRate() {
+        return rate;
+    }
+
     public boolean isPlaying() throws Exception {
         for (AudioDispatcher ad : audioList) {
             if (ad != null && ad.isPlaying()) return true;
@@ -241,6 +432,16 @@ public class AudioAsset implements AutoCloseable {
         return false;
     }
 
+    /**
+     * Whether playback was paused and can be resumed where it stopped. Must be called on the main thread.
+     */
+    public boolean isPaused() throws Exception {
+        for (AudioDispatcher ad : audioList) {
+            if (ad != null && ad.isPaused()) return true;
+        }
+        return false;
+    }
+
     public void setCompletionListener(AudioCompletionListener listener) {
         this.completionListener = listener;
     }
@@ -257,22 +458,20 @@ public class AudioAsset implements AutoCloseable {
 
     public void setCurrentTime(double time) throws Exception {
         if (owner == null || owner.getActivity() == null) return;
-        owner
-            .getActivity()
-            .runOnUiThread(
-                new Runnable() {
-                    @Override
-                    public void run() {
-                        if (audioList.size() != 1 || playIndex < 0 || playIndex >= audioList.size()) {
-                            return;
-                        }
-                        AudioDispatcher audio = audioList.get(playIndex);
-                        if (audio != null) {
-                            audio.setCurrentPosition(time);
-                        }
+        owner.runOnMainThread(
+            new Runnable() {
+                @Override
+                public void run() {
+                    if (audioList.size() != 1 || playIndex < 0 || playIndex >= audioList.size()) {
+                        return;
+                    }
+                    AudioDispatcher audio = audioList.get(playIndex);
+                    if (audio != null) {
+                        audio.setCurrentPosition(time);
                     }
                 }
-            );
+            }
+        );
     }
 
     protected void startCurrentTimeUpdates() {
@@ -313,7 +512,9 @@ public class AudioAsset implements AutoCloseable {
                 try {
                     if (audio != null && audio.isPlaying()) {
                         double currentTime = getCurrentPosition();
-                        logger.verbose("Play timer update: currentTime = " + currentTime);
+                        if (logger.isEnabled()) {
+                            logger.verbose("Play timer update: currentTime = " + currentTime);
+                        }
                         if (owner != null) owner.notifyCurrentTime(assetId, currentTime);
                         currentTimeHandler.postDelayed(this, 100);
                     } else {
@@ -352,6 +553,7 @@ public class AudioAsset implements AutoCloseable {
     }
 
     public void playWithFadeIn(double time, float volume, double fadeInDurationMs) throws Exception {
+        ensureLoaded();
         AudioDispatcher audio = audioList.get(playIndex);
         if (audio != null) {
             audio.setVolume(0);
@@ -369,22 +571,22 @@ public class AudioAsset implements AutoCloseable {
         cancelFade();
         fadeState = FadeState.FADE_IN;
 
-        final int steps = Math.max(1, (int) (fadeInDurationMs / FADE_DELAY_MS));
+        final int steps = GainRamp.stepCount(fadeInDurationMs, FADE_DELAY_MS);
         final float fadeStep = targetVolume / steps;
 
-        Log.d(
-            TAG,
-            "Beginning fade in at time " +
-                getCurrentPosition() +
-                " over " +
-                (fadeInDurationMs / 1000.0) +
-                "s to target volume " +
-                targetVolume +
-                " in " +
-                steps +
-                " steps (step duration: " +
-                (FADE_DELAY_MS / 1000.0) +
-                "s"
+        logger.debug(
+            () ->
+                "Beginning fade in at time " +
+                    getCurrentPosition() +
+                    " over " +
+                    (fadeInDurationMs / 1000.0) +
+                    "s to target volume " +
+                    targetVolume +
+                    " in " +
+                    steps +
+                    " steps (step duration: " +
+                    (FADE_DELAY_MS / 1000.0) +
+                    "s"
         );
 
         fadeTask = fadeExecutor.scheduleWithFixedDelay(
@@ -396,17 +598,23 @@ public class AudioAsset implements AutoCloseable {
                     if (fadeState != FadeState.FADE_IN || currentVolume >= targetVolume) {
                         fadeState = FadeState.NONE;
                         cancelFade();
-                        logger.debug("Fade in complete at time " + getCurrentPosition());
+                        logger.debug(() -> "Fade in complete at time " + getCurrentPosition());
                         return;
                     }
                     final float previousCurrentVolume = currentVolume;
                     currentVolume += fadeStep;
                     try {
                         final float resolvedTargetVolume = Math.min(Math.max(currentVolume, 0), targetVolume);
-                        Log.v(
-                            TAG,
-                            "Fade in step: from " + previousCurrentVolume + " to " + currentVolume + " to target " + resolvedTargetVolume
-                        );
+                        if (logger.isEnabled()) {
+                            logger.verbose(
+                                "Fade in step: from " +
+                                    previousCurrentVolume +
+                                    " to " +
+                                    currentVolume +
+                                    " to target " +
+                                    resolvedTargetVolume
+                            );
+                        }
                         if (audio != null) audio.setVolume(resolvedTargetVolume);
                     } catch (Exception e) {
                         logger.error("Error during fade in", e);
@@ -438,23 +646,23 @@ public class AudioAsset implements AutoCloseable {
 
         if (audio == null) return;
 
-        final int steps = Math.max(1, (int) (fadeOutDurationMs / FADE_DELAY_MS));
+        final int steps = GainRamp.stepCount(fadeOutDurationMs, FADE_DELAY_MS);
         final float initialVolume = audio.getVolume();
         final float fadeStep = initialVolume / steps;
 
-        Log.d(
-            TAG,
-            "Beginning fade out from volume " +
-                initialVolume +
-                " at time " +
-                getCurrentPosition() +
-                " over " +
-                (fadeOutDurationMs / 1000.0) +
-                "s in " +
-                steps +
-                " steps (step duration: " +
-                (FADE_DELAY_MS / 1000.0) +
-                "s)"
+        logger.debug(
+            () ->
+                "Beginning fade out from volume " +
+                    initialVolume +
+                    " at time " +
+                    getCurrentPosition() +
+                    " over " +
+                    (fadeOutDurationMs / 1000.0) +
+                    "s in " +
+                    steps +
+                    " steps (step duration: " +
+                    (FADE_DELAY_MS / 1000.0) +
+                    "s)"
         );
 
         fadeTask = fadeExecutor.scheduleWithFixedDelay(
@@ -467,24 +675,25 @@ public class AudioAsset implements AutoCloseable {
                         if (fadeState != FadeState.FADE_OUT || currentVolume <= 0) {
                             fadeState = FadeState.NONE;
                             if (toPause) {
-                                logger.verbose("Faded out to pause audio at time " + getCurrentPosition());
+                                logger.verbose(() -> "Faded out to pause audio at time " + getCurrentPosition());
                                 audio.pause();
                             } else {
-                                logger.verbose("Faded out to stop at time " + getCurrentPosition());
+                                logger.verbose(() -> "Faded out to stop at time " + getCurrentPosition());
                                 stop();
                             }
                             cancelFade();
-                            logger.debug("Fade out complete at time " + getCurrentPosition());
+                            logger.debug(() -> "Fade out complete at time " + getCurrentPosition());
                             return;
                         }
                         final float previousCurrentVolume = currentVolume;
                         currentVolume -= fadeStep;
 
                         final float thisTargetVolume = Math.max(currentVolume, 0);
-                        Log.v(
-                            TAG,
-                            "Fade out step: from " + previousCurrentVolume + " to " + currentVolume + " to target " + thisTargetVolume
-                        );
+                        if (logger.isEnabled()) {
+                            logger.verbose(
+                                "Fade out step: from " + previousCurrentVolume + " to " + currentVolume + " to target " + thisTargetVolume
+                            );
+                        }
                         if (audio != null) audio.setVolume(thisTargetVolume);
                     } catch (Exception e) {
                         logger.error("Error during fade out", e);
@@ -504,46 +713,29 @@ public class AudioAsset implements AutoCloseable {
 
         if (audio == null) return;
 
-        final int steps = Math.max(1, (int) (fadeDurationMs / FADE_DELAY_MS));
+        final int steps = GainRamp.stepCount(fadeDurationMs, FADE_DELAY_MS);
         final float minVolume = zeroVolume;
         final float initialVolume = Math.max(audio.getVolume(), minVolume);
         final float finalTargetVolume = Math.max(targetVolume, minVolume);
 
-        // Clamp values to avoid overflow/underflow and invalid pow inputs
-        final float safeInitialVolume = Math.max(initialVolume, minVolume);
-        final float safeFinalTargetVolume = Math.max(finalTargetVolume, minVolume);
-
-        double ratio;
-        if (steps <= 0 || safeInitialVolume <= 0f || safeFinalTargetVolume <= 0f) {
-            ratio = 1.0; // No fade or invalid, just set directly
-        } else if (safeInitialVolume == safeFinalTargetVolume) {
-            ratio = 1.0;
-        } else {
-            ratio = Math.pow(safeFinalTargetVolume / safeInitialVolume, 1.0 / steps);
-            // Clamp ratio to reasonable bounds to avoid overflow
-            if (Double.isNaN(ratio) || Double.isInfinite(ratio) || ratio <= 0.0) {
-                ratio = 1.0;
-            }
-        }
-
-        Log.d(
-            TAG,
-            "Beginning exponential fade from volume " +
-                initialVolume +
-                " to " +
-                finalTargetVolume +
-                " over " +
-                (fadeDurationMs / 1000.0) +
-                "s in " +
-                steps +
-                " steps (step duration: " +
-                (FADE_DELAY_MS / 1000.0) +
-                "s, ratio: " +
-                ratio +
-                ")"
+        final double finalRatio = GainRamp.exponentialRatio(initialVolume, finalTargetVolume, steps);
+        logger.debug(
+            () ->
+                "Beginning exponential fade from volume " +
+                    initialVolume +
+                    " to " +
+                    finalTargetVolume +
+                    " over " +
+                    (fadeDurationMs / 1000.0) +
+                    "s in " +
+                    steps +
+                    " steps (step duration: " +
+                    (FADE_DELAY_MS / 1000.0) +
+                    "s, ratio: " +
+                    finalRatio +
+                    ")"
         );
 
-        double finalRatio = ratio;
         fadeTask = fadeExecutor.scheduleWithFixedDelay(
             new Runnable() {
                 int currentStep = 0;
@@ -554,19 +746,17 @@ public class AudioAsset implements AutoCloseable {
                     if ((audio != null && fadeState != FadeState.FADE_TO) || !audio.isPlaying() || currentStep >= steps) {
                         fadeState = FadeState.NONE;
                         cancelFade();
-                        logger.debug("Fade to complete at time " + getCurrentPosition());
+                        logger.debug(() -> "Fade to complete at time " + getCurrentPosition());
                         return;
                     }
 
                     try {
-                        if (finalRatio == 1.0) {
-                            currentVolume = safeFinalTargetVolume;
-                        } else {
-                            currentVolume *= (float) finalRatio;
-                        }
-                        currentVolume = Math.min(Math.max(currentVolume, minVolume), maxVolume); // Clamp between minVolume and maxVolume
+                        currentVolume = GainRamp.exponentialStep(currentVolume, finalRatio, finalTargetVolume);
+                        currentVolume = GainRamp.clamp(currentVolume, minVolume, maxVolume);
                         if (audio != null) audio.setVolume(currentVolume);
-                        logger.verbose("Fade to step " + currentStep + ": volume set to " + currentVolume);
+                        if (logger.isEnabled()) {
+                            logger.verbose("Fade to step " + currentStep + ": volume set to " + currentVolume);
+                        }
                         currentStep++;
                     } catch (Exception e) {
                         logger.error("Error during fade to", e);
@@ -591,11 +781,26 @@ public class AudioAsset implements AutoCloseable {
         fadeTask = null;
     }
 
+    /**
+     * Gives this asset a new id, for playOnce voices reused from the {@link PlayOncePool}, and drops what the
+     * previous play changed: a fade and the rate. Must be called on the main thread while the asset is idle.
+     */
+    void reassign(String newAssetId) throws Exception {
+        dispatchedCompleteMap.remove(assetId);
+        assetId = newAssetId;
+        for (AudioDispatcher audio : audioList) {
+            audio.setLatencyTracking(owner.getLatencyTracker(), newAssetId);
+        }
+        cancelFade();
+        if (rate != 1) {
+            setRate(1);
+        }
+    }
+
     @Override
     public void close() {
-        if (fadeExecutor != null && !fadeExecutor.isShutdown()) {
-            fadeExecutor.shutdown();
-        }
+        // The fade executor is shared, only this asset's fade stops
+        cancelFade();
     }
 
     @Override
@@ -12,7 +12,6 @@ import android.content.res.AssetFileDescriptor;
 import android.media.AudioAttributes;
 import android.media.MediaPlayer;
 import android.os.Build;
-import android.util.Log;
 import androidx.media3.common.util.UnstableApi;
 
 @UnstableApi
@@ -20,17 +19,22 @@ public class AudioDispatcher
     implements MediaPlayer.OnPreparedListener, MediaPlayer.OnCompletionListener, MediaPlayer.OnSeekCompleteListener
 {
 
-    private final String TAG = "AudioDispatcher";
+    private static final Logger logger = new Logger("AudioDispatcher");
     private final MediaPlayer mediaPlayer;
     private int mediaState;
     private AudioAsset owner;
+    private LatencyTracker latencyTracker;
+    private String latencyAssetId;
 
     private float currentVolume = 1.0f;
+    // Whether this player counts as a playing voice
+    private boolean playing = false;
 
     public AudioDispatcher(AssetFileDescriptor assetFileDescriptor, float volume) throws Exception {
         mediaState = INVALID;
 
         mediaPlayer = new MediaPlayer();
+        EngineMetrics.mediaPlayerCreated();
         mediaPlayer.setOnCompletionListener(this);
         mediaPlayer.setOnPreparedListener(this);
         mediaPlayer.setDataSource(
@@ -48,20 +52,35 @@ public class AudioDispatcher
         mediaPlayer.setVolume(volume, volume);
         currentVolume = volume;
         mediaPlayer.setPlaybackParams(mediaPlayer.getPlaybackParams().setSpeed(1.0f));
-        mediaPlayer.prepare();
+        boolean traced = Tracing.begin("AudioDispatcher.prepare");
+        try {
+            mediaPlayer.prepare();
+        } finally {
+            Tracing.end(traced);
+        }
     }
 
     public void setOwner(AudioAsset asset) {
         owner = asset;
     }
 
+    public void setLatencyTracking(LatencyTracker tracker, String assetId) {
+        latencyTracker = tracker;
+        latencyAssetId = assetId;
+    }
+
     public double getDuration() {
         return mediaPlayer.getDuration() / 1000.0;
     }
 
     public void setCurrentPosition(double time) {
-        if (mediaState == PLAYING || mediaState == PAUSE) {
-            mediaPlayer.seekTo((int) (time * 1000));
+        boolean traced = Tracing.begin("AudioDispatcher.seek");
+        try {
+            if (mediaState == PLAYING || mediaState == PAUSE) {
+                mediaPlayer.seekTo((int) (time * 1000));
+            }
+        } finally {
+            Tracing.end(traced);
         }
     }
 
@@ -77,6 +96,7 @@ public class AudioDispatcher
         if (mediaPlayer.isPlaying()) {
             mediaPlayer.pause();
             mediaState = PAUSE;
+            setPlaying(false);
             return true;
         }
 
@@ -85,12 +105,14 @@ public class AudioDispatcher
 
     public void resume() throws Exception {
         mediaPlayer.start();
+        setPlaying(true);
     }
 
     public void stop() throws Exception {
         if (mediaPlayer.isPlaying()) {
             mediaState = INVALID;
             mediaPlayer.pause();
+            setPlaying(false);
             mediaPlayer.seekTo(0);
         }
     }
@@ -111,11 +133,14 @@ public class AudioDispatcher
     public void loop() throws Exception {
         mediaPlayer.setLooping(true);
         mediaPlayer.start();
+        setPlaying(true);
     }
 
     public void unload() throws Exception {
         this.stop();
         mediaPlayer.release();
+        EngineMetrics.mediaPlayerReleased();
+        setPlaying(false);
     }
 
     @Override
@@ -123,6 +148,7 @@ public class AudioDispatcher
         try {
             if (mediaState != LOOPING) {
                 this.mediaState = INVALID;
+                setPlaying(false);
 
                 this.stop();
 
@@ -131,7 +157,7 @@ public class AudioDispatcher
                 }
             }
         } catch (Exception ex) {
-            Log.d(TAG, "Caught exception while listening for onCompletion: " + ex.getLocalizedMessage());
+            logger.warning("Caught exception while listening for onCompletion", ex);
         }
     }
 
@@ -146,15 +172,20 @@ public class AudioDispatcher
                 mediaState = PREPARED;
             }
         } catch (Exception ex) {
-            Log.d(TAG, "Caught exception while listening for onPrepared: " + ex.getLocalizedMessage());
+            logger.warning("Caught exception while listening for onPrepared", ex);
         }
     }
 
     private void seek(Double time) {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            mediaPlayer.seekTo((int) (time * 1000), MediaPlayer.SEEK_NEXT_SYNC);
-        } else {
-            mediaPlayer.seekTo((int) (time * 1000));
+        boolean traced = Tracing.begin("AudioDispatcher.seek");
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                mediaPlayer.seekTo((int) (time * 1000), MediaPlayer.SEEK_NEXT_SYNC);
+            } else {
+                mediaPlayer.seekTo((int) (time * 1000));
+            }
+        } finally {
+            Tracing.end(traced);
         }
     }
 
@@ -164,6 +195,7 @@ public class AudioDispatcher
 
             if (playing) {
                 mediaPlayer.pause();
+                setPlaying(false);
                 mediaPlayer.setLooping(false);
                 mediaState = PENDING_PLAY;
                 seek(time);
@@ -179,16 +211,31 @@ public class AudioDispatcher
                 }
             }
         } catch (Exception ex) {
-            Log.d(TAG, "Caught exception while invoking audio: " + ex.getLocalizedMessage());
+            logger.warning("Caught exception while invoking audio", ex);
         }
     }
 
     @Override
     public void onSeekComplete(MediaPlayer mp) {
         if (mediaState == PENDING_PLAY || mediaState == PENDING_LOOP) {
-            Log.w("AudioDispatcher", "play " + mediaState);
+            logger.debug("play {}", mediaState);
+            if (latencyTracker != null) {
+                latencyTracker.markReady(latencyAssetId);
+            }
             mediaPlayer.start();
             mediaState = PLAYING;
+            setPlaying(true);
+            // MediaPlayer reports no render callback, start() returning is the closest observable point
+            if (latencyTracker != null) {
+                latencyTracker.markFirstFrame(latencyAssetId);
+            }
+        }
+    }
+
+    private void setPlaying(boolean playing) {
+        if (this.playing != playing) {
+            this.playing = playing;
+            EngineMetrics.voicePlaying(playing);
         }
     }
 
@@ -197,11 +244,15 @@ public class AudioDispatcher
         try {
             playing = mediaPlayer.isPlaying();
         } catch (IllegalStateException ex) {
-            Log.v(TAG, "Caught exception while checking if audio is playing: " + ex.getLocalizedMessage());
+            logger.verbose("Caught exception while checking if audio is playing: {}", ex);
         }
         return playing;
     }
 
+    public int getAudioSessionId() {
+        return mediaPlayer.getAudioSessionId();
+    }
+
     public boolean isPaused() {
         return mediaState == PAUSE;
     }
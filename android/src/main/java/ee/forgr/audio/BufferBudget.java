@@ -0,0 +1,228 @@
+package ee.forgr.audio;
+
+import androidx.media3.common.C;
+import androidx.media3.common.Timeline;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.DefaultLoadControl;
+import androidx.media3.exoplayer.LoadControl;
+import androidx.media3.exoplayer.analytics.PlayerId;
+import androidx.media3.exoplayer.source.MediaSource;
+import androidx.media3.exoplayer.source.TrackGroupArray;
+import androidx.media3.exoplayer.trackselection.ExoTrackSelection;
+import androidx.media3.exoplayer.upstream.Allocator;
+import androidx.media3.exoplayer.upstream.DefaultAllocator;
+
+/**
+ * One {@link DefaultAllocator} shared by every ExoPlayer of the plugin, plus a global ceiling on the memory
+ * they may hold in their buffers.
+ *
+ * Each player gets a {@link LoadControl} built from a {@link Profile}, which sets its own buffer durations.
+ * Memory is only bounded globally: once the shared allocator holds {@link #getCeilingBytes()} no player
+ * may load further, except a playing one that has less than its start threshold buffered, so loading more
+ * assets never grows total buffer memory past the ceiling.
+ */
+@UnstableApi
+public final class BufferBudget {
+
+    private static final String TAG = "BufferBudget";
+    private static final Logger logger = new Logger(TAG);
+
+    public static final long DEFAULT_CEILING_BYTES = 32L * 1024 * 1024;
+
+    /**
+     * Buffer profiles selectable per asset with the {@code bufferProfile} preload option.
+     */
+    public enum Profile {
+        /** Short clips: a few seconds ahead, no back buffer. */
+        SFX(1000, 5000, 250, 500, 0),
+        /** Remote files: enough to ride out a network hiccup without holding whole tracks. */
+        MUSIC(15000, 30000, 1000, 2500, 0),
+        /** HLS streams: live edge tolerant, with a short back buffer for small rewinds. */
+        LIVE(15000, 30000, 2500, 5000, 10000);
+
+        final int minBufferMs;
+        final int maxBufferMs;
+        final int bufferForPlaybackMs;
+        final int bufferForPlaybackAfterRebufferMs;
+        final int backBufferMs;
+
+        Profile(
+            int minBufferMs,
+            int maxBufferMs,
+            int bufferForPlaybackMs,
+            int bufferForPlaybackAfterRebufferMs,
+            int backBufferMs
+        ) {
+            this.minBufferMs = minBufferMs;
+            this.maxBufferMs = maxBufferMs;
+            this.bufferForPlaybackMs = bufferForPlaybackMs;
+            this.bufferForPlaybackAfterRebufferMs = bufferForPlaybackAfterRebufferMs;
+            this.backBufferMs = backBufferMs;
+        }
+
+        /**
+         * Parses the JS option value, falling back to {@code defaultProfile} for null or unknown names.
+         */
+        public static Profile fromString(String name, Profile defaultProfile) {
+            if (name == null) {
+                return defaultProfile;
+            }
+            for (Profile profile : values()) {
+                if (profile.name().equalsIgnoreCase(name)) {
+                    return profile;
+                }
+            }
+            logger.warning("Unknown buffer profile '" + name + "', using the default profile");
+            return defaultProfile;
+        }
+    }
+
+    private static final DefaultAllocator allocator = new DefaultAllocator(true, C.DEFAULT_BUFFER_SEGMENT_SIZE);
+    private static volatile long ceilingBytes = DEFAULT_CEILING_BYTES;
+    // Divides the ceiling while the system reports memory pressure
+    private static volatile int pressureDivisor = 1;
+
+    private BufferBudget() {}
+
+    public static void setCeilingBytes(long bytes) {
+        ceilingBytes = Math.max(C.DEFAULT_BUFFER_SEGMENT_SIZE, bytes);
+        logger.debug("Buffer memory ceiling set to " + ceilingBytes + " bytes");
+    }
+
+    /**
+     * Returns the effective ceiling, lowered while under memory pressure.
+     */
+    public static long getCeilingBytes() {
+        return Math.max(C.DEFAULT_BUFFER_SEGMENT_SIZE, ceilingBytes / pressureDivisor);
+    }
+
+    /**
+     * Shrinks the effective ceiling to {@code 1 / divisor} of the configured one, or restores it with 1.
+     */
+    public static void setPressureDivisor(int divisor) {
+        pressureDivisor = Math.max(1, divisor);
+    }
+
+    /**
+     * Frees the allocations the allocator keeps pooled for reuse.
+     */
+    public static void trim() {
+        allocator.trim();
+    }
+
+    public static DefaultAllocator getAllocator() {
+        return allocator;
+    }
+
+    /**
+     * Bytes currently held by all players' buffers.
+     */
+    public static long getAllocatedBytes() {
+        return allocator.getTotalBytesAllocated();
+    }
+
+    /**
+     * Creates a load control for one player drawing from the shared allocator.
+     */
+    public static LoadControl newLoadControl(Profile profile) {
+        return newLoadControl(profile, profile.backBufferMs);
+    }
+
+    /**
+     * Creates a load control for one player with the profile's durations but its own back buffer.
+     */
+    public static LoadControl newLoadControl(Profile profile, int backBufferMs) {
+        return new BudgetedLoadControl(newDefaultLoadControl(profile, backBufferMs), profile);
+    }
+
+    /**
+     * The per-player thresholds, purely time based. The delegate gets an allocator of its own that is never
+     * allocated from: given the shared one, it would compare the bytes of all players against a single player's
+     * target, and reset the shared target whenever one of its players is prepared or released.
+     */
+    static DefaultLoadControl newDefaultLoadControl(Profile profile, int backBufferMs) {
+        return new DefaultLoadControl.Builder()
+            .setAllocator(new DefaultAllocator(true, C.DEFAULT_BUFFER_SEGMENT_SIZE))
+            .setBufferDurationsMs(
+                profile.minBufferMs,
+                profile.maxBufferMs,
+                profile.bufferForPlaybackMs,
+                profile.bufferForPlaybackAfterRebufferMs
+            )
+            .setPrioritizeTimeOverSizeThresholds(true)
+            .setBackBuffer(backBufferMs, true)
+            .build();
+    }
+
+    static boolean isOverCeiling() {
+        return allocator.getTotalBytesAllocated() >= getCeilingBytes();
+    }
+
+    /**
+     * Forwards to a {@link DefaultLoadControl} and additionally stops loading once the global ceiling is hit.
+     */
+    private static final class BudgetedLoadControl implements LoadControl {
+
+        private final DefaultLoadControl delegate;
+        private final long startThresholdUs;
+
+        BudgetedLoadControl(DefaultLoadControl delegate, Profile profile) {
+            this.delegate = delegate;
+            this.startThresholdUs = profile.bufferForPlaybackAfterRebufferMs * 1000L;
+        }
+
+        @Override
+        public void onPrepared(PlayerId playerId) {
+            delegate.onPrepared(playerId);
+        }
+
+        @Override
+        public void onTracksSelected(Parameters parameters, TrackGroupArray trackGroups, ExoTrackSelection[] trackSelections) {
+            delegate.onTracksSelected(parameters, trackGroups, trackSelections);
+        }
+
+        @Override
+        public void onStopped(PlayerId playerId) {
+            delegate.onStopped(playerId);
+        }
+
+        @Override
+        public void onReleased(PlayerId playerId) {
+            delegate.onReleased(playerId);
+        }
+
+        @Override
+        public Allocator getAllocator() {
+            return allocator;
+        }
+
+        @Override
+        public long getBackBufferDurationUs(PlayerId playerId) {
+            return delegate.getBackBufferDurationUs(playerId);
+        }
+
+        @Override
+        public boolean retainBackBufferFromKeyframe(PlayerId playerId) {
+            return delegate.retainBackBufferFromKeyframe(playerId);
+        }
+
+        @Override
+        public boolean shouldContinueLoading(Parameters parameters) {
+            if (isOverCeiling()) {
+                // Only a playing player about to starve may dip into the ceiling
+                return parameters.playWhenReady && parameters.bufferedDurationUs < startThresholdUs;
+            }
+            return delegate.shouldContinueLoading(parameters);
+        }
+
+        @Override
+        public boolean shouldContinuePreloading(Timeline timeline, MediaSource.MediaPeriodId mediaPeriodId, long bufferedDurationUs) {
+            return !isOverCeiling() && delegate.shouldContinuePreloading(timeline, mediaPeriodId, bufferedDurationUs);
+        }
+
+        @Override
+        public boolean shouldStartPlayback(Parameters parameters) {
+            return delegate.shouldStartPlayback(parameters);
+        }
+    }
+}
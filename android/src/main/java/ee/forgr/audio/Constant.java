@@ -26,6 +26,31 @@ public class Constant {
     public static final String FADE_OUT_START_TIME = "fadeOutStartTime";
     public static final String SHOW_NOTIFICATION = "showNotification";
     public static final String NOTIFICATION_METADATA = "notificationMetadata";
+    public static final String MEDIA_SESSION_SERVICE = "mediaSessionService";
+    public static final String LOCAL_COPY = "localCopy";
+    public static final String QUEUE_ITEMS = "items";
+    public static final String PRELOAD_WINDOW_URLS = "urls";
+    public static final String PRELOAD_WINDOW_CURRENT_INDEX = "currentIndex";
+    public static final String PRELOAD_WINDOW_RANGES = "ranges";
+    public static final String BUFFER_PROFILE = "bufferProfile";
+    public static final String MAX_BUFFER_MEMORY_MB = "maxBufferMemoryMB";
+    public static final String STREAM_RETRY = "streamRetry";
+    public static final String TIME_SHIFT = "timeShift";
+    public static final String ADAPTIVE_BUFFER = "adaptiveBuffer";
+    public static final String CROSSFADE_FROM = "fromAssetId";
+    public static final String CROSSFADE_TO = "toAssetId";
+    public static final String CROSSFADE_CURVE = "curve";
+    public static final String CROSSFADE_OUTGOING = "outgoing";
+    public static final String METERING_ASSET_IDS = "assetIds";
+    public static final String METERING_INTERVAL_MS = "intervalMs";
+    public static final String METERING_BANDS = "bands";
+    public static final String WAVEFORM_BUCKETS = "buckets";
+    public static final String PLAY_ONCE_POOL = "playOncePool";
+    public static final String PREWARM = "prewarm";
+    public static final String PERSIST = "persist";
+    public static final String PRIORITY = "priority";
+    public static final String TRACING = "tracing";
+    public static final String CLEAR_LOGS = "clear";
     public static final int INVALID = 0;
     public static final int PREPARED = 1;
     public static final int PENDING_PLAY = 2;
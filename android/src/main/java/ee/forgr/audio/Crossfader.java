@@ -0,0 +1,223 @@
+package ee.forgr.audio;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import ee.forgr.audio.dsp.GainRamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs crossfades between two assets from a single main-thread clock.
+ *
+ * Both gains of a crossfade are computed from the same elapsed time on every tick, so the outgoing and the
+ * incoming curve stay aligned whatever player backs each asset. The incoming asset is started silent and the
+ * clock only starts once it actually plays, which covers the buffering of remote and streaming assets.
+ * Must be used on the main thread.
+ */
+public class Crossfader {
+
+    private static final String TAG = "Crossfader";
+    private static final Logger logger = new Logger(TAG);
+
+    static final long TICK_MS = 20;
+    // Give up waiting for the incoming asset after this long
+    static final long PREBUFFER_TIMEOUT_MS = 15000;
+    // RemoteAudioAsset reads a play volume of 0 as "keep the current volume"
+    private static final float SILENT_VOLUME = 0.001f;
+
+    public enum Curve {
+        EQUAL_POWER,
+        LINEAR;
+
+        public static Curve fromString(String name) {
+            return "linear".equalsIgnoreCase(name) ? LINEAR : EQUAL_POWER;
+        }
+
+        double outGain(double progress) {
+            return GainRamp.fadeOutGain(progress, this == EQUAL_POWER);
+        }
+
+        double inGain(double progress) {
+            return GainRamp.fadeInGain(progress, this == EQUAL_POWER);
+        }
+    }
+
+    public interface Callback {
+        void onFinished();
+
+        void onError(Exception error);
+    }
+
+    private static final class Fade {
+
+        final String fromId;
+        final String toId;
+        final AudioAsset from;
+        final AudioAsset to;
+        final long durationMs;
+        final Curve curve;
+        final boolean pauseOutgoing;
+        final float fromVolume;
+        final float restoreVolume;
+        final float toVolume;
+        final Callback callback;
+        final long requestedAtMs = SystemClock.uptimeMillis();
+        long startedAtMs = -1;
+        float currentOutGain;
+        float currentInGain;
+
+        Fade(
+            String fromId,
+            AudioAsset from,
+            float fromVolume,
+            float restoreVolume,
+            String toId,
+            AudioAsset to,
+            float toVolume,
+            long durationMs,
+            Curve curve,
+            boolean pauseOutgoing,
+            Callback callback
+        ) {
+            this.fromId = fromId;
+            this.from = from;
+            this.fromVolume = fromVolume;
+            this.restoreVolume = restoreVolume;
+            this.toId = toId;
+            this.to = to;
+            this.toVolume = toVolume;
+            this.durationMs = Math.max(TICK_MS, durationMs);
+            this.curve = curve;
+            this.pauseOutgoing = pauseOutgoing;
+            this.callback = callback;
+            this.currentOutGain = fromVolume;
+            this.currentInGain = 0;
+        }
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final List<Fade> fades = new ArrayList<>();
+    private final Runnable tick = this::tick;
+
+    /**
+     * Starts a crossfade. A running crossfade involving either asset is finished immediately, except that an
+     * asset it was fading in keeps its current level as the starting level of the new outgoing curve.
+     *
+     * @param fromVolume level the outgoing asset fades from and is restored to once stopped or paused
+     * @param toVolume   level the incoming asset fades to
+     */
+    public void start(
+        String fromId,
+        AudioAsset from,
+        float fromVolume,
+        String toId,
+        AudioAsset to,
+        float toVolume,
+        long durationMs,
+        Curve curve,
+        boolean pauseOutgoing,
+        Callback callback
+    ) throws Exception {
+        float restoreVolume = fromVolume;
+        for (Fade fade : new ArrayList<>(fades)) {
+            if (fade.toId.equals(fromId)) {
+                // Fading out a station that was still fading in: continue from where it is
+                fromVolume = fade.currentInGain;
+                restoreVolume = fade.toVolume;
+                finish(fade, false);
+            } else if (fade.fromId.equals(fromId) || fade.fromId.equals(toId) || fade.toId.equals(toId)) {
+                finish(fade, true);
+            }
+        }
+
+        to.setVolume(0);
+        to.play(0, SILENT_VOLUME);
+        fades.add(new Fade(fromId, from, fromVolume, restoreVolume, toId, to, toVolume, durationMs, curve, pauseOutgoing, callback));
+        logger.debug(() -> "Crossfading " + fromId + " to " + toId + " over " + durationMs + " ms");
+        handler.removeCallbacks(tick);
+        handler.post(tick);
+    }
+
+    private void tick() {
+        boolean traced = Tracing.begin("Crossfader.tick");
+        try {
+            long now = SystemClock.uptimeMillis();
+            for (Fade fade : new ArrayList<>(fades)) {
+                try {
+                    if (fade.startedAtMs < 0) {
+                        if (!fade.to.isPlaying()) {
+                            if (now - fade.requestedAtMs > PREBUFFER_TIMEOUT_MS) {
+                                fades.remove(fade);
+                                fade.to.stop();
+                                fade.callback.onError(new Exception("Timed out waiting for " + fade.toId + " to start"));
+                            }
+                            continue;
+                        }
+                        fade.startedAtMs = now;
+                    }
+                    double progress = Math.min(1, (double) (now - fade.startedAtMs) / fade.durationMs);
+                    fade.currentOutGain = (float) (fade.fromVolume * fade.curve.outGain(progress));
+                    fade.currentInGain = (float) (fade.toVolume * fade.curve.inGain(progress));
+                    fade.from.setVolume(fade.currentOutGain);
+                    fade.to.setVolume(fade.currentInGain);
+                    if (progress >= 1) {
+                        finish(fade, true);
+                    }
+                } catch (Exception e) {
+                    logger.error("Crossfade from " + fade.fromId + " to " + fade.toId + " failed", e);
+                    fades.remove(fade);
+                    fade.callback.onError(e);
+                }
+            }
+            if (!fades.isEmpty()) {
+                handler.postDelayed(tick, TICK_MS);
+            }
+        } finally {
+            Tracing.end(traced);
+        }
+    }
+
+    /**
+     * Ends a crossfade: the outgoing asset is stopped or paused and gets its level back for its next play.
+     *
+     * @param settleIncoming whether to set the incoming asset to its final level, false when another crossfade
+     *                       takes over from its current level
+     */
+    private void finish(Fade fade, boolean settleIncoming) throws Exception {
+        fades.remove(fade);
+        if (settleIncoming) {
+            fade.to.setVolume(fade.toVolume);
+        }
+        if (fade.pauseOutgoing) {
+            fade.from.pause();
+        } else {
+            fade.from.stop();
+        }
+        fade.from.setVolume(fade.restoreVolume);
+        logger.debug("Crossfade from {} to {} finished", fade.fromId, fade.toId);
+        fade.callback.onFinished();
+    }
+
+    /**
+     * Ends every crossfade involving the given asset, which is being stopped or unloaded by the caller. When it
+     * was the outgoing asset the incoming one jumps to its final level.
+     */
+    public void cancel(String assetId) {
+        for (Fade fade : new ArrayList<>(fades)) {
+            if (!fade.fromId.equals(assetId) && !fade.toId.equals(assetId)) {
+                continue;
+            }
+            fades.remove(fade);
+            try {
+                if (fade.fromId.equals(assetId)) {
+                    fade.from.setVolume(fade.restoreVolume);
+                    fade.to.setVolume(fade.toVolume);
+                }
+            } catch (Exception e) {
+                logger.error("Error settling cancelled crossfade", e);
+            }
+            fade.callback.onError(new Exception("Crossfade cancelled, " + assetId + " was stopped"));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package ee.forgr.audio;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * File naming and size limit shared by the plugin's disk caches.
+ */
+final class DiskCache {
+
+    private static final Logger logger = new Logger("DiskCache");
+
+    private DiskCache() {}
+
+    /**
+     * Returns a file name for the URL: the hex SHA-1 of it, or its hash code if SHA-1 is unavailable.
+     */
+    static String key(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return hex(digest.digest(url.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            return Integer.toHexString(url.hashCode());
+        }
+    }
+
+    static String hex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Deletes the least recently used files of the directory until it holds at most {@code maxBytes}. Files
+     * ending with {@code partialSuffix} are still being written and are neither counted nor deleted, and the
+     * most recent file is always kept.
+     */
+    static void trim(File dir, long maxBytes, String partialSuffix) {
+        File[] files = dir.listFiles((file) -> !file.getName().endsWith(partialSuffix));
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (int i = 0; i < files.length - 1 && total > maxBytes; i++) {
+            File file = files[i];
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+            } else {
+                logger.warning("Could not evict cached file " + file.getPath());
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package ee.forgr.audio;
+
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.DataSpec;
+import androidx.media3.datasource.TransferListener;
+import androidx.media3.datasource.cache.CacheDataSource;
+import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.analytics.AnalyticsListener;
+import com.getcapacitor.JSObject;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide counters behind {@code getEngineMetrics}.
+ *
+ * Counters are cheap enough for hot paths: one atomic update per player created or released, per PCM buffer
+ * rendered, per cache read and per event. Live counts are kept up to date where the resource is created and
+ * released, so a snapshot never has to walk the assets.
+ */
+@UnstableApi
+final class EngineMetrics {
+
+    // One-second event counts: the last 10 full seconds, averaged for the rate, plus the current one
+    private static final int RATE_WINDOW_SECONDS = 11;
+
+    private static final AtomicInteger mediaPlayers = new AtomicInteger();
+    private static final AtomicInteger exoPlayers = new AtomicInteger();
+    private static final AtomicInteger handlerThreads = new AtomicInteger();
+    private static final AtomicInteger playingVoices = new AtomicInteger();
+    private static final AtomicInteger queuedMainThreadTasks = new AtomicInteger();
+    private static final AtomicLong decodedBytes = new AtomicLong();
+    private static final AtomicLong cacheHitBytes = new AtomicLong();
+    private static final AtomicLong cacheMissBytes = new AtomicLong();
+    private static final AtomicLong mainThreadHops = new AtomicLong();
+    private static final AtomicLong eventsEmitted = new AtomicLong();
+    private static final AtomicLong eventsDropped = new AtomicLong();
+    private static final AtomicLong eventsCoalesced = new AtomicLong();
+
+    // Guarded by the class lock
+    private static final long[] eventBuckets = new long[RATE_WINDOW_SECONDS];
+    private static final long[] eventBucketSeconds = new long[RATE_WINDOW_SECONDS];
+
+    /**
+     * Counts the bytes read from the media cache, that is the hits.
+     */
+    static final CacheDataSource.EventListener CACHE_LISTENER = new CacheDataSource.EventListener() {
+        @Override
+        public void onCachedBytesRead(long cacheSizeBytes, long cachedBytesRead) {
+            cacheHitBytes.addAndGet(cachedBytesRead);
+        }
+
+        @Override
+        public void onCacheIgnored(int reason) {}
+    };
+
+    /**
+     * Counts the bytes downloaded behind the media cache, that is the misses.
+     */
+    static final TransferListener NETWORK_LISTENER = new TransferListener() {
+        @Override
+        public void onTransferInitializing(DataSource source, DataSpec dataSpec, boolean isNetwork) {}
+
+        @Override
+        public void onTransferStart(DataSource source, DataSpec dataSpec, boolean isNetwork) {}
+
+        @Override
+        public void onBytesTransferred(DataSource source, DataSpec dataSpec, boolean isNetwork, int bytesTransferred) {
+            if (isNetwork) {
+                cacheMissBytes.addAndGet(bytesTransferred);
+            }
+        }
+
+        @Override
+        public void onTransferEnd(DataSource source, DataSpec dataSpec, boolean isNetwork) {}
+    };
+
+    private EngineMetrics() {}
+
+    /**
+     * Counts the player until it is released, and as a playing voice while it plays.
+     */
+    static ExoPlayer track(ExoPlayer player) {
+        exoPlayers.incrementAndGet();
+        player.addAnalyticsListener(
+            new AnalyticsListener() {
+                private boolean playing;
+
+                @Override
+                public void onIsPlayingChanged(EventTime eventTime, boolean isPlaying) {
+                    if (isPlaying != playing) {
+                        playing = isPlaying;
+                        voicePlaying(isPlaying);
+                    }
+                }
+
+                @Override
+                public void onPlayerReleased(EventTime eventTime) {
+                    exoPlayers.decrementAndGet();
+                    if (playing) {
+                        playing = false;
+                        voicePlaying(false);
+                    }
+                }
+            }
+        );
+        return player;
+    }
+
+    /**
+     * Called by each player when it starts or stops producing sound.
+     */
+    static void voicePlaying(boolean playing) {
+        int count = playing ? playingVoices.incrementAndGet() : playingVoices.decrementAndGet();
+        Tracing.counter("NativeAudio.activeVoices", count);
+    }
+
+    static void mediaPlayerCreated() {
+        mediaPlayers.incrementAndGet();
+    }
+
+    static void mediaPlayerReleased() {
+        mediaPlayers.decrementAndGet();
+    }
+
+    /**
+     * A HandlerThread that is counted while its looper runs.
+     */
+    static HandlerThread newHandlerThread(String name, int priority) {
+        return new HandlerThread(name, priority) {
+            @Override
+            public void run() {
+                handlerThreads.incrementAndGet();
+                try {
+                    super.run();
+                } finally {
+                    handlerThreads.decrementAndGet();
+                }
+            }
+        };
+    }
+
+    static void addDecodedBytes(int bytes) {
+        decodedBytes.addAndGet(bytes);
+    }
+
+    /**
+     * Counts a task posted to the main thread from another thread. The returned task must be the one posted, it
+     * keeps the count of tasks still waiting to run.
+     */
+    static Runnable mainThreadHop(Runnable action) {
+        mainThreadHops.incrementAndGet();
+        Tracing.counter("NativeAudio.queuedMainThreadTasks", queuedMainThreadTasks.incrementAndGet());
+        return () -> {
+            Tracing.counter("NativeAudio.queuedMainThreadTasks", queuedMainThreadTasks.decrementAndGet());
+            action.run();
+        };
+    }
+
+    /**
+     * @param delivered false when no listener was registered and the event was not retained
+     */
+    static void eventEmitted(boolean delivered) {
+        eventsEmitted.incrementAndGet();
+        if (!delivered) {
+            eventsDropped.incrementAndGet();
+        }
+        long second = SystemClock.elapsedRealtime() / 1000;
+        int index = (int) (second % RATE_WINDOW_SECONDS);
+        synchronized (EngineMetrics.class) {
+            if (eventBucketSeconds[index] != second) {
+                eventBucketSeconds[index] = second;
+                eventBuckets[index] = 0;
+            }
+            eventBuckets[index]++;
+        }
+    }
+
+    /**
+     * Counts an update that was folded into a later event instead of being emitted.
+     */
+    static void eventCoalesced() {
+        eventsCoalesced.incrementAndGet();
+    }
+
+    private static synchronized double eventsPerSecond() {
+        long now = SystemClock.elapsedRealtime() / 1000;
+        long total = 0;
+        for (int i = 0; i < RATE_WINDOW_SECONDS; i++) {
+            // The current second is still filling up and is left out
+            long age = now - eventBucketSeconds[i];
+            if (age >= 1 && age < RATE_WINDOW_SECONDS) {
+                total += eventBuckets[i];
+            }
+        }
+        return (double) total / (RATE_WINDOW_SECONDS - 1);
+    }
+
+    /**
+     * Snapshot of the process-wide counters. The plugin adds what only it knows about, such as active voices.
+     */
+    static JSObject snapshot() {
+        long hits = cacheHitBytes.get();
+        long misses = cacheMissBytes.get();
+        JSObject ret = new JSObject();
+        ret.put("mediaPlayers", mediaPlayers.get());
+        ret.put("exoPlayers", exoPlayers.get());
+        ret.put("handlerThreads", handlerThreads.get());
+        ret.put("fadeThreads", AudioAsset.getFadeThreadCount());
+        ret.put("scheduledFades", AudioAsset.getScheduledFadeCount());
+        ret.put("decodedBytes", decodedBytes.get());
+        ret.put("cacheBytes", RemoteAudioAsset.getCacheSpace());
+        ret.put("cacheHitBytes", hits);
+        ret.put("cacheMissBytes", misses);
+        ret.put("cacheHitRatio", hits + misses > 0 ? (double) hits / (hits + misses) : 0.0);
+        ret.put("eventsEmitted", eventsEmitted.get());
+        ret.put("eventsPerSecond", eventsPerSecond());
+        ret.put("eventsDropped", eventsDropped.get());
+        ret.put("eventsCoalesced", eventsCoalesced.get());
+        ret.put("mainThreadHops", mainThreadHops.get());
+        ret.put("queuedMainThreadTasks", queuedMainThreadTasks.get());
+        return ret;
+    }
+}
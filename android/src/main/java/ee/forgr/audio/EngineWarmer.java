@@ -0,0 +1,176 @@
+package ee.forgr.audio;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioTrack;
+import android.media.MediaCodec;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import androidx.media3.common.MimeTypes;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.mediacodec.MediaCodecUtil;
+import com.getcapacitor.JSObject;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pays the one-time costs of the first play on a background thread: opening the media cache, loading the
+ * codec list and decoders, loading and building an ExoPlayer, and opening an audio output stream.
+ *
+ * Runs at most once per process. Each step is timed and a failing step does not stop the others.
+ */
+@UnstableApi
+class EngineWarmer {
+
+    private static final String TAG = "EngineWarmer";
+    private static final Logger logger = new Logger(TAG);
+
+    private static final String[] DECODER_MIME_TYPES = { MimeTypes.AUDIO_AAC, MimeTypes.AUDIO_MPEG, MimeTypes.AUDIO_OPUS };
+    // Long enough for the output stream to actually start
+    private static final int SILENCE_MS = 50;
+
+    public interface Callback {
+        /**
+         * Invoked on the warm-up thread.
+         */
+        void onWarmedUp(JSObject timings);
+    }
+
+    private final Context context;
+    // Guarded by this
+    private JSObject result;
+    private boolean running;
+    private final List<Callback> callbacks = new ArrayList<>();
+
+    EngineWarmer(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * Starts the warm-up unless it already ran. The callback, which may be null, gets the timings of the run.
+     */
+    void warmUp(Callback callback) {
+        JSObject done;
+        synchronized (this) {
+            done = result;
+            if (done == null) {
+                if (callback != null) {
+                    callbacks.add(callback);
+                }
+                if (running) {
+                    return;
+                }
+                running = true;
+            }
+        }
+        if (done != null) {
+            if (callback != null) {
+                callback.onWarmedUp(done);
+            }
+            return;
+        }
+        HandlerThread thread = EngineMetrics.newHandlerThread("NativeAudioWarmUp", android.os.Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        new Handler(thread.getLooper()).post(() -> {
+            JSObject timings = run(thread);
+            thread.quitSafely();
+            List<Callback> waiting;
+            synchronized (this) {
+                result = timings;
+                running = false;
+                waiting = new ArrayList<>(callbacks);
+                callbacks.clear();
+            }
+            for (Callback waiter : waiting) {
+                waiter.onWarmedUp(timings);
+            }
+        });
+    }
+
+    private JSObject run(HandlerThread thread) {
+        long start = SystemClock.elapsedRealtime();
+        JSObject timings = new JSObject();
+
+        long stepStart = SystemClock.elapsedRealtime();
+        try {
+            RemoteAudioAsset.getCache(context);
+        } catch (Exception e) {
+            logger.warning("Could not open the media cache: " + e.getMessage());
+        }
+        timings.put("cacheMs", SystemClock.elapsedRealtime() - stepStart);
+
+        stepStart = SystemClock.elapsedRealtime();
+        for (String mimeType : DECODER_MIME_TYPES) {
+            try {
+                // Fills ExoPlayer's decoder lookup cache, then loads the codec itself
+                MediaCodecUtil.getDecoderInfos(mimeType, false, false);
+                MediaCodec codec = MediaCodec.createDecoderByType(mimeType);
+                codec.release();
+            } catch (Exception e) {
+                logger.debug("No decoder warmed up for " + mimeType + ": " + e.getMessage());
+            }
+        }
+        timings.put("decodersMs", SystemClock.elapsedRealtime() - stepStart);
+
+        stepStart = SystemClock.elapsedRealtime();
+        try {
+            ExoPlayer player = EngineMetrics.track(new ExoPlayer.Builder(context).setLooper(thread.getLooper()).build());
+            player.release();
+        } catch (Exception e) {
+            logger.warning("Could not build a player: " + e.getMessage());
+        }
+        timings.put("playerMs", SystemClock.elapsedRealtime() - stepStart);
+
+        stepStart = SystemClock.elapsedRealtime();
+        playSilence();
+        timings.put("outputMs", SystemClock.elapsedRealtime() - stepStart);
+
+        timings.put("totalMs", SystemClock.elapsedRealtime() - start);
+        logger.debug("Warmed up in " + timings.optLong("totalMs") + " ms: " + timings);
+        return timings;
+    }
+
+    private void playSilence() {
+        int sampleRate = AudioTrack.getNativeOutputSampleRate(AudioManager.STREAM_MUSIC);
+        int minBufferBytes = AudioTrack.getMinBufferSize(sampleRate, AudioFormat.CHANNEL_OUT_STEREO, AudioFormat.ENCODING_PCM_16BIT);
+        if (minBufferBytes <= 0) {
+            return;
+        }
+        // Two channels of 16 bit samples
+        byte[] silence = new byte[Math.max(minBufferBytes, (sampleRate * SILENCE_MS / 1000) * 4)];
+        AudioTrack track = null;
+        try {
+            track = new AudioTrack.Builder()
+                .setAudioAttributes(
+                    new AudioAttributes.Builder()
+                        .setUsage(AudioAttributes.USAGE_MEDIA)
+                        .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
+                        .build()
+                )
+                .setAudioFormat(
+                    new AudioFormat.Builder()
+                        .setSampleRate(sampleRate)
+                        .setChannelMask(AudioFormat.CHANNEL_OUT_STEREO)
+                        .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
+                        .build()
+                )
+                .setBufferSizeInBytes(silence.length)
+                .setTransferMode(AudioTrack.MODE_STREAM)
+                .build();
+            track.play();
+            // Blocking write, returns once the silence is queued to the output stream
+            track.write(silence, 0, silence.length);
+            track.stop();
+        } catch (Exception e) {
+            logger.warning("Could not open an output stream: " + e.getMessage());
+        } finally {
+            if (track != null) {
+                track.release();
+            }
+        }
+    }
+}
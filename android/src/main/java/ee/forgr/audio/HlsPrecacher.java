@@ -0,0 +1,116 @@
+package ee.forgr.audio;
+
+import android.net.Uri;
+import androidx.media3.common.C;
+import androidx.media3.common.MediaItem;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.DefaultHttpDataSource;
+import androidx.media3.datasource.cache.CacheDataSource;
+import androidx.media3.exoplayer.hls.offline.HlsDownloader;
+import androidx.media3.exoplayer.hls.playlist.HlsMediaPlaylist;
+import androidx.media3.exoplayer.hls.playlist.HlsMultivariantPlaylist;
+import androidx.media3.exoplayer.hls.playlist.HlsPlaylist;
+import androidx.media3.exoplayer.hls.playlist.HlsPlaylistParser;
+import androidx.media3.exoplayer.upstream.ParsingLoadable;
+import ee.forgr.audio.dsp.ProgressCoalescer;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Downloads every segment of a VOD HLS stream into the shared media cache, so it later plays without network.
+ * Live streams are rejected: their playlists change on every reload and must never be served from the cache.
+ *
+ * Runs synchronously on the calling thread and is meant to be submitted to an executor; interrupting that
+ * thread cancels the download. Progress and the outcome are reported to the plugin. Like
+ * {@link StreamAudioAsset}, this class is only compiled when HLS support is included and is created by
+ * reflection.
+ */
+@UnstableApi
+public class HlsPrecacher implements Runnable {
+
+    private static final String TAG = "HlsPrecacher";
+    private static final Logger logger = new Logger(TAG);
+    private static final float PROGRESS_STEP_PERCENT = 1f;
+
+    private final NativeAudio owner;
+    private final String url;
+    private final Map<String, String> headers;
+    private final ProgressCoalescer progress = new ProgressCoalescer(PROGRESS_STEP_PERCENT, 0);
+
+    public HlsPrecacher(NativeAudio owner, String url, Map<String, String> headers) {
+        this.owner = owner;
+        this.url = url;
+        this.headers = headers;
+    }
+
+    @Override
+    public void run() {
+        DefaultHttpDataSource.Factory httpDataSourceFactory = new DefaultHttpDataSource.Factory()
+            .setAllowCrossProtocolRedirects(true)
+            .setConnectTimeoutMs(15000)
+            .setReadTimeoutMs(15000);
+        if (headers != null && !headers.isEmpty()) {
+            httpDataSourceFactory.setDefaultRequestProperties(headers);
+        }
+        CacheDataSource.Factory cacheDataSourceFactory = new CacheDataSource.Factory()
+            .setCache(RemoteAudioAsset.getCache(owner.getContext()))
+            .setUpstreamDataSourceFactory(httpDataSourceFactory);
+
+        HlsDownloader downloader = new HlsDownloader(MediaItem.fromUri(Uri.parse(url)), cacheDataSourceFactory);
+        try {
+            // Straight from the network, a live playlist must not end up in the cache
+            HlsMediaPlaylist playlist = loadMediaPlaylist(httpDataSourceFactory);
+            if (!playlist.hasEndTag && playlist.playlistType != HlsMediaPlaylist.PLAYLIST_TYPE_VOD) {
+                owner.onPrecacheFinished(url, new Exception("Live streams cannot be precached"));
+                return;
+            }
+            logger.debug("Precaching " + url);
+            downloader.download((contentLength, bytesDownloaded, percentDownloaded) -> {
+                int decision = progress.offer(percentDownloaded, 0, percentDownloaded >= 100f);
+                if (decision == ProgressCoalescer.EMIT) {
+                    owner.notifyPrecacheProgress(url, percentDownloaded, bytesDownloaded);
+                } else if (decision == ProgressCoalescer.COALESCED) {
+                    EngineMetrics.eventCoalesced();
+                }
+            });
+            VodPlaylists.mark(owner.getContext(), url);
+            owner.onPrecacheFinished(url, null);
+        } catch (InterruptedException e) {
+            downloader.cancel();
+            Thread.currentThread().interrupt();
+            owner.onPrecacheFinished(url, new Exception("Precache cancelled"));
+        } catch (Exception e) {
+            logger.error("Precache of " + url + " failed", e);
+            owner.onPrecacheFinished(url, e);
+        }
+    }
+
+    /**
+     * Loads the playlist, or the first media playlist of a multivariant one, whose type all variants share.
+     */
+    private HlsMediaPlaylist loadMediaPlaylist(DataSource.Factory dataSourceFactory) throws IOException {
+        HlsPlaylist playlist = ParsingLoadable.load(
+            dataSourceFactory.createDataSource(),
+            new HlsPlaylistParser(),
+            Uri.parse(url),
+            C.DATA_TYPE_MANIFEST
+        );
+        if (playlist instanceof HlsMultivariantPlaylist) {
+            HlsMultivariantPlaylist multivariant = (HlsMultivariantPlaylist) playlist;
+            if (multivariant.mediaPlaylistUrls.isEmpty()) {
+                throw new IOException("No media playlist in " + url);
+            }
+            playlist = ParsingLoadable.load(
+                dataSourceFactory.createDataSource(),
+                new HlsPlaylistParser(),
+                multivariant.mediaPlaylistUrls.get(0),
+                C.DATA_TYPE_MANIFEST
+            );
+        }
+        if (!(playlist instanceof HlsMediaPlaylist)) {
+            throw new IOException("Not a media playlist: " + url);
+        }
+        return (HlsMediaPlaylist) playlist;
+    }
+}
@@ -0,0 +1,248 @@
+package ee.forgr.audio;
+
+import android.os.SystemClock;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.analytics.AnalyticsListener;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Measures how long a {@code play} call takes to produce sound.
+ *
+ * Each play records the time the bridge received the call, then when it was dispatched on the main thread,
+ * when the player was ready to start and when the first audio frame was rendered. Every stage is measured from
+ * bridge receipt and added to a per-asset and a global histogram. A stage that a player cannot observe is
+ * simply not recorded for that play.
+ */
+@UnstableApi
+public class LatencyTracker {
+
+    private static final String TAG = "LatencyTracker";
+    private static final Logger logger = new Logger(TAG);
+
+    /** Upper bounds of the histogram buckets, the last bucket counts everything above the last bound. */
+    static final long[] BUCKET_BOUNDS_MS = { 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000 };
+
+    public enum Stage {
+        DISPATCH("dispatch"),
+        READY("ready"),
+        FIRST_FRAME("firstFrame");
+
+        final String key;
+
+        Stage(String key) {
+            this.key = key;
+        }
+    }
+
+    private static final class Pending {
+
+        final long receivedMs;
+        long dispatchedMs = -1;
+        long readyMs = -1;
+
+        Pending(long receivedMs) {
+            this.receivedMs = receivedMs;
+        }
+    }
+
+    static final class Histogram {
+
+        private final long[] counts = new long[BUCKET_BOUNDS_MS.length + 1];
+        private long count;
+        private long sumMs;
+        private long minMs = Long.MAX_VALUE;
+        private long maxMs;
+
+        synchronized void record(long ms) {
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MS.length && ms > BUCKET_BOUNDS_MS[bucket]) {
+                bucket++;
+            }
+            counts[bucket]++;
+            count++;
+            sumMs += ms;
+            minMs = Math.min(minMs, ms);
+            maxMs = Math.max(maxMs, ms);
+        }
+
+        /**
+         * Returns the upper bound of the bucket holding the given percentile, or the maximum for the overflow bucket.
+         */
+        synchronized long percentile(double fraction) {
+            if (count == 0) {
+                return 0;
+            }
+            long threshold = (long) Math.ceil(count * fraction);
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                if (cumulative >= threshold) {
+                    return i < BUCKET_BOUNDS_MS.length ? Math.min(BUCKET_BOUNDS_MS[i], maxMs) : maxMs;
+                }
+            }
+            return maxMs;
+        }
+
+        synchronized JSObject toJSObject() {
+            JSObject ret = new JSObject();
+            ret.put("count", count);
+            ret.put("minMs", count > 0 ? minMs : 0);
+            ret.put("maxMs", maxMs);
+            ret.put("meanMs", count > 0 ? (double) sumMs / count : 0);
+            ret.put("p50Ms", percentile(0.5));
+            ret.put("p95Ms", percentile(0.95));
+            JSArray bounds = new JSArray();
+            for (long bound : BUCKET_BOUNDS_MS) {
+                bounds.put(bound);
+            }
+            JSArray bucketCounts = new JSArray();
+            for (long bucketCount : counts) {
+                bucketCounts.put(bucketCount);
+            }
+            ret.put("upperBoundsMs", bounds);
+            ret.put("counts", bucketCounts);
+            return ret;
+        }
+    }
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final Map<String, EnumMap<Stage, Histogram>> perAsset = new ConcurrentHashMap<>();
+    private volatile EnumMap<Stage, Histogram> global = newHistograms();
+
+    private static EnumMap<Stage, Histogram> newHistograms() {
+        EnumMap<Stage, Histogram> histograms = new EnumMap<>(Stage.class);
+        for (Stage stage : Stage.values()) {
+            histograms.put(stage, new Histogram());
+        }
+        return histograms;
+    }
+
+    /** The bridge received a play call. Starts a new measurement, dropping any unfinished one. */
+    public void markReceived(String assetId) {
+        if (assetId != null) {
+            pending.put(assetId, new Pending(SystemClock.elapsedRealtime()));
+        }
+    }
+
+    /** The play call runs on the main thread. */
+    public void markDispatched(String assetId) {
+        Pending sample = assetId != null ? pending.get(assetId) : null;
+        if (sample != null && sample.dispatchedMs < 0) {
+            sample.dispatchedMs = SystemClock.elapsedRealtime();
+        }
+    }
+
+    /** The player is prepared and about to start. */
+    public void markReady(String assetId) {
+        Pending sample = assetId != null ? pending.get(assetId) : null;
+        if (sample != null && sample.readyMs < 0) {
+            sample.readyMs = SystemClock.elapsedRealtime();
+        }
+    }
+
+    /** The first audio frame was rendered now. Completes the measurement. */
+    public void markFirstFrame(String assetId) {
+        completeSample(assetId, SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * The first audio frame was rendered at the given wall clock time, as reported by
+     * {@link AnalyticsListener#onAudioPositionAdvancing}. Completes the measurement.
+     */
+    public void markFirstFrameAt(String assetId, long playoutStartSystemTimeMs) {
+        long ageMs = Math.max(0, System.currentTimeMillis() - playoutStartSystemTimeMs);
+        completeSample(assetId, SystemClock.elapsedRealtime() - ageMs);
+    }
+
+    /** Drops the unfinished measurement of an asset, for instance when it is stopped before producing sound. */
+    public void discard(String assetId) {
+        if (assetId != null) {
+            pending.remove(assetId);
+        }
+    }
+
+    /** Drops everything recorded for an asset, when it is unloaded. The global histograms keep its samples. */
+    public void remove(String assetId) {
+        if (assetId != null) {
+            pending.remove(assetId);
+            perAsset.remove(assetId);
+        }
+    }
+
+    private void completeSample(String assetId, long firstFrameMs) {
+        Pending sample = assetId != null ? pending.remove(assetId) : null;
+        if (sample == null) {
+            return;
+        }
+        EnumMap<Stage, Histogram> assetHistograms = perAsset.computeIfAbsent(assetId, (id) -> newHistograms());
+        EnumMap<Stage, Histogram> globalHistograms = global;
+        record(assetHistograms, globalHistograms, Stage.DISPATCH, sample.dispatchedMs, sample.receivedMs);
+        record(assetHistograms, globalHistograms, Stage.READY, sample.readyMs, sample.receivedMs);
+        record(assetHistograms, globalHistograms, Stage.FIRST_FRAME, firstFrameMs, sample.receivedMs);
+        logger.debug(() -> "Start latency for " + assetId + ": " + (firstFrameMs - sample.receivedMs) + " ms");
+    }
+
+    private static void record(
+        EnumMap<Stage, Histogram> assetHistograms,
+        EnumMap<Stage, Histogram> globalHistograms,
+        Stage stage,
+        long stageMs,
+        long receivedMs
+    ) {
+        if (stageMs < 0) {
+            return;
+        }
+        long latencyMs = Math.max(0, stageMs - receivedMs);
+        assetHistograms.get(stage).record(latencyMs);
+        globalHistograms.get(stage).record(latencyMs);
+    }
+
+    /**
+     * Returns a listener reporting the first rendered frame of an ExoPlayer to this tracker.
+     *
+     * @param assetId read on every event, so the listener follows an asset reassigned to another id
+     */
+    public AnalyticsListener newAnalyticsListener(final Supplier<String> assetId) {
+        return new AnalyticsListener() {
+            @Override
+            public void onAudioPositionAdvancing(EventTime eventTime, long playoutStartSystemTimeMs) {
+                markFirstFrameAt(assetId.get(), playoutStartSystemTimeMs);
+            }
+        };
+    }
+
+    /**
+     * Serializes the histograms. When assetId is set only that asset is included in {@code assets}.
+     */
+    public JSObject toJSObject(String assetId) {
+        JSObject ret = new JSObject();
+        ret.put("global", toJSObject(global));
+        JSObject assets = new JSObject();
+        for (Map.Entry<String, EnumMap<Stage, Histogram>> entry : perAsset.entrySet()) {
+            if (assetId == null || assetId.equals(entry.getKey())) {
+                assets.put(entry.getKey(), toJSObject(entry.getValue()));
+            }
+        }
+        ret.put("assets", assets);
+        return ret;
+    }
+
+    private static JSObject toJSObject(EnumMap<Stage, Histogram> histograms) {
+        JSObject ret = new JSObject();
+        for (Map.Entry<Stage, Histogram> entry : histograms.entrySet()) {
+            ret.put(entry.getKey().key, entry.getValue().toJSObject());
+        }
+        return ret;
+    }
+
+    public void reset() {
+        pending.clear();
+        perAsset.clear();
+        global = newHistograms();
+    }
+}
@@ -0,0 +1,145 @@
+package ee.forgr.audio;
+
+import androidx.media3.common.C;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.audio.TeeAudioProcessor;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import ee.forgr.audio.dsp.LevelAccumulator;
+import ee.forgr.audio.dsp.Spectrum;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Measures the PCM an ExoPlayer renders, fed by a {@link TeeAudioProcessor} in the player's audio sink.
+ *
+ * The audio thread only accumulates the peak and the sum of squares and copies a mono mix into a ring
+ * window. {@link #read} turns them into levels, and optionally runs the FFT, on the metering thread. All
+ * buffers are allocated once. Nothing is measured while metering is off.
+ */
+@UnstableApi
+public class LevelMeter implements TeeAudioProcessor.AudioBufferSink {
+
+    static final int FFT_SIZE = 1024;
+    private static final float SILENCE_DB = -100f;
+
+    private static volatile boolean enabled = false;
+
+    /**
+     * Levels of one asset since the previous read. Reused between reads.
+     */
+    public static final class Reading {
+
+        float peak;
+        float rms;
+        final float[] bands;
+
+        public Reading(int bandCount) {
+            this.bands = new float[bandCount];
+        }
+
+        JSObject toJSObject(String assetId) {
+            JSObject ret = new JSObject();
+            ret.put("assetId", assetId);
+            ret.put("peak", peak);
+            ret.put("rms", rms);
+            ret.put("peakDb", toDb(peak));
+            ret.put("rmsDb", toDb(rms));
+            if (bands.length > 0) {
+                JSArray bandArray = new JSArray();
+                for (float band : bands) {
+                    bandArray.put((double) band);
+                }
+                ret.put("bands", bandArray);
+            }
+            return ret;
+        }
+
+        private static double toDb(float level) {
+            return level > 0 ? Math.max(SILENCE_DB, 20 * Math.log10(level)) : SILENCE_DB;
+        }
+    }
+
+    private int sampleRateHz;
+    private int channelCount;
+    private int encoding = C.ENCODING_INVALID;
+    private final LevelAccumulator levels = new LevelAccumulator(FFT_SIZE);
+    // Only touched by the reader
+    private final float[] re = new float[FFT_SIZE];
+    private final float[] im = new float[FFT_SIZE];
+    private final float[] hann = new float[FFT_SIZE];
+
+    public LevelMeter() {
+        for (int i = 0; i < FFT_SIZE; i++) {
+            hann[i] = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * i / (FFT_SIZE - 1)));
+        }
+    }
+
+    public static void setEnabled(boolean enabled) {
+        LevelMeter.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public synchronized void flush(int sampleRateHz, int channelCount, int encoding) {
+        this.sampleRateHz = sampleRateHz;
+        this.channelCount = Math.max(1, channelCount);
+        this.encoding = encoding;
+        levels.reset();
+    }
+
+    @Override
+    public void handleBuffer(ByteBuffer buffer) {
+        EngineMetrics.addDecodedBytes(buffer.remaining());
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            int bytesPerSample;
+            if (encoding == C.ENCODING_PCM_16BIT) {
+                bytesPerSample = 2;
+            } else if (encoding == C.ENCODING_PCM_FLOAT) {
+                bytesPerSample = 4;
+            } else {
+                return;
+            }
+            levels.add(buffer.order(ByteOrder.nativeOrder()), bytesPerSample, channelCount);
+        }
+    }
+
+    /**
+     * Fills {@code reading} with the levels since the previous read and resets them.
+     *
+     * @return false when nothing was rendered since the previous read
+     */
+    public boolean read(Reading reading) {
+        int sampleRate;
+        synchronized (this) {
+            if (levels.getSampleCount() == 0) {
+                return false;
+            }
+            reading.peak = levels.getPeak();
+            reading.rms = levels.getRms();
+            levels.reset();
+            if (reading.bands.length == 0) {
+                return true;
+            }
+            levels.copyWindow(hann, re);
+            Arrays.fill(im, 0f);
+            sampleRate = sampleRateHz;
+        }
+        Spectrum.fft(re, im);
+        int binCount = FFT_SIZE / 2;
+        // A full scale sine under a Hann window peaks at N / 4
+        float scale = 4f / FFT_SIZE;
+        for (int bin = 0; bin < binCount; bin++) {
+            re[bin] = (float) Math.hypot(re[bin], im[bin]) * scale;
+        }
+        Spectrum.toBands(re, binCount, (float) sampleRate / FFT_SIZE, reading.bands);
+        return true;
+    }
+}
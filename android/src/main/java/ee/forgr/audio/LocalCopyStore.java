@@ -0,0 +1,203 @@
+package ee.forgr.audio;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.DataSpec;
+import androidx.media3.datasource.DefaultHttpDataSource;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Downloads a remote audio file once into a local copy, so later plays can use the local {@link AudioAsset}
+ * path instead of streaming through ExoPlayer.
+ *
+ * The file is kept as downloaded: the start latency gain comes from reading a local file. The directory keeps
+ * its most recently used files up to {@link #MAX_CACHE_BYTES}.
+ */
+@UnstableApi
+public class LocalCopyStore {
+
+    private static final String TAG = "LocalCopyStore";
+    private static final Logger logger = new Logger(TAG);
+    private static final String CACHE_DIR = "local-copies";
+    private static final String PARTIAL_SUFFIX = ".download";
+    static final long MAX_CACHE_BYTES = 100 * 1024 * 1024;
+
+    public interface Callback {
+        void onDownloaded(File file);
+
+        void onError(Exception error);
+    }
+
+    private final Context context;
+    private final ExecutorService downloadExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Only touched on the main thread
+    private final Map<String, List<Callback>> pendingCallbacks = new HashMap<>();
+
+    public LocalCopyStore(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * Returns the local copy of the given URL if a previous run already downloaded it.
+     *
+     * @param url remote URL of the source file
+     * @return the local file, or null when it has not been downloaded yet
+     */
+    public File getLocalCopy(String url) {
+        File file = outputFileFor(url);
+        if (!file.exists() || file.length() == 0) {
+            return null;
+        }
+        // The modification time orders the files for eviction
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    /**
+     * Downloads the given URL in the background. Concurrent requests for the same URL share a single download.
+     * Callbacks are always invoked on the main thread.
+     */
+    public void download(final String url, final Map<String, String> headers, final Callback callback) {
+        mainHandler.post(() -> {
+            File existing = getLocalCopy(url);
+            if (existing != null) {
+                callback.onDownloaded(existing);
+                return;
+            }
+            List<Callback> callbacks = pendingCallbacks.get(url);
+            if (callbacks != null) {
+                callbacks.add(callback);
+                return;
+            }
+            callbacks = new ArrayList<>();
+            callbacks.add(callback);
+            pendingCallbacks.put(url, callbacks);
+
+            downloadExecutor.execute(() -> {
+                try {
+                    File file = downloadNow(url, headers);
+                    mainHandler.post(() -> finish(url, file, null));
+                } catch (Exception e) {
+                    mainHandler.post(() -> finish(url, null, e));
+                }
+            });
+        });
+    }
+
+    private File downloadNow(String url, Map<String, String> headers) throws Exception {
+        File output = outputFileFor(url);
+        File partial = new File(output.getPath() + PARTIAL_SUFFIX);
+        logger.debug("Downloading {} to a local file", url);
+
+        DefaultHttpDataSource.Factory factory = new DefaultHttpDataSource.Factory()
+            .setAllowCrossProtocolRedirects(true)
+            .setConnectTimeoutMs(15000)
+            .setReadTimeoutMs(15000);
+        if (headers != null && !headers.isEmpty()) {
+            factory.setDefaultRequestProperties(headers);
+        }
+
+        DefaultHttpDataSource dataSource = factory.createDataSource();
+        try {
+            try (OutputStream out = new FileOutputStream(partial)) {
+                dataSource.open(new DataSpec(Uri.parse(url)));
+                byte[] buffer = new byte[16 * 1024];
+                int read;
+                while ((read = dataSource.read(buffer, 0, buffer.length)) != androidx.media3.common.C.RESULT_END_OF_INPUT) {
+                    out.write(buffer, 0, read);
+                }
+            } finally {
+                dataSource.close();
+            }
+            if (!partial.renameTo(output)) {
+                throw new Exception("Failed to move downloaded file into place");
+            }
+        } finally {
+            // Only left over when the download or the rename failed
+            partial.delete();
+        }
+        logger.debug(() -> "Downloaded " + url + " to " + output.getName() + " (" + output.length() + " bytes)");
+        DiskCache.trim(getCacheDir(context), MAX_CACHE_BYTES, PARTIAL_SUFFIX);
+        return output;
+    }
+
+    private void finish(String url, File file, Exception error) {
+        List<Callback> callbacks = pendingCallbacks.remove(url);
+        if (callbacks == null) {
+            return;
+        }
+        if (error != null) {
+            logger.error("Download failed for " + url, error);
+        }
+        for (Callback callback : callbacks) {
+            if (file != null) {
+                callback.onDownloaded(file);
+            } else {
+                callback.onError(error);
+            }
+        }
+    }
+
+    /**
+     * Keeps the extension of the URL, when it has a plausible one, so the file reads like the original.
+     */
+    private File outputFileFor(String url) {
+        String name = DiskCache.key(url);
+        String lastSegment = Uri.parse(url).getLastPathSegment();
+        int dot = lastSegment != null ? lastSegment.lastIndexOf('.') : -1;
+        if (dot >= 0) {
+            String extension = lastSegment.substring(dot + 1);
+            if (extension.matches("[A-Za-z0-9]{1,5}")) {
+                name += "." + extension.toLowerCase(Locale.ROOT);
+            }
+        }
+        return new File(getCacheDir(context), name);
+    }
+
+    private static File getCacheDir(Context context) {
+        File dir = new File(context.getCacheDir(), CACHE_DIR);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        return dir;
+    }
+
+    /**
+     * Stops the download thread and drops pending callbacks. Must be called on the main thread, and the
+     * store cannot be used afterwards.
+     */
+    public void release() {
+        downloadExecutor.shutdownNow();
+        mainHandler.removeCallbacksAndMessages(null);
+        pendingCallbacks.clear();
+    }
+
+    /**
+     * Deletes every downloaded file. Called from {@link NativeAudio#clearCache}.
+     */
+    public static void clearCache(Context context) {
+        File dir = new File(context.getCacheDir(), CACHE_DIR);
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!file.delete()) {
+                logger.warning("Could not delete downloaded file " + file.getName());
+            }
+        }
+    }
+}
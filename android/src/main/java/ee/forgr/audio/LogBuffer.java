@@ -0,0 +1,74 @@
+package ee.forgr.audio;
+
+import android.util.Log;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import java.util.Arrays;
+
+/**
+ * The last {@link #CAPACITY} log entries of the plugin, kept in memory so they can be read from the app with
+ * {@code getRecentLogs} when logcat is out of reach. Older entries are overwritten.
+ */
+final class LogBuffer {
+
+    static final int CAPACITY = 256;
+
+    // Guarded by the class lock
+    private static final long[] times = new long[CAPACITY];
+    private static final int[] priorities = new int[CAPACITY];
+    private static final String[] tags = new String[CAPACITY];
+    private static final String[] messages = new String[CAPACITY];
+    private static int next = 0;
+    private static int size = 0;
+
+    private LogBuffer() {}
+
+    static synchronized void add(int priority, String tag, String message) {
+        times[next] = System.currentTimeMillis();
+        priorities[next] = priority;
+        tags[next] = tag;
+        messages[next] = message;
+        next = (next + 1) % CAPACITY;
+        size = Math.min(size + 1, CAPACITY);
+    }
+
+    /**
+     * @param clear whether to empty the buffer once read
+     * @return the entries, oldest first
+     */
+    static synchronized JSArray snapshot(boolean clear) {
+        JSArray logs = new JSArray();
+        int first = (next - size + CAPACITY) % CAPACITY;
+        for (int i = 0; i < size; i++) {
+            int index = (first + i) % CAPACITY;
+            JSObject entry = new JSObject();
+            entry.put("time", times[index]);
+            entry.put("level", levelName(priorities[index]));
+            entry.put("tag", tags[index]);
+            entry.put("message", messages[index]);
+            logs.put(entry);
+        }
+        if (clear) {
+            Arrays.fill(tags, null);
+            Arrays.fill(messages, null);
+            next = 0;
+            size = 0;
+        }
+        return logs;
+    }
+
+    private static String levelName(int priority) {
+        switch (priority) {
+            case Log.ERROR:
+                return "error";
+            case Log.WARN:
+                return "warning";
+            case Log.INFO:
+                return "info";
+            case Log.DEBUG:
+                return "debug";
+            default:
+                return "verbose";
+        }
+    }
+}
@@ -2,7 +2,16 @@ package ee.forgr.audio;
 
 import android.util.Log;
 import androidx.media3.common.util.UnstableApi;
+import java.util.function.Supplier;
 
+/**
+ * Plugin logging, sent to logcat and to the {@link LogBuffer}. Warnings and errors are always logged, the other
+ * levels only while debugging is on.
+ *
+ * On hot paths use the {@code {}} pattern or {@link Supplier} overloads, which build the message only when it is
+ * logged. Primitive arguments are still boxed at the call site, so per-tick code with primitive values checks
+ * {@link #isEnabled()} first.
+ */
 @UnstableApi
 public class Logger {
 
@@ -17,39 +26,115 @@ public class Logger {
         this.logTag = logTag;
     }
 
+    public boolean isEnabled() {
+        return NativeAudio.debugEnabled;
+    }
+
     public void error(String message) {
+        LogBuffer.add(Log.ERROR, logTag, message);
+        Log.e(logTag, message);
+    }
+
+    public void error(String message, Throwable throwable) {
+        LogBuffer.add(Log.ERROR, logTag, throwable != null ? message + ": " + throwable : message);
+        Log.e(logTag, message, throwable);
+    }
+
+    public void warning(String message) {
+        LogBuffer.add(Log.WARN, logTag, message);
+        Log.w(logTag, message);
+    }
+
+    public void warning(String message, Throwable throwable) {
+        LogBuffer.add(Log.WARN, logTag, throwable != null ? message + ": " + throwable : message);
+        Log.w(logTag, message, throwable);
+    }
+
+    public void info(String message) {
         if (NativeAudio.debugEnabled) {
-            Log.e(logTag, message);
+            log(Log.INFO, message);
         }
     }
 
-    public void error(String message, Throwable throwable) {
+    public void debug(String message) {
         if (NativeAudio.debugEnabled) {
-            Log.e(logTag, message, throwable);
+            log(Log.DEBUG, message);
         }
     }
 
-    public void warning(String message) {
+    public void debug(String pattern, Object arg) {
         if (NativeAudio.debugEnabled) {
-            Log.w(logTag, message);
+            log(Log.DEBUG, format(pattern, arg, null, null, 1));
         }
     }
 
-    public void info(String message) {
+    public void debug(String pattern, Object arg1, Object arg2) {
         if (NativeAudio.debugEnabled) {
-            Log.i(logTag, message);
+            log(Log.DEBUG, format(pattern, arg1, arg2, null, 2));
         }
     }
 
-    public void debug(String message) {
+    public void debug(String pattern, Object arg1, Object arg2, Object arg3) {
+        if (NativeAudio.debugEnabled) {
+            log(Log.DEBUG, format(pattern, arg1, arg2, arg3, 3));
+        }
+    }
+
+    public void debug(Supplier<String> message) {
         if (NativeAudio.debugEnabled) {
-            Log.d(logTag, message);
+            log(Log.DEBUG, message.get());
         }
     }
 
     public void verbose(String message) {
         if (NativeAudio.debugEnabled) {
-            Log.v(logTag, message);
+            log(Log.VERBOSE, message);
+        }
+    }
+
+    public void verbose(String pattern, Object arg) {
+        if (NativeAudio.debugEnabled) {
+            log(Log.VERBOSE, format(pattern, arg, null, null, 1));
+        }
+    }
+
+    public void verbose(String pattern, Object arg1, Object arg2) {
+        if (NativeAudio.debugEnabled) {
+            log(Log.VERBOSE, format(pattern, arg1, arg2, null, 2));
+        }
+    }
+
+    public void verbose(String pattern, Object arg1, Object arg2, Object arg3) {
+        if (NativeAudio.debugEnabled) {
+            log(Log.VERBOSE, format(pattern, arg1, arg2, arg3, 3));
+        }
+    }
+
+    public void verbose(Supplier<String> message) {
+        if (NativeAudio.debugEnabled) {
+            log(Log.VERBOSE, message.get());
+        }
+    }
+
+    private void log(int priority, String message) {
+        LogBuffer.add(priority, logTag, message);
+        Log.println(priority, logTag, message);
+    }
+
+    /**
+     * Replaces each {@code {}} in the pattern with the next argument. Extra placeholders are left as they are.
+     */
+    static String format(String pattern, Object arg1, Object arg2, Object arg3, int argCount) {
+        StringBuilder builder = new StringBuilder(pattern.length() + 16 * argCount);
+        int start = 0;
+        for (int i = 0; i < argCount; i++) {
+            int index = pattern.indexOf("{}", start);
+            if (index < 0) {
+                break;
+            }
+            builder.append(pattern, start, index).append(i == 0 ? arg1 : i == 1 ? arg2 : arg3);
+            start = index + 2;
         }
+        return builder.append(pattern, start, pattern.length()).toString();
     }
 }
@@ -0,0 +1,122 @@
+package ee.forgr.audio;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Samples the levels of the metered assets at a fixed rate on its own thread and emits them as a single
+ * {@code levels} event per tick, leaving out assets that produced no sound since the previous tick.
+ */
+class MeteringController {
+
+    private static final String TAG = "MeteringController";
+    private static final Logger logger = new Logger(TAG);
+
+    static final long DEFAULT_INTERVAL_MS = 50;
+    static final long MIN_INTERVAL_MS = 16;
+    static final int MAX_BANDS = 64;
+
+    private final NativeAudio owner;
+    private HandlerThread thread;
+    private Handler handler;
+    private volatile long intervalMs = DEFAULT_INTERVAL_MS;
+    private volatile int bandCount = 0;
+    // Null meters every loaded asset
+    private volatile Set<String> assetIds;
+    private long nextTickAtMs;
+    // Only touched on the metering thread
+    private final Map<String, LevelMeter.Reading> readings = new HashMap<>();
+    private final Runnable tick = this::tick;
+
+    MeteringController(NativeAudio owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Starts metering, or changes the settings when already running.
+     *
+     * @param assetIds  assets to meter, null for all loaded assets
+     * @param intervalMs time between two events
+     * @param bandCount number of spectrum bands, 0 for levels only
+     */
+    synchronized void start(Set<String> assetIds, long intervalMs, int bandCount) {
+        this.assetIds = assetIds;
+        this.intervalMs = Math.max(MIN_INTERVAL_MS, intervalMs);
+        this.bandCount = Math.min(MAX_BANDS, Math.max(0, bandCount));
+        LevelMeter.setEnabled(true);
+        if (thread == null) {
+            thread = EngineMetrics.newHandlerThread("NativeAudioMetering", android.os.Process.THREAD_PRIORITY_DEFAULT);
+            thread.start();
+            handler = new Handler(thread.getLooper());
+        }
+        handler.removeCallbacks(tick);
+        nextTickAtMs = SystemClock.uptimeMillis();
+        handler.post(tick);
+        logger.debug("Metering every " + this.intervalMs + " ms with " + this.bandCount + " bands");
+    }
+
+    synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+        LevelMeter.setEnabled(false);
+        handler.removeCallbacks(tick);
+        handler.post(() -> {
+            readings.clear();
+            for (AudioAsset asset : owner.getAudioAssets().values()) {
+                asset.releaseMeter();
+            }
+        });
+        thread.quitSafely();
+        thread = null;
+        handler = null;
+    }
+
+    private void tick() {
+        int bands = bandCount;
+        Set<String> ids = assetIds;
+        Map<String, AudioAsset> assets = owner.getAudioAssets();
+        JSArray levels = new JSArray();
+        for (String assetId : ids != null ? ids : assets.keySet()) {
+            AudioAsset asset = assets.get(assetId);
+            if (asset == null) {
+                continue;
+            }
+            LevelMeter.Reading reading = readings.get(assetId);
+            if (reading == null || reading.bands.length != bands) {
+                reading = new LevelMeter.Reading(bands);
+                readings.put(assetId, reading);
+            }
+            try {
+                if (asset.readLevels(reading)) {
+                    levels.put(reading.toJSObject(assetId));
+                }
+            } catch (Exception e) {
+                logger.error("Error metering " + assetId, e);
+            }
+        }
+        if (levels.length() > 0) {
+            JSObject event = new JSObject();
+            event.put("timestamp", System.currentTimeMillis());
+            event.put("levels", levels);
+            owner.notifyLevels(event);
+        }
+
+        // Scheduled against the clock so the rate does not drift with the time spent metering
+        nextTickAtMs += intervalMs;
+        long now = SystemClock.uptimeMillis();
+        if (nextTickAtMs < now) {
+            nextTickAtMs = now;
+        }
+        Handler current = handler;
+        if (current != null) {
+            current.postAtTime(tick, nextTickAtMs);
+        }
+    }
+}
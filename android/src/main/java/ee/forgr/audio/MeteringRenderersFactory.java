@@ -0,0 +1,40 @@
+package ee.forgr.audio;
+
+import android.content.Context;
+import androidx.media3.common.audio.AudioProcessor;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.DefaultRenderersFactory;
+import androidx.media3.exoplayer.audio.AudioSink;
+import androidx.media3.exoplayer.audio.DefaultAudioSink;
+import androidx.media3.exoplayer.audio.TeeAudioProcessor;
+
+/**
+ * Renderers factory whose audio sink copies the rendered PCM to a {@link LevelMeter}.
+ *
+ * The meter is captured when the renderers are created, that is when the player is built, so a factory
+ * shared by several players (the preload window's) is pointed at each player's meter right before building it.
+ */
+@UnstableApi
+public class MeteringRenderersFactory extends DefaultRenderersFactory {
+
+    private volatile LevelMeter meter;
+
+    public MeteringRenderersFactory(Context context, LevelMeter meter) {
+        super(context);
+        this.meter = meter;
+    }
+
+    public void setMeter(LevelMeter meter) {
+        this.meter = meter;
+    }
+
+    @Override
+    protected AudioSink buildAudioSink(Context context, boolean enableFloatOutput, boolean enableAudioTrackPlaybackParams) {
+        LevelMeter target = meter != null ? meter : new LevelMeter();
+        return new DefaultAudioSink.Builder(context)
+            .setEnableFloatOutput(enableFloatOutput)
+            .setEnableAudioTrackPlaybackParams(enableAudioTrackPlaybackParams)
+            .setAudioProcessors(new AudioProcessor[] { new TeeAudioProcessor(target) })
+            .build();
+    }
+}
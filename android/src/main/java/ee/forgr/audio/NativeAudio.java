@@ -1,8 +1,15 @@
 package ee.forgr.audio;
 
+import static ee.forgr.audio.Constant.ADAPTIVE_BUFFER;
 import static ee.forgr.audio.Constant.ASSET_ID;
 import static ee.forgr.audio.Constant.ASSET_PATH;
 import static ee.forgr.audio.Constant.AUDIO_CHANNEL_NUM;
+import static ee.forgr.audio.Constant.BUFFER_PROFILE;
+import static ee.forgr.audio.Constant.CLEAR_LOGS;
+import static ee.forgr.audio.Constant.CROSSFADE_CURVE;
+import static ee.forgr.audio.Constant.CROSSFADE_FROM;
+import static ee.forgr.audio.Constant.CROSSFADE_OUTGOING;
+import static ee.forgr.audio.Constant.CROSSFADE_TO;
 import static ee.forgr.audio.Constant.DELAY;
 import static ee.forgr.audio.Constant.DURATION;
 import static ee.forgr.audio.Constant.ERROR_ASSET_NOT_LOADED;
@@ -15,23 +22,43 @@ import static ee.forgr.audio.Constant.FADE_IN_DURATION;
 import static ee.forgr.audio.Constant.FADE_OUT;
 import static ee.forgr.audio.Constant.FADE_OUT_DURATION;
 import static ee.forgr.audio.Constant.FADE_OUT_START_TIME;
+import static ee.forgr.audio.Constant.LOCAL_COPY;
 import static ee.forgr.audio.Constant.LOOP;
+import static ee.forgr.audio.Constant.MAX_BUFFER_MEMORY_MB;
+import static ee.forgr.audio.Constant.MEDIA_SESSION_SERVICE;
+import static ee.forgr.audio.Constant.METERING_ASSET_IDS;
+import static ee.forgr.audio.Constant.METERING_BANDS;
+import static ee.forgr.audio.Constant.METERING_INTERVAL_MS;
 import static ee.forgr.audio.Constant.NOTIFICATION_METADATA;
 import static ee.forgr.audio.Constant.OPT_FOCUS_AUDIO;
+import static ee.forgr.audio.Constant.PERSIST;
 import static ee.forgr.audio.Constant.PLAY;
+import static ee.forgr.audio.Constant.PLAY_ONCE_POOL;
+import static ee.forgr.audio.Constant.PRELOAD_WINDOW_CURRENT_INDEX;
+import static ee.forgr.audio.Constant.PRELOAD_WINDOW_RANGES;
+import static ee.forgr.audio.Constant.PRELOAD_WINDOW_URLS;
+import static ee.forgr.audio.Constant.PREWARM;
+import static ee.forgr.audio.Constant.PRIORITY;
+import static ee.forgr.audio.Constant.QUEUE_ITEMS;
 import static ee.forgr.audio.Constant.RATE;
 import static ee.forgr.audio.Constant.SHOW_NOTIFICATION;
+import static ee.forgr.audio.Constant.STREAM_RETRY;
 import static ee.forgr.audio.Constant.TIME;
+import static ee.forgr.audio.Constant.TIME_SHIFT;
+import static ee.forgr.audio.Constant.TRACING;
 import static ee.forgr.audio.Constant.VOLUME;
+import static ee.forgr.audio.Constant.WAVEFORM_BUCKETS;
 
 import android.Manifest;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
+import android.content.ComponentCallbacks2;
+import android.content.ComponentName;
 import android.content.Context;
+import android.content.pm.PackageManager;
+import android.content.res.Configuration;
 import android.content.res.AssetFileDescriptor;
 import android.content.res.AssetManager;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.media.AudioManager;
 import android.net.Uri;
 import android.os.Build;
@@ -41,31 +68,42 @@ import android.os.ParcelFileDescriptor;
 import android.support.v4.media.MediaMetadataCompat;
 import android.support.v4.media.session.MediaSessionCompat;
 import android.support.v4.media.session.PlaybackStateCompat;
-import android.util.Log;
 import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
+import androidx.media3.common.PlaybackException;
 import androidx.media3.common.util.UnstableApi;
+import androidx.media3.session.MediaController;
+import androidx.media3.session.SessionToken;
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 import com.getcapacitor.annotation.Permission;
+import com.google.common.util.concurrent.ListenableFuture;
 import java.io.File;
 import java.io.FileDescriptor;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.net.URI;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONException;
+import org.json.JSONObject;
 
 @UnstableApi
 @CapacitorPlugin(
@@ -94,14 +132,60 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
     private final Map<String, Runnable> pendingPlayRunnables = new ConcurrentHashMap<>();
     private final Map<String, JSObject> audioData = new ConcurrentHashMap<>();
 
+    // Remote assets preloaded with `localCopy` and the local copies waiting to replace them
+    private LocalCopyStore localCopies;
+    private final Map<String, LocalCopySwap> pendingLocalCopySwaps = new ConcurrentHashMap<>();
+    // Only touched on the main thread
+    private PreloadWindowManager preloadWindow;
+    private final LatencyTracker latencyTracker = new LatencyTracker();
+    // Only touched on the main thread
+    private final Crossfader crossfader = new Crossfader();
+    private static final double DEFAULT_CROSSFADE_DURATION_SECS = 2.0;
+    // HLS precache downloads, one at a time, keyed by playlist URL
+    // A ThreadPoolExecutor so that cancelPrecache can tell queued tasks from running ones
+    private ThreadPoolExecutor precacheExecutor;
+    private final Map<String, Future<?>> precacheTasks = new ConcurrentHashMap<>();
+    private final Map<String, PluginCall> precacheCalls = new ConcurrentHashMap<>();
+    private final MeteringController metering = new MeteringController(this);
+    private WaveformExtractor waveformExtractor;
+    // Only touched on the main thread
+    private final PlayOncePool playOncePool = new PlayOncePool();
+    private EngineWarmer engineWarmer;
+    // Only touched on the main thread
+    private ArtworkLoader artworkLoader;
+    // Assets preloaded with `persist`, restored on the next cold start
+    private AssetManifest assetManifest;
+    private AssetRestorer assetRestorer;
+    // Loaded by the restorer and not preloaded again by the app since
+    private final Set<String> restoredAssetIds = ConcurrentHashMap.newKeySet();
+    private static final int DEFAULT_WAVEFORM_BUCKETS = 200;
+    // Where each preloaded asset was read from, for getWaveform
+    private final Map<String, WaveformExtractor.Source> assetSources = new ConcurrentHashMap<>();
+    private final ComponentCallbacks2 memoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            handleTrimMemory(level);
+        }
+
+        @Override
+        public void onLowMemory() {
+            handleTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {}
+    };
+
     // Notification center support
     private boolean showNotification = false;
     private Map<String, Map<String, String>> notificationMetadataMap = new ConcurrentHashMap<>();
     private MediaSessionCompat mediaSession;
+    private boolean useSessionService = false;
+    private AssetSessionPlayer sessionPlayer;
+    private ListenableFuture<MediaController> sessionController;
     private String currentlyPlayingAssetId;
     private static final int NOTIFICATION_ID = 1001;
     private static final String CHANNEL_ID = "native_audio_channel";
-    private static final int MAX_NOTIFICATION_ARTWORK_SIZE = 512;
 
     // Track playOnce assets for automatic cleanup
     private Set<String> playOnceAssets = new HashSet<>();
@@ -125,6 +209,109 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
         if (this.audioManager != null) {
             originalAudioMode = this.audioManager.getMode();
         }
+
+        getContext().registerComponentCallbacks(memoryCallbacks);
+
+        // plugins.NativeAudio.tracing in capacitor.config.ts, to trace startup
+        if (getConfig().getBoolean(TRACING, false)) {
+            Tracing.setEnabled(true);
+        }
+
+        // plugins.NativeAudio.prewarm in capacitor.config.ts
+        if (getConfig().getBoolean(PREWARM, false)) {
+            getEngineWarmer().warmUp(null);
+        }
+
+        assetRestorer = new AssetRestorer(getAssetManifest(), this::restoreAsset, (tier, assetIds, failed) -> {
+            JSObject data = new JSObject();
+            data.put("tier", tier.toString());
+            data.put("assetIds", assetIds);
+            data.put("failed", failed);
+            // Emitted before the app had a chance to add its listener, kept until it does
+            notifyListeners("assetsRestored", data, true);
+        });
+        assetRestorer.start();
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        getContext().unregisterComponentCallbacks(memoryCallbacks);
+        metering.stop();
+        playOncePool.clear();
+        releaseSessionService();
+        if (artworkLoader != null) {
+            artworkLoader.release();
+            artworkLoader = null;
+        }
+        if (preloadWindow != null) {
+            preloadWindow.release();
+            preloadWindow = null;
+        }
+        if (assetRestorer != null) {
+            assetRestorer.stop();
+        }
+        if (localCopies != null) {
+            localCopies.release();
+        }
+        if (waveformExtractor != null) {
+            waveformExtractor.release();
+        }
+        if (precacheExecutor != null) {
+            precacheExecutor.shutdownNow();
+            precacheExecutor = null;
+            precacheTasks.clear();
+            precacheCalls.clear();
+        }
+        super.handleOnDestroy();
+    }
+
+    /**
+     * Frees memory according to the trim level and emits a {@code memoryPressure} event describing what was freed.
+     *
+     * <p>Any running level drops the allocator's pooled buffers, RUNNING_LOW also halves the buffer ceiling, and
+     * RUNNING_CRITICAL or background levels quarter it and release every asset that is neither playing nor paused.
+     * Released assets reload on their next play. The ceiling is restored when the app comes back to the foreground.
+     */
+    private void handleTrimMemory(int level) {
+        if (level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            // Only means the UI went away, not that memory is short
+            return;
+        }
+        int divisor = 1;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            divisor = 4;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            divisor = 2;
+        }
+        BufferBudget.setPressureDivisor(divisor);
+
+        JSArray releasedAssetIds = new JSArray();
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            playOncePool.clear();
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL && audioAssetList != null) {
+            for (Map.Entry<String, AudioAsset> entry : audioAssetList.entrySet()) {
+                try {
+                    if (entry.getValue().releaseIfIdle()) {
+                        releasedAssetIds.put(entry.getKey());
+                    }
+                } catch (Exception e) {
+                    logger.error("Error releasing idle asset " + entry.getKey(), e);
+                }
+            }
+        }
+        BufferBudget.trim();
+        if (artworkLoader != null) {
+            artworkLoader.trimMemory(level);
+        }
+
+        logger.info("Trim memory level " + level + ": released " + releasedAssetIds.length() + " idle assets");
+        JSObject data = new JSObject();
+        data.put("level", level);
+        data.put("releasedAssetIds", releasedAssetIds);
+        data.put("bufferCeilingBytes", BufferBudget.getCeilingBytes());
+        data.put("bufferedBytes", BufferBudget.getAllocatedBytes());
+        notifyListeners("memoryPressure", data);
     }
 
     @Override
@@ -154,7 +341,7 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                 audioManager.abandonAudioFocus(this);
             }
         } catch (Exception ex) {
-            Log.e(TAG, "Error handling audio focus change", ex);
+            logger.error("Error handling audio focus change", ex);
         }
     }
 
@@ -164,7 +351,7 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
 
         // Skip automatic pause when background playback is enabled
         if (backgroundPlayback) {
-            Log.d(TAG, "Background playback enabled - skipping automatic pause");
+            logger.debug("Background playback enabled - skipping automatic pause");
             return;
         }
 
@@ -183,7 +370,7 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                 }
             }
         } catch (Exception ex) {
-            Log.d(TAG, "Exception caught while listening for handleOnPause: " + ex.getLocalizedMessage());
+            logger.warning("Exception caught while listening for handleOnPause", ex);
         }
     }
 
@@ -191,9 +378,12 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
     protected void handleOnResume() {
         super.handleOnResume();
 
+        // Back in the foreground, lift any ceiling reduction from memory pressure
+        BufferBudget.setPressureDivisor(1);
+
         // Skip automatic resume when background playback is enabled
         if (backgroundPlayback) {
-            Log.d(TAG, "Background playback enabled - skipping automatic resume");
+            logger.debug("Background playback enabled - skipping automatic resume");
             return;
         }
 
@@ -208,7 +398,7 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                 }
             }
         } catch (Exception ex) {
-            Log.d(TAG, "Exception caught while listening for handleOnResume: " + ex.getLocalizedMessage());
+            logger.warning("Exception caught while listening for handleOnResume", ex);
         }
     }
 
@@ -239,7 +429,49 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
         boolean focus = call.getBoolean(OPT_FOCUS_AUDIO, false);
         boolean background = call.getBoolean("background", false);
         this.showNotification = call.getBoolean(SHOW_NOTIFICATION, false);
+        this.useSessionService = call.getBoolean(MEDIA_SESSION_SERVICE, false);
+        if (this.useSessionService && !isSessionServiceDeclared()) {
+            logger.warning("NativeAudioSessionService is not declared in the app manifest, using the plugin notification");
+            this.useSessionService = false;
+        }
         this.backgroundPlayback = call.getBoolean("backgroundPlayback", false);
+        JSObject streamRetry = call.getObject(STREAM_RETRY);
+        if (streamRetry != null) {
+            StreamRetryPolicy.configure(
+                streamRetry.optInt("maxRetries", StreamRetryPolicy.DEFAULT_MAX_RETRIES),
+                streamRetry.optLong("initialDelayMs", StreamRetryPolicy.DEFAULT_INITIAL_DELAY_MS),
+                streamRetry.optLong("maxDelayMs", StreamRetryPolicy.DEFAULT_MAX_DELAY_MS)
+            );
+        }
+        JSObject adaptiveBuffer = call.getObject(ADAPTIVE_BUFFER);
+        if (adaptiveBuffer != null) {
+            AdaptiveLoadControl.configure(
+                adaptiveBuffer.optBoolean("enabled", true),
+                adaptiveBuffer.optLong("minStartMs", AdaptiveLoadControl.DEFAULT_MIN_START_MS),
+                adaptiveBuffer.optLong("maxStartMs", AdaptiveLoadControl.DEFAULT_MAX_START_MS),
+                adaptiveBuffer.optLong("minBufferMs", AdaptiveLoadControl.DEFAULT_MIN_BUFFER_MS),
+                adaptiveBuffer.optLong("maxBufferMs", AdaptiveLoadControl.DEFAULT_MAX_BUFFER_MS)
+            );
+        }
+        if (call.getBoolean(PREWARM, false)) {
+            getEngineWarmer().warmUp(null);
+        }
+        Boolean tracing = call.getBoolean(TRACING);
+        if (tracing != null) {
+            Tracing.setEnabled(tracing);
+        }
+        JSObject playOncePoolOptions = call.getObject(PLAY_ONCE_POOL);
+        if (playOncePoolOptions != null) {
+            final long idleTtlMs = Math.round(
+                playOncePoolOptions.optDouble("idleTtlSec", PlayOncePool.DEFAULT_IDLE_TTL_MS / 1000.0) * 1000
+            );
+            final int maxIdleVoices = playOncePoolOptions.optInt("maxIdleVoices", PlayOncePool.DEFAULT_MAX_IDLE_VOICES);
+            runOnMainThread(() -> playOncePool.configure(idleTtlMs, maxIdleVoices));
+        }
+        Double maxBufferMemoryMB = call.getDouble(MAX_BUFFER_MEMORY_MB);
+        if (maxBufferMemoryMB != null && maxBufferMemoryMB > 0) {
+            BufferBudget.setCeilingBytes((long) (maxBufferMemoryMB * 1024 * 1024));
+        }
 
         try {
             if (focus) {
@@ -262,12 +494,17 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                 this.audioManager.setMode(AudioManager.MODE_NORMAL);
             }
 
-            if (this.showNotification) {
-                setupMediaSession();
-                createNotificationChannel();
+            if (this.showNotification && this.useSessionService) {
+                runOnMainThread(this::setupSessionService);
+            } else {
+                runOnMainThread(this::releaseSessionService);
+                if (this.showNotification) {
+                    setupMediaSession();
+                    createNotificationChannel();
+                }
             }
         } catch (Exception ex) {
-            Log.e(TAG, "Error configuring audio", ex);
+            logger.error("Error configuring audio", ex);
         }
 
         call.resolve();
@@ -301,7 +538,7 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
      */
     @PluginMethod
     public void preload(final PluginCall call) {
-        this.getActivity().runOnUiThread(
+        this.runOnMainThread(
             new Runnable() {
                 @Override
                 public void run() {
@@ -333,7 +570,7 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
      */
     @PluginMethod
     public void playOnce(final PluginCall call) {
-        this.getActivity().runOnUiThread(
+        this.runOnMainThread(
             new Runnable() {
                 /**
                  * Preloads a temporary audio asset, optionally plays it one time, and schedules automatic cleanup when playback completes.
@@ -389,16 +626,29 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                                 call.reject(ERROR_AUDIO_EXISTS + " - " + assetId);
                             }
 
-                            // Load the asset using the helper method
+                            // Reuse an idle voice of the same file, or load the asset using the helper method
                             JSObject headersObj = call.getObject("headers");
-                            AudioAsset asset = NativeAudio.this.loadAudioAsset(
-                                assetId,
-                                assetPath,
-                                isLocalUrl,
-                                volume,
-                                audioChannelNum,
-                                headersObj
-                            );
+                            BufferBudget.Profile bufferProfile = parseBufferProfile(call.getData());
+                            // Files deleted after playing and live streams are never pooled
+                            final String poolKey = deleteAfterPlay || (isLocalUrl && isHlsUrl(assetPath))
+                                ? null
+                                : PlayOncePool.keyFor(assetPath, isLocalUrl, headersObj, bufferProfile);
+                            AudioAsset asset = poolKey != null ? NativeAudio.this.playOncePool.acquire(poolKey) : null;
+                            if (asset != null) {
+                                asset.reassign(assetId);
+                                asset.setVolume(volume, 0);
+                            } else {
+                                asset = NativeAudio.this.loadAudioAsset(
+                                    assetId,
+                                    assetPath,
+                                    isLocalUrl,
+                                    volume,
+                                    audioChannelNum,
+                                    headersObj,
+                                    bufferProfile,
+                                    null
+                                );
+                            }
 
                             // Add to asset list; completion listener is set below with cleanup
                             NativeAudio.this.audioAssetList.put(assetId, asset);
@@ -416,13 +666,16 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                                         NativeAudio.this.dispatchComplete(completedAssetId);
 
                                         // Then perform cleanup
-                                        NativeAudio.this.getActivity().runOnUiThread(() -> {
+                                        NativeAudio.this.runOnMainThread(() -> {
                                             try {
-                                                // Unload the asset
-                                                AudioAsset assetToUnload = NativeAudio.this.audioAssetList.get(assetId);
+                                                // Unload the asset, or keep it for the next playOnce of the same file
+                                                AudioAsset assetToUnload = NativeAudio.this.audioAssetList.remove(assetId);
                                                 if (assetToUnload != null) {
-                                                    assetToUnload.unload();
-                                                    NativeAudio.this.audioAssetList.remove(assetId);
+                                                    if (poolKey != null) {
+                                                        NativeAudio.this.playOncePool.release(poolKey, assetToUnload);
+                                                    } else {
+                                                        assetToUnload.unload();
+                                                    }
                                                 }
 
                                                 // Remove from tracking sets
@@ -440,14 +693,14 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                                                     try {
                                                         File fileToDelete = new File(URI.create(filePathToDelete));
                                                         if (fileToDelete.exists() && fileToDelete.delete()) {
-                                                            Log.d(TAG, "Deleted file after playOnce: " + filePathToDelete);
+                                                            logger.debug("Deleted file after playOnce: {}", filePathToDelete);
                                                         }
                                                     } catch (Exception e) {
-                                                        Log.e(TAG, "Error deleting file after playOnce: " + filePathToDelete, e);
+                                                        logger.error("Error deleting file after playOnce: " + filePathToDelete, e);
                                                     }
                                                 }
                                             } catch (Exception e) {
-                                                Log.e(TAG, "Error during playOnce cleanup: " + e.getMessage());
+                                                logger.error("Error during playOnce cleanup: " + e.getMessage());
                                             }
                                         });
                                     }
@@ -499,13 +752,17 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
      */
     @PluginMethod
     public void play(final PluginCall call) {
-        this.getActivity().runOnUiThread(
+        // Timed from the bridge, every reject below drops the measurement again
+        final String receivedId = call.getString(ASSET_ID);
+        latencyTracker.markReceived(receivedId);
+        this.runOnMainThread(
             new Runnable() {
                 @Override
                 public void run() {
                     try {
                         final String audioId = call.getString(ASSET_ID);
                         if (!isStringValid(audioId)) {
+                            latencyTracker.discard(receivedId);
                             call.reject(ERROR_AUDIO_ID_MISSING + " - " + audioId);
                             return;
                         }
@@ -531,6 +788,8 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                                 public void run() {
                                     pendingPlayHandlers.remove(audioId);
                                     pendingPlayRunnables.remove(audioId);
+                                    // The requested delay is not start latency, measure from here
+                                    latencyTracker.markReceived(audioId);
                                     executePlay(
                                         call,
                                         audioId,
@@ -562,6 +821,7 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                             fadeOutStartTimeSecs
                         );
                     } catch (Exception ex) {
+                        latencyTracker.discard(receivedId);
                         call.reject(ex.getMessage());
                     }
                 }
@@ -581,17 +841,24 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
         double fadeOutStartTimeSecs
     ) {
         try {
-            if (!audioAssetList.containsKey(audioId)) {
+            if (!audioAssetList.containsKey(audioId) && !restoreLazyAsset(audioId)) {
+                latencyTracker.discard(audioId);
                 call.reject(ERROR_ASSET_NOT_LOADED + " - " + audioId);
                 return;
             }
 
+            if (pendingLocalCopySwaps.containsKey(audioId)) {
+                applyLocalCopySwap(audioId);
+            }
+
             AudioAsset asset = audioAssetList.get(audioId);
             if (asset == null) {
+                latencyTracker.discard(audioId);
                 call.reject(ERROR_AUDIO_ASSET_MISSING + " - " + audioId);
                 return;
             }
 
+            latencyTracker.markDispatched(audioId);
             if (fadeIn) {
                 asset.playWithFadeIn(time, volume, fadeInDurationMs);
             } else {
@@ -609,6 +876,7 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
 
             call.resolve();
         } catch (Exception ex) {
+            latencyTracker.discard(audioId);
             call.reject(ex.getMessage());
         }
     }
@@ -656,7 +924,11 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                 return;
             }
             AudioAsset asset = audioAssetList.get(audioId);
-            if (asset != null) {
+            if (asset instanceof QueueAudioAsset) {
+                // Queue players are only readable on the main thread, the duration is resolved from there
+                saveDurationCall(audioId, call);
+                ((QueueAudioAsset) asset).requestDuration();
+            } else if (asset != null) {
                 double duration = asset.getDuration();
                 if (duration > 0) {
                     JSObject ret = new JSObject();
@@ -675,7 +947,7 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
 
     @PluginMethod
     public void loop(final PluginCall call) {
-        this.getActivity().runOnUiThread(
+        this.runOnMainThread(
             new Runnable() {
                 @Override
                 public void run() {
@@ -782,7 +1054,7 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
 
     @PluginMethod
     public void stop(final PluginCall call) {
-        this.getActivity().runOnUiThread(
+        this.runOnMainThread(
             new Runnable() {
                 @Override
                 public void run() {
@@ -824,15 +1096,8 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
             JSObject status;
             if (isStringValid(call.getString(ASSET_ID))) {
                 String audioId = call.getString(ASSET_ID);
-                cancelPendingPlay(audioId);
-                pendingPlayHandlers.remove(audioId);
-                pendingPlayRunnables.remove(audioId);
-                audioData.remove(audioId);
-                AudioAsset asset = audioAssetList.get(audioId);
-                if (asset != null) {
-                    clearFadeOutToStopTimer(audioId);
-                    asset.unload();
-                    audioAssetList.remove(audioId);
+                getAssetManifest().remove(audioId);
+                if (unloadAsset(audioId)) {
                     call.resolve();
                 } else {
                     call.reject(ERROR_AUDIO_ASSET_MISSING + " - " + audioId);
@@ -851,6 +1116,32 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
         }
     }
 
+    /**
+     * Unloads an asset and drops everything kept about it, except its manifest entry.
+     *
+     * @return false when no asset was loaded under that id
+     */
+    private boolean unloadAsset(String audioId) throws Exception {
+        cancelPendingPlay(audioId);
+        pendingPlayHandlers.remove(audioId);
+        pendingPlayRunnables.remove(audioId);
+        audioData.remove(audioId);
+        pendingLocalCopySwaps.remove(audioId);
+        assetSources.remove(audioId);
+        restoredAssetIds.remove(audioId);
+        latencyTracker.remove(audioId);
+        runOnMainThread(() -> crossfader.cancel(audioId));
+        AudioAsset asset = audioAssetList.get(audioId);
+        if (asset == null) {
+            return false;
+        }
+        clearFadeOutToStopTimer(audioId);
+        asset.releaseMeter();
+        asset.unload();
+        audioAssetList.remove(audioId);
+        return true;
+    }
+
     @PluginMethod
     public void setVolume(PluginCall call) {
         try {
@@ -861,9 +1152,9 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
             double durationSecs = call.getDouble(DURATION, 0.0);
 
             if (durationSecs > 0) {
-                logger.debug("setVolume " + volume + " over duration " + durationSecs + " seconds");
+                logger.debug(() -> "setVolume " + volume + " over duration " + durationSecs + " seconds");
             } else {
-                logger.debug("setVolume " + volume);
+                logger.debug(() -> "setVolume " + volume);
             }
 
             if (audioAssetList.containsKey(audioId)) {
@@ -936,230 +1227,1019 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
     public void clearCache(PluginCall call) {
         try {
             RemoteAudioAsset.clearCache(getContext());
+            LocalCopyStore.clearCache(getContext());
+            WaveformExtractor.clearCache(getContext());
+            ArtworkLoader.clearCache(getContext());
             call.resolve();
         } catch (Exception ex) {
             call.reject(ex.getMessage());
         }
     }
 
+    /**
+     * Creates a gapless queue asset that plays its items back to back without JS round trips.
+     *
+     * <p>Options: {@code assetId}, {@code items} (array of {@code {assetPath, isUrl}}), optional {@code volume}
+     * and {@code headers} used for remote items. The queue is controlled with the regular play, pause, resume,
+     * stop, setVolume and unload methods plus {@link #enqueue}, {@link #skip} and {@link #clearQueue}.
+     */
     @PluginMethod
-    public void setCurrentTime(final PluginCall call) {
-        try {
-            initSoundPool();
-
-            String audioId = call.getString(ASSET_ID);
-            clearFadeOutToStopTimer(audioId);
-            double time = call.getDouble(TIME, 0.0);
+    public void createQueue(final PluginCall call) {
+        this.runOnMainThread(() -> {
+            try {
+                initSoundPool();
+                String audioId = call.getString(ASSET_ID);
+                if (!isStringValid(audioId)) {
+                    call.reject(ERROR_AUDIO_ID_MISSING + " - " + audioId);
+                    return;
+                }
+                if (audioAssetList.containsKey(audioId)) {
+                    call.reject(ERROR_AUDIO_EXISTS + " - " + audioId);
+                    return;
+                }
+                List<QueueAudioAsset.Item> items = parseQueueItems(call.getArray(QUEUE_ITEMS));
+                if (items.isEmpty()) {
+                    call.reject("Queue items are missing - " + audioId);
+                    return;
+                }
+                float volume = call.getFloat(VOLUME, 1F);
+                QueueAudioAsset queue = new QueueAudioAsset(this, audioId, items, volume, toHeaderMap(call.getObject("headers")));
+                queue.setCompletionListener(this::dispatchComplete);
+                audioAssetList.put(audioId, queue);
+                call.resolve();
+            } catch (Exception ex) {
+                call.reject("Error creating queue: " + ex.getMessage());
+            }
+        });
+    }
 
-            cancelPendingPlay(audioId);
+    @PluginMethod
+    public void enqueue(final PluginCall call) {
+        try {
+            QueueAudioAsset queue = getQueue(call);
+            if (queue == null) {
+                return;
+            }
+            queue.enqueue(parseQueueItems(call.getArray(QUEUE_ITEMS)));
+            call.resolve();
+        } catch (Exception ex) {
+            call.reject(ex.getMessage());
+        }
+    }
 
-            if (!isStringValid(audioId)) {
-                call.reject(ERROR_AUDIO_ID_MISSING + " - " + audioId);
+    @PluginMethod
+    public void skip(final PluginCall call) {
+        try {
+            QueueAudioAsset queue = getQueue(call);
+            if (queue == null) {
                 return;
             }
+            queue.skip();
+            call.resolve();
+        } catch (Exception ex) {
+            call.reject(ex.getMessage());
+        }
+    }
 
-            if (audioAssetList.containsKey(audioId)) {
-                AudioAsset asset = audioAssetList.get(audioId);
-                if (asset != null) {
-                    this.getActivity().runOnUiThread(
-                        new Runnable() {
-                            @Override
-                            public void run() {
-                                try {
-                                    asset.setCurrentTime(time);
-                                    call.resolve();
-                                } catch (Exception e) {
-                                    call.reject("Error setting current time: " + e.getMessage());
-                                }
-                            }
-                        }
-                    );
-                } else {
-                    call.reject(ERROR_ASSET_NOT_LOADED + " - " + audioId);
-                }
-            } else {
-                call.reject(ERROR_ASSET_NOT_LOADED + " - " + audioId);
+    @PluginMethod
+    public void clearQueue(final PluginCall call) {
+        try {
+            QueueAudioAsset queue = getQueue(call);
+            if (queue == null) {
+                return;
             }
+            queue.clearUpcoming();
+            call.resolve();
         } catch (Exception ex) {
             call.reject(ex.getMessage());
         }
     }
 
-    public void dispatchComplete(String assetId) {
-        JSObject ret = new JSObject();
-        ret.put("assetId", assetId);
-        notifyListeners("complete", ret);
+    private QueueAudioAsset getQueue(PluginCall call) {
+        String audioId = call.getString(ASSET_ID);
+        if (!isStringValid(audioId)) {
+            call.reject(ERROR_AUDIO_ID_MISSING + " - " + audioId);
+            return null;
+        }
+        AudioAsset asset = audioAssetList.get(audioId);
+        if (asset == null) {
+            call.reject(ERROR_ASSET_NOT_LOADED + " - " + audioId);
+            return null;
+        }
+        if (!(asset instanceof QueueAudioAsset)) {
+            call.reject("Asset is not a queue - " + audioId);
+            return null;
+        }
+        return (QueueAudioAsset) asset;
+    }
+
+    private List<QueueAudioAsset.Item> parseQueueItems(JSArray array) throws Exception {
+        List<QueueAudioAsset.Item> items = new ArrayList<>();
+        if (array == null) {
+            return items;
+        }
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject entry = array.getJSONObject(i);
+            String assetPath = entry.optString(ASSET_PATH, null);
+            if (!isStringValid(assetPath)) {
+                throw new Exception(ERROR_ASSET_PATH_MISSING + " - queue item " + i);
+            }
+            boolean isUrl = entry.optBoolean("isUrl", false);
+            if (isUrl && isHlsUrl(assetPath)) {
+                throw new Exception("HLS streams cannot be queued - " + assetPath);
+            }
+            boolean remote = isUrl && isRemoteUrl(assetPath);
+            Uri uri = isUrl ? Uri.parse(assetPath) : Uri.parse("asset:///" + toPublicAssetPath(assetPath));
+            items.add(new QueueAudioAsset.Item(assetPath, isUrl, uri, remote));
+        }
+        return items;
+    }
+
+    private String toPublicAssetPath(String assetPath) {
+        return assetPath.startsWith("public/") ? assetPath : "public/" + assetPath;
     }
 
     /**
-     * Emits a "currentTime" event for the given asset with the playback position rounded to the nearest 0.1 second.
-     *
-     * The emitted event payload contains `assetId` and `currentTime` (in seconds, rounded to the nearest 0.1).
-     *
-     * @param assetId     the identifier of the audio asset
-     * @param currentTime the current playback time in seconds (will be rounded to nearest 0.1)
+     * Opens a local file (file:// URL) or a file from the app's public folder for MediaPlayer playback.
      */
-    public void notifyCurrentTime(String assetId, double currentTime) {
-        // Round to nearest 100ms
-        double roundedTime = Math.round(currentTime * 10.0) / 10.0;
-        JSObject ret = new JSObject();
-        ret.put("currentTime", roundedTime);
-        ret.put("assetId", assetId);
-        notifyListeners("currentTime", ret);
-
-        JSObject data = getAudioAssetData(assetId);
-        if (data.optBoolean("fadeOut", false)) {
-            double fadeOutStartTime = data.optDouble("fadeOutStartTime", -1);
-            if (fadeOutStartTime >= 0 && currentTime >= fadeOutStartTime) {
-                double fadeOutDuration = data.optDouble("fadeOutDuration", AudioAsset.DEFAULT_FADE_DURATION_MS);
-                try {
-                    AudioAsset asset = audioAssetList.get(assetId);
-                    if (asset != null) {
-                        asset.stopWithFade(fadeOutDuration, false);
-                    }
-                } catch (Exception e) {
-                    logger.error("Error triggering scheduled fade-out", e);
-                }
-                clearFadeOutToStopTimer(assetId);
+    AssetFileDescriptor openLocalAssetFileDescriptor(String assetPath, boolean isLocalUrl) throws Exception {
+        if (isLocalUrl) {
+            File file = new File(Uri.parse(assetPath).getPath());
+            if (!file.exists()) {
+                throw new Exception(ERROR_ASSET_PATH_MISSING + " - " + assetPath);
             }
+            ParcelFileDescriptor pfd = ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY);
+            return new AssetFileDescriptor(pfd, 0, AssetFileDescriptor.UNKNOWN_LENGTH);
         }
+        return getContext().getApplicationContext().getResources().getAssets().openFd(toPublicAssetPath(assetPath));
     }
 
     /**
-     * Create an AudioAsset for the given identifier and path, supporting remote URLs (including HLS),
-     * local file URIs, and assets in the app's public folder.
+     * Keeps the remote URLs around {@code currentIndex} preloaded so a later {@link #preload} and play of
+     * one of them starts without waiting for the source to prepare.
      *
-     * @param assetId         unique identifier for the asset
-     * @param assetPath       file path or URL to the audio resource
-     * @param isLocalUrl      true when assetPath is a URL (http/https/file), false when it refers to a public asset path
-     * @param volume          initial playback volume (expected range: 0.1 to 1.0)
-     * @param audioChannelNum number of audio channels to configure for the asset
-     * @param headersObj      optional HTTP headers for remote requests (may be null)
-     * @return                an initialized AudioAsset instance for the provided path
-     * @throws Exception      if the asset cannot be located or initialized (includes missing file, invalid path, or other load errors)
+     * <p>Options: {@code urls} (the feed in display order), {@code currentIndex}, optional {@code headers} and
+     * {@code ranges} ({@code buffered}, {@code prepared} item distances and {@code bufferMs}). Passing an
+     * empty {@code urls} array releases everything.
      */
-    private AudioAsset loadAudioAsset(
-        String assetId,
-        String assetPath,
-        boolean isLocalUrl,
-        float volume,
-        int audioChannelNum,
-        JSObject headersObj
-    ) throws Exception {
-        if (isLocalUrl) {
-            Uri uri = Uri.parse(assetPath);
-            if (uri.getScheme() != null && (uri.getScheme().equals("http") || uri.getScheme().equals("https"))) {
-                // Remote URL
-                Map<String, String> requestHeaders = null;
-                if (headersObj != null) {
-                    requestHeaders = new HashMap<>();
-                    for (Iterator<String> it = headersObj.keys(); it.hasNext(); ) {
-                        String key = it.next();
-                        try {
-                            String value = headersObj.getString(key);
-                            if (value != null) {
-                                requestHeaders.put(key, value);
-                            }
-                        } catch (Exception e) {
-                            Log.w("AudioPlugin", "Skipping non-string header: " + key);
-                        }
+    @PluginMethod
+    public void setPreloadWindow(final PluginCall call) {
+        this.runOnMainThread(() -> {
+            try {
+                JSArray urlArray = call.getArray(PRELOAD_WINDOW_URLS);
+                List<String> urls = new ArrayList<>();
+                if (urlArray != null) {
+                    for (int i = 0; i < urlArray.length(); i++) {
+                        urls.add(urlArray.getString(i));
                     }
                 }
-
-                if (isHlsUrl(assetPath)) {
-                    // HLS Stream - check if HLS support is available
-                    if (!HlsAvailabilityChecker.isHlsAvailable()) {
-                        throw new Exception(
-                            "HLS streaming (.m3u8) is not available. " + "Set 'hls: true' in capacitor.config.ts and run 'npx cap sync'."
-                        );
+                if (urls.isEmpty()) {
+                    if (preloadWindow != null) {
+                        preloadWindow.release();
+                        preloadWindow = null;
                     }
-                    AudioAsset streamAudioAsset = createStreamAudioAsset(assetId, uri, volume, requestHeaders);
-                    if (streamAudioAsset == null) {
-                        throw new Exception("Failed to create HLS stream player. HLS may not be configured.");
-                    }
-                    return streamAudioAsset;
-                } else {
-                    RemoteAudioAsset remoteAudioAsset = new RemoteAudioAsset(this, assetId, uri, audioChannelNum, volume, requestHeaders);
-                    return remoteAudioAsset;
+                    call.resolve();
+                    return;
                 }
-            } else if (uri.getScheme() != null && uri.getScheme().equals("file")) {
-                File file = new File(uri.getPath());
-                if (!file.exists()) {
-                    throw new Exception(ERROR_ASSET_PATH_MISSING + " - " + assetPath);
+                int currentIndex = call.getInt(PRELOAD_WINDOW_CURRENT_INDEX, 0);
+                JSObject ranges = call.getObject(PRELOAD_WINDOW_RANGES, new JSObject());
+                int bufferedRange = ranges.optInt("buffered", PreloadWindowManager.DEFAULT_BUFFERED_RANGE);
+                int preparedRange = ranges.optInt("prepared", PreloadWindowManager.DEFAULT_PREPARED_RANGE);
+                long bufferMs = ranges.optLong("bufferMs", PreloadWindowManager.DEFAULT_BUFFER_MS);
+
+                Map<String, String> headers = toHeaderMap(call.getObject("headers"));
+                if (preloadWindow != null && !preloadWindow.hasHeaders(headers)) {
+                    // The headers are baked into the manager's data sources, so a new set means a new manager
+                    preloadWindow.release();
+                    preloadWindow = null;
                 }
-                ParcelFileDescriptor pfd = ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY);
-                AssetFileDescriptor afd = new AssetFileDescriptor(pfd, 0, AssetFileDescriptor.UNKNOWN_LENGTH);
-                AudioAsset asset = new AudioAsset(this, assetId, afd, audioChannelNum, volume);
-                return asset;
-            } else {
-                // Handle unexpected URI schemes by attempting to treat as local file
-                try {
-                    File file = new File(uri.getPath());
-                    if (!file.exists()) {
-                        throw new Exception(ERROR_ASSET_PATH_MISSING + " - " + assetPath);
-                    }
-                    ParcelFileDescriptor pfd = ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY);
-                    AssetFileDescriptor afd = new AssetFileDescriptor(pfd, 0, AssetFileDescriptor.UNKNOWN_LENGTH);
-                    AudioAsset asset = new AudioAsset(this, assetId, afd, audioChannelNum, volume);
-                    Log.w(TAG, "Unexpected URI scheme '" + uri.getScheme() + "' treated as local file: " + assetPath);
-                    return asset;
-                } catch (Exception e) {
-                    throw new Exception(
-                        "Failed to load asset with unexpected URI scheme '" +
-                            uri.getScheme() +
-                            "' (expected 'http', 'https', or 'file'). Asset path: " +
-                            assetPath +
-                            ". Error: " +
-                            e.getMessage()
-                    );
+                if (preloadWindow == null) {
+                    preloadWindow = new PreloadWindowManager(getContext(), headers);
                 }
+                preloadWindow.setWindow(urls, currentIndex, bufferedRange, preparedRange, bufferMs);
+                call.resolve();
+            } catch (Exception ex) {
+                call.reject("Error setting preload window: " + ex.getMessage());
             }
-        } else {
-            // Handle asset in public folder
-            String finalAssetPath = assetPath;
-            if (!assetPath.startsWith("public/")) {
-                finalAssetPath = "public/" + assetPath;
-            }
-            Context ctx = getContext().getApplicationContext();
-            AssetManager am = ctx.getResources().getAssets();
-            AssetFileDescriptor assetFileDescriptor = am.openFd(finalAssetPath);
-            AudioAsset asset = new AudioAsset(this, assetId, assetFileDescriptor, audioChannelNum, volume);
-            return asset;
-        }
+        });
     }
 
     /**
-     * Preloads an audio asset into the plugin's asset list.
-     *
-     * <p>The provided PluginCall must include:
-     * <ul>
-     *   <li>`assetId` (string) — identifier for the asset</li>
-     *   <li>`assetPath` (string) — path or URL to the audio resource</li>
-     * </ul>
-     * Optional keys on the call:
-     * <ul>
-     *   <li>`isUrl` (boolean) — true when `assetPath` is a remote URL</li>
-     *   <li>`isComplex` (boolean) — when true, `volume` and `audioChannelNum` may be provided</li>
-     *   <li>`volume` (number) — initial playback volume (default 1.0)</li>
-     *   <li>`audioChannelNum` (int) — audio channel count (default 1)</li>
-     *   <li>`headers` (object) — HTTP headers for remote requests</li>
-     *   <li>`notificationMetadata` (object) — optional metadata (`title`, `artist`, `album`, `artworkUrl`) to attach to the asset</li>
-     * </ul>
-     *
-     * <p>On success the call is resolved with a status indicating success. The method rejects the call
-     * when required parameters are missing, when an asset with the same id already exists, or when
-     * the asset cannot be loaded.
+     * Returns start latency histograms: time from the bridge receiving a {@code play} call to its main-thread
+     * dispatch, to the player being ready and to the first rendered audio frame.
      *
-     * @param call the PluginCall containing asset parameters and options
+     * <p>Options: optional {@code assetId} to only include that asset, optional {@code reset} to clear the
+     * histograms after reading them.
      */
-    private void preloadAsset(PluginCall call) {
-        float volume = 1F;
-        int audioChannelNum = 1;
-        JSObject status = new JSObject();
-        status.put("STATUS", "OK");
+    @PluginMethod
+    public void getLatencyStats(final PluginCall call) {
+        JSObject ret = latencyTracker.toJSObject(call.getString(ASSET_ID));
+        if (call.getBoolean("reset", false)) {
+            latencyTracker.reset();
+        }
+        call.resolve(ret);
+    }
 
-        try {
-            initSoundPool();
+    /**
+     * Crossfades from a playing asset to another one with both gains driven by one clock. The incoming asset is
+     * started from the beginning, silent, and the fade begins once it actually plays. The outgoing asset is then
+     * stopped, or paused with {@code outgoing: 'pause'}, and gets its volume back. Resolves when the fade is over.
+     *
+     * <p>Options: {@code fromAssetId}, {@code toAssetId}, {@code duration} in seconds, {@code curve}
+     * ({@code equalPower} or {@code linear}), {@code volume} of the incoming asset and {@code outgoing}.
+     */
+    @PluginMethod
+    public void crossfade(final PluginCall call) {
+        final String fromId = call.getString(CROSSFADE_FROM);
+        final String toId = call.getString(CROSSFADE_TO);
+        if (!isStringValid(fromId) || !isStringValid(toId)) {
+            call.reject(ERROR_AUDIO_ID_MISSING);
+            return;
+        }
+        if (fromId.equals(toId)) {
+            call.reject("Cannot crossfade an asset with itself - " + fromId);
+            return;
+        }
+        if (!audioAssetList.containsKey(fromId) || !audioAssetList.containsKey(toId)) {
+            call.reject(ERROR_ASSET_NOT_LOADED + " - " + (audioAssetList.containsKey(fromId) ? toId : fromId));
+            return;
+        }
+        final long durationMs = Math.round(call.getDouble(DURATION, DEFAULT_CROSSFADE_DURATION_SECS) * 1000);
+        final Crossfader.Curve curve = Crossfader.Curve.fromString(call.getString(CROSSFADE_CURVE));
+        final boolean pauseOutgoing = "pause".equals(call.getString(CROSSFADE_OUTGOING));
+        final float toVolume = call.getFloat(VOLUME, 1F);
+        cancelPendingPlay(toId);
+
+        this.runOnMainThread(() -> {
+            try {
+                if (pendingLocalCopySwaps.containsKey(toId)) {
+                    applyLocalCopySwap(toId);
+                }
+                AudioAsset from = audioAssetList.get(fromId);
+                AudioAsset to = audioAssetList.get(toId);
+                if (from == null || to == null) {
+                    call.reject(ERROR_AUDIO_ASSET_MISSING);
+                    return;
+                }
+                float fromVolume = from.getVolume();
+                if (fromVolume <= 0) {
+                    fromVolume = 1F;
+                }
+                latencyTracker.markReceived(toId);
+                latencyTracker.markDispatched(toId);
+                crossfader.start(
+                    fromId,
+                    from,
+                    fromVolume,
+                    toId,
+                    to,
+                    toVolume,
+                    durationMs,
+                    curve,
+                    pauseOutgoing,
+                    new Crossfader.Callback() {
+                        @Override
+                        public void onFinished() {
+                            call.resolve();
+                        }
+
+                        @Override
+                        public void onError(Exception error) {
+                            call.reject("Crossfade failed: " + error.getMessage());
+                        }
+                    }
+                );
+                if (showNotification) {
+                    currentlyPlayingAssetId = toId;
+                    updateNotification(toId);
+                }
+            } catch (Exception ex) {
+                call.reject("Error starting crossfade: " + ex.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Downloads a whole VOD HLS stream into the media cache so it can play offline. Resolves once every
+     * segment is cached, emitting {@code streamPrecacheProgress} events meanwhile. Live playlists cannot be
+     * precached.
+     *
+     * <p>Options: {@code assetPath} (the .m3u8 URL) and optional {@code headers}.
+     */
+    @PluginMethod
+    public void precacheStream(final PluginCall call) {
+        String url = call.getString(ASSET_PATH);
+        if (!isStringValid(url)) {
+            call.reject(ERROR_ASSET_PATH_MISSING);
+            return;
+        }
+        if (!isHlsUrl(url)) {
+            call.reject("Only HLS (.m3u8) streams can be precached - " + url);
+            return;
+        }
+        if (!HlsAvailabilityChecker.isHlsAvailable()) {
+            call.reject("HLS streaming (.m3u8) is not available. " + "Set 'hls: true' in capacitor.config.ts and run 'npx cap sync'.");
+            return;
+        }
+        if (precacheCalls.containsKey(url)) {
+            call.reject("Precache already running for " + url);
+            return;
+        }
+        Runnable precacher;
+        try {
+            Class<?> precacherClass = Class.forName("ee.forgr.audio.HlsPrecacher");
+            precacher = (Runnable) precacherClass
+                .getConstructor(NativeAudio.class, String.class, java.util.Map.class)
+                .newInstance(this, url, toHeaderMap(call.getObject("headers")));
+        } catch (Exception e) {
+            logger.error("Failed to create HlsPrecacher", e);
+            call.reject("Failed to start precache: " + e.getMessage());
+            return;
+        }
+        if (precacheExecutor == null) {
+            precacheExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        }
+        call.setKeepAlive(true);
+        precacheCalls.put(url, call);
+        precacheTasks.put(url, precacheExecutor.submit(precacher));
+    }
+
+    /**
+     * Cancels a running {@link #precacheStream}. Segments already downloaded stay in the cache.
+     */
+    @PluginMethod
+    public void cancelPrecache(final PluginCall call) {
+        String url = call.getString(ASSET_PATH);
+        Future<?> task = url != null ? precacheTasks.get(url) : null;
+        if (task != null) {
+            // A queued task never runs and never reports back, a running one is interrupted and reports itself
+            boolean queued = precacheExecutor.remove((Runnable) task);
+            task.cancel(true);
+            if (queued) {
+                onPrecacheFinished(url, new Exception("Precache cancelled"));
+            }
+        }
+        call.resolve();
+    }
+
+    void notifyPrecacheProgress(String url, float percent, long bytesDownloaded) {
+        JSObject ret = new JSObject();
+        ret.put("assetPath", url);
+        ret.put("percent", percent);
+        ret.put("bytesDownloaded", bytesDownloaded);
+        notifyListeners("streamPrecacheProgress", ret);
+    }
+
+    void onPrecacheFinished(String url, Exception error) {
+        precacheTasks.remove(url);
+        PluginCall call = precacheCalls.remove(url);
+        if (call == null) {
+            return;
+        }
+        call.setKeepAlive(false);
+        if (error != null) {
+            call.reject("Error precaching stream: " + error.getMessage());
+        } else {
+            call.resolve();
+        }
+    }
+
+    /**
+     * Returns the seekable range of a stream preloaded with {@code timeShift}: {@code startSec} and {@code endSec}
+     * bound the positions {@code setCurrentTime} accepts, {@code behindLiveSec} is the distance to the live edge.
+     */
+    @PluginMethod
+    public void getTimeShiftWindow(final PluginCall call) {
+        String audioId = call.getString(ASSET_ID);
+        if (!isStringValid(audioId)) {
+            call.reject(ERROR_AUDIO_ID_MISSING + " - " + audioId);
+            return;
+        }
+        AudioAsset asset = audioAssetList.get(audioId);
+        if (asset == null) {
+            call.reject(ERROR_ASSET_NOT_LOADED + " - " + audioId);
+            return;
+        }
+        this.runOnMainThread(() -> {
+            JSObject window = asset.getTimeShiftWindow();
+            if (window == null) {
+                call.reject("Time shift is not enabled for " + audioId);
+            } else {
+                call.resolve(window);
+            }
+        });
+    }
+
+    /**
+     * Returns the network measurements and buffer thresholds an HLS stream currently uses, for streams loaded
+     * while {@code adaptiveBuffer} is enabled.
+     */
+    @PluginMethod
+    public void getAdaptiveBufferState(final PluginCall call) {
+        String audioId = call.getString(ASSET_ID);
+        if (!isStringValid(audioId)) {
+            call.reject(ERROR_AUDIO_ID_MISSING + " - " + audioId);
+            return;
+        }
+        AudioAsset asset = audioAssetList.get(audioId);
+        if (asset == null) {
+            call.reject(ERROR_ASSET_NOT_LOADED + " - " + audioId);
+            return;
+        }
+        JSObject state = asset.getAdaptiveBufferState();
+        if (state == null) {
+            call.reject("Adaptive buffering is not enabled for " + audioId);
+            return;
+        }
+        state.put("assetId", audioId);
+        call.resolve(state);
+    }
+
+    /**
+     * Starts emitting {@code levels} events with the peak and RMS level, and optionally a spectrum, of the playing
+     * assets. ExoPlayer backed assets are measured from the decoded PCM; local assets go through the platform
+     * Visualizer, which requires the RECORD_AUDIO permission.
+     *
+     * <p>Options: {@code assetIds} to meter (all loaded assets when omitted), {@code intervalMs} between two events
+     * and {@code bands}, the number of spectrum bands (none by default). Calling it again changes the settings.
+     */
+    @PluginMethod
+    public void startMetering(final PluginCall call) {
+        Set<String> assetIds = null;
+        JSArray ids = call.getArray(METERING_ASSET_IDS);
+        if (ids != null) {
+            try {
+                assetIds = new HashSet<>(ids.<String>toList());
+            } catch (JSONException e) {
+                call.reject("Invalid assetIds: " + e.getMessage());
+                return;
+            }
+        }
+        long intervalMs = call.getLong(METERING_INTERVAL_MS, MeteringController.DEFAULT_INTERVAL_MS);
+        int bands = call.getInt(METERING_BANDS, 0);
+        metering.start(assetIds, intervalMs, bands);
+        call.resolve();
+    }
+
+    /**
+     * Stops the {@code levels} events and releases the visualizers created for metering.
+     */
+    @PluginMethod
+    public void stopMetering(final PluginCall call) {
+        metering.stop();
+        call.resolve();
+    }
+
+    /**
+     * Computes the min and max sample of {@code buckets} equal slices of a file, decoding it in the background.
+     * Decoded waveforms are cached on disk, so later calls for the same content resolve without decoding.
+     * While decoding, {@code waveformProgress} events carry the buckets computed so far.
+     *
+     * <p>Options: {@code assetId} of a preloaded asset, or {@code assetPath} with {@code isUrl} and
+     * {@code headers} as for {@link #preload}, and {@code buckets} (200 by default).
+     */
+    @PluginMethod
+    public void getWaveform(final PluginCall call) {
+        final String audioId = call.getString(ASSET_ID);
+        final String assetPath = call.getString(ASSET_PATH);
+        final WaveformExtractor.Source source;
+        if (isStringValid(audioId)) {
+            source = assetSources.get(audioId);
+            if (source == null) {
+                String reason = audioAssetList.containsKey(audioId)
+                    ? "Waveforms are not available for queues and HLS streams"
+                    : ERROR_ASSET_NOT_LOADED;
+                call.reject(reason + " - " + audioId);
+                return;
+            }
+        } else if (isStringValid(assetPath)) {
+            boolean isUrl = call.getBoolean("isUrl", false);
+            if (isUrl && isHlsUrl(assetPath)) {
+                call.reject("Waveforms are not available for HLS streams - " + assetPath);
+                return;
+            }
+            source = toWaveformSource(assetPath, isUrl, call.getObject("headers"));
+        } else {
+            call.reject(ERROR_AUDIO_ID_MISSING);
+            return;
+        }
+        int buckets = call.getInt(WAVEFORM_BUCKETS, DEFAULT_WAVEFORM_BUCKETS);
+        if (buckets < 1 || buckets > WaveformExtractor.MAX_BUCKETS) {
+            call.reject("buckets must be between 1 and " + WaveformExtractor.MAX_BUCKETS);
+            return;
+        }
+        if (waveformExtractor == null) {
+            waveformExtractor = new WaveformExtractor(getContext());
+        }
+        waveformExtractor.extract(
+            source,
+            buckets,
+            new WaveformExtractor.Callback() {
+                @Override
+                public void onProgress(WaveformExtractor.Waveform waveform, int start, int end, double progress) {
+                    JSObject ret = waveform.toJSObject(start, end);
+                    if (isStringValid(audioId)) {
+                        ret.put(ASSET_ID, audioId);
+                    } else {
+                        ret.put(ASSET_PATH, assetPath);
+                    }
+                    ret.put("buckets", waveform.min.length);
+                    ret.put("progress", progress);
+                    notifyListeners("waveformProgress", ret);
+                }
+
+                @Override
+                public void onFinished(WaveformExtractor.Waveform waveform) {
+                    call.resolve(waveform.toJSObject());
+                }
+
+                @Override
+                public void onError(Exception error) {
+                    call.reject("Error computing waveform: " + error.getMessage());
+                }
+            }
+        );
+    }
+
+    private WaveformExtractor.Source toWaveformSource(String assetPath, boolean isUrl, JSObject headersObj) {
+        Uri uri = isUrl ? Uri.parse(assetPath) : Uri.parse("asset:///" + toPublicAssetPath(assetPath));
+        return new WaveformExtractor.Source(uri, toHeaderMap(headersObj));
+    }
+
+    /**
+     * Initializes the media cache, decoders, player classes and audio output in the background so the first play
+     * starts as fast as later ones. Resolves with the time each step took once done; only the first call does
+     * the work. Also started by {@code configure({ prewarm: true })} or the {@code prewarm} plugin config.
+     */
+    @PluginMethod
+    public void warmUp(final PluginCall call) {
+        getEngineWarmer().warmUp(call::resolve);
+    }
+
+    /**
+     * Resolves with a snapshot of the engine's resources and activity: live MediaPlayers, ExoPlayers and plugin
+     * threads, active voices, decoded and cached bytes, event rates and main-thread hops. Counters are
+     * cumulative since the process started; compare two snapshots to get rates.
+     */
+    @PluginMethod
+    public void getEngineMetrics(final PluginCall call) {
+        runOnMainThread(() -> {
+            JSObject ret = EngineMetrics.snapshot();
+            int activeVoices = 0;
+            for (AudioAsset asset : audioAssetList.values()) {
+                try {
+                    if (asset.isPlaying()) {
+                        activeVoices++;
+                    }
+                } catch (Exception ignored) {
+                    // Released while counting
+                }
+            }
+            ret.put("loadedAssets", audioAssetList.size());
+            ret.put("activeVoices", activeVoices);
+            ret.put("idlePlayOnceVoices", playOncePool.getIdleCount());
+            ret.put("scheduledPlays", pendingPlayHandlers.size());
+            ret.put("bufferedBytes", BufferBudget.getAllocatedBytes());
+            call.resolve(ret);
+        });
+    }
+
+    /**
+     * Returns the recent entries of the in-memory log, oldest first. Warnings and errors are always kept, other
+     * levels only while debugging is enabled.
+     */
+    @PluginMethod
+    public void getRecentLogs(final PluginCall call) {
+        JSObject ret = new JSObject();
+        ret.put("logs", LogBuffer.snapshot(Boolean.TRUE.equals(call.getBoolean(CLEAR_LOGS, false))));
+        call.resolve(ret);
+    }
+
+    /**
+     * Runs the action on the main thread, counted in the engine metrics.
+     */
+    void runOnMainThread(Runnable action) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            // runOnUiThread would run it inline, there is no hop to count
+            action.run();
+            return;
+        }
+        getActivity().runOnUiThread(EngineMetrics.mainThreadHop(action));
+    }
+
+    @Override
+    protected void notifyListeners(String eventName, JSObject data, boolean retainUntilConsume) {
+        EngineMetrics.eventEmitted(retainUntilConsume || hasListeners(eventName));
+        super.notifyListeners(eventName, data, retainUntilConsume);
+    }
+
+    private synchronized EngineWarmer getEngineWarmer() {
+        if (engineWarmer == null) {
+            engineWarmer = new EngineWarmer(getContext());
+        }
+        return engineWarmer;
+    }
+
+    Map<String, AudioAsset> getAudioAssets() {
+        return audioAssetList;
+    }
+
+    void notifyLevels(JSObject event) {
+        notifyListeners("levels", event);
+    }
+
+    LatencyTracker getLatencyTracker() {
+        return latencyTracker;
+    }
+
+    /**
+     * Returns the active preload window, or null when {@link #setPreloadWindow} was never called.
+     * Only valid on the main thread.
+     */
+    PreloadWindowManager getPreloadWindow() {
+        return preloadWindow;
+    }
+
+    @PluginMethod
+    public void setCurrentTime(final PluginCall call) {
+        try {
+            initSoundPool();
+
+            String audioId = call.getString(ASSET_ID);
+            clearFadeOutToStopTimer(audioId);
+            double time = call.getDouble(TIME, 0.0);
+
+            cancelPendingPlay(audioId);
+
+            if (!isStringValid(audioId)) {
+                call.reject(ERROR_AUDIO_ID_MISSING + " - " + audioId);
+                return;
+            }
+
+            if (audioAssetList.containsKey(audioId)) {
+                AudioAsset asset = audioAssetList.get(audioId);
+                if (asset != null) {
+                    this.runOnMainThread(
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    asset.setCurrentTime(time);
+                                    call.resolve();
+                                } catch (Exception e) {
+                                    call.reject("Error setting current time: " + e.getMessage());
+                                }
+                            }
+                        }
+                    );
+                } else {
+                    call.reject(ERROR_ASSET_NOT_LOADED + " - " + audioId);
+                }
+            } else {
+                call.reject(ERROR_ASSET_NOT_LOADED + " - " + audioId);
+            }
+        } catch (Exception ex) {
+            call.reject(ex.getMessage());
+        }
+    }
+
+    public void dispatchComplete(String assetId) {
+        JSObject ret = new JSObject();
+        ret.put("assetId", assetId);
+        notifyListeners("complete", ret);
+        if (sessionPlayer != null) {
+            sessionPlayer.refresh();
+        }
+    }
+
+    void notifyStreamError(String assetId, Exception error, int attempt, boolean willRetry, long retryInMs) {
+        JSObject ret = new JSObject();
+        ret.put("assetId", assetId);
+        ret.put("message", error.getMessage());
+        if (error instanceof PlaybackException) {
+            ret.put("code", ((PlaybackException) error).getErrorCodeName());
+        }
+        ret.put("attempt", attempt);
+        ret.put("willRetry", willRetry);
+        ret.put("retryInMs", retryInMs);
+        notifyListeners("streamError", ret);
+    }
+
+    void notifyStreamRecovered(String assetId, int attempts) {
+        JSObject ret = new JSObject();
+        ret.put("assetId", assetId);
+        ret.put("attempts", attempts);
+        notifyListeners("streamRecovered", ret);
+    }
+
+    /**
+     * Emits a "currentTime" event for the given asset with the playback position rounded to the nearest 0.1 second.
+     *
+     * The emitted event payload contains `assetId` and `currentTime` (in seconds, rounded to the nearest 0.1).
+     *
+     * @param assetId     the identifier of the audio asset
+     * @param currentTime the current playback time in seconds (will be rounded to nearest 0.1)
+     */
+    public void notifyCurrentTime(String assetId, double currentTime) {
+        boolean traced = Tracing.begin("NativeAudio.notifyCurrentTime");
+        try {
+            // Round to nearest 100ms
+            double roundedTime = Math.round(currentTime * 10.0) / 10.0;
+            JSObject ret = new JSObject();
+            ret.put("currentTime", roundedTime);
+            ret.put("assetId", assetId);
+            notifyListeners("currentTime", ret);
+
+            JSObject data = getAudioAssetData(assetId);
+            if (data.optBoolean("fadeOut", false)) {
+                double fadeOutStartTime = data.optDouble("fadeOutStartTime", -1);
+                if (fadeOutStartTime >= 0 && currentTime >= fadeOutStartTime) {
+                    double fadeOutDuration = data.optDouble("fadeOutDuration", AudioAsset.DEFAULT_FADE_DURATION_MS);
+                    try {
+                        AudioAsset asset = audioAssetList.get(assetId);
+                        if (asset != null) {
+                            asset.stopWithFade(fadeOutDuration, false);
+                        }
+                    } catch (Exception e) {
+                        logger.error("Error triggering scheduled fade-out", e);
+                    }
+                    clearFadeOutToStopTimer(assetId);
+                }
+            }
+        } finally {
+            Tracing.end(traced);
+        }
+    }
+
+    /**
+     * Create an AudioAsset for the given identifier and path, supporting remote URLs (including HLS),
+     * local file URIs, and assets in the app's public folder.
+     *
+     * @param assetId         unique identifier for the asset
+     * @param assetPath       file path or URL to the audio resource
+     * @param isLocalUrl      true when assetPath is a URL (http/https/file), false when it refers to a public asset path
+     * @param volume          initial playback volume (expected range: 0.1 to 1.0)
+     * @param audioChannelNum number of audio channels to configure for the asset
+     * @param headersObj      optional HTTP headers for remote requests (may be null)
+     * @param bufferProfile   buffer profile for ExoPlayer backed assets, or null for the default of the asset type
+     * @param timeShift       disk buffer enabling time shifting of HLS streams, or null; ignored for other assets
+     * @return                an initialized AudioAsset instance for the provided path
+     * @throws Exception      if the asset cannot be located or initialized (includes missing file, invalid path, or other load errors)
+     */
+    private AudioAsset loadAudioAsset(
+        String assetId,
+        String assetPath,
+        boolean isLocalUrl,
+        float volume,
+        int audioChannelNum,
+        JSObject headersObj,
+        BufferBudget.Profile bufferProfile,
+        TimeShiftBuffer timeShift
+    ) throws Exception {
+        boolean traced = Tracing.begin("NativeAudio.loadAudioAsset");
+        try {
+            if (isLocalUrl) {
+                Uri uri = Uri.parse(assetPath);
+                if (uri.getScheme() != null && (uri.getScheme().equals("http") || uri.getScheme().equals("https"))) {
+                    // Remote URL
+                    Map<String, String> requestHeaders = toHeaderMap(headersObj);
+
+                    if (isHlsUrl(assetPath)) {
+                        // HLS Stream - check if HLS support is available
+                        if (!HlsAvailabilityChecker.isHlsAvailable()) {
+                            throw new Exception(
+                                "HLS streaming (.m3u8) is not available. " +
+                                    "Set 'hls: true' in capacitor.config.ts and run 'npx cap sync'."
+                            );
+                        }
+                        AudioAsset streamAudioAsset = createStreamAudioAsset(
+                            assetId,
+                            uri,
+                            volume,
+                            requestHeaders,
+                            bufferProfile != null ? bufferProfile : BufferBudget.Profile.LIVE,
+                            timeShift
+                        );
+                        if (streamAudioAsset == null) {
+                            throw new Exception("Failed to create HLS stream player. HLS may not be configured.");
+                        }
+                        return streamAudioAsset;
+                    } else {
+                        RemoteAudioAsset remoteAudioAsset = new RemoteAudioAsset(
+                            this,
+                            assetId,
+                            uri,
+                            audioChannelNum,
+                            volume,
+                            requestHeaders,
+                            bufferProfile != null ? bufferProfile : BufferBudget.Profile.MUSIC
+                        );
+                        return remoteAudioAsset;
+                    }
+                } else if (uri.getScheme() != null && uri.getScheme().equals("file")) {
+                    File file = new File(uri.getPath());
+                    if (!file.exists()) {
+                        throw new Exception(ERROR_ASSET_PATH_MISSING + " - " + assetPath);
+                    }
+                    ParcelFileDescriptor pfd = ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY);
+                    AssetFileDescriptor afd = new AssetFileDescriptor(pfd, 0, AssetFileDescriptor.UNKNOWN_LENGTH);
+                    AudioAsset asset = new AudioAsset(this, assetId, afd, audioChannelNum, volume);
+                    return asset;
+                } else {
+                    // Handle unexpected URI schemes by attempting to treat as local file
+                    try {
+                        File file = new File(uri.getPath());
+                        if (!file.exists()) {
+                            throw new Exception(ERROR_ASSET_PATH_MISSING + " - " + assetPath);
+                        }
+                        ParcelFileDescriptor pfd = ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY);
+                        AssetFileDescriptor afd = new AssetFileDescriptor(pfd, 0, AssetFileDescriptor.UNKNOWN_LENGTH);
+                        AudioAsset asset = new AudioAsset(this, assetId, afd, audioChannelNum, volume);
+                        logger.warning("Unexpected URI scheme '" + uri.getScheme() + "' treated as local file: " + assetPath);
+                        return asset;
+                    } catch (Exception e) {
+                        throw new Exception(
+                            "Failed to load asset with unexpected URI scheme '" +
+                                uri.getScheme() +
+                                "' (expected 'http', 'https', or 'file'). Asset path: " +
+                                assetPath +
+                                ". Error: " +
+                                e.getMessage()
+                        );
+                    }
+                }
+            } else {
+                // Handle asset in public folder
+                String finalAssetPath = assetPath;
+                if (!assetPath.startsWith("public/")) {
+                    finalAssetPath = "public/" + assetPath;
+                }
+                Context ctx = getContext().getApplicationContext();
+                AssetManager am = ctx.getResources().getAssets();
+                AssetFileDescriptor assetFileDescriptor = am.openFd(finalAssetPath);
+                AudioAsset asset = new AudioAsset(this, assetId, assetFileDescriptor, audioChannelNum, volume);
+                return asset;
+            }
+        } finally {
+            Tracing.end(traced);
+        }
+    }
+
+    private BufferBudget.Profile parseBufferProfile(JSObject options) {
+        return BufferBudget.Profile.fromString(options.getString(BUFFER_PROFILE), null);
+    }
+
+    private TimeShiftBuffer parseTimeShift(JSObject preloadOptions) {
+        JSObject options = preloadOptions.getJSObject(TIME_SHIFT);
+        if (options == null) {
+            return null;
+        }
+        long maxDurationMs = Math.round(options.optDouble("maxDurationSec", TimeShiftBuffer.DEFAULT_MAX_DURATION_MS / 1000.0) * 1000);
+        double maxDiskMB = options.optDouble("maxDiskMB", TimeShiftBuffer.DEFAULT_MAX_DISK_BYTES / (1024.0 * 1024));
+        long maxDiskBytes = Math.round(maxDiskMB * 1024 * 1024);
+        return new TimeShiftBuffer(getContext(), maxDurationMs, maxDiskBytes);
+    }
+
+    private Map<String, String> toHeaderMap(JSObject headersObj) {
+        if (headersObj == null) {
+            return null;
+        }
+        Map<String, String> requestHeaders = new HashMap<>();
+        for (Iterator<String> it = headersObj.keys(); it.hasNext(); ) {
+            String key = it.next();
+            try {
+                String value = headersObj.getString(key);
+                if (value != null) {
+                    requestHeaders.put(key, value);
+                }
+            } catch (Exception e) {
+                logger.warning("Skipping non-string header: " + key);
+            }
+        }
+        return requestHeaders;
+    }
+
+    private boolean isRemoteUrl(String assetPath) {
+        Uri uri = Uri.parse(assetPath);
+        return uri.getScheme() != null && (uri.getScheme().equals("http") || uri.getScheme().equals("https"));
+    }
+
+    /**
+     * Starts a background download of a remote asset and swaps the loaded {@link RemoteAudioAsset} for a
+     * local {@link AudioAsset} once the local file is ready. If the remote asset is playing at that
+     * moment the swap is deferred to its next {@code play}.
+     */
+    private void scheduleLocalCopy(
+        String audioId,
+        AudioAsset remoteAsset,
+        String assetPath,
+        JSObject headersObj,
+        int audioChannelNum
+    ) {
+        if (localCopies == null) {
+            localCopies = new LocalCopyStore(getContext());
+        }
+        localCopies.download(
+            assetPath,
+            toHeaderMap(headersObj),
+            new LocalCopyStore.Callback() {
+                @Override
+                public void onDownloaded(File file) {
+                    if (audioAssetList.get(audioId) != remoteAsset) {
+                        // Asset was unloaded or replaced while downloading
+                        return;
+                    }
+                    pendingLocalCopySwaps.put(audioId, new LocalCopySwap(remoteAsset, file, audioChannelNum));
+                    try {
+                        // A paused asset keeps its position and loop until its next play
+                        if (!remoteAsset.isPlaying() && !remoteAsset.isPaused()) {
+                            applyLocalCopySwap(audioId);
+                        }
+                    } catch (Exception e) {
+                        logger.error("Error swapping in the local copy of " + audioId, e);
+                    }
+                }
+
+                @Override
+                public void onError(Exception error) {
+                    logger.warning("Keeping remote playback for " + audioId + ": " + error.getMessage());
+                }
+            }
+        );
+    }
+
+    private void applyLocalCopySwap(String audioId) throws Exception {
+        LocalCopySwap swap = pendingLocalCopySwaps.remove(audioId);
+        if (swap == null || audioAssetList.get(audioId) != swap.remoteAsset) {
+            return;
+        }
+        // Volume and rate may have changed since the preload
+        float rate = swap.remoteAsset.getRate();
+        AudioAsset localAsset = loadAudioAsset(
+            audioId,
+            Uri.fromFile(swap.file).toString(),
+            true,
+            swap.remoteAsset.getVolume(),
+            swap.audioChannelNum,
+            null,
+            null,
+            null
+        );
+        if (rate != 1) {
+            localAsset.setRate(rate);
+        }
+        localAsset.setCompletionListener(this::dispatchComplete);
+        audioAssetList.put(audioId, localAsset);
+        swap.remoteAsset.unload();
+        logger.debug("Asset {} now plays from local copy {}", audioId, swap.file);
+    }
+
+    private static class LocalCopySwap {
+
+        final AudioAsset remoteAsset;
+        final File file;
+        final int audioChannelNum;
+
+        LocalCopySwap(AudioAsset remoteAsset, File file, int audioChannelNum) {
+            this.remoteAsset = remoteAsset;
+            this.file = file;
+            this.audioChannelNum = audioChannelNum;
+        }
+    }
+
+    /**
+     * Preloads an audio asset into the plugin's asset list.
+     *
+     * <p>The provided PluginCall must include:
+     * <ul>
+     *   <li>`assetId` (string) — identifier for the asset</li>
+     *   <li>`assetPath` (string) — path or URL to the audio resource</li>
+     * </ul>
+     * Optional keys on the call:
+     * <ul>
+     *   <li>`isUrl` (boolean) — true when `assetPath` is a remote URL</li>
+     *   <li>`isComplex` (boolean) — when true, `volume` and `audioChannelNum` may be provided</li>
+     *   <li>`volume` (number) — initial playback volume (default 1.0)</li>
+     *   <li>`audioChannelNum` (int) — audio channel count (default 1)</li>
+     *   <li>`headers` (object) — HTTP headers for remote requests</li>
+     *   <li>`localCopy` (boolean) — download a remote file to a local copy in the background for low-latency replays</li>
+     *   <li>`notificationMetadata` (object) — optional metadata (`title`, `artist`, `album`, `artworkUrl`) to attach to the asset</li>
+     * </ul>
+     *
+     * <p>On success the call is resolved with a status indicating success. The method rejects the call
+     * when required parameters are missing, when an asset with the same id already exists, or when
+     * the asset cannot be loaded. An asset restored from the manifest and not preloaded since is taken
+     * over instead: it is replaced when the options differ, and its manifest entry is rewritten with
+     * `persist` or removed without it.
+     *
+     * @param call the PluginCall containing asset parameters and options
+     */
+    private void preloadAsset(PluginCall call) {
+        JSObject status = new JSObject();
+        status.put("STATUS", "OK");
+
+        try {
+            initSoundPool();
 
             String audioId = call.getString(ASSET_ID);
             if (!isStringValid(audioId)) {
@@ -1173,26 +2253,67 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                 return;
             }
 
-            boolean isLocalUrl = call.getBoolean("isUrl", false);
-            boolean isComplex = call.getBoolean("isComplex", false);
-
-            Log.d(
-                TAG,
-                "Preloading asset: " + audioId + ", path: " + assetPath + ", isLocalUrl: " + isLocalUrl + ", isComplex: " + isComplex
-            );
+            JSObject options = call.getData();
+            // Checked again once loaded, the restore thread may be loading the same asset
+            if (audioAssetList.containsKey(audioId) || !loadFromPreloadOptions(audioId, options)) {
+                if (!restoredAssetIds.remove(audioId)) {
+                    call.reject(ERROR_AUDIO_EXISTS + " - " + audioId);
+                    return;
+                }
+                // Preloaded again by the app, which owns the restored asset from now on
+                AssetManifest.Entry restored = getAssetManifest().get(audioId);
+                if (restored == null || !restored.hasOptions(options)) {
+                    // The app changed the options since they were persisted, the stale restored asset gives way
+                    logger.debug("Replacing restored asset {} with its new options", audioId);
+                    unloadAsset(audioId);
+                    if (!loadFromPreloadOptions(audioId, options)) {
+                        call.reject(ERROR_AUDIO_EXISTS + " - " + audioId);
+                        return;
+                    }
+                }
+                if (!call.getBoolean(PERSIST, false)) {
+                    getAssetManifest().remove(audioId);
+                }
+            }
 
-            if (audioAssetList.containsKey(audioId)) {
-                call.reject(ERROR_AUDIO_EXISTS + " - " + audioId);
-                return;
+            if (call.getBoolean(PERSIST, false)) {
+                getAssetManifest().put(audioId, options, AssetManifest.Priority.fromString(call.getString(PRIORITY)));
             }
+            call.resolve(status);
+        } catch (Exception ex) {
+            logger.error("Error in preloadAsset", ex);
+            call.reject("Error in preloadAsset: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Loads an asset from {@link #preload} options and adds it to the asset list. Shared by {@link #preload} and the
+     * restore of persisted assets, which calls it off the main thread.
+     *
+     * @return false when another asset was added under the same id while this one loaded, in which case this one
+     * is unloaded and the other kept
+     */
+    private boolean loadFromPreloadOptions(String audioId, JSObject options) throws Exception {
+        boolean traced = Tracing.begin("NativeAudio.preloadAsset");
+        try {
+            float volume = 1F;
+            int audioChannelNum = 1;
+            String assetPath = options.getString(ASSET_PATH);
+            boolean isLocalUrl = options.optBoolean("isUrl", false);
+            boolean isComplex = options.optBoolean("isComplex", false);
+            boolean localCopy = options.optBoolean(LOCAL_COPY, false);
+
+            logger.debug(
+                () -> "Preloading asset: " + audioId + ", path: " + assetPath + ", isLocalUrl: " + isLocalUrl + ", isComplex: " + isComplex
+            );
 
             if (isComplex) {
-                volume = call.getFloat(VOLUME, 1F);
-                audioChannelNum = call.getInt(AUDIO_CHANNEL_NUM, 1);
+                volume = (float) options.optDouble(VOLUME, 1.0);
+                audioChannelNum = options.optInt(AUDIO_CHANNEL_NUM, 1);
             }
 
             // Store notification metadata if provided
-            JSObject metadata = call.getObject(NOTIFICATION_METADATA);
+            JSObject metadata = options.getJSObject(NOTIFICATION_METADATA);
             if (metadata != null) {
                 Map<String, String> metadataMap = new HashMap<>();
                 if (metadata.has("title")) metadataMap.put("title", metadata.getString("title"));
@@ -1205,21 +2326,109 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
             }
 
             // Use the helper method to load the asset
-            JSObject headersObj = call.getObject("headers");
-            AudioAsset asset = loadAudioAsset(audioId, assetPath, isLocalUrl, volume, audioChannelNum, headersObj);
+            JSObject headersObj = options.getJSObject("headers");
+            boolean copyRemote = localCopy && isLocalUrl && isRemoteUrl(assetPath) && !isHlsUrl(assetPath);
+            File localCopyFile = null;
+            if (copyRemote) {
+                synchronized (this) {
+                    if (localCopies == null) {
+                        localCopies = new LocalCopyStore(getContext());
+                    }
+                }
+                localCopyFile = localCopies.getLocalCopy(assetPath);
+            }
+
+            AudioAsset asset;
+            if (localCopyFile != null) {
+                logger.debug("Using local copy for {}: {}", audioId, localCopyFile);
+                asset = loadAudioAsset(audioId, Uri.fromFile(localCopyFile).toString(), true, volume, audioChannelNum, null, null, null);
+            } else {
+                asset = loadAudioAsset(
+                    audioId,
+                    assetPath,
+                    isLocalUrl,
+                    volume,
+                    audioChannelNum,
+                    headersObj,
+                    parseBufferProfile(options),
+                    parseTimeShift(options)
+                );
+            }
 
             if (asset == null) {
-                call.reject("Failed to load asset");
-                return;
+                throw new Exception("Failed to load asset");
             }
 
-            // Set completion listener and add to asset list
+            // Set completion listener and add to asset list, unless the app and the restore thread raced on the id
             asset.setCompletionListener(this::dispatchComplete);
-            audioAssetList.put(audioId, asset);
-            call.resolve(status);
-        } catch (Exception ex) {
-            Log.e("AudioPlugin", "Error in preloadAsset", ex);
-            call.reject("Error in preloadAsset: " + ex.getMessage());
+            if (audioAssetList.putIfAbsent(audioId, asset) != null) {
+                logger.debug("Asset {} was added while loading, dropping the duplicate", audioId);
+                asset.unload();
+                return false;
+            }
+            if (!(isLocalUrl && isHlsUrl(assetPath))) {
+                assetSources.put(audioId, toWaveformSource(assetPath, isLocalUrl, headersObj));
+            }
+
+            if (copyRemote && localCopyFile == null) {
+                scheduleLocalCopy(audioId, asset, assetPath, headersObj, audioChannelNum);
+            }
+            return true;
+        } finally {
+            Tracing.end(traced);
+        }
+    }
+
+    private synchronized AssetManifest getAssetManifest() {
+        if (assetManifest == null) {
+            assetManifest = new AssetManifest(getContext());
+        }
+        return assetManifest;
+    }
+
+    /**
+     * Loads a persisted LAZY asset that is played before its tier was restored.
+     *
+     * @return true when the asset is now loaded
+     */
+    private boolean restoreLazyAsset(String audioId) {
+        return audioId != null && assetRestorer != null && assetRestorer.restoreNow(audioId);
+    }
+
+    /**
+     * Loads a persisted asset on the restore thread, which has no looper so local players deliver their callbacks
+     * on the main looper. HLS streams are built on the main thread since their player must be used from the
+     * thread it is built on.
+     */
+    private void restoreAsset(final AssetManifest.Entry entry) throws Exception {
+        if (audioAssetList.containsKey(entry.assetId)) {
+            // Preloaded again by the app in the meantime
+            return;
+        }
+        String assetPath = entry.options.getString(ASSET_PATH);
+        boolean isHls = entry.options.optBoolean("isUrl", false) && assetPath != null && isHlsUrl(assetPath);
+        if (!isHls || Looper.myLooper() == Looper.getMainLooper()) {
+            if (loadFromPreloadOptions(entry.assetId, entry.options)) {
+                restoredAssetIds.add(entry.assetId);
+            }
+            return;
+        }
+        final Exception[] error = new Exception[1];
+        final CountDownLatch latch = new CountDownLatch(1);
+        new Handler(Looper.getMainLooper()).post(() -> {
+            try {
+                if (!audioAssetList.containsKey(entry.assetId) && loadFromPreloadOptions(entry.assetId, entry.options)) {
+                    restoredAssetIds.add(entry.assetId);
+                }
+            } catch (Exception e) {
+                error[0] = e;
+            } finally {
+                latch.countDown();
+            }
+        });
+        latch.await();
+        if (error[0] != null) {
+            throw error[0];
         }
     }
 
@@ -1227,13 +2436,13 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
         try {
             final String audioId = call.getString(ASSET_ID);
             final Double time = call.getDouble("time", 0.0);
-            Log.d(TAG, "Playing asset: " + audioId + ", action: " + action + ", assets count: " + audioAssetList.size());
+            logger.debug("Playing asset: {}, action: {}, assets count: {}", audioId, action, audioAssetList.size());
 
-            if (audioAssetList.containsKey(audioId)) {
+            if (audioAssetList.containsKey(audioId) || restoreLazyAsset(audioId)) {
                 AudioAsset asset = audioAssetList.get(audioId);
-                Log.d(TAG, "Found asset: " + audioId + ", type: " + asset.getClass().getSimpleName());
 
                 if (asset != null) {
+                    logger.debug(() -> "Found asset: " + audioId + ", type: " + asset.getClass().getSimpleName());
                     if (LOOP.equals(action)) {
                         asset.loop();
                     } else {
@@ -1268,7 +2477,7 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                     fadeOutStartTime = fadeOutStartTimeMs / 1000.0;
                 }
 
-                logger.debug("Scheduling fade-out for asset: " + asset.assetId + ", start time: " + fadeOutStartTime + " seconds");
+                logger.debug("Scheduling fade-out for asset: {}, start time: {} seconds", asset.assetId, fadeOutStartTime);
 
                 // Store fade-out parameters in asset data
                 JSObject data = getAudioAssetData(asset.assetId);
@@ -1311,7 +2520,7 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
     private void clearFadeOutToStopTimer(String audioId) {
         JSObject data = getAudioAssetData(audioId);
         if (data.has("fadeOut")) {
-            logger.debug("Cancelling fade-out for asset: " + audioId);
+            logger.debug("Cancelling fade-out for asset: {}", audioId);
             data.remove("fadeOut");
             data.remove("fadeOutStartTime");
             data.remove("fadeOutDuration");
@@ -1353,7 +2562,7 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                 return path.toLowerCase().endsWith(".m3u8");
             }
         } catch (Exception e) {
-            Log.w(TAG, "Failed to parse URL for HLS detection: " + assetPath, e);
+            logger.warning("Failed to parse URL for HLS detection: " + assetPath, e);
         }
 
         // Fallback: check if the URL contains .m3u8 followed by nothing or query params
@@ -1369,9 +2578,18 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
      * @param uri The URI of the HLS stream
      * @param volume The initial volume (0.0 to 1.0)
      * @param headers Optional HTTP headers for the request
+     * @param bufferProfile The buffer profile of the stream player
+     * @param timeShift Optional disk buffer for time shifting live streams
      * @return The created AudioAsset, or null if creation failed
      */
-    private AudioAsset createStreamAudioAsset(String audioId, Uri uri, float volume, java.util.Map<String, String> headers) {
+    private AudioAsset createStreamAudioAsset(
+        String audioId,
+        Uri uri,
+        float volume,
+        java.util.Map<String, String> headers,
+        BufferBudget.Profile bufferProfile,
+        TimeShiftBuffer timeShift
+    ) {
         try {
             Class<?> streamAudioAssetClass = Class.forName("ee.forgr.audio.StreamAudioAsset");
             java.lang.reflect.Constructor<?> constructor = streamAudioAssetClass.getConstructor(
@@ -1379,14 +2597,16 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                 String.class,
                 Uri.class,
                 float.class,
-                java.util.Map.class
+                java.util.Map.class,
+                BufferBudget.Profile.class,
+                TimeShiftBuffer.class
             );
-            return (AudioAsset) constructor.newInstance(this, audioId, uri, volume, headers);
+            return (AudioAsset) constructor.newInstance(this, audioId, uri, volume, headers, bufferProfile, timeShift);
         } catch (ClassNotFoundException e) {
-            Log.e(TAG, "StreamAudioAsset class not found. HLS support is not included in this build.", e);
+            logger.error("StreamAudioAsset class not found. HLS support is not included in this build.", e);
             return null;
         } catch (Exception e) {
-            Log.e(TAG, "Failed to create StreamAudioAsset", e);
+            logger.error("Failed to create StreamAudioAsset", e);
             return null;
         }
     }
@@ -1396,6 +2616,8 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
             throw new Exception(ERROR_ASSET_NOT_LOADED);
         }
 
+        latencyTracker.discard(audioId);
+        runOnMainThread(() -> crossfader.cancel(audioId));
         AudioAsset asset = audioAssetList.get(audioId);
         if (asset != null) {
             if (fadeOut) {
@@ -1407,12 +2629,12 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
     }
 
     private void saveDurationCall(String audioId, PluginCall call) {
-        logger.debug("Saving duration call for later: " + audioId);
+        logger.debug("Saving duration call for later: {}", audioId);
         pendingDurationCalls.put(audioId, call);
     }
 
     public void notifyDurationAvailable(String assetId, double duration) {
-        logger.debug("Duration available for " + assetId + ": " + duration);
+        logger.debug(() -> "Duration available for " + assetId + ": " + duration);
         PluginCall savedCall = pendingDurationCalls.remove(assetId);
         if (savedCall != null) {
             JSObject ret = new JSObject();
@@ -1463,6 +2685,7 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                     mediaSession.release();
                     mediaSession = null;
                 }
+                runOnMainThread(this::releaseSessionService);
             }
 
             // Release audio focus if we requested it
@@ -1471,6 +2694,13 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                 audioFocusRequested = false;
             }
 
+            runOnMainThread(() -> {
+                if (preloadWindow != null) {
+                    preloadWindow.release();
+                    preloadWindow = null;
+                }
+            });
+
             // Restore original audio mode if we changed it
             if (originalAudioMode != AudioManager.MODE_INVALID && this.audioManager != null) {
                 this.audioManager.setMode(originalAudioMode);
@@ -1479,7 +2709,7 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
 
             call.resolve();
         } catch (Exception e) {
-            Log.e(TAG, "Error in deinitPlugin", e);
+            logger.error("Error in deinitPlugin", e);
             call.reject("Error deinitializing plugin: " + e.getMessage());
         }
     }
@@ -1517,7 +2747,7 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                                 updateNotification(currentlyPlayingAssetId);
                             }
                         } catch (Exception e) {
-                            Log.e(TAG, "Error resuming audio from media session", e);
+                            logger.error("Error resuming audio from media session", e);
                         }
                     }
                 }
@@ -1533,7 +2763,7 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                                 updateNotification(currentlyPlayingAssetId);
                             }
                         } catch (Exception e) {
-                            Log.e(TAG, "Error pausing audio from media session", e);
+                            logger.error("Error pausing audio from media session", e);
                         }
                     }
                 }
@@ -1546,7 +2776,7 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                             clearNotification();
                             currentlyPlayingAssetId = null;
                         } catch (Exception e) {
-                            Log.e(TAG, "Error stopping audio from media session", e);
+                            logger.error("Error stopping audio from media session", e);
                         }
                     }
                 }
@@ -1561,10 +2791,10 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                                 double currentPosition = asset.getCurrentPosition();
                                 double newPosition = Math.max(0, currentPosition - 15.0);
                                 asset.setCurrentPosition(newPosition);
-                                Log.d(TAG, "Rewind 15s: " + currentPosition + " -> " + newPosition);
+                                logger.debug("Rewind 15s: {} -> {}", currentPosition, newPosition);
                             }
                         } catch (Exception e) {
-                            Log.e(TAG, "Error rewinding audio from media session", e);
+                            logger.error("Error rewinding audio from media session", e);
                         }
                     }
                 }
@@ -1580,10 +2810,10 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                                 double duration = asset.getDuration();
                                 double newPosition = Math.min(duration, currentPosition + 15.0);
                                 asset.setCurrentPosition(newPosition);
-                                Log.d(TAG, "Fast forward 15s: " + currentPosition + " -> " + newPosition);
+                                logger.debug("Fast forward 15s: {} -> {}", currentPosition, newPosition);
                             }
                         } catch (Exception e) {
-                            Log.e(TAG, "Error fast forwarding audio from media session", e);
+                            logger.error("Error fast forwarding audio from media session", e);
                         }
                     }
                 }
@@ -1597,10 +2827,10 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                                 // Convert milliseconds to seconds
                                 double positionInSeconds = pos / 1000.0;
                                 asset.setCurrentPosition(positionInSeconds);
-                                Log.d(TAG, "Seek to: " + positionInSeconds);
+                                logger.debug("Seek to: {}", positionInSeconds);
                             }
                         } catch (Exception e) {
-                            Log.e(TAG, "Error seeking audio from media session", e);
+                            logger.error("Error seeking audio from media session", e);
                         }
                     }
                 }
@@ -1610,6 +2840,84 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
         mediaSession.setActive(true);
     }
 
+    /**
+     * Service mode: the notification is owned by {@link NativeAudioSessionService}, which reads the active asset
+     * through an {@link AssetSessionPlayer}. Connecting a controller starts the service. Main thread only.
+     */
+    private void setupSessionService() {
+        if (sessionPlayer != null) return;
+
+        sessionPlayer = new AssetSessionPlayer(
+            new AssetSessionPlayer.Host() {
+                @Override
+                public String getActiveAssetId() {
+                    return currentlyPlayingAssetId;
+                }
+
+                @Override
+                public AudioAsset getAsset(String assetId) {
+                    return audioAssetList.get(assetId);
+                }
+
+                @Override
+                public Map<String, String> getMetadata(String assetId) {
+                    return notificationMetadataMap.get(assetId);
+                }
+
+                @Override
+                public void play(String assetId) throws Exception {
+                    AudioAsset asset = audioAssetList.get(assetId);
+                    if (asset != null && !asset.isPlaying()) {
+                        asset.resume();
+                    }
+                }
+
+                @Override
+                public void pause(String assetId) throws Exception {
+                    AudioAsset asset = audioAssetList.get(assetId);
+                    if (asset != null) {
+                        asset.pause();
+                    }
+                }
+
+                @Override
+                public void stop(String assetId) throws Exception {
+                    stopAudio(assetId, false, 0);
+                    currentlyPlayingAssetId = null;
+                }
+            }
+        );
+        NativeAudioSessionService.attach(sessionPlayer, getArtworkLoader());
+        SessionToken token = new SessionToken(getContext(), new ComponentName(getContext(), NativeAudioSessionService.class));
+        sessionController = new MediaController.Builder(getContext(), token).buildAsync();
+    }
+
+    /**
+     * The service and its foreground permissions are declared by the app, so hosts that never use service mode
+     * do not get them merged into their manifest.
+     */
+    private boolean isSessionServiceDeclared() {
+        try {
+            getContext().getPackageManager().getServiceInfo(new ComponentName(getContext(), NativeAudioSessionService.class), 0);
+            return true;
+        } catch (PackageManager.NameNotFoundException e) {
+            return false;
+        }
+    }
+
+    private void releaseSessionService() {
+        if (sessionController != null) {
+            // Disconnecting lets the service stop once playback is over
+            MediaController.releaseFuture(sessionController);
+            sessionController = null;
+        }
+        if (sessionPlayer != null) {
+            NativeAudioSessionService.detach();
+            sessionPlayer.release();
+            sessionPlayer = null;
+        }
+    }
+
     private void createNotificationChannel() {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             NotificationChannel channel = new NotificationChannel(CHANNEL_ID, "Audio Playback", NotificationManager.IMPORTANCE_LOW);
@@ -1622,35 +2930,52 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
     }
 
     private void updateNotification(String audioId) {
-        if (mediaSession == null) return;
-
-        Map<String, String> metadata = notificationMetadataMap.get(audioId);
-        String title = metadata != null && metadata.containsKey("title") ? metadata.get("title") : "Playing";
-        String artist = metadata != null && metadata.containsKey("artist") ? metadata.get("artist") : "";
-        String album = metadata != null && metadata.containsKey("album") ? metadata.get("album") : "";
-        String artworkUrl = metadata != null ? metadata.get("artworkUrl") : null;
-
-        // Update MediaSession metadata
-        MediaMetadataCompat.Builder metadataBuilder = new MediaMetadataCompat.Builder();
-        metadataBuilder.putString(MediaMetadataCompat.METADATA_KEY_TITLE, title);
-        metadataBuilder.putString(MediaMetadataCompat.METADATA_KEY_ARTIST, artist);
-        metadataBuilder.putString(MediaMetadataCompat.METADATA_KEY_ALBUM, album);
-
-        // Load artwork if provided
-        if (artworkUrl != null) {
-            loadArtwork(artworkUrl, (bitmap) -> {
-                if (bitmap != null) {
-                    metadataBuilder.putBitmap(MediaMetadataCompat.METADATA_KEY_ALBUM_ART, bitmap);
-                }
+        boolean traced = Tracing.begin("NativeAudio.updateNotification");
+        try {
+            if (sessionPlayer != null) {
+                // The session reads title, position and state from the player and only updates what changed
+                sessionPlayer.refresh();
+                return;
+            }
+            if (mediaSession == null) return;
+
+            Map<String, String> metadata = notificationMetadataMap.get(audioId);
+            String title = metadata != null && metadata.containsKey("title") ? metadata.get("title") : "Playing";
+            String artist = metadata != null && metadata.containsKey("artist") ? metadata.get("artist") : "";
+            String album = metadata != null && metadata.containsKey("album") ? metadata.get("album") : "";
+            String artworkUrl = metadata != null ? metadata.get("artworkUrl") : null;
+
+            // Update MediaSession metadata
+            MediaMetadataCompat.Builder metadataBuilder = new MediaMetadataCompat.Builder();
+            metadataBuilder.putString(MediaMetadataCompat.METADATA_KEY_TITLE, title);
+            metadataBuilder.putString(MediaMetadataCompat.METADATA_KEY_ARTIST, artist);
+            metadataBuilder.putString(MediaMetadataCompat.METADATA_KEY_ALBUM, album);
+
+            // Load artwork if provided
+            if (artworkUrl != null) {
+                getArtworkLoader().load(artworkUrl, (bitmap) -> {
+                    if (bitmap != null) {
+                        metadataBuilder.putBitmap(MediaMetadataCompat.METADATA_KEY_ALBUM_ART, bitmap);
+                    }
+                    mediaSession.setMetadata(metadataBuilder.build());
+                    showNotification(title, artist);
+                });
+            } else {
                 mediaSession.setMetadata(metadataBuilder.build());
                 showNotification(title, artist);
-            });
-        } else {
-            mediaSession.setMetadata(metadataBuilder.build());
-            showNotification(title, artist);
+            }
+
+            updatePlaybackState(PlaybackStateCompat.STATE_PLAYING);
+        } finally {
+            Tracing.end(traced);
         }
+    }
 
-        updatePlaybackState(PlaybackStateCompat.STATE_PLAYING);
+    private ArtworkLoader getArtworkLoader() {
+        if (artworkLoader == null) {
+            artworkLoader = new ArtworkLoader(getContext());
+        }
+        return artworkLoader;
     }
 
     private void showNotification(String title, String artist) {
@@ -1662,7 +2987,7 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
                 try {
                     isPlaying = asset.isPlaying();
                 } catch (Exception e) {
-                    Log.e(TAG, "Error checking playback state", e);
+                    logger.error("Error checking playback state", e);
                 }
             }
         }
@@ -1718,6 +3043,10 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
     }
 
     private void clearNotification() {
+        if (sessionPlayer != null) {
+            sessionPlayer.refresh();
+            return;
+        }
         NotificationManagerCompat notificationManager = NotificationManagerCompat.from(getContext());
         notificationManager.cancel(NOTIFICATION_ID);
 
@@ -1727,6 +3056,10 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
     }
 
     private void updatePlaybackState(int state) {
+        if (sessionPlayer != null) {
+            sessionPlayer.refresh();
+            return;
+        }
         if (mediaSession == null) return;
 
         PlaybackStateCompat.Builder stateBuilder = new PlaybackStateCompat.Builder()
@@ -1741,60 +3074,4 @@ public class NativeAudio extends Plugin implements AudioManager.OnAudioFocusChan
             );
         mediaSession.setPlaybackState(stateBuilder.build());
     }
-
-    private void loadArtwork(String urlString, ArtworkCallback callback) {
-        new Thread(() -> {
-            try {
-                Uri uri = Uri.parse(urlString);
-                Bitmap bitmap = null;
-
-                // Configure BitmapFactory options to decode at full resolution
-                BitmapFactory.Options options = new BitmapFactory.Options();
-                options.inScaled = false; // Disable density-based scaling
-                options.inPreferredConfig = Bitmap.Config.ARGB_8888; // Use high quality format
-
-                if (uri.getScheme() == null || uri.getScheme().equals("file")) {
-                    // Local file
-                    File file = new File(uri.getPath());
-                    if (file.exists()) {
-                        bitmap = BitmapFactory.decodeFile(file.getAbsolutePath(), options);
-                    }
-                } else {
-                    // Remote URL
-                    URL url = new URL(urlString);
-                    bitmap = BitmapFactory.decodeStream(url.openConnection().getInputStream(), null, options);
-                }
-
-                // Resize to optimal notification size if the bitmap is too large
-                // Android notifications typically display artwork at around 128-256dp
-                // We target 512px as a good balance between quality and memory usage
-                if (bitmap != null && bitmap.getWidth() > 0 && bitmap.getHeight() > 0) {
-                    if (bitmap.getWidth() > MAX_NOTIFICATION_ARTWORK_SIZE || bitmap.getHeight() > MAX_NOTIFICATION_ARTWORK_SIZE) {
-                        float scale = Math.min(
-                            (float) MAX_NOTIFICATION_ARTWORK_SIZE / bitmap.getWidth(),
-                            (float) MAX_NOTIFICATION_ARTWORK_SIZE / bitmap.getHeight()
-                        );
-                        int newWidth = Math.round(bitmap.getWidth() * scale);
-                        int newHeight = Math.round(bitmap.getHeight() * scale);
-                        Bitmap scaledBitmap = Bitmap.createScaledBitmap(bitmap, newWidth, newHeight, true);
-                        if (scaledBitmap != null) {
-                            bitmap.recycle(); // Free memory from original bitmap
-                            bitmap = scaledBitmap;
-                        }
-                    }
-                }
-
-                Bitmap finalBitmap = bitmap;
-                new Handler(Looper.getMainLooper()).post(() -> callback.onArtworkLoaded(finalBitmap));
-            } catch (Exception e) {
-                Log.e(TAG, "Error loading artwork", e);
-                new Handler(Looper.getMainLooper()).post(() -> callback.onArtworkLoaded(null));
-            }
-        })
-            .start();
-    }
-
-    interface ArtworkCallback {
-        void onArtworkLoaded(Bitmap bitmap);
-    }
 }
@@ -0,0 +1,148 @@
+package ee.forgr.audio;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import androidx.media3.common.util.BitmapLoader;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.common.util.Util;
+import androidx.media3.session.MediaSession;
+import androidx.media3.session.MediaSessionService;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Hosts the media session of the {@link AssetSessionPlayer} when notifications run in service mode. media3 keeps
+ * the notification in sync with the player and holds this service in the foreground while audio plays, so
+ * playback survives the activity going to the background.
+ *
+ * The player is handed over through {@link #attach} before the plugin connects to the service. A service still
+ * running when the plugin attaches a new player, after a reconfigure, rebuilds its session around it.
+ *
+ * The service is declared by the app, see {@code mediaSessionService} in the plugin configuration.
+ */
+@UnstableApi
+public class NativeAudioSessionService extends MediaSessionService {
+
+    private static final String TAG = "NativeAudioSessionService";
+    private static final Logger logger = new Logger(TAG);
+
+    private static AssetSessionPlayer player;
+    private static ArtworkLoader artworkLoader;
+    // The running service, main thread only
+    private static NativeAudioSessionService instance;
+
+    private MediaSession session;
+
+    /**
+     * Main thread only.
+     */
+    static synchronized void attach(AssetSessionPlayer player, ArtworkLoader artworkLoader) {
+        NativeAudioSessionService.player = player;
+        NativeAudioSessionService.artworkLoader = artworkLoader;
+        if (instance != null) {
+            instance.releaseSession();
+            instance.createSession(player, artworkLoader);
+        }
+    }
+
+    /**
+     * Main thread only. Drops the session of a running service, whose player is about to be released.
+     */
+    static synchronized void detach() {
+        player = null;
+        artworkLoader = null;
+        if (instance != null) {
+            instance.releaseSession();
+        }
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        synchronized (NativeAudioSessionService.class) {
+            if (player == null) {
+                // Started by the system after the process died, there is nothing to control
+                logger.warning("No player attached, stopping");
+                stopSelf();
+                return;
+            }
+            instance = this;
+            createSession(player, artworkLoader);
+        }
+    }
+
+    private void createSession(AssetSessionPlayer sessionPlayer, ArtworkLoader loader) {
+        MediaSession.Builder builder = new MediaSession.Builder(this, sessionPlayer).setId("NativeAudio");
+        if (loader != null) {
+            builder.setBitmapLoader(new ArtworkBitmapLoader(loader));
+        }
+        session = builder.build();
+        addSession(session);
+    }
+
+    private void releaseSession() {
+        if (session != null) {
+            // The player belongs to the plugin and outlives the session
+            session.release();
+            session = null;
+        }
+    }
+
+    @Override
+    public MediaSession onGetSession(MediaSession.ControllerInfo controllerInfo) {
+        return session;
+    }
+
+    @Override
+    public void onDestroy() {
+        synchronized (NativeAudioSessionService.class) {
+            if (instance == this) {
+                instance = null;
+            }
+            releaseSession();
+        }
+        super.onDestroy();
+    }
+
+    /**
+     * Loads notification artwork through the plugin's {@link ArtworkLoader}, so the session shares its caches and
+     * size limits instead of decoding full size covers on its own.
+     */
+    private static final class ArtworkBitmapLoader implements BitmapLoader {
+
+        private final ArtworkLoader loader;
+
+        ArtworkBitmapLoader(ArtworkLoader loader) {
+            this.loader = loader;
+        }
+
+        @Override
+        public boolean supportsMimeType(String mimeType) {
+            return Util.isBitmapFactorySupportedMimeType(mimeType);
+        }
+
+        @Override
+        public ListenableFuture<Bitmap> decodeBitmap(byte[] data) {
+            Bitmap bitmap = BitmapFactory.decodeByteArray(data, 0, data.length);
+            return bitmap != null
+                ? Futures.immediateFuture(bitmap)
+                : Futures.immediateFailedFuture(new IllegalArgumentException("Could not decode artwork"));
+        }
+
+        @Override
+        public ListenableFuture<Bitmap> loadBitmap(Uri uri) {
+            SettableFuture<Bitmap> future = SettableFuture.create();
+            // Called on the session's main thread, like ArtworkLoader expects
+            loader.load(uri.toString(), (bitmap) -> {
+                if (bitmap != null) {
+                    future.set(bitmap);
+                } else {
+                    future.setException(new IllegalStateException("Could not load artwork " + uri));
+                }
+            });
+            return future;
+        }
+    }
+}
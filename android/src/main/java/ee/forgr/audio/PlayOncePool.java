@@ -0,0 +1,118 @@
+package ee.forgr.audio;
+
+import android.os.Handler;
+import android.os.Looper;
+import androidx.media3.common.util.UnstableApi;
+import com.getcapacitor.JSObject;
+import ee.forgr.audio.dsp.VoicePool;
+
+/**
+ * Keeps the assets of finished {@code playOnce} calls loaded for a while, keyed by their source, so playing the
+ * same file again reuses the prepared player instead of opening the file and building a new one.
+ *
+ * Idle voices are unloaded after the idle TTL, and the oldest one goes first when there are more than the
+ * allowed number of idle voices. Only touched on the main thread.
+ */
+@UnstableApi
+class PlayOncePool {
+
+    private static final String TAG = "PlayOncePool";
+    private static final Logger logger = new Logger(TAG);
+
+    static final long DEFAULT_IDLE_TTL_MS = 30_000;
+    static final int DEFAULT_MAX_IDLE_VOICES = 4;
+
+    private static final class Voice {
+
+        final String key;
+        final AudioAsset asset;
+        Runnable expiry;
+
+        Voice(String key, AudioAsset asset) {
+            this.key = key;
+            this.asset = asset;
+        }
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final VoicePool<Voice> idleVoices = new VoicePool<>();
+    private long idleTtlMs = DEFAULT_IDLE_TTL_MS;
+    private int maxIdleVoices = DEFAULT_MAX_IDLE_VOICES;
+
+    /**
+     * @param maxIdleVoices 0 disables pooling
+     */
+    void configure(long idleTtlMs, int maxIdleVoices) {
+        this.idleTtlMs = Math.max(0, idleTtlMs);
+        this.maxIdleVoices = Math.max(0, maxIdleVoices);
+        trimTo(this.maxIdleVoices);
+    }
+
+    /**
+     * Voices are only shared between calls that would have loaded the exact same asset.
+     */
+    static String keyFor(String assetPath, boolean isUrl, JSObject headers, BufferBudget.Profile bufferProfile) {
+        return (isUrl ? "url:" : "asset:") + assetPath + "|" + bufferProfile + "|" + (headers != null ? headers.toString() : "");
+    }
+
+    /**
+     * Takes an idle voice playing the given source out of the pool.
+     *
+     * @return the voice, or null when none is idle
+     */
+    AudioAsset acquire(String key) {
+        Voice voice = idleVoices.acquire(key);
+        if (voice == null) {
+            return null;
+        }
+        handler.removeCallbacks(voice.expiry);
+        logger.debug("Reusing playOnce voice for " + key);
+        return voice.asset;
+    }
+
+    /**
+     * Puts a voice that finished playing back into the pool, or unloads it when pooling is disabled.
+     */
+    void release(String key, AudioAsset asset) {
+        if (maxIdleVoices == 0 || idleTtlMs == 0) {
+            unload(asset);
+            return;
+        }
+        final Voice voice = new Voice(key, asset);
+        voice.expiry = () -> evict(voice);
+        idleVoices.release(key, voice);
+        handler.postDelayed(voice.expiry, idleTtlMs);
+        trimTo(maxIdleVoices);
+    }
+
+    int getIdleCount() {
+        return idleVoices.size();
+    }
+
+    /**
+     * Unloads every idle voice.
+     */
+    void clear() {
+        trimTo(0);
+    }
+
+    private void trimTo(int count) {
+        while (idleVoices.size() > count) {
+            evict(idleVoices.oldest());
+        }
+    }
+
+    private void evict(Voice voice) {
+        handler.removeCallbacks(voice.expiry);
+        idleVoices.remove(voice.key, voice);
+        unload(voice.asset);
+    }
+
+    private static void unload(AudioAsset asset) {
+        try {
+            asset.unload();
+        } catch (Exception e) {
+            logger.error("Error unloading playOnce voice", e);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package ee.forgr.audio;
+
+import android.content.Context;
+import android.net.Uri;
+import androidx.media3.common.MediaItem;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.DefaultHttpDataSource;
+import androidx.media3.datasource.cache.CacheDataSource;
+import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.source.DefaultMediaSourceFactory;
+import androidx.media3.exoplayer.source.MediaSource;
+import androidx.media3.exoplayer.source.preload.DefaultPreloadManager;
+import androidx.media3.exoplayer.source.preload.TargetPreloadStatusControl;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the remote items around the current position of a scrolling feed preloaded with media3's
+ * {@link DefaultPreloadManager}, so a {@link RemoteAudioAsset} created for one of them starts from an
+ * already prepared and buffered source instead of waiting for its own STATE_READY handshake.
+ *
+ * Items within {@code bufferedRange} of the current index get their first {@code bufferMs} buffered,
+ * items within {@code preparedRange} only get their source prepared, and everything further away is
+ * released. Each preloaded source is handed to one player only; an asset created again for the same URL builds
+ * its own source. Must be used on the main thread.
+ */
+@UnstableApi
+public class PreloadWindowManager {
+
+    private static final String TAG = "PreloadWindowManager";
+    private static final Logger logger = new Logger(TAG);
+
+    public static final int DEFAULT_BUFFERED_RANGE = 1;
+    public static final int DEFAULT_PREPARED_RANGE = 3;
+    public static final long DEFAULT_BUFFER_MS = 3000;
+
+    private final DefaultPreloadManager.Builder builder;
+    private final MeteringRenderersFactory renderersFactory;
+    private final DefaultPreloadManager preloadManager;
+    private final WindowStatusControl statusControl = new WindowStatusControl();
+    // url -> item currently registered with the preload manager, and its index in the feed
+    private final Map<String, MediaItem> items = new HashMap<>();
+    private final Map<String, Integer> indices = new HashMap<>();
+    // Handed to a player, removed from the preload manager on the next window change once the player holds them
+    private final List<MediaItem> handedOut = new ArrayList<>();
+    private final Map<String, String> headers;
+
+    public PreloadWindowManager(Context context, Map<String, String> headers) {
+        this.headers = headers != null ? new HashMap<>(headers) : new HashMap<>();
+        DefaultHttpDataSource.Factory httpDataSourceFactory = new DefaultHttpDataSource.Factory()
+            .setAllowCrossProtocolRedirects(true)
+            .setConnectTimeoutMs(15000)
+            .setReadTimeoutMs(15000)
+            .setTransferListener(EngineMetrics.NETWORK_LISTENER);
+        if (headers != null && !headers.isEmpty()) {
+            httpDataSourceFactory.setDefaultRequestProperties(headers);
+        }
+        CacheDataSource.Factory cacheDataSourceFactory = new CacheDataSource.Factory()
+            .setCache(RemoteAudioAsset.getCache(context))
+            .setUpstreamDataSourceFactory(httpDataSourceFactory)
+            .setFlags(CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR)
+            .setEventListener(EngineMetrics.CACHE_LISTENER);
+
+        renderersFactory = new MeteringRenderersFactory(context, null);
+        builder = new DefaultPreloadManager.Builder(context, statusControl)
+            .setMediaSourceFactory(new DefaultMediaSourceFactory(cacheDataSourceFactory))
+            .setRenderersFactory(renderersFactory)
+            .setLoadControl(BufferBudget.newLoadControl(BufferBudget.Profile.MUSIC));
+        preloadManager = builder.build();
+    }
+
+    /**
+     * Replaces the preload window.
+     *
+     * @param urls          the feed, in display order
+     * @param currentIndex  index of the item currently on screen
+     * @param bufferedRange distance from the current index within which items are buffered
+     * @param preparedRange distance from the current index within which sources are prepared
+     * @param bufferMs      how much of each buffered item to load
+     */
+    public void setWindow(List<String> urls, int currentIndex, int bufferedRange, int preparedRange, long bufferMs) {
+        statusControl.currentIndex = currentIndex;
+        statusControl.bufferedRange = Math.max(0, bufferedRange);
+        statusControl.preparedRange = Math.max(statusControl.bufferedRange, preparedRange);
+        statusControl.bufferMs = Math.max(0, bufferMs);
+
+        releaseHandedOut();
+
+        Set<String> keep = new HashSet<>();
+        for (int i = 0; i < urls.size(); i++) {
+            if (Math.abs(i - currentIndex) <= statusControl.preparedRange) {
+                keep.add(urls.get(i));
+            }
+        }
+
+        // Release everything that moved out of the window
+        for (String url : new ArrayList<>(items.keySet())) {
+            Integer index = indices.get(url);
+            if (!keep.contains(url) || index == null || urls.indexOf(url) != index) {
+                preloadManager.remove(items.remove(url));
+                indices.remove(url);
+            }
+        }
+
+        for (int i = 0; i < urls.size(); i++) {
+            String url = urls.get(i);
+            if (keep.contains(url) && !items.containsKey(url)) {
+                MediaItem mediaItem = MediaItem.fromUri(Uri.parse(url));
+                preloadManager.add(mediaItem, i);
+                items.put(url, mediaItem);
+                indices.put(url, i);
+            }
+        }
+
+        preloadManager.setCurrentPlayingIndex(currentIndex);
+        preloadManager.invalidate();
+        logger.debug("Preload window at " + currentIndex + " holds " + items.size() + " items");
+    }
+
+    public boolean contains(Uri uri) {
+        return items.containsKey(uri.toString());
+    }
+
+    /**
+     * Builds a player that shares the preload manager's components, required to play its sources.
+     *
+     * @param meter receives the PCM the player renders
+     */
+    public ExoPlayer buildPlayer(LevelMeter meter) {
+        renderersFactory.setMeter(meter);
+        try {
+            return builder.buildExoPlayer();
+        } finally {
+            renderersFactory.setMeter(null);
+        }
+    }
+
+    /**
+     * Whether the window loads its sources with the given headers, a null map meaning none.
+     */
+    public boolean hasHeaders(Map<String, String> headers) {
+        return this.headers.equals(headers != null ? headers : new HashMap<String, String>());
+    }
+
+    /**
+     * Takes the preloaded source for the given URI out of the window, for a single player.
+     *
+     * @param headers headers the asset sends, the source is only reused when the window loaded it with the same
+     * @return the source, or null when it is not in the window or was loaded with other headers
+     */
+    public MediaSource getMediaSource(Uri uri, Map<String, String> headers) {
+        String url = uri.toString();
+        MediaItem mediaItem = items.get(url);
+        if (mediaItem == null) {
+            return null;
+        }
+        if (!hasHeaders(headers)) {
+            logger.debug("Not reusing the preloaded source of {}, its headers differ", url);
+            return null;
+        }
+        MediaSource mediaSource = preloadManager.getMediaSource(mediaItem);
+        if (mediaSource != null) {
+            items.remove(url);
+            indices.remove(url);
+            handedOut.add(mediaItem);
+        }
+        return mediaSource;
+    }
+
+    public void clear() {
+        releaseHandedOut();
+        for (MediaItem mediaItem : items.values()) {
+            preloadManager.remove(mediaItem);
+        }
+        items.clear();
+        indices.clear();
+    }
+
+    /**
+     * Unregisters the sources handed to players. The preload manager keeps a source a player is using alive.
+     */
+    private void releaseHandedOut() {
+        for (MediaItem mediaItem : handedOut) {
+            preloadManager.remove(mediaItem);
+        }
+        handedOut.clear();
+    }
+
+    public void release() {
+        clear();
+        preloadManager.release();
+    }
+
+    private static final class WindowStatusControl implements TargetPreloadStatusControl<Integer, DefaultPreloadManager.PreloadStatus> {
+
+        int currentIndex = 0;
+        int bufferedRange = DEFAULT_BUFFERED_RANGE;
+        int preparedRange = DEFAULT_PREPARED_RANGE;
+        long bufferMs = DEFAULT_BUFFER_MS;
+
+        @Override
+        public DefaultPreloadManager.PreloadStatus getTargetPreloadStatus(Integer rankingData) {
+            int distance = Math.abs(rankingData - currentIndex);
+            if (distance <= bufferedRange) {
+                return DefaultPreloadManager.PreloadStatus.specifiedRangeLoaded(bufferMs);
+            }
+            if (distance <= preparedRange) {
+                return DefaultPreloadManager.PreloadStatus.SOURCE_PREPARED;
+            }
+            return null;
+        }
+    }
+}
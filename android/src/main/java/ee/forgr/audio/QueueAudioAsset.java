@@ -0,0 +1,790 @@
+package ee.forgr.audio;
+
+import android.content.res.AssetFileDescriptor;
+import android.media.AudioAttributes;
+import android.media.MediaPlayer;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import androidx.media3.common.MediaItem;
+import androidx.media3.common.Player;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.DefaultDataSource;
+import androidx.media3.datasource.DefaultHttpDataSource;
+import androidx.media3.datasource.cache.CacheDataSource;
+import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.source.DefaultMediaSourceFactory;
+import ee.forgr.audio.dsp.GainRamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays a list of items back to back without a JS round trip between them.
+ *
+ * Queues that contain at least one remote item are played through a single ExoPlayer playlist, which
+ * buffers the next item ahead of time and transitions gaplessly. Queues made only of local files use a
+ * chain of {@link MediaPlayer}s: the next item is prepared while the current one plays and handed over
+ * with {@link MediaPlayer#setNextMediaPlayer}.
+ */
+@UnstableApi
+public class QueueAudioAsset extends AudioAsset {
+
+    private static final String TAG = "QueueAudioAsset";
+
+    public static class Item {
+
+        final String assetPath;
+        final boolean isUrl;
+        final Uri uri;
+        final boolean remote;
+
+        public Item(String assetPath, boolean isUrl, Uri uri, boolean remote) {
+            this.assetPath = assetPath;
+            this.isUrl = isUrl;
+            this.uri = uri;
+            this.remote = remote;
+        }
+    }
+
+    private final boolean remoteMode;
+    private final List<Item> items = new ArrayList<>();
+    private final Map<String, String> headers;
+    private float volume;
+    private volatile double lastPosition = 0;
+
+    // Remote mode
+    private ExoPlayer player;
+    private final LevelMeter levelMeter = new LevelMeter();
+
+    // Local mode
+    private int currentIndex = 0;
+    private MediaPlayer currentPlayer;
+    private MediaPlayer nextPlayer;
+    private boolean nextPrepared = false;
+    private boolean waitingForNext = false;
+    // The current player was promoted by a skip before it finished preparing
+    private boolean currentPending = false;
+    private boolean startWhenPrepared = false;
+    private int pendingStartMs = 0;
+    private boolean paused = false;
+
+    public QueueAudioAsset(NativeAudio owner, String assetId, List<Item> initialItems, float volume, Map<String, String> headers)
+        throws Exception {
+        super(owner, assetId, null, 0, volume);
+        this.volume = volume;
+        this.headers = headers;
+        this.items.addAll(initialItems);
+
+        boolean hasRemote = false;
+        for (Item item : initialItems) {
+            hasRemote |= item.remote;
+        }
+        this.remoteMode = hasRemote;
+
+        if (remoteMode) {
+            owner.runOnMainThread(this::initializePlayer);
+        }
+    }
+
+    public boolean isRemoteMode() {
+        return remoteMode;
+    }
+
+    private void initializePlayer() {
+        DefaultHttpDataSource.Factory httpDataSourceFactory = new DefaultHttpDataSource.Factory()
+            .setAllowCrossProtocolRedirects(true)
+            .setConnectTimeoutMs(15000)
+            .setReadTimeoutMs(15000)
+            .setTransferListener(EngineMetrics.NETWORK_LISTENER);
+        if (headers != null && !headers.isEmpty()) {
+            httpDataSourceFactory.setDefaultRequestProperties(headers);
+        }
+        CacheDataSource.Factory cacheDataSourceFactory = new CacheDataSource.Factory()
+            .setCache(RemoteAudioAsset.getCache(owner.getContext()))
+            .setUpstreamDataSourceFactory(httpDataSourceFactory)
+            .setFlags(CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR)
+            .setEventListener(EngineMetrics.CACHE_LISTENER);
+        DefaultDataSource.Factory dataSourceFactory = new DefaultDataSource.Factory(owner.getContext(), cacheDataSourceFactory);
+
+        player = new ExoPlayer.Builder(owner.getContext(), new MeteringRenderersFactory(owner.getContext(), levelMeter))
+            .setMediaSourceFactory(new DefaultMediaSourceFactory(dataSourceFactory))
+            .setLoadControl(BufferBudget.newLoadControl(BufferBudget.Profile.MUSIC))
+            .build();
+        EngineMetrics.track(player);
+        player.addAnalyticsListener(owner.getLatencyTracker().newAnalyticsListener(() -> assetId));
+        player.setVolume(volume);
+        player.setPlaybackSpeed(rate);
+        for (Item item : items) {
+            player.addMediaItem(MediaItem.fromUri(item.uri));
+        }
+        player.prepare();
+        player.addListener(
+            new Player.Listener() {
+                @Override
+                public void onMediaItemTransition(MediaItem mediaItem, int reason) {
+                    logger.debug(() -> "Queue " + assetId + " moved to item " + player.getCurrentMediaItemIndex());
+                }
+
+                @Override
+                public void onPlaybackStateChanged(int playbackState) {
+                    if (playbackState == Player.STATE_READY) {
+                        notifyCurrentDuration();
+                    } else if (playbackState == Player.STATE_ENDED) {
+                        stopCurrentTimeUpdates();
+                        notifyCompletion();
+                    }
+                }
+            }
+        );
+    }
+
+    /**
+     * Appends items to the end of the queue. Local queues only accept local items.
+     */
+    public void enqueue(final List<Item> newItems) throws Exception {
+        if (!remoteMode) {
+            for (Item item : newItems) {
+                if (item.remote) {
+                    throw new Exception("Remote items can only be added to a queue created with at least one remote item");
+                }
+            }
+        }
+        owner.runOnMainThread(() -> {
+            items.addAll(newItems);
+            if (remoteMode) {
+                for (Item item : newItems) {
+                    player.addMediaItem(MediaItem.fromUri(item.uri));
+                }
+                if (player.getPlaybackState() == Player.STATE_ENDED || player.getPlaybackState() == Player.STATE_IDLE) {
+                    player.prepare();
+                }
+            } else if (currentPlayer != null && !currentPending && nextPlayer == null) {
+                // A promoted item prepares its successor once it is ready
+                prepareNext();
+            }
+        });
+    }
+
+    /**
+     * Jumps to the next item. When there is no next item the queue stops and completes.
+     */
+    public void skip() throws Exception {
+        owner.runOnMainThread(() -> {
+            cancelFade();
+            if (remoteMode) {
+                if (player.hasNextMediaItem()) {
+                    player.seekToNextMediaItem();
+                } else {
+                    player.stop();
+                    stopCurrentTimeUpdates();
+                    notifyCompletion();
+                }
+                return;
+            }
+            advanceLocal(currentPlayer != null && !paused);
+        });
+    }
+
+    /**
+     * Removes every item after the current one. The current item keeps playing.
+     */
+    public void clearUpcoming() throws Exception {
+        owner.runOnMainThread(() -> {
+            if (remoteMode) {
+                int next = player.getCurrentMediaItemIndex() + 1;
+                if (next < player.getMediaItemCount()) {
+                    player.removeMediaItems(next, player.getMediaItemCount());
+                }
+                while (items.size() > next) {
+                    items.remove(items.size() - 1);
+                }
+                return;
+            }
+            releaseNext();
+            while (items.size() > currentIndex + 1) {
+                items.remove(items.size() - 1);
+            }
+        });
+    }
+
+    public int getQueueLength() {
+        return items.size();
+    }
+
+    // Local mode
+
+    private MediaPlayer createLocalPlayer(Item item) throws Exception {
+        MediaPlayer mediaPlayer = new MediaPlayer();
+        EngineMetrics.mediaPlayerCreated();
+        mediaPlayer.setAudioAttributes(
+            new AudioAttributes.Builder().setUsage(AudioAttributes.USAGE_MEDIA).setContentType(AudioAttributes.CONTENT_TYPE_MUSIC).build()
+        );
+        AssetFileDescriptor afd = owner.openLocalAssetFileDescriptor(item.assetPath, item.isUrl);
+        try {
+            mediaPlayer.setDataSource(afd.getFileDescriptor(), afd.getStartOffset(), afd.getLength());
+        } finally {
+            afd.close();
+        }
+        mediaPlayer.setVolume(volume, volume);
+        // Set before preparing so the next item and promoted items start at the queue's rate
+        mediaPlayer.setPlaybackParams(mediaPlayer.getPlaybackParams().setSpeed(rate));
+        mediaPlayer.setOnCompletionListener(this::onLocalCompletion);
+        return mediaPlayer;
+    }
+
+    private static void releaseLocalPlayer(MediaPlayer mediaPlayer) {
+        mediaPlayer.release();
+        EngineMetrics.mediaPlayerReleased();
+    }
+
+    private void ensureCurrentPrepared() throws Exception {
+        if (currentPlayer != null || currentIndex >= items.size()) {
+            return;
+        }
+        currentPlayer = createLocalPlayer(items.get(currentIndex));
+        currentPlayer.prepare();
+        notifyCurrentDuration();
+    }
+
+    private void prepareNext() {
+        releaseNext();
+        int index = currentIndex + 1;
+        if (index >= items.size()) {
+            return;
+        }
+        try {
+            final MediaPlayer candidate = createLocalPlayer(items.get(index));
+            nextPlayer = candidate;
+            candidate.setOnPreparedListener((mp) -> {
+                if (mp == currentPlayer && currentPending) {
+                    onPromotedPrepared(mp);
+                    return;
+                }
+                if (mp != nextPlayer) {
+                    return;
+                }
+                nextPrepared = true;
+                if (waitingForNext) {
+                    // The current item ended before this one was ready
+                    waitingForNext = false;
+                    advanceLocal(true);
+                } else if (currentPlayer != null) {
+                    currentPlayer.setNextMediaPlayer(mp);
+                }
+            });
+            candidate.prepareAsync();
+        } catch (Exception e) {
+            logger.error("Error preparing next queue item " + index, e);
+            nextPlayer = null;
+        }
+    }
+
+    private void onPromotedPrepared(MediaPlayer mp) {
+        currentPending = false;
+        notifyCurrentDuration();
+        if (pendingStartMs > 0) {
+            mp.seekTo(pendingStartMs);
+            pendingStartMs = 0;
+        }
+        if (startWhenPrepared) {
+            startWhenPrepared = false;
+            mp.setVolume(volume, volume);
+            mp.start();
+            if (mp.getPlaybackParams().getSpeed() != rate) {
+                mp.setPlaybackParams(mp.getPlaybackParams().setSpeed(rate));
+            }
+            paused = false;
+            startCurrentTimeUpdates();
+        }
+        prepareNext();
+    }
+
+    private void releaseNext() {
+        if (currentPlayer != null) {
+            try {
+                currentPlayer.setNextMediaPlayer(null);
+            } catch (Exception ignored) {
+                // Player may already be released
+            }
+        }
+        if (nextPlayer != null) {
+            releaseLocalPlayer(nextPlayer);
+            nextPlayer = null;
+        }
+        nextPrepared = false;
+        waitingForNext = false;
+    }
+
+    private void onLocalCompletion(MediaPlayer mp) {
+        if (mp != currentPlayer) {
+            return;
+        }
+        if (nextPlayer == null) {
+            // End of queue
+            releaseLocalPlayer(currentPlayer);
+            currentPlayer = null;
+            currentIndex = 0;
+            stopCurrentTimeUpdates();
+            notifyCompletion();
+            return;
+        }
+        if (!nextPrepared) {
+            waitingForNext = true;
+            return;
+        }
+        // MediaPlayer already started the next player on its own
+        MediaPlayer finished = currentPlayer;
+        currentPlayer = nextPlayer;
+        nextPlayer = null;
+        nextPrepared = false;
+        currentIndex++;
+        releaseLocalPlayer(finished);
+        notifyCurrentDuration();
+        prepareNext();
+        // A time update tick may have run between the end of the item and this hand-over and stopped polling
+        startCurrentTimeUpdates();
+    }
+
+    private void advanceLocal(boolean startNext) {
+        if (currentIndex + 1 >= items.size()) {
+            stopLocal();
+            notifyCompletion();
+            return;
+        }
+        if (nextPlayer != null && !nextPrepared) {
+            // Move to the pending item now, its prepared listener starts it when startNext is set
+            if (currentPlayer != null) {
+                currentPlayer.setOnCompletionListener(null);
+                releaseLocalPlayer(currentPlayer);
+            }
+            currentPlayer = nextPlayer;
+            nextPlayer = null;
+            currentIndex++;
+            currentPending = true;
+            pendingStartMs = 0;
+            startWhenPrepared = startNext;
+            return;
+        }
+        MediaPlayer previous = currentPlayer;
+        boolean hadNext = nextPlayer != null;
+        currentPlayer = nextPlayer;
+        nextPlayer = null;
+        nextPrepared = false;
+        currentPending = false;
+        startWhenPrepared = false;
+        currentIndex++;
+        if (previous != null) {
+            previous.setOnCompletionListener(null);
+            releaseLocalPlayer(previous);
+        }
+        try {
+            if (currentPlayer == null) {
+                ensureCurrentPrepared();
+            } else if (hadNext) {
+                notifyCurrentDuration();
+            }
+            if (currentPlayer != null) {
+                currentPlayer.setVolume(volume, volume);
+                if (startNext) {
+                    currentPlayer.start();
+                    startCurrentTimeUpdates();
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error advancing queue", e);
+        }
+        prepareNext();
+    }
+
+    private void stopLocal() {
+        releaseNext();
+        if (currentPlayer != null) {
+            releaseLocalPlayer(currentPlayer);
+            currentPlayer = null;
+        }
+        currentIndex = 0;
+        currentPending = false;
+        startWhenPrepared = false;
+        pendingStartMs = 0;
+        paused = false;
+    }
+
+    // AudioAsset overrides
+
+    @Override
+    public void play(double time, float volume) throws Exception {
+        this.volume = volume;
+        owner.runOnMainThread(() -> {
+            cancelFade();
+            try {
+                if (remoteMode) {
+                    if (player.getPlaybackState() == Player.STATE_ENDED || player.getPlaybackState() == Player.STATE_IDLE) {
+                        player.seekTo(0, 0);
+                        player.prepare();
+                    }
+                    if (time != 0) {
+                        player.seekTo(Math.round(time * 1000));
+                    }
+                    player.setVolume(volume);
+                    if (player.getPlaybackState() == Player.STATE_READY) {
+                        owner.getLatencyTracker().markReady(assetId);
+                    }
+                    player.play();
+                } else {
+                    if (currentPending) {
+                        // Skipped to an item that is still preparing, it starts once ready
+                        pendingStartMs = (int) (time * 1000);
+                        startWhenPrepared = true;
+                        paused = false;
+                        startCurrentTimeUpdates();
+                        return;
+                    }
+                    ensureCurrentPrepared();
+                    if (currentPlayer == null) {
+                        return;
+                    }
+                    currentPlayer.seekTo((int) (time * 1000));
+                    currentPlayer.setVolume(volume, volume);
+                    owner.getLatencyTracker().markReady(assetId);
+                    currentPlayer.start();
+                    owner.getLatencyTracker().markFirstFrame(assetId);
+                    paused = false;
+                    if (nextPlayer == null) {
+                        prepareNext();
+                    }
+                }
+                startCurrentTimeUpdates();
+            } catch (Exception e) {
+                logger.error("Error playing queue", e);
+            }
+        });
+    }
+
+    @Override
+    public boolean pause() throws Exception {
+        boolean wasPlaying = isPlaying();
+        owner.runOnMainThread(() -> {
+            cancelFade();
+            stopCurrentTimeUpdates();
+            if (remoteMode) {
+                player.pause();
+            } else if (currentPending) {
+                startWhenPrepared = false;
+                paused = true;
+            } else if (currentPlayer != null && currentPlayer.isPlaying()) {
+                currentPlayer.pause();
+                paused = true;
+            }
+        });
+        return wasPlaying;
+    }
+
+    @Override
+    public void resume() throws Exception {
+        owner.runOnMainThread(() -> {
+            if (remoteMode) {
+                player.play();
+            } else if (currentPending) {
+                startWhenPrepared = true;
+                paused = false;
+            } else if (currentPlayer != null) {
+                currentPlayer.start();
+                paused = false;
+            }
+            startCurrentTimeUpdates();
+        });
+    }
+
+    @Override
+    public void stop() throws Exception {
+        owner.runOnMainThread(() -> {
+            cancelFade();
+            stopCurrentTimeUpdates();
+            if (remoteMode) {
+                player.stop();
+                player.seekTo(0, 0);
+                player.prepare();
+            } else {
+                stopLocal();
+            }
+            lastPosition = 0;
+            dispatchComplete();
+        });
+    }
+
+    @Override
+    public void loop() throws Exception {
+        owner.runOnMainThread(() -> {
+            if (remoteMode) {
+                player.setRepeatMode(Player.REPEAT_MODE_ALL);
+            } else {
+                logger.warning("Looping is only supported for remote queues, playing once");
+            }
+        });
+        play(0, volume);
+    }
+
+    @Override
+    public void unload() throws Exception {
+        Runnable release = () -> {
+            cancelFade();
+            stopCurrentTimeUpdates();
+            if (player != null) {
+                player.release();
+                player = null;
+            }
+            stopLocal();
+            items.clear();
+        };
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            release.run();
+        } else {
+            owner.runOnMainThread(release);
+        }
+        close();
+    }
+
+    @Override
+    public void setVolume(float volume, double duration) throws Exception {
+        final float startVolume = this.volume;
+        this.volume = volume;
+        owner.runOnMainThread(() -> {
+            cancelFade();
+            if (duration > 0 && isPlayingOnMain()) {
+                ramp(startVolume, volume, duration, null);
+            } else {
+                applyVolume(volume);
+            }
+        });
+    }
+
+    @Override
+    public float getVolume() throws Exception {
+        return volume;
+    }
+
+    @Override
+    public void setRate(float rate) throws Exception {
+        this.rate = rate;
+        owner.runOnMainThread(() -> {
+            if (remoteMode) {
+                player.setPlaybackSpeed(rate);
+            } else {
+                if (currentPlayer != null && !currentPending) {
+                    currentPlayer.setPlaybackParams(currentPlayer.getPlaybackParams().setSpeed(rate));
+                }
+                if (nextPlayer != null && !waitingForNext) {
+                    // Changing the speed of a prepared player starts it, so the next item is prepared again at the new rate
+                    prepareNext();
+                }
+            }
+        });
+    }
+
+    @Override
+    public boolean readLevels(LevelMeter.Reading reading) {
+        return remoteMode ? levelMeter.read(reading) : super.readLevels(reading);
+    }
+
+    @Override
+    protected int getMeteredSessionId() {
+        MediaPlayer current = currentPlayer;
+        return current != null ? current.getAudioSessionId() : 0;
+    }
+
+    @Override
+    public boolean isPlaying() throws Exception {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            return isPlayingOnMain();
+        }
+        return currentTimeRunnable != null && !paused;
+    }
+
+    private boolean isPlayingOnMain() {
+        if (remoteMode) {
+            return player != null && player.isPlaying();
+        }
+        return currentPlayer != null && currentPlayer.isPlaying();
+    }
+
+    /**
+     * Duration of the current item. The players can only be read on the main thread, other threads get 0 and
+     * should use {@link #requestDuration()}.
+     */
+    @Override
+    public double getDuration() {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            return 0;
+        }
+        if (remoteMode) {
+            long duration = player != null ? player.getDuration() : androidx.media3.common.C.TIME_UNSET;
+            return duration == androidx.media3.common.C.TIME_UNSET ? 0 : duration / 1000.0;
+        }
+        return currentPlayer != null && !currentPending ? currentPlayer.getDuration() / 1000.0 : 0;
+    }
+
+    /**
+     * Reads the duration on the main thread and hands it to {@link NativeAudio#notifyDurationAvailable}. When the
+     * current item is not ready yet, it is notified once it is.
+     */
+    void requestDuration() {
+        owner.runOnMainThread(() -> {
+            if (!remoteMode && currentPlayer == null) {
+                try {
+                    // Local items prepare synchronously, ensureCurrentPrepared notifies the duration
+                    ensureCurrentPrepared();
+                    return;
+                } catch (Exception e) {
+                    logger.error("Error preparing queue for its duration", e);
+                }
+            }
+            notifyCurrentDuration();
+        });
+    }
+
+    private void notifyCurrentDuration() {
+        double duration = getDuration();
+        if (duration > 0) {
+            owner.notifyDurationAvailable(assetId, duration);
+        }
+    }
+
+    @Override
+    public double getCurrentPosition() {
+        return lastPosition;
+    }
+
+    @Override
+    public void setCurrentTime(double time) throws Exception {
+        owner.runOnMainThread(() -> {
+            if (remoteMode) {
+                player.seekTo(Math.round(time * 1000));
+            } else if (currentPending) {
+                pendingStartMs = (int) (time * 1000);
+            } else if (currentPlayer != null) {
+                currentPlayer.seekTo((int) (time * 1000));
+            }
+        });
+    }
+
+    @Override
+    public void setCurrentPosition(double time) {
+        try {
+            setCurrentTime(time);
+        } catch (Exception e) {
+            logger.error("Error seeking queue", e);
+        }
+    }
+
+    @Override
+    public void playWithFadeIn(double time, float volume, double fadeInDurationMs) throws Exception {
+        play(time, zeroVolume);
+        this.volume = volume;
+        owner.runOnMainThread(() -> ramp(zeroVolume, volume, fadeInDurationMs, null));
+    }
+
+    @Override
+    public void stopWithFade(double fadeOutDurationMs, boolean toPause) throws Exception {
+        owner.runOnMainThread(() -> {
+            if (!isPlayingOnMain()) {
+                return;
+            }
+            ramp(volume, 0f, fadeOutDurationMs, () -> {
+                try {
+                    if (toPause) {
+                        pause();
+                    } else {
+                        stop();
+                    }
+                } catch (Exception e) {
+                    logger.error("Error finishing queue fade out", e);
+                }
+            });
+        });
+    }
+
+    private void applyVolume(float value) {
+        if (remoteMode) {
+            if (player != null) {
+                player.setVolume(value);
+            }
+            return;
+        }
+        if (currentPlayer != null) {
+            currentPlayer.setVolume(value, value);
+        }
+        if (nextPlayer != null) {
+            nextPlayer.setVolume(value, value);
+        }
+    }
+
+    private void ramp(final float from, final float to, double durationMs, final Runnable onDone) {
+        cancelFade();
+        fadeState = FadeState.FADE_TO;
+        final int steps = GainRamp.stepCount(durationMs, FADE_DELAY_MS);
+        fadeTask = fadeExecutor.scheduleWithFixedDelay(
+            new Runnable() {
+                int step = 0;
+
+                @Override
+                public void run() {
+                    if (fadeState != FadeState.FADE_TO) {
+                        return;
+                    }
+                    step++;
+                    final float value = GainRamp.linearStep(from, to, step, steps);
+                    final boolean done = step >= steps;
+                    owner.runOnMainThread(() -> {
+                        applyVolume(value);
+                        if (done && onDone != null) {
+                            onDone.run();
+                        }
+                    });
+                    if (done) {
+                        cancelFade();
+                    }
+                }
+            },
+            0,
+            FADE_DELAY_MS,
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    @Override
+    protected void startCurrentTimeUpdates() {
+        if (currentTimeHandler == null) {
+            currentTimeHandler = new Handler(Looper.getMainLooper());
+        }
+        if (currentTimeRunnable != null) {
+            currentTimeHandler.removeCallbacks(currentTimeRunnable);
+        }
+        dispatchedCompleteMap.put(assetId, false);
+        currentTimeRunnable = new Runnable() {
+            @Override
+            public void run() {
+                if (!isPlayingOnMain()) {
+                    // Keep polling while a remote item buffers or a local hand-over is pending
+                    if ((remoteMode && player != null && player.getPlayWhenReady()) || waitingForNext || startWhenPrepared) {
+                        currentTimeHandler.postDelayed(this, 100);
+                    }
+                    return;
+                }
+                lastPosition = remoteMode ? player.getCurrentPosition() / 1000.0 : currentPlayer.getCurrentPosition() / 1000.0;
+                owner.notifyCurrentTime(assetId, lastPosition);
+                currentTimeHandler.postDelayed(this, 100);
+            }
+        };
+        currentTimeHandler.postDelayed(currentTimeRunnable, 100);
+    }
+
+    @Override
+    void stopCurrentTimeUpdates() {
+        if (currentTimeHandler != null && currentTimeRunnable != null) {
+            currentTimeHandler.removeCallbacks(currentTimeRunnable);
+        }
+        currentTimeRunnable = null;
+    }
+}
@@ -4,7 +4,6 @@ import android.content.Context;
 import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
-import android.util.Log;
 import androidx.media3.common.MediaItem;
 import androidx.media3.common.Player;
 import androidx.media3.common.util.UnstableApi;
@@ -16,8 +15,11 @@ import androidx.media3.datasource.cache.SimpleCache;
 import androidx.media3.exoplayer.ExoPlayer;
 import androidx.media3.exoplayer.source.MediaSource;
 import androidx.media3.exoplayer.source.ProgressiveMediaSource;
+import ee.forgr.audio.dsp.GainRamp;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -39,115 +41,186 @@ public class RemoteAudioAsset extends AudioAsset {
     private Handler currentTimeHandler;
     private Runnable currentTimeRunnable;
     private final Map<String, String> headers;
+    private final BufferBudget.Profile bufferProfile;
+    // Fed by every channel's audio sink
+    private final LevelMeter levelMeter = new LevelMeter();
+    // Work waiting for a player to become ready, run by its state listener. Only touched on the main thread
+    private final Map<ExoPlayer, List<Runnable>> readyActions = new HashMap<>();
 
     public RemoteAudioAsset(NativeAudio owner, String assetId, Uri uri, int audioChannelNum, float volume, Map<String, String> headers)
         throws Exception {
+        this(owner, assetId, uri, audioChannelNum, volume, headers, BufferBudget.Profile.MUSIC);
+    }
+
+    public RemoteAudioAsset(
+        NativeAudio owner,
+        String assetId,
+        Uri uri,
+        int audioChannelNum,
+        float volume,
+        Map<String, String> headers,
+        BufferBudget.Profile bufferProfile
+    ) throws Exception {
         super(owner, assetId, null, 0, volume);
         this.uri = uri;
         this.volume = volume;
         this.initialVolume = volume;
         this.players = new ArrayList<>();
         this.headers = headers;
+        this.bufferProfile = bufferProfile;
 
         if (audioChannelNum < 1) {
             audioChannelNum = 1;
         }
 
         final int channels = audioChannelNum;
-        owner
-            .getActivity()
-            .runOnUiThread(
-                new Runnable() {
-                    @Override
-                    public void run() {
-                        try {
-                            for (int i = 0; i < channels; i++) {
-                                ExoPlayer player = new ExoPlayer.Builder(owner.getContext()).build();
-                                player.setPlaybackSpeed(1.0f);
-                                players.add(player);
-                                initializePlayer(player);
-                            }
-                        } catch (Exception e) {
-                            logger.error("Error initializing players", e);
+        owner.runOnMainThread(
+            new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        // The first channel reuses the source from the preload window when the feed already prepared it
+                        PreloadWindowManager preloadWindow = owner.getPreloadWindow();
+                        MediaSource preloadedSource = preloadWindow != null ? preloadWindow.getMediaSource(uri, headers) : null;
+                        for (int i = 0; i < channels; i++) {
+                            boolean usePreloaded = i == 0 && preloadedSource != null;
+                            ExoPlayer player = usePreloaded
+                                ? preloadWindow.buildPlayer(levelMeter)
+                                : new ExoPlayer.Builder(
+                                    owner.getContext(),
+                                    new MeteringRenderersFactory(owner.getContext(), levelMeter)
+                                )
+                                    .setLoadControl(BufferBudget.newLoadControl(bufferProfile))
+                                    .build();
+                            EngineMetrics.track(player);
+                            player.setPlaybackSpeed(1.0f);
+                            player.addAnalyticsListener(owner.getLatencyTracker().newAnalyticsListener(() -> RemoteAudioAsset.this.assetId));
+                            players.add(player);
+                            // Added once: initializePlayer runs again on every stop
+                            player.addListener(newStateListener(player));
+                            initializePlayer(player, usePreloaded ? preloadedSource : null);
                         }
+                    } catch (Exception e) {
+                        logger.error("Error initializing players", e);
                     }
                 }
-            );
+            }
+        );
+    }
+
+    @Override
+    public boolean readLevels(LevelMeter.Reading reading) {
+        return levelMeter.read(reading);
     }
 
     @UnstableApi
     private void initializePlayer(ExoPlayer player) {
-        logger.debug("Initializing player");
-
-        // Initialize cache if not already done
-        if (cache == null) {
-            File cacheDir = new File(owner.getContext().getCacheDir(), "media");
-            if (!cacheDir.exists()) {
-                cacheDir.mkdirs();
-            }
-            cache = new SimpleCache(
-                cacheDir,
-                new LeastRecentlyUsedCacheEvictor(MAX_CACHE_SIZE),
-                new StandaloneDatabaseProvider(owner.getContext())
-            );
-        }
-
-        // Create cached data source factory with custom headers
-        DefaultHttpDataSource.Factory httpDataSourceFactory = new DefaultHttpDataSource.Factory()
-            .setAllowCrossProtocolRedirects(true)
-            .setConnectTimeoutMs(15000)
-            .setReadTimeoutMs(15000);
+        initializePlayer(player, null);
+    }
 
-        // Add custom headers if provided
-        if (headers != null && !headers.isEmpty()) {
-            httpDataSourceFactory.setDefaultRequestProperties(headers);
-        }
+    @UnstableApi
+    private void initializePlayer(ExoPlayer player, MediaSource preloadedSource) {
+        boolean traced = Tracing.begin("RemoteAudioAsset.initializePlayer");
+        try {
+            logger.debug(preloadedSource != null ? "Initializing player from preload window" : "Initializing player");
 
-        CacheDataSource.Factory cacheDataSourceFactory = new CacheDataSource.Factory()
-            .setCache(cache)
-            .setUpstreamDataSourceFactory(httpDataSourceFactory)
-            .setFlags(CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR);
+            // Create media source, unless the preload window already prepared one
+            MediaSource mediaSource = preloadedSource != null
+                ? preloadedSource
+                : new ProgressiveMediaSource.Factory(newDataSourceFactory(owner.getContext(), headers)).createMediaSource(
+                    MediaItem.fromUri(uri)
+                );
 
-        // Create media source
-        MediaSource mediaSource = new ProgressiveMediaSource.Factory(cacheDataSourceFactory).createMediaSource(MediaItem.fromUri(uri));
+            player.setMediaSource(mediaSource);
+            player.setVolume(volume);
+            player.prepare();
 
-        player.setMediaSource(mediaSource);
-        player.setVolume(volume);
-        player.prepare();
+            logger.debug("Player initialization complete");
+        } finally {
+            Tracing.end(traced);
+        }
+    }
 
-        // Add listener for duration
-        player.addListener(
-            new Player.Listener() {
-                @Override
-                public void onPlaybackStateChanged(int playbackState) {
-                    Log.d(TAG, "Player state changed to: " + getStateString(playbackState));
-                    if (playbackState == Player.STATE_READY) {
-                        isPrepared = true;
-                        long duration = player.getDuration();
-                        Log.d(TAG, "Duration available on STATE_READY: " + duration + " ms");
-                        if (duration != androidx.media3.common.C.TIME_UNSET) {
-                            double durationSec = duration / 1000.0;
-                            Log.d(TAG, "Notifying duration: " + durationSec + " seconds");
-                            owner.notifyDurationAvailable(assetId, durationSec);
+    /**
+     * Tracks readiness, duration and completion of a player for its whole life, and runs the actions waiting for
+     * it to become ready.
+     */
+    private Player.Listener newStateListener(final ExoPlayer player) {
+        return new Player.Listener() {
+            @Override
+            public void onPlaybackStateChanged(int playbackState) {
+                logger.debug("Player state changed to: {}", getStateString(playbackState));
+                if (playbackState == Player.STATE_READY) {
+                    isPrepared = true;
+                    long duration = player.getDuration();
+                    logger.debug("Duration available on STATE_READY: {} ms", duration);
+                    if (duration != androidx.media3.common.C.TIME_UNSET) {
+                        double durationSec = duration / 1000.0;
+                        logger.debug("Notifying duration: {} seconds", durationSec);
+                        owner.notifyDurationAvailable(assetId, durationSec);
+                    }
+                    List<Runnable> actions = readyActions.remove(player);
+                    if (actions != null) {
+                        for (Runnable action : actions) {
+                            action.run();
                         }
-                    } else if (playbackState == Player.STATE_ENDED) {
-                        notifyCompletion();
                     }
+                } else if (playbackState == Player.STATE_ENDED) {
+                    notifyCompletion();
                 }
+            }
 
-                @Override
-                public void onIsPlayingChanged(boolean isPlaying) {
-                    logger.debug("isPlaying changed to: " + isPlaying + ", state: " + getStateString(player.getPlaybackState()));
-                }
+            @Override
+            public void onIsPlayingChanged(boolean isPlaying) {
+                logger.debug("isPlaying changed to: {}, state: {}", isPlaying, getStateString(player.getPlaybackState()));
+            }
 
-                @Override
-                public void onIsLoadingChanged(boolean isLoading) {
-                    logger.debug("isLoading changed to: " + isLoading + ", state: " + getStateString(player.getPlaybackState()));
-                }
+            @Override
+            public void onIsLoadingChanged(boolean isLoading) {
+                logger.debug("isLoading changed to: {}, state: {}", isLoading, getStateString(player.getPlaybackState()));
             }
-        );
+        };
+    }
 
-        logger.debug("Player initialization complete");
+    /**
+     * Runs the action once the player is ready. Must be called on the main thread.
+     */
+    private void runWhenReady(ExoPlayer player, Runnable action) {
+        List<Runnable> actions = readyActions.get(player);
+        if (actions == null) {
+            actions = new ArrayList<>();
+            readyActions.put(player, actions);
+        }
+        actions.add(action);
+    }
+
+    /**
+     * Stops players that are neither playing nor paused, which drops their buffers and decoders but keeps
+     * their media source, so {@link #prepareIfReleased} can bring them back on the next play.
+     */
+    @Override
+    public boolean releaseIfIdle() {
+        boolean released = false;
+        for (ExoPlayer player : players) {
+            int state = player.getPlaybackState();
+            boolean idle = state == Player.STATE_ENDED || (!player.getPlayWhenReady() && player.getCurrentPosition() == 0);
+            if (state != Player.STATE_IDLE && idle) {
+                player.stop();
+                released = true;
+            }
+        }
+        if (released) {
+            isPrepared = false;
+            logger.debug("Released idle players of " + assetId);
+        }
+        return released;
+    }
+
+    private void prepareIfReleased(ExoPlayer player) {
+        if (player.getPlaybackState() == Player.STATE_IDLE) {
+            logger.debug("Re-preparing player released under memory pressure");
+            player.prepare();
+        }
     }
 
     private String getStateString(int state) {
@@ -172,152 +245,152 @@ public class RemoteAudioAsset extends AudioAsset {
         }
 
         final ExoPlayer player = players.get(playIndex);
-        owner
-            .getActivity()
-            .runOnUiThread(
-                new Runnable() {
-                    @Override
-                    public void run() {
-                        if (!isPrepared) {
-                            player.addListener(
-                                new Player.Listener() {
-                                    @Override
-                                    public void onPlaybackStateChanged(int playbackState) {
-                                        if (playbackState == Player.STATE_READY) {
-                                            isPrepared = true;
-                                            try {
-                                                playInternal(player, time, volume);
-                                                startCurrentTimeUpdates();
-                                            } catch (Exception e) {
-                                                Log.e(TAG, "Error playing after prepare", e);
-                                            }
-                                        } else if (playbackState == Player.STATE_ENDED) {
-                                            notifyCompletion();
-                                        }
-                                    }
-                                }
-                            );
-                        } else {
+        owner.runOnMainThread(
+            new Runnable() {
+                @Override
+                public void run() {
+                    prepareIfReleased(player);
+                    if (!isPrepared) {
+                        runWhenReady(player, () -> {
+                            owner.getLatencyTracker().markReady(assetId);
                             try {
                                 playInternal(player, time, volume);
                                 startCurrentTimeUpdates();
                             } catch (Exception e) {
-                                logger.error("Error playing", e);
+                                logger.error("Error playing after prepare", e);
                             }
+                        });
+                    } else {
+                        owner.getLatencyTracker().markReady(assetId);
+                        try {
+                            playInternal(player, time, volume);
+                            startCurrentTimeUpdates();
+                        } catch (Exception e) {
+                            logger.error("Error playing", e);
                         }
                     }
                 }
-            );
+            }
+        );
 
         playIndex = (playIndex + 1) % players.size();
     }
 
     private void playInternal(final ExoPlayer player, final double time, final float volume) throws Exception {
-        owner
-            .getActivity()
-            .runOnUiThread(
-                new Runnable() {
-                    @Override
-                    public void run() {
-                        if (time != 0) {
-                            player.seekTo(Math.round(time * 1000));
-                        }
-                        if (volume != 0) {
-                            player.setVolume(volume);
-                        }
-                        player.play();
+        owner.runOnMainThread(
+            new Runnable() {
+                @Override
+                public void run() {
+                    if (time != 0) {
+                        player.seekTo(Math.round(time * 1000));
+                    }
+                    if (volume != 0) {
+                        player.setVolume(volume);
                     }
+                    player.play();
                 }
-            );
+            }
+        );
     }
 
     @Override
     public boolean pause() throws Exception {
         final boolean[] wasPlaying = { false };
-        owner
-            .getActivity()
-            .runOnUiThread(
-                new Runnable() {
-                    @Override
-                    public void run() {
-                        cancelFade();
-                        for (ExoPlayer player : players) {
-                            if (player != null && player.isPlaying()) {
-                                player.pause();
-                                stopCurrentTimeUpdates();
-                                wasPlaying[0] = true;
-                            }
+        owner.runOnMainThread(
+            new Runnable() {
+                @Override
+                public void run() {
+                    cancelFade();
+                    for (ExoPlayer player : players) {
+                        if (player != null && player.isPlaying()) {
+                            player.pause();
+                            stopCurrentTimeUpdates();
+                            wasPlaying[0] = true;
                         }
                     }
                 }
-            );
+            }
+        );
         return wasPlaying[0];
     }
 
     @Override
     public void resume() throws Exception {
-        owner
-            .getActivity()
-            .runOnUiThread(
-                new Runnable() {
-                    @Override
-                    public void run() {
-                        for (ExoPlayer player : players) {
-                            if (player != null && !player.isPlaying()) {
-                                player.play();
-                            }
+        owner.runOnMainThread(
+            new Runnable() {
+                @Override
+                public void run() {
+                    for (ExoPlayer player : players) {
+                        if (player != null && !player.isPlaying()) {
+                            player.play();
                         }
-                        startCurrentTimeUpdates();
                     }
+                    startCurrentTimeUpdates();
                 }
-            );
+            }
+        );
     }
 
+    /**
+     * Stops every player and cancels the plays and seeks still waiting for a player to become ready, so a stop
+     * issued while the stream loads wins over the play before it.
+     */
     @Override
     public void stop() throws Exception {
-        owner
-            .getActivity()
-            .runOnUiThread(
-                new Runnable() {
-                    @Override
-                    public void run() {
-                        cancelFade();
-                        for (ExoPlayer player : players) {
-                            if (player != null && player.isPlaying()) {
-                                player.stop();
-                                dispatchComplete();
-                            }
-                            // Reset the ExoPlayer to make it ready for future playback
-                            initializePlayer(player);
+        owner.runOnMainThread(
+            new Runnable() {
+                @Override
+                public void run() {
+                    cancelFade();
+                    // A play still waiting for the player must not start once it is prepared again
+                    readyActions.clear();
+                    for (ExoPlayer player : players) {
+                        if (player != null && player.isPlaying()) {
+                            player.stop();
+                            dispatchComplete();
                         }
-                        isPrepared = false;
+                        // Reset the ExoPlayer to make it ready for future playback
+                        initializePlayer(player);
                     }
+                    isPrepared = false;
                 }
-            );
+            }
+        );
     }
 
     @Override
     public void loop() throws Exception {
-        owner
-            .getActivity()
-            .runOnUiThread(
-                new Runnable() {
-                    @Override
-                    public void run() {
-                        if (!players.isEmpty()) {
-                            ExoPlayer player = players.get(playIndex);
-                            player.setRepeatMode(Player.REPEAT_MODE_ONE);
-                            player.play();
-                            playIndex = (playIndex + 1) % players.size();
-                            startCurrentTimeUpdates();
-                        }
+        owner.runOnMainThread(
+            new Runnable() {
+                @Override
+                public void run() {
+                    if (!players.isEmpty()) {
+                        ExoPlayer player = players.get(playIndex);
+                        prepareIfReleased(player);
+                        player.setRepeatMode(Player.REPEAT_MODE_ONE);
+                        player.play();
+                        playIndex = (playIndex + 1) % players.size();
+                        startCurrentTimeUpdates();
                     }
                 }
-            );
+            }
+        );
+    }
+
+    @Override
+    void reassign(String newAssetId) throws Exception {
+        super.reassign(newAssetId);
+        // Unlike MediaPlayer voices, which stop looping on play, ExoPlayer keeps its repeat mode
+        for (ExoPlayer player : players) {
+            player.setRepeatMode(Player.REPEAT_MODE_OFF);
+            player.setPlaybackSpeed(1.0f);
+        }
     }
 
     @Override
     public void unload() throws Exception {
+        // Fades run on the shared fade executor and would outlive the players
+        cancelFade();
         if (Looper.myLooper() == Looper.getMainLooper()) {
             // Synchronous cleanup when already on the main thread
             stopCurrentTimeUpdates();
@@ -325,10 +398,11 @@ public class RemoteAudioAsset extends AudioAsset {
                 try {
                     player.release();
                 } catch (Exception e) {
-                    Log.w(TAG, "Error releasing player", e);
+                    logger.warning("Error releasing player", e);
                 }
             }
             players.clear();
+            readyActions.clear();
             isPrepared = false;
             playIndex = 0;
             return;
@@ -342,10 +416,11 @@ public class RemoteAudioAsset extends AudioAsset {
                     try {
                         player.release();
                     } catch (Exception e) {
-                        Log.w(TAG, "Error releasing player", e);
+                        logger.warning("Error releasing player", e);
                     }
                 }
                 players.clear();
+                readyActions.clear();
                 isPrepared = false;
                 playIndex = 0;
             } finally {
@@ -363,24 +438,22 @@ public class RemoteAudioAsset extends AudioAsset {
     @Override
     public void setVolume(final float volume, final double duration) throws Exception {
         this.volume = volume;
-        owner
-            .getActivity()
-            .runOnUiThread(
-                new Runnable() {
-                    @Override
-                    public void run() {
-                        cancelFade();
-                        for (ExoPlayer player : players) {
-                            if (player == null) continue;
-                            if (player.isPlaying() && duration > 0) {
-                                fadeTo(player, (float) duration, volume);
-                            } else {
-                                player.setVolume(volume);
-                            }
+        owner.runOnMainThread(
+            new Runnable() {
+                @Override
+                public void run() {
+                    cancelFade();
+                    for (ExoPlayer player : players) {
+                        if (player == null) continue;
+                        if (player.isPlaying() && duration > 0) {
+                            fadeTo(player, (float) duration, volume);
+                        } else {
+                            player.setVolume(volume);
                         }
                     }
                 }
-            );
+            }
+        );
     }
 
     @Override
@@ -406,35 +479,45 @@ public class RemoteAudioAsset extends AudioAsset {
         return player != null && player.isPlaying();
     }
 
+    @Override
+    public boolean isPaused() {
+        for (ExoPlayer player : players) {
+            int state = player.getPlaybackState();
+            boolean started = state != Player.STATE_IDLE && state != Player.STATE_ENDED && player.getCurrentPosition() > 0;
+            if (started && !player.getPlayWhenReady()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public double getDuration() {
-        logger.debug("getDuration called, players empty: " + players.isEmpty() + ", isPrepared: " + isPrepared);
+        logger.debug(() -> "getDuration called, players empty: " + players.isEmpty() + ", isPrepared: " + isPrepared);
         if (!players.isEmpty() && isPrepared) {
             final double[] duration = { 0 };
-            owner
-                .getActivity()
-                .runOnUiThread(
-                    new Runnable() {
-                        @Override
-                        public void run() {
-                            ExoPlayer player = players.get(playIndex);
-                            int state = player.getPlaybackState();
-                            logger.debug("Player state: " + state + " (READY=" + Player.STATE_READY + ")");
-                            if (state == Player.STATE_READY) {
-                                long rawDuration = player.getDuration();
-                                logger.debug("Raw duration: " + rawDuration + ", TIME_UNSET=" + androidx.media3.common.C.TIME_UNSET);
-                                if (rawDuration != androidx.media3.common.C.TIME_UNSET) {
-                                    duration[0] = rawDuration / 1000.0;
-                                    logger.debug("Final duration in seconds: " + duration[0]);
-                                } else {
-                                    logger.debug("Duration is TIME_UNSET");
-                                }
+            owner.runOnMainThread(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        ExoPlayer player = players.get(playIndex);
+                        int state = player.getPlaybackState();
+                        logger.debug(() -> "Player state: " + state + " (READY=" + Player.STATE_READY + ")");
+                        if (state == Player.STATE_READY) {
+                            long rawDuration = player.getDuration();
+                            logger.debug(() -> "Raw duration: " + rawDuration + ", TIME_UNSET=" + androidx.media3.common.C.TIME_UNSET);
+                            if (rawDuration != androidx.media3.common.C.TIME_UNSET) {
+                                duration[0] = rawDuration / 1000.0;
+                                logger.debug(() -> "Final duration in seconds: " + duration[0]);
                             } else {
-                                logger.debug("Player not in READY state");
+                                logger.debug("Duration is TIME_UNSET");
                             }
+                        } else {
+                            logger.debug("Player not in READY state");
                         }
                     }
-                );
+                }
+            );
             return duration[0];
         }
         logger.debug("No players or not prepared for duration");
@@ -445,21 +528,19 @@ public class RemoteAudioAsset extends AudioAsset {
     public double getCurrentPosition() {
         if (!players.isEmpty() && isPrepared) {
             final double[] position = { 0 };
-            owner
-                .getActivity()
-                .runOnUiThread(
-                    new Runnable() {
-                        @Override
-                        public void run() {
-                            ExoPlayer player = players.get(playIndex);
-                            if (player.getPlaybackState() == Player.STATE_READY) {
-                                long rawPosition = player.getCurrentPosition();
-                                logger.debug("Raw position: " + rawPosition);
-                                position[0] = rawPosition / 1000.0;
-                            }
+            owner.runOnMainThread(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        ExoPlayer player = players.get(playIndex);
+                        if (player.getPlaybackState() == Player.STATE_READY) {
+                            long rawPosition = player.getCurrentPosition();
+                            logger.debug(() -> "Raw position: " + rawPosition);
+                            position[0] = rawPosition / 1000.0;
                         }
                     }
-                );
+                }
+            );
             return position[0];
         }
         return 0;
@@ -472,34 +553,65 @@ public class RemoteAudioAsset extends AudioAsset {
         }
 
         final ExoPlayer player = players.get(playIndex);
-        owner
-            .getActivity()
-            .runOnUiThread(
-                new Runnable() {
-                    @Override
-                    public void run() {
-                        if (isPrepared) {
-                            player.seekTo(Math.round(time * 1000));
-                        } else {
-                            player.addListener(
-                                new Player.Listener() {
-                                    @Override
-                                    public void onPlaybackStateChanged(int playbackState) {
-                                        if (playbackState == Player.STATE_READY) {
-                                            isPrepared = true;
-                                            player.seekTo(Math.round(time * 1000));
-                                        }
-                                    }
-                                }
-                            );
-                        }
+        owner.runOnMainThread(
+            new Runnable() {
+                @Override
+                public void run() {
+                    if (isPrepared) {
+                        player.seekTo(Math.round(time * 1000));
+                    } else {
+                        runWhenReady(player, () -> player.seekTo(Math.round(time * 1000)));
                     }
                 }
-            );
+            }
+        );
+    }
+
+    /**
+     * Data sources reading through the shared media cache, with the custom headers sent on every request.
+     */
+    static CacheDataSource.Factory newDataSourceFactory(Context context, Map<String, String> headers) {
+        DefaultHttpDataSource.Factory httpDataSourceFactory = new DefaultHttpDataSource.Factory()
+            .setAllowCrossProtocolRedirects(true)
+            .setConnectTimeoutMs(15000)
+            .setReadTimeoutMs(15000)
+            .setTransferListener(EngineMetrics.NETWORK_LISTENER);
+
+        // Add custom headers if provided
+        if (headers != null && !headers.isEmpty()) {
+            httpDataSourceFactory.setDefaultRequestProperties(headers);
+        }
+
+        return new CacheDataSource.Factory()
+            .setCache(getCache(context))
+            .setUpstreamDataSourceFactory(httpDataSourceFactory)
+            .setFlags(CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR)
+            .setEventListener(EngineMetrics.CACHE_LISTENER);
+    }
+
+    /**
+     * Returns the shared media cache, creating it on first use.
+     */
+    static synchronized SimpleCache getCache(Context context) {
+        if (cache == null) {
+            File cacheDir = new File(context.getCacheDir(), "media");
+            if (!cacheDir.exists()) {
+                cacheDir.mkdirs();
+            }
+            cache = new SimpleCache(cacheDir, new LeastRecentlyUsedCacheEvictor(MAX_CACHE_SIZE), new StandaloneDatabaseProvider(context));
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the bytes held by the shared media cache, or 0 when it was not opened yet.
+     */
+    static synchronized long getCacheSpace() {
+        return cache != null ? cache.getCacheSpace() : 0;
     }
 
     @UnstableApi
-    public static void clearCache(Context context) {
+    public static synchronized void clearCache(Context context) {
         try {
             if (cache != null) {
                 cache.release();
@@ -509,6 +621,7 @@ public class RemoteAudioAsset extends AudioAsset {
             if (cacheDir.exists()) {
                 deleteDir(cacheDir);
             }
+            VodPlaylists.clear(context);
         } catch (Exception e) {
             logger.error("Error clearing audio cache", e);
         }
@@ -535,24 +648,23 @@ public class RemoteAudioAsset extends AudioAsset {
         }
 
         final ExoPlayer player = players.get(playIndex);
-        owner
-            .getActivity()
-            .runOnUiThread(
-                new Runnable() {
-                    @Override
-                    public void run() {
-                        if (player != null && !player.isPlaying()) {
-                            if (time != 0) {
-                                player.seekTo(Math.round(time * 1000));
-                            }
-                            player.setVolume(0);
-                            player.play();
-                            startCurrentTimeUpdates();
-                            fadeIn(player, fadeInDurationMs, volume);
+        owner.runOnMainThread(
+            new Runnable() {
+                @Override
+                public void run() {
+                    if (player != null && !player.isPlaying()) {
+                        prepareIfReleased(player);
+                        if (time != 0) {
+                            player.seekTo(Math.round(time * 1000));
                         }
+                        player.setVolume(0);
+                        player.play();
+                        startCurrentTimeUpdates();
+                        fadeIn(player, fadeInDurationMs, volume);
                     }
                 }
-            );
+            }
+        );
     }
 
     private void fadeIn(final ExoPlayer player, float fadeInDurationMs, float volume) {
@@ -560,22 +672,22 @@ public class RemoteAudioAsset extends AudioAsset {
         fadeState = FadeState.FADE_IN;
 
         final float targetVolume = volume;
-        final int steps = Math.max(1, (int) (fadeInDurationMs / FADE_DELAY_MS));
+        final int steps = GainRamp.stepCount(fadeInDurationMs, FADE_DELAY_MS);
         final float fadeStep = targetVolume / steps;
 
-        Log.d(
-            TAG,
-            "Beginning fade in at time " +
-                getCurrentPosition() +
-                " over " +
-                (fadeInDurationMs / 1000.0) +
-                "s to target volume " +
-                targetVolume +
-                " in " +
-                steps +
-                " steps (step duration: " +
-                (FADE_DELAY_MS / 1000.0) +
-                "s"
+        logger.debug(
+            () ->
+                "Beginning fade in at time " +
+                    getCurrentPosition() +
+                    " over " +
+                    (fadeInDurationMs / 1000.0) +
+                    "s to target volume " +
+                    targetVolume +
+                    " in " +
+                    steps +
+                    " steps (step duration: " +
+                    (FADE_DELAY_MS / 1000.0) +
+                    "s"
         );
 
         fadeTask = fadeExecutor.scheduleWithFixedDelay(
@@ -587,23 +699,22 @@ public class RemoteAudioAsset extends AudioAsset {
                     if (fadeState != FadeState.FADE_IN || currentVolume >= targetVolume) {
                         fadeState = FadeState.NONE;
                         cancelFade();
-                        logger.debug("Fade in complete at time " + getCurrentPosition());
+                        logger.debug(() -> "Fade in complete at time " + getCurrentPosition());
                         return;
                     }
                     final float previousCurrentVolume = currentVolume;
                     currentVolume += fadeStep;
                     final float resolvedTargetVolume = Math.min(currentVolume, targetVolume);
-                    Log.v(
-                        TAG,
-                        "Fade in step: from " + previousCurrentVolume + " to " + currentVolume + " to target " + resolvedTargetVolume
-                    );
-                    owner
-                        .getActivity()
-                        .runOnUiThread(() -> {
-                            if (player != null && player.isPlaying()) {
-                                player.setVolume(currentVolume);
-                            }
-                        });
+                    if (logger.isEnabled()) {
+                        logger.verbose(
+                            "Fade in step: from " + previousCurrentVolume + " to " + currentVolume + " to target " + resolvedTargetVolume
+                        );
+                    }
+                    owner.runOnMainThread(() -> {
+                        if (player != null && player.isPlaying()) {
+                            player.setVolume(currentVolume);
+                        }
+                    });
                 }
             },
             0,
@@ -618,36 +729,34 @@ public class RemoteAudioAsset extends AudioAsset {
         }
 
         final ExoPlayer player = players.get(playIndex);
-        owner
-            .getActivity()
-            .runOnUiThread(() -> {
-                if (player != null && player.isPlaying()) {
-                    fadeOut(player, fadeOutDurationMs, asPause);
-                }
-            });
+        owner.runOnMainThread(() -> {
+            if (player != null && player.isPlaying()) {
+                fadeOut(player, fadeOutDurationMs, asPause);
+            }
+        });
     }
 
     private void fadeOut(final ExoPlayer player, float fadeOutDurationMs, boolean asPause) {
         cancelFade();
         fadeState = FadeState.FADE_OUT;
 
-        final int steps = Math.max(1, (int) (fadeOutDurationMs / FADE_DELAY_MS));
+        final int steps = GainRamp.stepCount(fadeOutDurationMs, FADE_DELAY_MS);
         final float initialVolume = player.getVolume();
         final float fadeStep = initialVolume / steps;
 
-        Log.d(
-            TAG,
-            "Beginning fade out from volume " +
-                initialVolume +
-                " at time " +
-                getCurrentPosition() +
-                " over " +
-                (fadeOutDurationMs / 1000.0) +
-                "s in " +
-                steps +
-                " steps (step duration: " +
-                (FADE_DELAY_MS / 1000.0) +
-                "s)"
+        logger.debug(
+            () ->
+                "Beginning fade out from volume " +
+                    initialVolume +
+                    " at time " +
+                    getCurrentPosition() +
+                    " over " +
+                    (fadeOutDurationMs / 1000.0) +
+                    "s in " +
+                    steps +
+                    " steps (step duration: " +
+                    (FADE_DELAY_MS / 1000.0) +
+                    "s)"
         );
 
         fadeTask = fadeExecutor.scheduleWithFixedDelay(
@@ -658,37 +767,35 @@ public class RemoteAudioAsset extends AudioAsset {
                 public void run() {
                     if (fadeState != FadeState.FADE_OUT || currentVolume <= 0) {
                         fadeState = FadeState.NONE;
-                        owner
-                            .getActivity()
-                            .runOnUiThread(() -> {
-                                if (player != null && player.isPlaying()) {
-                                    if (asPause) {
-                                        player.pause();
-                                        logger.verbose("Faded out to pause at time " + getCurrentPosition());
-                                    } else {
-                                        player.setVolume(0);
-                                        player.stop();
-                                        logger.verbose("Faded out to stop at time " + getCurrentPosition());
-                                    }
+                        owner.runOnMainThread(() -> {
+                            if (player != null && player.isPlaying()) {
+                                if (asPause) {
+                                    player.pause();
+                                    logger.verbose(() -> "Faded out to pause at time " + getCurrentPosition());
+                                } else {
+                                    player.setVolume(0);
+                                    player.stop();
+                                    logger.verbose(() -> "Faded out to stop at time " + getCurrentPosition());
                                 }
-                            });
+                            }
+                        });
                         cancelFade();
-                        logger.verbose("Fade out complete at time " + getCurrentPosition());
+                        logger.verbose(() -> "Fade out complete at time " + getCurrentPosition());
                         return;
                     }
                     final float previousCurrentVolume = currentVolume;
                     currentVolume -= fadeStep;
                     final float thisTargetVolume = Math.max(currentVolume, 0);
-                    logger.debug(
-                        "Fade out step: from " + previousCurrentVolume + " to " + currentVolume + " to target " + thisTargetVolume
-                    );
-                    owner
-                        .getActivity()
-                        .runOnUiThread(() -> {
-                            if (player != null && player.isPlaying()) {
-                                player.setVolume(thisTargetVolume);
-                            }
-                        });
+                    if (logger.isEnabled()) {
+                        logger.verbose(
+                            "Fade out step: from " + previousCurrentVolume + " to " + currentVolume + " to target " + thisTargetVolume
+                        );
+                    }
+                    owner.runOnMainThread(() -> {
+                        if (player != null && player.isPlaying()) {
+                            player.setVolume(thisTargetVolume);
+                        }
+                    });
                 }
             },
             0,
@@ -701,46 +808,30 @@ public class RemoteAudioAsset extends AudioAsset {
         cancelFade();
         fadeState = FadeState.FADE_TO;
 
-        final int steps = Math.max(1, (int) (fadeDurationMs / FADE_DELAY_MS));
+        final int steps = GainRamp.stepCount(fadeDurationMs, FADE_DELAY_MS);
         final float minVolume = zeroVolume;
         final float maxVol = maxVolume;
         final float initialVolume = Math.max(player.getVolume(), minVolume);
         final float finalTargetVolume = Math.max(targetVolume, minVolume);
 
-        // Clamp values to avoid overflow/underflow and invalid pow inputs
-        final float safeInitialVolume = Math.max(initialVolume, minVolume);
-        final float safeFinalTargetVolume = Math.max(finalTargetVolume, minVolume);
-
-        double ratio;
-        if (steps <= 0 || safeInitialVolume <= 0f || safeFinalTargetVolume <= 0f) {
-            ratio = 1.0;
-        } else if (safeInitialVolume == safeFinalTargetVolume) {
-            ratio = 1.0;
-        } else {
-            ratio = Math.pow(safeFinalTargetVolume / safeInitialVolume, 1.0 / steps);
-            if (Double.isNaN(ratio) || Double.isInfinite(ratio) || ratio <= 0.0) {
-                ratio = 1.0;
-            }
-        }
-
-        Log.d(
-            TAG,
-            "Beginning exponential fade from volume " +
-                initialVolume +
-                " to " +
-                finalTargetVolume +
-                " over " +
-                (fadeDurationMs / 1000.0) +
-                "s in " +
-                steps +
-                " steps (step duration: " +
-                (FADE_DELAY_MS / 1000.0) +
-                "s, ratio: " +
-                ratio +
-                ")"
+        final double finalRatio = GainRamp.exponentialRatio(initialVolume, finalTargetVolume, steps);
+        logger.debug(
+            () ->
+                "Beginning exponential fade from volume " +
+                    initialVolume +
+                    " to " +
+                    finalTargetVolume +
+                    " over " +
+                    (fadeDurationMs / 1000.0) +
+                    "s in " +
+                    steps +
+                    " steps (step duration: " +
+                    (FADE_DELAY_MS / 1000.0) +
+                    "s, ratio: " +
+                    finalRatio +
+                    ")"
         );
 
-        double finalRatio = ratio;
         fadeTask = fadeExecutor.scheduleWithFixedDelay(
             new Runnable() {
                 int currentStep = 0;
@@ -751,25 +842,20 @@ public class RemoteAudioAsset extends AudioAsset {
                     if (fadeState != FadeState.FADE_TO || player == null || !player.isPlaying() || currentStep >= steps) {
                         fadeState = FadeState.NONE;
                         cancelFade();
-                        logger.debug("Fade to complete at time " + getCurrentPosition());
+                        logger.debug(() -> "Fade to complete at time " + getCurrentPosition());
                         return;
                     }
                     try {
-                        if (finalRatio == 1.0) {
-                            currentVolume = safeFinalTargetVolume;
-                        } else {
-                            currentVolume *= (float) finalRatio;
+                        currentVolume = GainRamp.exponentialStep(currentVolume, finalRatio, finalTargetVolume);
+                        currentVolume = GainRamp.clamp(currentVolume, minVolume, maxVol);
+                        if (logger.isEnabled()) {
+                            logger.verbose("Fade to step " + currentStep + ": volume set to " + currentVolume);
                         }
-                        // Clamp volume between minVolume and maxVolume
-                        currentVolume = Math.min(Math.max(currentVolume, minVolume), maxVol);
-                        logger.verbose("Fade to step " + currentStep + ": volume set to " + currentVolume);
-                        owner
-                            .getActivity()
-                            .runOnUiThread(() -> {
-                                if (player != null && player.isPlaying()) {
-                                    player.setVolume(currentVolume);
-                                }
-                            });
+                        owner.runOnMainThread(() -> {
+                            if (player != null && player.isPlaying()) {
+                                player.setVolume(currentVolume);
+                            }
+                        });
                         currentStep++;
                     } catch (Exception e) {
                         logger.error("Error during fade to", e);
@@ -831,7 +917,9 @@ public class RemoteAudioAsset extends AudioAsset {
                         if (player != null && player.getPlaybackState() == Player.STATE_READY) {
                             if (player.isPlaying()) {
                                 double currentTime = player.getCurrentPosition() / 1000.0; // Get time directly
-                                logger.debug("Play timer update: currentTime = " + currentTime);
+                                if (logger.isEnabled()) {
+                                    logger.debug("Play timer update: currentTime = " + currentTime);
+                                }
                                 if (owner != null) owner.notifyCurrentTime(assetId, currentTime);
                                 currentTimeHandler.postDelayed(this, 100);
                                 return;
@@ -0,0 +1,69 @@
+package ee.forgr.audio;
+
+import android.net.Uri;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.DataSpec;
+import androidx.media3.datasource.TransferListener;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Picks one of two sources on every {@link #open}. HLS media sources create their data sources once, at
+ * prepare time, so a choice that changes during playback has to be made per request here.
+ */
+@UnstableApi
+final class RoutingDataSource implements DataSource {
+
+    private final DataSource defaultSource;
+    private final DataSource alternateSource;
+    private final Predicate<DataSpec> useAlternate;
+    private DataSource current;
+
+    RoutingDataSource(DataSource defaultSource, DataSource alternateSource, Predicate<DataSpec> useAlternate) {
+        this.defaultSource = defaultSource;
+        this.alternateSource = alternateSource;
+        this.useAlternate = useAlternate;
+    }
+
+    @Override
+    public void addTransferListener(TransferListener transferListener) {
+        defaultSource.addTransferListener(transferListener);
+        alternateSource.addTransferListener(transferListener);
+    }
+
+    @Override
+    public long open(DataSpec dataSpec) throws IOException {
+        current = useAlternate.test(dataSpec) ? alternateSource : defaultSource;
+        return current.open(dataSpec);
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        return current.read(buffer, offset, length);
+    }
+
+    @Override
+    public Uri getUri() {
+        return current != null ? current.getUri() : null;
+    }
+
+    @Override
+    public Map<String, List<String>> getResponseHeaders() {
+        return current != null ? current.getResponseHeaders() : Collections.emptyMap();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (current != null) {
+            try {
+                current.close();
+            } finally {
+                current = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package ee.forgr.audio;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import androidx.media3.common.C;
+import androidx.media3.common.util.NetworkTypeObserver;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.upstream.DefaultBandwidthMeter;
+import java.util.Map;
+
+/**
+ * One {@link DefaultBandwidthMeter} shared by every stream player, seeded with the estimate saved for each
+ * network type on previous launches.
+ *
+ * A fresh meter starts from a generic per-country guess, so a new HLS player either stalls on a too high
+ * variant or plays low quality for the first segments. Sharing the meter keeps the estimate across player
+ * rebuilds, and saving it lets the next launch start from what this device actually measured.
+ */
+@UnstableApi
+public final class SharedBandwidthMeter {
+
+    private static final String TAG = "SharedBandwidthMeter";
+    private static final Logger logger = new Logger(TAG);
+    private static final String PREFS_NAME = "native_audio_bandwidth";
+    private static final String KEY_PREFIX = "bitrate_";
+    private static final long SAVE_INTERVAL_MS = 10000;
+
+    private static DefaultBandwidthMeter meter;
+    private static long lastSaveMs;
+
+    private SharedBandwidthMeter() {}
+
+    public static synchronized DefaultBandwidthMeter get(Context context) {
+        if (meter == null) {
+            final Context appContext = context.getApplicationContext();
+            final SharedPreferences prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+
+            DefaultBandwidthMeter.Builder builder = new DefaultBandwidthMeter.Builder(appContext);
+            for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+                if (entry.getKey().startsWith(KEY_PREFIX) && entry.getValue() instanceof Long) {
+                    try {
+                        int networkType = Integer.parseInt(entry.getKey().substring(KEY_PREFIX.length()));
+                        builder.setInitialBitrateEstimate(networkType, (Long) entry.getValue());
+                        logger.debug("Seeding network type " + networkType + " with " + entry.getValue() + " bps");
+                    } catch (NumberFormatException ignored) {
+                        // Not one of ours
+                    }
+                }
+            }
+            meter = builder.build();
+            meter.addEventListener(new Handler(Looper.getMainLooper()), (elapsedMs, bytesTransferred, bitrateEstimate) ->
+                save(appContext, prefs, bitrateEstimate)
+            );
+        }
+        return meter;
+    }
+
+    private static void save(Context context, SharedPreferences prefs, long bitrateEstimate) {
+        long now = SystemClock.elapsedRealtime();
+        if (now - lastSaveMs < SAVE_INTERVAL_MS) {
+            return;
+        }
+        int networkType = NetworkTypeObserver.getInstance(context).getNetworkType();
+        if (networkType == C.NETWORK_TYPE_UNKNOWN || networkType == C.NETWORK_TYPE_OFFLINE) {
+            return;
+        }
+        lastSaveMs = now;
+        prefs.edit().putLong(KEY_PREFIX + networkType, bitrateEstimate).apply();
+    }
+}
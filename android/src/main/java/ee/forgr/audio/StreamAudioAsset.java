@@ -3,17 +3,22 @@ package ee.forgr.audio;
 import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
-import android.util.Log;
 import androidx.media3.common.MediaItem;
 import androidx.media3.common.PlaybackException;
+import androidx.media3.common.C;
 import androidx.media3.common.PlaybackParameters;
 import androidx.media3.common.Player;
+import androidx.media3.common.Timeline;
 import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.DataSource;
 import androidx.media3.datasource.DefaultHttpDataSource;
+import androidx.media3.datasource.cache.CacheDataSource;
 import androidx.media3.exoplayer.DefaultLivePlaybackSpeedControl;
-import androidx.media3.exoplayer.DefaultLoadControl;
 import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.LoadControl;
 import androidx.media3.exoplayer.hls.HlsMediaSource;
+import com.getcapacitor.JSObject;
+import ee.forgr.audio.dsp.GainRamp;
 
 @UnstableApi
 public class StreamAudioAsset extends AudioAsset {
@@ -26,33 +31,72 @@ public class StreamAudioAsset extends AudioAsset {
     private final float initialVolume;
     private static final long LIVE_OFFSET_MS = 5000; // 5 seconds behind live
     private final java.util.Map<String, String> headers;
+    private final BufferBudget.Profile bufferProfile;
+    private final Handler recoveryHandler = new Handler(Looper.getMainLooper());
+    private Runnable pendingRecovery;
+    private int recoveryAttempts = 0;
+    // Whether the playlist is known to be VOD, whose segments can then be served from the shared media cache
+    private volatile boolean cacheSegments;
+    // Set in time-shift mode, holds past segments on disk instead of in the player's back buffer
+    private final TimeShiftBuffer timeShift;
+    // Set when adaptive buffering was enabled at load time
+    private AdaptiveLoadControl adaptiveLoadControl;
+    private final LevelMeter levelMeter = new LevelMeter();
+    // Only touched on the main thread, the listener of a play waiting for the player to become ready
+    private Player.Listener pendingPlayListener;
 
     public StreamAudioAsset(NativeAudio owner, String assetId, Uri uri, float volume, java.util.Map<String, String> headers)
         throws Exception {
+        this(owner, assetId, uri, volume, headers, BufferBudget.Profile.LIVE);
+    }
+
+    public StreamAudioAsset(
+        NativeAudio owner,
+        String assetId,
+        Uri uri,
+        float volume,
+        java.util.Map<String, String> headers,
+        BufferBudget.Profile bufferProfile
+    ) throws Exception {
+        this(owner, assetId, uri, volume, headers, bufferProfile, null);
+    }
+
+    public StreamAudioAsset(
+        NativeAudio owner,
+        String assetId,
+        Uri uri,
+        float volume,
+        java.util.Map<String, String> headers,
+        BufferBudget.Profile bufferProfile,
+        TimeShiftBuffer timeShift
+    ) throws Exception {
         super(owner, assetId, null, 0, volume);
         this.uri = uri;
         this.volume = volume;
         this.initialVolume = volume;
         this.headers = headers;
+        this.bufferProfile = bufferProfile;
+        this.timeShift = timeShift;
+        this.cacheSegments = VodPlaylists.contains(owner.getContext(), uri.toString());
 
         createPlayer();
     }
 
     private void createPlayer() {
-        // Adjust buffer settings for smoother playback
-        DefaultLoadControl loadControl = new DefaultLoadControl.Builder()
-            .setBufferDurationsMs(
-                60000, // Increase min buffer to 60s
-                180000, // Increase max buffer to 180s
-                5000, // Increase buffer for playback
-                10000 // Increase buffer to start playback
-            )
-            .setPrioritizeTimeOverSizeThresholds(true)
-            .setBackBuffer(60000, true) // Increase back buffer
-            .build();
-
-        player = new ExoPlayer.Builder(owner.getContext())
+        // Buffers come from the shared allocator and count against the global ceiling. With time shifting the
+        // past lives on disk, so no back buffer is kept in memory
+        int backBufferMs = timeShift != null ? 0 : bufferProfile.backBufferMs;
+        LoadControl loadControl;
+        if (AdaptiveLoadControl.isEnabled()) {
+            adaptiveLoadControl = new AdaptiveLoadControl(bufferProfile, backBufferMs);
+            loadControl = adaptiveLoadControl;
+        } else {
+            loadControl = BufferBudget.newLoadControl(bufferProfile, backBufferMs);
+        }
+        player = new ExoPlayer.Builder(owner.getContext(), new MeteringRenderersFactory(owner.getContext(), levelMeter))
             .setLoadControl(loadControl)
+            // Shared across players and launches so variant selection starts from a measured estimate
+            .setBandwidthMeter(SharedBandwidthMeter.get(owner.getContext()))
             .setLivePlaybackSpeedControl(
                 new DefaultLivePlaybackSpeedControl.Builder()
                     .setFallbackMaxPlaybackSpeed(1.04f)
@@ -60,30 +104,20 @@ public class StreamAudioAsset extends AudioAsset {
                     .build()
             )
             .build();
+        EngineMetrics.track(player);
+        player.addAnalyticsListener(owner.getLatencyTracker().newAnalyticsListener(() -> assetId));
+        if (adaptiveLoadControl != null) {
+            player.addAnalyticsListener(adaptiveLoadControl.newAnalyticsListener());
+        }
 
         player.setVolume(volume);
         initializePlayer();
     }
 
     private void initializePlayer() {
-        logger.debug("Initializing stream player with volume: " + volume);
+        logger.debug(() -> "Initializing stream player with volume: " + volume);
 
-        // Configure HLS source with better settings for live streaming
-        DefaultHttpDataSource.Factory httpDataSourceFactory = new DefaultHttpDataSource.Factory()
-            .setAllowCrossProtocolRedirects(true)
-            .setConnectTimeoutMs(15000)
-            .setReadTimeoutMs(15000)
-            .setUserAgent("ExoPlayer");
-
-        // Add custom headers if provided
-        if (headers != null && !headers.isEmpty()) {
-            httpDataSourceFactory.setDefaultRequestProperties(headers);
-        }
-
-        HlsMediaSource mediaSource = new HlsMediaSource.Factory(httpDataSourceFactory)
-            .setAllowChunklessPreparation(true)
-            .setTimestampAdjusterInitializationTimeoutMs(LIVE_OFFSET_MS) // 30 seconds timeout
-            .createMediaSource(MediaItem.fromUri(uri));
+        HlsMediaSource mediaSource = buildMediaSource();
 
         player.setMediaSource(mediaSource);
         player.setVolume(volume);
@@ -93,41 +127,144 @@ public class StreamAudioAsset extends AudioAsset {
             new Player.Listener() {
                 @Override
                 public void onPlaybackStateChanged(int state) {
-                    logger.debug("Stream state changed to: " + getStateString(state));
+                    logger.debug("Stream state changed to: {}", getStateString(state));
                     if (state == Player.STATE_READY && !isPrepared) {
                         isPrepared = true;
                         if (player.isCurrentMediaItemLive()) {
                             player.seekToDefaultPosition();
+                        } else if (!player.isCurrentMediaItemDynamic() && !cacheSegments) {
+                            // The playlist is complete, from now on segments go through the cache
+                            logger.debug("VOD playlist detected, caching segments of " + uri);
+                            VodPlaylists.mark(owner.getContext(), uri.toString());
+                            cacheSegments = true;
                         }
                     }
+                    if (state == Player.STATE_READY && recoveryAttempts > 0) {
+                        logger.info("Stream recovered after " + recoveryAttempts + " attempts");
+                        owner.notifyStreamRecovered(assetId, recoveryAttempts);
+                        recoveryAttempts = 0;
+                    }
                 }
 
                 @Override
                 public void onIsLoadingChanged(boolean isLoading) {
-                    logger.debug("Loading state changed: " + isLoading);
+                    logger.debug("Loading state changed: {}", isLoading);
                 }
 
                 @Override
                 public void onIsPlayingChanged(boolean isPlaying) {
-                    logger.debug("Playing state changed: " + isPlaying);
+                    logger.debug("Playing state changed: {}", isPlaying);
                 }
 
                 @Override
                 public void onPlayerError(PlaybackException error) {
                     logger.error("Player error: " + error.getMessage());
                     isPrepared = false;
-                    // Try to recover by recreating the player
-                    owner
-                        .getActivity()
-                        .runOnUiThread(() -> {
-                            player.release();
-                            createPlayer();
-                        });
+                    scheduleRecovery(error);
                 }
             }
         );
     }
 
+    /**
+     * Stops the stream when it is not playing, which frees its buffers. A paused live stream has to
+     * rejoin the live window on resume anyway, so only the buffered media is lost.
+     */
+    @Override
+    public boolean releaseIfIdle() {
+        if (player == null || player.getPlayWhenReady() || player.getPlaybackState() == Player.STATE_IDLE) {
+            return false;
+        }
+        player.stop();
+        isPrepared = false;
+        logger.debug("Released idle stream " + assetId);
+        return true;
+    }
+
+    /**
+     * Re-prepares the existing player after a backoff instead of rebuilding it, so the bandwidth estimate and
+     * player state survive. Live streams rejoin at the live edge. Gives up after the configured number of
+     * consecutive attempts; the next play starts over.
+     */
+    private void scheduleRecovery(PlaybackException error) {
+        cancelRecovery();
+        final int attempt = ++recoveryAttempts;
+        final boolean willRetry = attempt <= StreamRetryPolicy.getMaxRetries();
+        final long delayMs = willRetry ? StreamRetryPolicy.getDelayMs(attempt) : 0;
+        owner.notifyStreamError(assetId, error, attempt, willRetry, delayMs);
+        if (!willRetry) {
+            logger.error("Giving up on stream after " + (attempt - 1) + " recovery attempts");
+            return;
+        }
+        logger.debug("Recovering stream in " + delayMs + " ms (attempt " + attempt + ")");
+        pendingRecovery = () -> {
+            pendingRecovery = null;
+            if (player == null) {
+                return;
+            }
+            if (error.errorCode == PlaybackException.ERROR_CODE_BEHIND_LIVE_WINDOW || player.isCurrentMediaItemLive()) {
+                player.seekToDefaultPosition();
+            }
+            player.prepare();
+        };
+        recoveryHandler.postDelayed(pendingRecovery, delayMs);
+    }
+
+    private void cancelRecovery() {
+        if (pendingRecovery != null) {
+            recoveryHandler.removeCallbacks(pendingRecovery);
+            pendingRecovery = null;
+        }
+    }
+
+    private HlsMediaSource buildMediaSource() {
+        // Configure HLS source with better settings for live streaming
+        DefaultHttpDataSource.Factory httpDataSourceFactory = new DefaultHttpDataSource.Factory()
+            .setAllowCrossProtocolRedirects(true)
+            .setConnectTimeoutMs(15000)
+            .setReadTimeoutMs(15000)
+            .setUserAgent("ExoPlayer");
+
+        // Add custom headers if provided
+        if (headers != null && !headers.isEmpty()) {
+            httpDataSourceFactory.setDefaultRequestProperties(headers);
+        }
+
+        CacheDataSource.Factory cacheDataSourceFactory = new CacheDataSource.Factory()
+            .setCache(RemoteAudioAsset.getCache(owner.getContext()))
+            .setUpstreamDataSourceFactory(httpDataSourceFactory)
+            .setFlags(CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR);
+
+        // Live playlists change on every reload and must never come from the cache. The media source keeps the
+        // data sources it creates at prepare time, so each request checks whether the playlist is known to be VOD
+        DataSource.Factory dataSourceFactory = timeShift != null
+            ? timeShift.wrap(httpDataSourceFactory)
+            : () ->
+                new RoutingDataSource(
+                    httpDataSourceFactory.createDataSource(),
+                    cacheDataSourceFactory.createDataSource(),
+                    (dataSpec) -> cacheSegments
+                );
+
+        return new HlsMediaSource.Factory(dataSourceFactory)
+            .setAllowChunklessPreparation(true)
+            .setTimestampAdjusterInitializationTimeoutMs(LIVE_OFFSET_MS) // 30 seconds timeout
+            .setLoadErrorHandlingPolicy(StreamRetryPolicy.newLoadErrorHandlingPolicy())
+            .createMediaSource(MediaItem.fromUri(uri));
+    }
+
+    private void prepareIfReleased() {
+        if (player.getPlaybackState() == Player.STATE_IDLE) {
+            if (pendingRecovery == null) {
+                // An explicit play after giving up starts a fresh series of attempts
+                recoveryAttempts = 0;
+            }
+            cancelRecovery();
+            logger.debug("Re-preparing stream released under memory pressure");
+            player.prepare();
+        }
+    }
+
     private String getStateString(int state) {
         switch (state) {
             case Player.STATE_IDLE:
@@ -145,33 +282,42 @@ public class StreamAudioAsset extends AudioAsset {
 
     @Override
     public void play(double time, float volume) throws Exception {
-        logger.debug("Play called with time: " + time + ", isPrepared: " + isPrepared);
-        owner
-            .getActivity()
-            .runOnUiThread(() -> {
-                if (!isPrepared) {
-                    // If not prepared, wait for preparation
-                    player.addListener(
-                        new Player.Listener() {
-                            @Override
-                            public void onPlaybackStateChanged(int state) {
-                                logger.debug("Play-wait state changed to: " + getStateString(state));
-                                if (state == Player.STATE_READY) {
-                                    startPlayback(time, volume);
-                                    startCurrentTimeUpdates();
-                                    player.removeListener(this);
-                                }
-                            }
+        logger.debug(() -> "Play called with time: " + time + ", isPrepared: " + isPrepared);
+        owner.runOnMainThread(() -> {
+            prepareIfReleased();
+            // A newer play replaces one still waiting
+            cancelPendingPlay();
+            if (!isPrepared) {
+                // If not prepared, wait for preparation
+                pendingPlayListener = new Player.Listener() {
+                    @Override
+                    public void onPlaybackStateChanged(int state) {
+                        logger.debug("Play-wait state changed to: {}", getStateString(state));
+                        if (state == Player.STATE_READY) {
+                            pendingPlayListener = null;
+                            player.removeListener(this);
+                            startPlayback(time, volume);
+                            startCurrentTimeUpdates();
                         }
-                    );
-                } else {
-                    startPlayback(time, volume);
-                }
-            });
+                    }
+                };
+                player.addListener(pendingPlayListener);
+            } else {
+                startPlayback(time, volume);
+            }
+        });
+    }
+
+    private void cancelPendingPlay() {
+        if (pendingPlayListener != null) {
+            player.removeListener(pendingPlayListener);
+            pendingPlayListener = null;
+        }
     }
 
     private void startPlayback(double time, float volume) {
-        logger.debug("Starting playback with time: " + time);
+        logger.debug(() -> "Starting playback with time: " + time);
+        owner.getLatencyTracker().markReady(assetId);
         if (time != 0) {
             player.seekTo(Math.round(time * 1000));
         } else if (player.isCurrentMediaItemLive()) {
@@ -186,139 +332,111 @@ public class StreamAudioAsset extends AudioAsset {
     @Override
     public boolean pause() throws Exception {
         final boolean[] wasPlaying = { false };
-        owner
-            .getActivity()
-            .runOnUiThread(() -> {
-                cancelFade();
-                if (player != null && player.isPlaying()) {
-                    player.setPlayWhenReady(false);
-                    stopCurrentTimeUpdates();
-                    wasPlaying[0] = true;
-                }
-            });
+        owner.runOnMainThread(() -> {
+            cancelFade();
+            if (player != null && player.isPlaying()) {
+                player.setPlayWhenReady(false);
+                stopCurrentTimeUpdates();
+                wasPlaying[0] = true;
+            }
+        });
         return wasPlaying[0];
     }
 
     @Override
     public void resume() throws Exception {
-        owner
-            .getActivity()
-            .runOnUiThread(() -> {
-                player.setPlayWhenReady(true);
-                startCurrentTimeUpdates();
-            });
+        owner.runOnMainThread(() -> {
+            prepareIfReleased();
+            if (timeShift != null && player.isCurrentMediaItemLive()) {
+                // Seeking resets the target live offset, otherwise playback speeds up to catch up with live
+                player.seekTo(player.getCurrentPosition());
+            }
+            player.setPlayWhenReady(true);
+            startCurrentTimeUpdates();
+        });
     }
 
+    /**
+     * Stops the stream and re-prepares it. A play still waiting for the player to become ready is cancelled, so
+     * a stop issued while the stream loads wins over the play before it.
+     */
     @Override
     public void stop() throws Exception {
-        owner
-            .getActivity()
-            .runOnUiThread(() -> {
-                cancelFade();
-                // First stop playback
-                player.stop();
-                // Reset player state
-                player.clearMediaItems();
-                isPrepared = false;
-
-                // Create new media source
-                DefaultHttpDataSource.Factory httpDataSourceFactory = new DefaultHttpDataSource.Factory()
-                    .setAllowCrossProtocolRedirects(true)
-                    .setConnectTimeoutMs(15000)
-                    .setReadTimeoutMs(15000)
-                    .setUserAgent("ExoPlayer");
-
-                // Add custom headers if provided
-                if (headers != null && !headers.isEmpty()) {
-                    httpDataSourceFactory.setDefaultRequestProperties(headers);
-                }
-
-                HlsMediaSource mediaSource = new HlsMediaSource.Factory(httpDataSourceFactory)
-                    .setAllowChunklessPreparation(true)
-                    .setTimestampAdjusterInitializationTimeoutMs(LIVE_OFFSET_MS)
-                    .createMediaSource(MediaItem.fromUri(uri));
-
-                // Set new media source and prepare
-                player.setMediaSource(mediaSource);
-                player.prepare();
-
-                // Add listener for preparation completion
-                player.addListener(
-                    new Player.Listener() {
-                        @Override
-                        public void onPlaybackStateChanged(int state) {
-                            logger.debug("Stop-reinit state changed to: " + getStateString(state));
-                            if (state == Player.STATE_READY) {
-                                isPrepared = true;
-                                player.removeListener(this);
-                            } else if (state == Player.STATE_IDLE) {
-                                // Retry preparation if it fails
-                                player.prepare();
-                            }
+        owner.runOnMainThread(() -> {
+            cancelFade();
+            cancelRecovery();
+            cancelPendingPlay();
+            // First stop playback
+            player.stop();
+            // Reset player state
+            player.clearMediaItems();
+            isPrepared = false;
+
+            // Create new media source
+            HlsMediaSource mediaSource = buildMediaSource();
+
+            // Set new media source and prepare
+            player.setMediaSource(mediaSource);
+            player.prepare();
+
+            // Add listener for preparation completion
+            player.addListener(
+                new Player.Listener() {
+                    @Override
+                    public void onPlaybackStateChanged(int state) {
+                        logger.debug("Stop-reinit state changed to: {}", getStateString(state));
+                        // Failures go through the backoff in scheduleRecovery
+                        if (state == Player.STATE_READY) {
+                            isPrepared = true;
+                            player.removeListener(this);
                         }
                     }
-                );
-            });
+                }
+            );
+        });
     }
 
     @Override
     public void loop() throws Exception {
-        owner
-            .getActivity()
-            .runOnUiThread(() -> {
-                player.setRepeatMode(Player.REPEAT_MODE_ONE);
-                player.setPlayWhenReady(true);
-                startCurrentTimeUpdates();
-            });
+        owner.runOnMainThread(() -> {
+            prepareIfReleased();
+            player.setRepeatMode(Player.REPEAT_MODE_ONE);
+            player.setPlayWhenReady(true);
+            startCurrentTimeUpdates();
+        });
     }
 
     @Override
     public void unload() throws Exception {
-        owner
-            .getActivity()
-            .runOnUiThread(() -> {
-                cancelFade();
-                player.stop();
-                player.clearMediaItems();
-                player.release();
-                isPrepared = false;
-                close(); // Ensure fadeExecutor is shutdown
-            });
-    }
-
-    @Override
-    public void close() {
-        if (fadeExecutor != null && !fadeExecutor.isShutdown()) {
-            fadeExecutor.shutdown();
-        }
-    }
-
-    @Override
-    protected void finalize() throws Throwable {
-        try {
-            close();
-        } finally {
-            super.finalize();
-        }
+        owner.runOnMainThread(() -> {
+            cancelFade();
+            cancelRecovery();
+            cancelPendingPlay();
+            player.stop();
+            player.clearMediaItems();
+            player.release();
+            isPrepared = false;
+            if (timeShift != null) {
+                timeShift.release();
+            }
+        });
     }
 
     @Override
     public void setVolume(float volume, double duration) throws Exception {
         this.volume = volume;
-        owner
-            .getActivity()
-            .runOnUiThread(() -> {
-                cancelFade();
-                try {
-                    if (this.isPlaying() && duration > 0) {
-                        fadeTo(duration, volume);
-                    } else {
-                        player.setVolume(volume);
-                    }
-                } catch (Exception e) {
-                    logger.error("Error setting volume", e);
+        owner.runOnMainThread(() -> {
+            cancelFade();
+            try {
+                if (this.isPlaying() && duration > 0) {
+                    fadeTo(duration, volume);
+                } else {
+                    player.setVolume(volume);
                 }
-            });
+            } catch (Exception e) {
+                logger.error("Error setting volume", e);
+            }
+        });
     }
 
     @Override
@@ -338,16 +456,14 @@ public class StreamAudioAsset extends AudioAsset {
     public double getDuration() {
         if (isPrepared) {
             final double[] duration = { 0 };
-            owner
-                .getActivity()
-                .runOnUiThread(() -> {
-                    if (player.getPlaybackState() == Player.STATE_READY) {
-                        long rawDuration = player.getDuration();
-                        if (rawDuration != androidx.media3.common.C.TIME_UNSET) {
-                            duration[0] = rawDuration / 1000.0;
-                        }
+            owner.runOnMainThread(() -> {
+                if (player.getPlaybackState() == Player.STATE_READY) {
+                    long rawDuration = player.getDuration();
+                    if (rawDuration != androidx.media3.common.C.TIME_UNSET) {
+                        duration[0] = rawDuration / 1000.0;
                     }
-                });
+                }
+            });
             return duration[0];
         }
         return 0;
@@ -357,13 +473,11 @@ public class StreamAudioAsset extends AudioAsset {
     public double getCurrentPosition() {
         if (isPrepared) {
             final double[] position = { 0 };
-            owner
-                .getActivity()
-                .runOnUiThread(() -> {
-                    if (player.getPlaybackState() == Player.STATE_READY) {
-                        position[0] = player.getCurrentPosition() / 1000.0;
-                    }
-                });
+            owner.runOnMainThread(() -> {
+                if (player.getPlaybackState() == Player.STATE_READY) {
+                    position[0] = player.getCurrentPosition() / 1000.0;
+                }
+            });
             return position[0];
         }
         return 0;
@@ -371,36 +485,81 @@ public class StreamAudioAsset extends AudioAsset {
 
     @Override
     public void setCurrentTime(double time) throws Exception {
-        owner
-            .getActivity()
-            .runOnUiThread(() -> {
-                player.seekTo(Math.round(time * 1000));
-            });
+        owner.runOnMainThread(() -> {
+            long positionMs = Math.round(time * 1000);
+            if (timeShift != null && player.isCurrentMediaItemLive()) {
+                long windowDurationMs = getWindowDurationMs();
+                positionMs = Math.min(Math.max(positionMs, windowDurationMs - timeShift.getMaxDurationMs()), windowDurationMs);
+                positionMs = Math.max(0, positionMs);
+            }
+            player.seekTo(positionMs);
+        });
+    }
+
+    /**
+     * Returns the seekable range of the live window, capped to the configured time-shift duration. Positions are
+     * relative to the start of the server's playlist window, like {@code currentTime}.
+     */
+    @Override
+    public JSObject getTimeShiftWindow() {
+        if (timeShift == null) {
+            return null;
+        }
+        long windowDurationMs = getWindowDurationMs();
+        long positionMs = player.getCurrentPosition();
+        JSObject ret = new JSObject();
+        ret.put("assetId", assetId);
+        ret.put("isLive", player.isCurrentMediaItemLive());
+        ret.put("startSec", Math.max(0, windowDurationMs - timeShift.getMaxDurationMs()) / 1000.0);
+        ret.put("endSec", windowDurationMs / 1000.0);
+        ret.put("positionSec", positionMs / 1000.0);
+        ret.put("behindLiveSec", Math.max(0, windowDurationMs - positionMs) / 1000.0);
+        ret.put("maxDurationSec", timeShift.getMaxDurationMs() / 1000.0);
+        ret.put("cachedBytes", timeShift.getCachedBytes());
+        return ret;
+    }
+
+    @Override
+    public boolean readLevels(LevelMeter.Reading reading) {
+        return levelMeter.read(reading);
+    }
+
+    @Override
+    public JSObject getAdaptiveBufferState() {
+        return adaptiveLoadControl != null ? adaptiveLoadControl.toJSObject() : null;
+    }
+
+    private long getWindowDurationMs() {
+        Timeline timeline = player.getCurrentTimeline();
+        if (timeline.isEmpty()) {
+            return 0;
+        }
+        long durationMs = timeline.getWindow(player.getCurrentMediaItemIndex(), new Timeline.Window()).getDurationMs();
+        return durationMs != C.TIME_UNSET ? durationMs : 0;
     }
 
     @Override
     public void playWithFadeIn(double time, float volume, double fadeInDurationMs) throws Exception {
-        logger.debug("playWithFadeIn called with time: " + time);
-        owner
-            .getActivity()
-            .runOnUiThread(() -> {
-                if (!isPrepared) {
-                    // If not prepared, wait for preparation
-                    player.addListener(
-                        new Player.Listener() {
-                            @Override
-                            public void onPlaybackStateChanged(int state) {
-                                if (state == Player.STATE_READY) {
-                                    startPlaybackWithFade(time, volume, fadeInDurationMs);
-                                    player.removeListener(this);
-                                }
+        logger.debug(() -> "playWithFadeIn called with time: " + time);
+        owner.runOnMainThread(() -> {
+            prepareIfReleased();
+            if (!isPrepared) {
+                // If not prepared, wait for preparation
+                player.addListener(
+                    new Player.Listener() {
+                        @Override
+                        public void onPlaybackStateChanged(int state) {
+                            if (state == Player.STATE_READY) {
+                                startPlaybackWithFade(time, volume, fadeInDurationMs);
+                                player.removeListener(this);
                             }
                         }
-                    );
-                } else {
-                    startPlaybackWithFade(time, volume, fadeInDurationMs);
-                }
-            });
+                    }
+                );
+            } else {
+                startPlaybackWithFade(time, volume, fadeInDurationMs);
+            }
+        });
     }
 
     private void startPlaybackWithFade(Double time, float targetVolume, double fadeInDurationMs) {
@@ -462,7 +621,7 @@ public class StreamAudioAsset extends AudioAsset {
         cancelFade();
         fadeState = FadeState.FADE_IN;
 
-        final int steps = Math.max(1, (int) (fadeInDurationMs / FADE_DELAY_MS));
+        final int steps = GainRamp.stepCount(fadeInDurationMs, FADE_DELAY_MS);
         final float fadeStep = targetVolume / steps;
 
         fadeTask = fadeExecutor.scheduleWithFixedDelay(
@@ -478,13 +637,11 @@ public class StreamAudioAsset extends AudioAsset {
                     }
 
                     final float nextVolume = Math.min(currentVolume + fadeStep, targetVolume);
-                    owner
-                        .getActivity()
-                        .runOnUiThread(() -> {
-                            if (player != null && player.isPlaying()) {
-                                player.setVolume(nextVolume);
-                            }
-                        });
+                    owner.runOnMainThread(() -> {
+                        if (player != null && player.isPlaying()) {
+                            player.setVolume(nextVolume);
+                        }
+                    });
                     currentVolume = nextVolume;
                 }
             },
@@ -500,12 +657,12 @@ public class StreamAudioAsset extends AudioAsset {
 
         if (player == null) return;
 
-        final int steps = Math.max(1, (int) (fadeDurationMs / FADE_DELAY_MS));
+        final int steps = GainRamp.stepCount(fadeDurationMs, FADE_DELAY_MS);
         final float minVolume = zeroVolume;
         final float initialVolume = Math.max(player.getVolume(), minVolume);
         final float finalTargetVolume = Math.max(targetVolume, minVolume);
-        final double ratio = Math.pow(finalTargetVolume / initialVolume, 1.0 / steps);
-        if (Double.isNaN(ratio) || Double.isInfinite(ratio)) {
+        final double ratio = GainRamp.exponentialRatio(initialVolume, finalTargetVolume, steps);
+        if (ratio == 1.0) {
             player.setVolume(finalTargetVolume);
             fadeState = FadeState.NONE;
             return;
@@ -525,14 +682,12 @@ public class StreamAudioAsset extends AudioAsset {
                     }
 
                     currentVolume *= (float) ratio;
-                    final float nextVolume = Math.min(Math.max(currentVolume, minVolume), maxVolume);
-                    owner
-                        .getActivity()
-                        .runOnUiThread(() -> {
-                            if (player != null && player.isPlaying()) {
-                                player.setVolume(nextVolume);
-                            }
-                        });
+                    final float nextVolume = GainRamp.clamp(currentVolume, minVolume, maxVolume);
+                    owner.runOnMainThread(() -> {
+                        if (player != null && player.isPlaying()) {
+                            player.setVolume(nextVolume);
+                        }
+                    });
                     currentStep++;
                 }
             },
@@ -544,19 +699,17 @@ public class StreamAudioAsset extends AudioAsset {
 
     @Override
     public void stopWithFade(double fadeOutDurationMs, boolean toPause) throws Exception {
-        owner
-            .getActivity()
-            .runOnUiThread(() -> {
-                if (player != null && player.isPlaying()) {
-                    fadeOut(fadeOutDurationMs, toPause);
-                } else if (!toPause) {
-                    try {
-                        stop();
-                    } catch (Exception e) {
-                        logger.error("Error stopping stream asset", e);
-                    }
+        owner.runOnMainThread(() -> {
+            if (player != null && player.isPlaying()) {
+                fadeOut(fadeOutDurationMs, toPause);
+            } else if (!toPause) {
+                try {
+                    stop();
+                } catch (Exception e) {
+                    logger.error("Error stopping stream asset", e);
                 }
-            });
+            }
+        });
     }
 
     @Override
@@ -570,7 +723,7 @@ public class StreamAudioAsset extends AudioAsset {
 
         if (player == null) return;
 
-        final int steps = Math.max(1, (int) (fadeOutDurationMs / FADE_DELAY_MS));
+        final int steps = GainRamp.stepCount(fadeOutDurationMs, FADE_DELAY_MS);
         final float initialVolume = player.getVolume();
         final float fadeStep = initialVolume / steps;
 
@@ -583,34 +736,30 @@ public class StreamAudioAsset extends AudioAsset {
                     if (fadeState != FadeState.FADE_OUT || player == null || currentVolume <= 0) {
                         fadeState = FadeState.NONE;
                         cancelFade();
-                        owner
-                            .getActivity()
-                            .runOnUiThread(() -> {
-                                if (player == null) {
-                                    return;
-                                }
-                                if (toPause) {
-                                    player.setPlayWhenReady(false);
-                                    stopCurrentTimeUpdates();
-                                } else {
-                                    try {
-                                        stop();
-                                    } catch (Exception e) {
-                                        logger.error("Error stopping stream asset after fade out", e);
-                                    }
+                        owner.runOnMainThread(() -> {
+                            if (player == null) {
+                                return;
+                            }
+                            if (toPause) {
+                                player.setPlayWhenReady(false);
+                                stopCurrentTimeUpdates();
+                            } else {
+                                try {
+                                    stop();
+                                } catch (Exception e) {
+                                    logger.error("Error stopping stream asset after fade out", e);
                                 }
-                            });
+                            }
+                        });
                         return;
                     }
 
                     final float nextVolume = Math.max(currentVolume - fadeStep, 0f);
-                    owner
-                        .getActivity()
-                        .runOnUiThread(() -> {
-                            if (player != null) {
-                                player.setVolume(nextVolume);
-                            }
-                        });
+                    owner.runOnMainThread(() -> {
+                        if (player != null) {
+                            player.setVolume(nextVolume);
+                        }
+                    });
                     currentVolume = nextVolume;
                 }
             },
@@ -622,12 +771,11 @@ public class StreamAudioAsset extends AudioAsset {
 
     @Override
     public void setRate(float rate) throws Exception {
-        owner
-            .getActivity()
-            .runOnUiThread(() -> {
-                logger.debug("Setting playback rate to: " + rate);
-                player.setPlaybackParameters(new PlaybackParameters(rate));
-            });
+        this.rate = rate;
+        owner.runOnMainThread(() -> {
+            logger.debug(() -> "Setting playback rate to: " + rate);
+            player.setPlaybackParameters(new PlaybackParameters(rate));
+        });
     }
 
     @Override
@@ -665,7 +813,9 @@ public class StreamAudioAsset extends AudioAsset {
                     if (player != null && player.getPlaybackState() == Player.STATE_READY) {
                         if (player.isPlaying()) {
                             double currentTime = player.getCurrentPosition() / 1000.0; // Get time directly
-                            logger.debug("Play timer update: currentTime = " + currentTime);
+                            if (logger.isEnabled()) {
+                                logger.verbose("Play timer update: currentTime = " + currentTime);
+                            }
                             if (owner != null) owner.notifyCurrentTime(assetId, currentTime);
                             currentTimeHandler.postDelayed(this, 100);
                             return;
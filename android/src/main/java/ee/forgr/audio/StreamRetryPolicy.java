@@ -0,0 +1,74 @@
+package ee.forgr.audio;
+
+import androidx.media3.common.C;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.HttpDataSource;
+import androidx.media3.exoplayer.upstream.DefaultLoadErrorHandlingPolicy;
+import androidx.media3.exoplayer.upstream.LoadErrorHandlingPolicy;
+
+/**
+ * Retry settings for HLS streams, shared by every {@code StreamAudioAsset}.
+ *
+ * Failed segment and playlist loads are retried by ExoPlayer itself with an exponential backoff. When a
+ * failure still reaches the player, the asset re-prepares its existing player after the same backoff, up
+ * to {@link #getMaxRetries()} times in a row, instead of rebuilding it.
+ */
+@UnstableApi
+public final class StreamRetryPolicy {
+
+    public static final int DEFAULT_MAX_RETRIES = 5;
+    public static final long DEFAULT_INITIAL_DELAY_MS = 1000;
+    public static final long DEFAULT_MAX_DELAY_MS = 30000;
+
+    private static volatile int maxRetries = DEFAULT_MAX_RETRIES;
+    private static volatile long initialDelayMs = DEFAULT_INITIAL_DELAY_MS;
+    private static volatile long maxDelayMs = DEFAULT_MAX_DELAY_MS;
+
+    private StreamRetryPolicy() {}
+
+    public static void configure(int maxRetries, long initialDelayMs, long maxDelayMs) {
+        StreamRetryPolicy.maxRetries = Math.max(0, maxRetries);
+        StreamRetryPolicy.initialDelayMs = Math.max(0, initialDelayMs);
+        StreamRetryPolicy.maxDelayMs = Math.max(StreamRetryPolicy.initialDelayMs, maxDelayMs);
+    }
+
+    public static int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Returns the delay before the given attempt, starting at 1: the initial delay doubled for every
+     * previous attempt, capped at the maximum delay.
+     */
+    public static long getDelayMs(int attempt) {
+        int shift = Math.min(Math.max(0, attempt - 1), 20);
+        return Math.min(maxDelayMs, initialDelayMs << shift);
+    }
+
+    public static LoadErrorHandlingPolicy newLoadErrorHandlingPolicy() {
+        return new BackoffLoadErrorHandlingPolicy();
+    }
+
+    private static final class BackoffLoadErrorHandlingPolicy extends DefaultLoadErrorHandlingPolicy {
+
+        BackoffLoadErrorHandlingPolicy() {
+            super(maxRetries);
+        }
+
+        @Override
+        public long getRetryDelayMsFor(LoadErrorInfo loadErrorInfo) {
+            if (loadErrorInfo.exception instanceof HttpDataSource.InvalidResponseCodeException) {
+                int responseCode = ((HttpDataSource.InvalidResponseCodeException) loadErrorInfo.exception).responseCode;
+                // Client errors will not fix themselves, except timeouts and rate limiting
+                if (responseCode >= 400 && responseCode < 500 && responseCode != 408 && responseCode != 429) {
+                    return C.TIME_UNSET;
+                }
+            }
+            long defaultDelay = super.getRetryDelayMsFor(loadErrorInfo);
+            if (defaultDelay == C.TIME_UNSET) {
+                return C.TIME_UNSET;
+            }
+            return getDelayMs(loadErrorInfo.errorCount);
+        }
+    }
+}
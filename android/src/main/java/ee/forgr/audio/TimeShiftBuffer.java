@@ -0,0 +1,112 @@
+package ee.forgr.audio;
+
+import android.content.Context;
+import android.net.Uri;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.database.StandaloneDatabaseProvider;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.cache.CacheDataSource;
+import androidx.media3.datasource.cache.LeastRecentlyUsedCacheEvictor;
+import androidx.media3.datasource.cache.SimpleCache;
+import java.io.File;
+import java.util.UUID;
+
+/**
+ * Disk ring buffer for the segments of one live stream, used for time shifting.
+ *
+ * Segments go through a dedicated {@link SimpleCache} whose least recently used entries are evicted past
+ * {@code maxDiskBytes}, so the player can drop its in-memory back buffer and still rewind or resume a
+ * paused stream without downloading again. Playlists always bypass it since every reload changes them.
+ *
+ * The rewind range is still bounded by the server's playlist window: segments that left the live playlist
+ * cannot be seeked to even when they are on disk. The cache is opened on first use and deleted on
+ * {@link #release()}.
+ */
+@UnstableApi
+public class TimeShiftBuffer {
+
+    private static final String TAG = "TimeShiftBuffer";
+    private static final Logger logger = new Logger(TAG);
+    private static final String CACHE_DIR = "timeshift";
+
+    public static final long DEFAULT_MAX_DURATION_MS = 5 * 60 * 1000;
+    public static final long DEFAULT_MAX_DISK_BYTES = 64L * 1024 * 1024;
+
+    private static boolean staleBuffersDeleted = false;
+
+    private final Context context;
+    private final long maxDurationMs;
+    private final long maxDiskBytes;
+    private StandaloneDatabaseProvider databaseProvider;
+    private SimpleCache cache;
+    private File cacheDir;
+
+    public TimeShiftBuffer(Context context, long maxDurationMs, long maxDiskBytes) {
+        this.context = context.getApplicationContext();
+        this.maxDurationMs = Math.max(0, maxDurationMs);
+        this.maxDiskBytes = Math.max(1024 * 1024, maxDiskBytes);
+    }
+
+    public long getMaxDurationMs() {
+        return maxDurationMs;
+    }
+
+    public synchronized long getCachedBytes() {
+        return cache != null ? cache.getCacheSpace() : 0;
+    }
+
+    /**
+     * Returns a factory reading segments through the ring buffer and playlists straight from {@code upstream}.
+     */
+    public synchronized DataSource.Factory wrap(DataSource.Factory upstream) {
+        if (cache == null) {
+            open();
+        }
+        CacheDataSource.Factory segmentFactory = new CacheDataSource.Factory()
+            .setCache(cache)
+            .setUpstreamDataSourceFactory(upstream)
+            .setFlags(CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR);
+        // Each request goes either to the ring buffer or, for playlists, to the network
+        return () ->
+            new RoutingDataSource(upstream.createDataSource(), segmentFactory.createDataSource(), (dataSpec) -> !isPlaylist(dataSpec.uri));
+    }
+
+    private void open() {
+        File root = new File(context.getCacheDir(), CACHE_DIR);
+        databaseProvider = new StandaloneDatabaseProvider(context);
+        if (!staleBuffersDeleted) {
+            // Buffers of a previous process are useless, their streams moved on
+            File[] stale = root.listFiles();
+            if (stale != null) {
+                for (File dir : stale) {
+                    SimpleCache.delete(dir, databaseProvider);
+                }
+            }
+            staleBuffersDeleted = true;
+        }
+        // One directory per buffer, a SimpleCache cannot share its directory with another instance
+        cacheDir = new File(root, UUID.randomUUID().toString());
+        cacheDir.mkdirs();
+        cache = new SimpleCache(cacheDir, new LeastRecentlyUsedCacheEvictor(maxDiskBytes), databaseProvider);
+        logger.debug("Opened time shift buffer of " + maxDiskBytes + " bytes in " + cacheDir.getName());
+    }
+
+    public synchronized void release() {
+        if (cache == null) {
+            return;
+        }
+        cache.release();
+        SimpleCache.delete(cacheDir, databaseProvider);
+        cache = null;
+        cacheDir = null;
+    }
+
+    private static boolean isPlaylist(Uri uri) {
+        String path = uri.getPath();
+        if (path == null) {
+            return false;
+        }
+        String lower = path.toLowerCase();
+        return lower.endsWith(".m3u8") || lower.endsWith(".m3u");
+    }
+}
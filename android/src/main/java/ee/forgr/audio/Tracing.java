@@ -0,0 +1,62 @@
+package ee.forgr.audio;
+
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * {@link Trace} sections and counters around the plugin's hot paths, so its work shows up in Perfetto traces.
+ *
+ * Off by default and switched at runtime with {@code configure({ tracing: true })} or the {@code tracing} plugin
+ * config; when off, a section costs one volatile read. Sections are begun and ended on the same thread:
+ *
+ * <pre>
+ * boolean traced = Tracing.begin("NativeAudio.preload");
+ * try {
+ *     ...
+ * } finally {
+ *     Tracing.end(traced);
+ * }
+ * </pre>
+ */
+final class Tracing {
+
+    private static volatile boolean enabled = false;
+
+    private Tracing() {}
+
+    static void setEnabled(boolean enabled) {
+        Tracing.enabled = enabled;
+    }
+
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Begins a section on the current thread.
+     *
+     * @return whether a section was begun, to pass to {@link #end}
+     */
+    static boolean begin(String name) {
+        if (!enabled) {
+            return false;
+        }
+        Trace.beginSection(name);
+        return true;
+    }
+
+    static void end(boolean begun) {
+        if (begun) {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * Sets a counter track. Counters need Android 10, earlier versions only get sections.
+     */
+    static void counter(String name, long value) {
+        if (enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.setCounter(name, value);
+        }
+    }
+}
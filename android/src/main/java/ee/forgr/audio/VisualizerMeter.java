@@ -0,0 +1,92 @@
+package ee.forgr.audio;
+
+import android.media.audiofx.Visualizer;
+import ee.forgr.audio.dsp.Spectrum;
+
+/**
+ * Measures a {@code MediaPlayer} through the platform {@link Visualizer} attached to its audio session.
+ *
+ * The visualizer is created on the first read and recreated when the session changes. Creating one needs
+ * the RECORD_AUDIO permission; without it metering of MediaPlayer backed assets is disabled after a single
+ * warning.
+ */
+public class VisualizerMeter {
+
+    private static final String TAG = "VisualizerMeter";
+    private static final Logger logger = new Logger(TAG);
+    private static final int MAX_CAPTURE_SIZE = 1024;
+
+    private static volatile boolean unavailable = false;
+
+    private final Visualizer.MeasurementPeakRms measurement = new Visualizer.MeasurementPeakRms();
+    private Visualizer visualizer;
+    private int sessionId;
+    private byte[] fft;
+    private float[] magnitudes;
+
+    /**
+     * Fills {@code reading} with the current levels of the given audio session.
+     *
+     * @return false when the session cannot be measured
+     */
+    public synchronized boolean read(int sessionId, LevelMeter.Reading reading) {
+        if (sessionId <= 0 || unavailable) {
+            return false;
+        }
+        if (visualizer == null || sessionId != this.sessionId) {
+            release();
+            if (!open(sessionId)) {
+                return false;
+            }
+        }
+        if (visualizer.getMeasurementPeakRms(measurement) != Visualizer.SUCCESS) {
+            return false;
+        }
+        reading.peak = millibelsToLinear(measurement.mPeak);
+        reading.rms = millibelsToLinear(measurement.mRms);
+        if (reading.bands.length > 0 && visualizer.getFft(fft) == Visualizer.SUCCESS) {
+            // Layout: DC, Nyquist, then real and imaginary parts of each bin
+            int binCount = fft.length / 2;
+            magnitudes[0] = Math.abs(fft[0]) / 128f;
+            for (int bin = 1; bin < binCount; bin++) {
+                magnitudes[bin] = (float) Math.hypot(fft[2 * bin], fft[2 * bin + 1]) / 128f;
+            }
+            float binHz = visualizer.getSamplingRate() / 1000f / fft.length;
+            Spectrum.toBands(magnitudes, binCount, binHz, reading.bands);
+        }
+        return true;
+    }
+
+    private boolean open(int sessionId) {
+        try {
+            visualizer = new Visualizer(sessionId);
+            int captureSize = Math.min(MAX_CAPTURE_SIZE, Visualizer.getCaptureSizeRange()[1]);
+            visualizer.setCaptureSize(captureSize);
+            visualizer.setMeasurementMode(Visualizer.MEASUREMENT_MODE_PEAK_RMS);
+            visualizer.setEnabled(true);
+            this.sessionId = sessionId;
+            if (fft == null || fft.length != captureSize) {
+                fft = new byte[captureSize];
+                magnitudes = new float[captureSize / 2];
+            }
+            return true;
+        } catch (RuntimeException e) {
+            logger.warning("Visualizer unavailable, local assets will not be metered (RECORD_AUDIO granted?): " + e.getMessage());
+            unavailable = true;
+            release();
+            return false;
+        }
+    }
+
+    private static float millibelsToLinear(int millibels) {
+        return (float) Math.pow(10, millibels / 2000.0);
+    }
+
+    public synchronized void release() {
+        if (visualizer != null) {
+            visualizer.release();
+            visualizer = null;
+        }
+        sessionId = 0;
+    }
+}
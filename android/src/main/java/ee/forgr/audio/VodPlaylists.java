@@ -0,0 +1,99 @@
+package ee.forgr.audio;
+
+import android.content.Context;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HLS playlists known to be VOD, whose segments can safely be served from the shared media cache. Kept next to
+ * the cache, one URI per line, so a stream precached or played before an app restart still plays from the cache.
+ * Always compiled, so {@link RemoteAudioAsset#clearCache} can drop it without the HLS classes.
+ *
+ * Lookups are served from memory. The file is written on a background thread, in call order, since players
+ * mark playlists from the main thread.
+ */
+final class VodPlaylists {
+
+    private static final String TAG = "VodPlaylists";
+    private static final Logger logger = new Logger(TAG);
+    private static final String FILE_NAME = "media-vod.txt";
+
+    // Guarded by the class, null until read from disk
+    private static Set<String> uris;
+
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor((runnable) -> {
+        Thread thread = new Thread(runnable, "NativeAudioVodPlaylists");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private VodPlaylists() {}
+
+    static synchronized boolean contains(Context context, String uri) {
+        return load(context).contains(uri);
+    }
+
+    /**
+     * Remembers that the given playlist is VOD, so new players cache its segments from the first request.
+     */
+    static synchronized void mark(Context context, String uri) {
+        if (!load(context).add(uri)) {
+            return;
+        }
+        final File file = getFile(context);
+        writer.execute(() -> {
+            try (OutputStream out = new FileOutputStream(file, true)) {
+                out.write((uri + "\n").getBytes(StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                logger.warning("Could not persist VOD playlist " + uri + ": " + e.getMessage());
+            }
+        });
+    }
+
+    static synchronized void clear(Context context) {
+        uris = new HashSet<>();
+        final File file = getFile(context);
+        // Queued behind pending appends so none of them recreates the file afterwards
+        writer.execute(() -> {
+            if (file.exists() && !file.delete()) {
+                logger.warning("Could not delete " + file);
+            }
+        });
+    }
+
+    private static Set<String> load(Context context) {
+        if (uris != null) {
+            return uris;
+        }
+        uris = new HashSet<>();
+        File file = getFile(context);
+        if (!file.exists()) {
+            return uris;
+        }
+        try (
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))
+        ) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (!line.isEmpty()) {
+                    uris.add(line);
+                }
+            }
+        } catch (Exception e) {
+            logger.warning("Could not read VOD playlists: " + e.getMessage());
+        }
+        return uris;
+    }
+
+    private static File getFile(Context context) {
+        return new File(context.getCacheDir(), FILE_NAME);
+    }
+}
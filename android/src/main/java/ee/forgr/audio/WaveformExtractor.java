@@ -0,0 +1,490 @@
+package ee.forgr.audio;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.media.AudioFormat;
+import android.media.MediaCodec;
+import android.media.MediaDataSource;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.net.Uri;
+import android.os.SystemClock;
+import androidx.media3.common.C;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.DataSpec;
+import androidx.media3.datasource.DefaultDataSource;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import ee.forgr.audio.dsp.PeakDownsampler;
+import ee.forgr.audio.dsp.ProgressCoalescer;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Computes the min and max sample of every bucket of an audio file, for waveform displays.
+ *
+ * The file is decoded with {@link MediaCodec} one buffer at a time on a background thread and each buffer is
+ * folded into its buckets right away, so memory use only depends on the bucket count. Results are cached on disk
+ * under a fingerprint of the file content, so the same file reached through another path or URL is only decoded
+ * once. Requests run one at a time, which also lets a repeated request find the result of the previous one.
+ *
+ * Remote files are read through the shared media cache of {@link RemoteAudioAsset}, so a file the player already
+ * fetched is not downloaded again, and are decoded while they download.
+ */
+@UnstableApi
+public class WaveformExtractor {
+
+    private static final String TAG = "WaveformExtractor";
+    private static final Logger logger = new Logger(TAG);
+    private static final String CACHE_DIR = "waveforms";
+    private static final int CACHE_FORMAT_VERSION = 1;
+    // Sampled from both ends of the file to build the content fingerprint
+    private static final int FINGERPRINT_CHUNK_BYTES = 64 * 1024;
+    private static final long CODEC_TIMEOUT_US = 10_000;
+    private static final long PROGRESS_INTERVAL_MS = 250;
+    static final int MAX_BUCKETS = 10_000;
+
+    /**
+     * Audio file to measure. {@code asset:///} URIs point into the APK assets.
+     */
+    public static final class Source {
+
+        final Uri uri;
+        final Map<String, String> headers;
+
+        public Source(Uri uri, Map<String, String> headers) {
+            this.uri = uri;
+            this.headers = headers;
+        }
+    }
+
+    /**
+     * Invoked on the extractor thread.
+     */
+    public interface Callback {
+        /**
+         * Buckets {@code [start, end)} are final. Not called for results read from the cache.
+         *
+         * @param progress decoded share of the file, from 0 to 1
+         */
+        void onProgress(Waveform waveform, int start, int end, double progress);
+
+        void onFinished(Waveform waveform);
+
+        void onError(Exception error);
+    }
+
+    /**
+     * Per bucket peaks, between -1 and 1. Buckets without any sample stay at 0.
+     */
+    public static final class Waveform {
+
+        final long durationMs;
+        final float[] min;
+        final float[] max;
+
+        Waveform(int buckets, long durationMs) {
+            this.durationMs = durationMs;
+            this.min = new float[buckets];
+            this.max = new float[buckets];
+        }
+
+        JSObject toJSObject() {
+            JSObject ret = toJSObject(0, min.length);
+            ret.put("duration", durationMs / 1000.0);
+            ret.put("buckets", min.length);
+            return ret;
+        }
+
+        JSObject toJSObject(int start, int end) {
+            JSArray minArray = new JSArray();
+            JSArray maxArray = new JSArray();
+            for (int i = start; i < end; i++) {
+                minArray.put((double) min[i]);
+                maxArray.put((double) max[i]);
+            }
+            JSObject ret = new JSObject();
+            ret.put("start", start);
+            ret.put("min", minArray);
+            ret.put("max", maxArray);
+            return ret;
+        }
+    }
+
+    private final Context context;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    public WaveformExtractor(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public void extract(final Source source, final int buckets, final Callback callback) {
+        executor.execute(() -> {
+            try {
+                File cacheFile = new File(getCacheDir(context), fingerprint(source) + "_" + buckets + ".bin");
+                Waveform cached = readCache(cacheFile, buckets);
+                if (cached != null) {
+                    logger.debug("Waveform of " + source.uri + " read from cache");
+                    callback.onFinished(cached);
+                    return;
+                }
+                long start = SystemClock.elapsedRealtime();
+                Waveform waveform = decode(source, buckets, callback);
+                logger.debug("Waveform of " + source.uri + " decoded in " + (SystemClock.elapsedRealtime() - start) + " ms");
+                writeCache(cacheFile, waveform);
+                callback.onFinished(waveform);
+            } catch (Exception e) {
+                logger.error("Waveform extraction failed for " + source.uri, e);
+                callback.onError(e);
+            }
+        });
+    }
+
+    /**
+     * Stops the extractor thread. A request already decoding runs to its end.
+     */
+    public void release() {
+        executor.shutdownNow();
+    }
+
+    private Waveform decode(Source source, int buckets, Callback callback) throws Exception {
+        MediaExtractor extractor = new MediaExtractor();
+        MediaCodec codec = null;
+        try {
+            setDataSource(extractor, source);
+            MediaFormat format = null;
+            for (int track = 0; track < extractor.getTrackCount(); track++) {
+                MediaFormat candidate = extractor.getTrackFormat(track);
+                String mime = candidate.getString(MediaFormat.KEY_MIME);
+                if (mime != null && mime.startsWith("audio/")) {
+                    extractor.selectTrack(track);
+                    format = candidate;
+                    break;
+                }
+            }
+            if (format == null) {
+                throw new Exception("No audio track in " + source.uri);
+            }
+            if (!format.containsKey(MediaFormat.KEY_DURATION) || format.getLong(MediaFormat.KEY_DURATION) <= 0) {
+                throw new Exception("Unknown duration for " + source.uri);
+            }
+            long durationUs = format.getLong(MediaFormat.KEY_DURATION);
+            Accumulator accumulator = new Accumulator(new Waveform(buckets, durationUs / 1000), durationUs);
+            accumulator.setFormat(
+                format.getInteger(MediaFormat.KEY_SAMPLE_RATE),
+                format.getInteger(MediaFormat.KEY_CHANNEL_COUNT),
+                AudioFormat.ENCODING_PCM_16BIT
+            );
+
+            codec = MediaCodec.createDecoderByType(format.getString(MediaFormat.KEY_MIME));
+            codec.configure(format, null, null, 0);
+            codec.start();
+
+            MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+            boolean inputDone = false;
+            boolean outputDone = false;
+            ProgressCoalescer completeBuckets = new ProgressCoalescer(1, PROGRESS_INTERVAL_MS);
+            completeBuckets.reset(0, SystemClock.elapsedRealtime());
+            while (!outputDone) {
+                if (!inputDone) {
+                    int inputIndex = codec.dequeueInputBuffer(CODEC_TIMEOUT_US);
+                    if (inputIndex >= 0) {
+                        ByteBuffer input = codec.getInputBuffer(inputIndex);
+                        int size = input != null ? extractor.readSampleData(input, 0) : -1;
+                        if (size < 0) {
+                            codec.queueInputBuffer(inputIndex, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                            inputDone = true;
+                        } else {
+                            codec.queueInputBuffer(inputIndex, 0, size, extractor.getSampleTime(), 0);
+                            extractor.advance();
+                        }
+                    }
+                }
+
+                int outputIndex = codec.dequeueOutputBuffer(info, CODEC_TIMEOUT_US);
+                if (outputIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                    MediaFormat outputFormat = codec.getOutputFormat();
+                    accumulator.setFormat(
+                        outputFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE),
+                        outputFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT),
+                        outputFormat.containsKey(MediaFormat.KEY_PCM_ENCODING)
+                            ? outputFormat.getInteger(MediaFormat.KEY_PCM_ENCODING)
+                            : AudioFormat.ENCODING_PCM_16BIT
+                    );
+                } else if (outputIndex >= 0) {
+                    ByteBuffer output = codec.getOutputBuffer(outputIndex);
+                    if (output != null && info.size > 0) {
+                        output.position(info.offset);
+                        output.limit(info.offset + info.size);
+                        accumulator.add(output.order(ByteOrder.nativeOrder()), info.presentationTimeUs);
+                    }
+                    codec.releaseOutputBuffer(outputIndex, false);
+                    outputDone = (info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0;
+
+                    // Buckets before the one being filled will not change anymore
+                    int complete = outputDone ? buckets : accumulator.bucketAt(info.presentationTimeUs);
+                    int emitted = (int) completeBuckets.getLastValue();
+                    int decision = completeBuckets.offer(complete, SystemClock.elapsedRealtime(), outputDone);
+                    if (decision == ProgressCoalescer.EMIT) {
+                        double progress = outputDone ? 1.0 : Math.min(1.0, (double) info.presentationTimeUs / durationUs);
+                        callback.onProgress(accumulator.waveform, emitted, complete, progress);
+                    } else if (decision == ProgressCoalescer.COALESCED) {
+                        EngineMetrics.eventCoalesced();
+                    }
+                }
+            }
+            return accumulator.waveform;
+        } finally {
+            if (codec != null) {
+                try {
+                    codec.stop();
+                } catch (IllegalStateException ignored) {
+                    // Never started
+                }
+                codec.release();
+            }
+            extractor.release();
+        }
+    }
+
+    /**
+     * Folds decoded PCM into the buckets of a {@link Waveform}.
+     */
+    private static final class Accumulator {
+
+        final Waveform waveform;
+        private final PeakDownsampler downsampler;
+
+        Accumulator(Waveform waveform, long durationUs) {
+            this.waveform = waveform;
+            this.downsampler = new PeakDownsampler(waveform.min, waveform.max, durationUs);
+        }
+
+        void setFormat(int sampleRate, int channelCount, int encoding) {
+            downsampler.setFormat(sampleRate, channelCount, encoding == AudioFormat.ENCODING_PCM_FLOAT ? 4 : 2);
+        }
+
+        int bucketAt(long timeUs) {
+            return downsampler.bucketAt(timeUs);
+        }
+
+        void add(ByteBuffer pcm, long presentationTimeUs) {
+            downsampler.add(pcm, presentationTimeUs);
+        }
+    }
+
+    private void setDataSource(MediaExtractor extractor, Source source) throws Exception {
+        String scheme = source.uri.getScheme();
+        if (isRemote(source)) {
+            extractor.setDataSource(new CachedMediaDataSource(newDataSource(source), source.uri));
+        } else if ("asset".equals(scheme)) {
+            String path = source.uri.getPath();
+            try (AssetFileDescriptor afd = context.getAssets().openFd(path.startsWith("/") ? path.substring(1) : path)) {
+                extractor.setDataSource(afd.getFileDescriptor(), afd.getStartOffset(), afd.getLength());
+            }
+        } else {
+            extractor.setDataSource(source.uri.getPath());
+        }
+    }
+
+    /**
+     * Hashes the length and the first and last {@value #FINGERPRINT_CHUNK_BYTES} bytes of the file, which tells
+     * apart different files without reading them whole.
+     */
+    private String fingerprint(Source source) throws Exception {
+        DataSource dataSource = newDataSource(source);
+        MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        byte[] buffer = new byte[FINGERPRINT_CHUNK_BYTES];
+        long length;
+        try {
+            length = dataSource.open(new DataSpec(source.uri));
+            digest.update(buffer, 0, readFully(dataSource, buffer));
+        } finally {
+            dataSource.close();
+        }
+        if (length != C.LENGTH_UNSET && length > 2L * FINGERPRINT_CHUNK_BYTES) {
+            try {
+                dataSource.open(new DataSpec.Builder().setUri(source.uri).setPosition(length - FINGERPRINT_CHUNK_BYTES).build());
+                digest.update(buffer, 0, readFully(dataSource, buffer));
+            } finally {
+                dataSource.close();
+            }
+        }
+        digest.update(Long.toString(length).getBytes(StandardCharsets.UTF_8));
+        return DiskCache.hex(digest.digest());
+    }
+
+    /**
+     * Feeds {@link MediaExtractor} from a {@link DataSource}, so a remote file is decoded while it downloads. Reads
+     * continue the open request and only reopen it at another position when the extractor seeks, which the media
+     * cache serves from what it already holds.
+     */
+    private static final class CachedMediaDataSource extends MediaDataSource {
+
+        private final DataSource dataSource;
+        private final Uri uri;
+        private long size = -1;
+        // Position of the next read of the open request, -1 when none is open
+        private long position = -1;
+        private boolean ended;
+
+        CachedMediaDataSource(DataSource dataSource, Uri uri) {
+            this.dataSource = dataSource;
+            this.uri = uri;
+        }
+
+        @Override
+        public synchronized int readAt(long offset, byte[] buffer, int bufferOffset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (size >= 0 && offset >= size) {
+                return -1;
+            }
+            if (offset != position) {
+                open(offset);
+            }
+            if (ended) {
+                return -1;
+            }
+            int total = 0;
+            while (total < length) {
+                int read = dataSource.read(buffer, bufferOffset + total, length - total);
+                if (read == C.RESULT_END_OF_INPUT) {
+                    ended = true;
+                    break;
+                }
+                total += read;
+            }
+            position += total;
+            return total > 0 ? total : -1;
+        }
+
+        @Override
+        public synchronized long getSize() throws IOException {
+            if (position < 0) {
+                open(0);
+            }
+            return size;
+        }
+
+        private void open(long offset) throws IOException {
+            dataSource.close();
+            long remaining = dataSource.open(new DataSpec.Builder().setUri(uri).setPosition(offset).build());
+            if (offset == 0 && remaining != C.LENGTH_UNSET) {
+                size = remaining;
+            }
+            position = offset;
+            ended = false;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            dataSource.close();
+            position = -1;
+        }
+    }
+
+    /**
+     * Reads assets, files and content URIs directly, and HTTP through the shared media cache.
+     */
+    private DataSource newDataSource(Source source) {
+        return new DefaultDataSource.Factory(context, RemoteAudioAsset.newDataSourceFactory(context, source.headers)).createDataSource();
+    }
+
+    private static boolean isRemote(Source source) {
+        String scheme = source.uri.getScheme();
+        return "http".equals(scheme) || "https".equals(scheme);
+    }
+
+    private static int readFully(DataSource dataSource, byte[] buffer) throws Exception {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = dataSource.read(buffer, total, buffer.length - total);
+            if (read == C.RESULT_END_OF_INPUT) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static Waveform readCache(File file, int buckets) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != CACHE_FORMAT_VERSION || in.readInt() != buckets) {
+                return null;
+            }
+            Waveform waveform = new Waveform(buckets, in.readLong());
+            for (int i = 0; i < buckets; i++) {
+                waveform.min[i] = in.readFloat();
+                waveform.max[i] = in.readFloat();
+            }
+            return waveform;
+        } catch (Exception e) {
+            logger.warning("Discarding unreadable waveform cache " + file.getName() + ": " + e.getMessage());
+            file.delete();
+            return null;
+        }
+    }
+
+    private static void writeCache(File file, Waveform waveform) {
+        File partial = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(partial)))) {
+            out.writeInt(CACHE_FORMAT_VERSION);
+            out.writeInt(waveform.min.length);
+            out.writeLong(waveform.durationMs);
+            for (int i = 0; i < waveform.min.length; i++) {
+                out.writeFloat(waveform.min[i]);
+                out.writeFloat(waveform.max[i]);
+            }
+        } catch (Exception e) {
+            logger.warning("Could not cache waveform " + file.getName() + ": " + e.getMessage());
+            partial.delete();
+            return;
+        }
+        if (!partial.renameTo(file)) {
+            partial.delete();
+        }
+    }
+
+    private static File getCacheDir(Context context) {
+        File dir = new File(context.getCacheDir(), CACHE_DIR);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        return dir;
+    }
+
+    /**
+     * Deletes every cached waveform. Called from {@link NativeAudio#clearCache}.
+     */
+    public static void clearCache(Context context) {
+        File dir = new File(context.getCacheDir(), CACHE_DIR);
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!file.delete()) {
+                logger.warning("Could not delete cached waveform " + file.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ee.forgr.audio.dsp;
+
+/**
+ * Gain math of the volume fades and crossfades. Fades are run as a fixed number of steps, one every fade tick;
+ * crossfades evaluate a curve at the progress of their clock.
+ */
+public final class GainRamp {
+
+    private GainRamp() {}
+
+    /**
+     * Number of ticks of a fade, at least one so the target is always reached.
+     */
+    public static int stepCount(double durationMs, long tickMs) {
+        return Math.max(1, (int) (durationMs / tickMs));
+    }
+
+    /**
+     * Factor applied on every step of an exponential fade from {@code from} to {@code to}.
+     *
+     * @return 1 when the fade cannot be exponential (a level of 0, equal levels, or a factor out of range), in
+     * which case the target is set directly
+     */
+    public static double exponentialRatio(float from, float to, int steps) {
+        if (steps <= 0 || from <= 0f || to <= 0f || from == to) {
+            return 1.0;
+        }
+        double ratio = Math.pow(to / from, 1.0 / steps);
+        if (Double.isNaN(ratio) || Double.isInfinite(ratio) || ratio <= 0.0) {
+            return 1.0;
+        }
+        return ratio;
+    }
+
+    /**
+     * Next level of an exponential fade, see {@link #exponentialRatio}.
+     */
+    public static float exponentialStep(float current, double ratio, float target) {
+        return ratio == 1.0 ? target : current * (float) ratio;
+    }
+
+    /**
+     * Level at {@code step} of a linear fade from {@code from} to {@code to} over {@code steps} steps, which
+     * unlike the exponential fade can start or end at 0.
+     */
+    public static float linearStep(float from, float to, int step, int steps) {
+        return from + (to - from) * Math.min(1f, (float) step / steps);
+    }
+
+    public static float clamp(float volume, float min, float max) {
+        return Math.min(Math.max(volume, min), max);
+    }
+
+    /**
+     * Level of the outgoing side of a crossfade.
+     *
+     * @param progress between 0 and 1
+     */
+    public static double fadeOutGain(double progress, boolean equalPower) {
+        return equalPower ? Math.cos(progress * Math.PI / 2) : 1 - progress;
+    }
+
+    /**
+     * Level of the incoming side of a crossfade. With equal power, the summed power of both sides stays
+     * constant through the fade.
+     *
+     * @param progress between 0 and 1
+     */
+    public static double fadeInGain(double progress, boolean equalPower) {
+        return equalPower ? Math.sin(progress * Math.PI / 2) : progress;
+    }
+}
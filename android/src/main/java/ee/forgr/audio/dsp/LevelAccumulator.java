@@ -0,0 +1,92 @@
+package ee.forgr.audio.dsp;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Accumulates the peak and the sum of squares of interleaved PCM and keeps its mono mix in a window of the last
+ * {@code windowSize} frames, for level and spectrum reads. Allocation free once built. Not thread safe.
+ */
+public final class LevelAccumulator {
+
+    private final float[] window;
+    private final int windowMask;
+    private int windowPosition;
+    private float peak;
+    private double sumSquares;
+    private long sampleCount;
+
+    /**
+     * @param windowSize a power of two
+     */
+    public LevelAccumulator(int windowSize) {
+        if (Integer.bitCount(windowSize) != 1) {
+            throw new IllegalArgumentException("Window size must be a power of two: " + windowSize);
+        }
+        this.window = new float[windowSize];
+        this.windowMask = windowSize - 1;
+    }
+
+    /**
+     * Adds the frames between the position and the limit of {@code data}, which is read in its own byte order
+     * and left untouched.
+     *
+     * @param bytesPerSample 2 for 16 bit PCM, 4 for float PCM
+     */
+    public void add(ByteBuffer data, int bytesPerSample, int channelCount) {
+        int frameBytes = bytesPerSample * channelCount;
+        int end = data.limit();
+        for (int frame = data.position(); frame + frameBytes <= end; frame += frameBytes) {
+            float mono = 0f;
+            for (int channel = 0; channel < channelCount; channel++) {
+                int index = frame + channel * bytesPerSample;
+                float sample = bytesPerSample == 2 ? data.getShort(index) / 32768f : data.getFloat(index);
+                float magnitude = Math.abs(sample);
+                if (magnitude > peak) {
+                    peak = magnitude;
+                }
+                sumSquares += sample * sample;
+                mono += sample;
+            }
+            sampleCount += channelCount;
+            window[windowPosition] = mono / channelCount;
+            windowPosition = (windowPosition + 1) & windowMask;
+        }
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Highest sample magnitude since the last reset, clamped to full scale.
+     */
+    public float getPeak() {
+        return Math.min(1f, peak);
+    }
+
+    /**
+     * RMS level since the last reset, clamped to full scale.
+     */
+    public float getRms() {
+        return sampleCount > 0 ? (float) Math.min(1.0, Math.sqrt(sumSquares / sampleCount)) : 0f;
+    }
+
+    /**
+     * Clears the peak and RMS. The window keeps its samples.
+     */
+    public void reset() {
+        peak = 0;
+        sumSquares = 0;
+        sampleCount = 0;
+    }
+
+    /**
+     * Copies the window, oldest frame first, multiplied by {@code weights}, into {@code out}. Both arrays must be
+     * as long as the window.
+     */
+    public void copyWindow(float[] weights, float[] out) {
+        for (int i = 0; i < window.length; i++) {
+            out[i] = window[(windowPosition + i) & windowMask] * weights[i];
+        }
+    }
+}
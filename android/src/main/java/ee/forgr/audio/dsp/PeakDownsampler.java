@@ -0,0 +1,65 @@
+package ee.forgr.audio.dsp;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Downsamples interleaved PCM to a fixed number of buckets spread over the duration of the audio, keeping the
+ * lowest and highest sample of each bucket. Memory use only depends on the bucket count. Not thread safe.
+ */
+public final class PeakDownsampler {
+
+    private final float[] min;
+    private final float[] max;
+    private final long durationUs;
+    private int sampleRate;
+    private int channelCount;
+    private int bytesPerSample;
+
+    /**
+     * @param min receives the lowest sample of each bucket, must be as long as {@code max}
+     * @param max receives the highest sample of each bucket
+     */
+    public PeakDownsampler(float[] min, float[] max, long durationUs) {
+        this.min = min;
+        this.max = max;
+        this.durationUs = durationUs;
+    }
+
+    /**
+     * @param bytesPerSample 2 for 16 bit PCM, 4 for float PCM
+     */
+    public void setFormat(int sampleRate, int channelCount, int bytesPerSample) {
+        this.sampleRate = sampleRate;
+        this.channelCount = Math.max(1, channelCount);
+        this.bytesPerSample = bytesPerSample;
+    }
+
+    public int bucketAt(long timeUs) {
+        int buckets = min.length;
+        return (int) Math.max(0, Math.min(buckets - 1, timeUs * buckets / durationUs));
+    }
+
+    /**
+     * Folds the frames between the position and the limit of {@code pcm}, read in its own byte order.
+     *
+     * @param presentationTimeUs time of the first frame
+     */
+    public void add(ByteBuffer pcm, long presentationTimeUs) {
+        int frameBytes = bytesPerSample * channelCount;
+        int start = pcm.position();
+        int end = pcm.limit();
+        for (int offset = start; offset + frameBytes <= end; offset += frameBytes) {
+            long frame = (offset - start) / frameBytes;
+            int bucket = bucketAt(presentationTimeUs + frame * 1_000_000L / sampleRate);
+            for (int channel = 0; channel < channelCount; channel++) {
+                int index = offset + channel * bytesPerSample;
+                float sample = bytesPerSample == 2 ? pcm.getShort(index) / 32768f : pcm.getFloat(index);
+                if (sample < min[bucket]) {
+                    min[bucket] = sample;
+                } else if (sample > max[bucket]) {
+                    max[bucket] = sample;
+                }
+            }
+        }
+    }
+}
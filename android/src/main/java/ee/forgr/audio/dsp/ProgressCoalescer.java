@@ -0,0 +1,58 @@
+package ee.forgr.audio.dsp;
+
+/**
+ * Decides which updates of a growing progress value are worth an event: one is emitted once the value moved by
+ * at least {@code minStep} and {@code minIntervalMs} passed since the previous one. Updates in between are folded
+ * into the next event. Not thread safe.
+ */
+public final class ProgressCoalescer {
+
+    /** The value did not grow, there is nothing to report. */
+    public static final int UNCHANGED = 0;
+    /** The update is folded into a later event. */
+    public static final int COALESCED = 1;
+    /** The update should be emitted. */
+    public static final int EMIT = 2;
+
+    private final double minStep;
+    private final long minIntervalMs;
+    private double lastValue = Double.NEGATIVE_INFINITY;
+    private long lastEmitMs;
+
+    public ProgressCoalescer(double minStep, long minIntervalMs) {
+        this.minStep = minStep;
+        this.minIntervalMs = minIntervalMs;
+        this.lastEmitMs = -minIntervalMs;
+    }
+
+    /**
+     * Starts from an already reported value, so only growth past it is emitted.
+     */
+    public void reset(double value, long nowMs) {
+        lastValue = value;
+        lastEmitMs = nowMs;
+    }
+
+    /**
+     * @param force emit as soon as the value grew, for the final update
+     * @return {@link #EMIT}, {@link #COALESCED} or {@link #UNCHANGED}
+     */
+    public int offer(double value, long nowMs, boolean force) {
+        if (value <= lastValue) {
+            return UNCHANGED;
+        }
+        if (force || (value - lastValue >= minStep && nowMs - lastEmitMs >= minIntervalMs)) {
+            lastValue = value;
+            lastEmitMs = nowMs;
+            return EMIT;
+        }
+        return COALESCED;
+    }
+
+    /**
+     * The last emitted value.
+     */
+    public double getLastValue() {
+        return lastValue;
+    }
+}
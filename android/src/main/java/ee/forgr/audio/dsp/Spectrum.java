@@ -0,0 +1,86 @@
+package ee.forgr.audio.dsp;
+
+/**
+ * Allocation free FFT and band summary used by the level meters.
+ */
+public final class Spectrum {
+
+    // Lowest frequency of the first band
+    public static final float MIN_BAND_HZ = 20f;
+
+    private Spectrum() {}
+
+    /**
+     * In-place radix-2 FFT. Both arrays must have the same power of two length.
+     */
+    public static void fft(float[] re, float[] im) {
+        int n = re.length;
+        for (int i = 1, j = 0; i < n; i++) {
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1) {
+                j ^= bit;
+            }
+            j ^= bit;
+            if (i < j) {
+                float tmp = re[i];
+                re[i] = re[j];
+                re[j] = tmp;
+                tmp = im[i];
+                im[i] = im[j];
+                im[j] = tmp;
+            }
+        }
+        for (int len = 2; len <= n; len <<= 1) {
+            double angle = -2 * Math.PI / len;
+            float wRe = (float) Math.cos(angle);
+            float wIm = (float) Math.sin(angle);
+            int half = len >> 1;
+            for (int start = 0; start < n; start += len) {
+                float curRe = 1f;
+                float curIm = 0f;
+                for (int k = 0; k < half; k++) {
+                    int a = start + k;
+                    int b = a + half;
+                    float tRe = re[b] * curRe - im[b] * curIm;
+                    float tIm = re[b] * curIm + im[b] * curRe;
+                    re[b] = re[a] - tRe;
+                    im[b] = im[a] - tIm;
+                    re[a] += tRe;
+                    im[a] += tIm;
+                    float nextRe = curRe * wRe - curIm * wIm;
+                    curIm = curRe * wIm + curIm * wRe;
+                    curRe = nextRe;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reduces bin magnitudes to {@code bands.length} logarithmically spaced bands from {@link #MIN_BAND_HZ} to
+     * the Nyquist frequency, keeping the loudest bin of each band, clamped to [0, 1].
+     *
+     * @param magnitudes normalized magnitude of each bin, full scale being 1
+     * @param binCount   number of valid entries in {@code magnitudes}
+     * @param binHz      width of one bin
+     */
+    public static void toBands(float[] magnitudes, int binCount, float binHz, float[] bands) {
+        int bandCount = bands.length;
+        if (bandCount == 0 || binCount == 0 || binHz <= 0) {
+            return;
+        }
+        double nyquistHz = binCount * (double) binHz;
+        double ratio = nyquistHz / MIN_BAND_HZ;
+        for (int band = 0; band < bandCount; band++) {
+            double lowHz = MIN_BAND_HZ * Math.pow(ratio, (double) band / bandCount);
+            double highHz = MIN_BAND_HZ * Math.pow(ratio, (double) (band + 1) / bandCount);
+            int lowBin = Math.min(binCount - 1, (int) Math.floor(lowHz / binHz));
+            // Low bands can be narrower than a bin, they still get the bin they fall into
+            int highBin = Math.max(lowBin + 1, Math.min(binCount, (int) Math.ceil(highHz / binHz)));
+            float max = 0f;
+            for (int bin = lowBin; bin < highBin; bin++) {
+                max = Math.max(max, magnitudes[bin]);
+            }
+            bands[band] = Math.min(1f, max);
+        }
+    }
+}
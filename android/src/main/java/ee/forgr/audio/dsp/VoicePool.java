@@ -0,0 +1,73 @@
+package ee.forgr.audio.dsp;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Idle voices keyed by the source they play. A voice is handed out again for the same key, the most recently
+ * released first since it is the most likely to still be warm, while eviction goes oldest first across all keys.
+ * Not thread safe.
+ */
+public final class VoicePool<V> {
+
+    private final Map<String, ArrayDeque<V>> idleVoices = new HashMap<>();
+    // Every idle voice, oldest first
+    private final ArrayDeque<V> idleOrder = new ArrayDeque<>();
+
+    /**
+     * Takes an idle voice for the given key out of the pool.
+     *
+     * @return the voice, or null when none is idle
+     */
+    public V acquire(String key) {
+        ArrayDeque<V> voices = idleVoices.get(key);
+        V voice = voices != null ? voices.pollLast() : null;
+        if (voice == null) {
+            return null;
+        }
+        if (voices.isEmpty()) {
+            idleVoices.remove(key);
+        }
+        idleOrder.remove(voice);
+        return voice;
+    }
+
+    public void release(String key, V voice) {
+        ArrayDeque<V> voices = idleVoices.get(key);
+        if (voices == null) {
+            voices = new ArrayDeque<>();
+            idleVoices.put(key, voices);
+        }
+        voices.addLast(voice);
+        idleOrder.addLast(voice);
+    }
+
+    /**
+     * @return whether the voice was idle
+     */
+    public boolean remove(String key, V voice) {
+        if (!idleOrder.remove(voice)) {
+            return false;
+        }
+        ArrayDeque<V> voices = idleVoices.get(key);
+        if (voices != null) {
+            voices.remove(voice);
+            if (voices.isEmpty()) {
+                idleVoices.remove(key);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the voice idle for the longest time, or null when the pool is empty
+     */
+    public V oldest() {
+        return idleOrder.peekFirst();
+    }
+
+    public int size() {
+        return idleOrder.size();
+    }
+}
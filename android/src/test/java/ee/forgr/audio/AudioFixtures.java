@@ -0,0 +1,71 @@
+package ee.forgr.audio;
+
+import static org.mockito.Mockito.mockingDetails;
+
+import java.util.Locale;
+import org.mockito.invocation.Invocation;
+
+/**
+ * Generated media for tests, so no audio file has to be checked in, and helpers shared by the test classes.
+ */
+final class AudioFixtures {
+
+    /** Constant bitrate of {@link #silentMp3}. */
+    static final int MP3_BITRATE = 128000;
+    static final int MP3_SAMPLE_RATE = 44100;
+    private static final int MP3_FRAME_SAMPLES = 1152;
+    // MPEG-1 layer III, 128 kbit/s, 44.1 kHz, no padding, joint stereo
+    private static final byte[] MP3_FRAME_HEADER = { (byte) 0xFF, (byte) 0xFB, (byte) 0x90, (byte) 0x64 };
+    private static final int MP3_FRAME_BYTES = 144 * MP3_BITRATE / MP3_SAMPLE_RATE;
+
+    private AudioFixtures() {}
+
+    /**
+     * A silent constant bitrate MP3: every frame is a header followed by zeroed side info and main data.
+     */
+    static byte[] silentMp3(double seconds) {
+        int frames = (int) Math.ceil(seconds * MP3_SAMPLE_RATE / MP3_FRAME_SAMPLES);
+        byte[] data = new byte[frames * MP3_FRAME_BYTES];
+        for (int frame = 0; frame < frames; frame++) {
+            System.arraycopy(MP3_FRAME_HEADER, 0, data, frame * MP3_FRAME_BYTES, MP3_FRAME_HEADER.length);
+        }
+        return data;
+    }
+
+    /**
+     * Playback time covered by the first {@code bytes} of a {@link #silentMp3}.
+     */
+    static double mp3DurationMs(long bytes) {
+        return bytes * 8000.0 / MP3_BITRATE;
+    }
+
+    /**
+     * A VOD media playlist of packed MP3 segments named {@code segment0.mp3}, {@code segment1.mp3} and so on.
+     */
+    static String hlsPlaylist(int segmentCount, double segmentSeconds) {
+        StringBuilder playlist = new StringBuilder("#EXTM3U\n#EXT-X-VERSION:3\n");
+        playlist.append("#EXT-X-TARGETDURATION:").append((int) Math.ceil(segmentSeconds)).append('\n');
+        playlist.append("#EXT-X-MEDIA-SEQUENCE:0\n#EXT-X-PLAYLIST-TYPE:VOD\n");
+        for (int i = 0; i < segmentCount; i++) {
+            playlist.append(String.format(Locale.US, "#EXTINF:%.3f,\n", segmentSeconds));
+            playlist.append("segment").append(i).append(".mp3\n");
+        }
+        return playlist.append("#EXT-X-ENDLIST\n").toString();
+    }
+
+    /**
+     * Listeners added to a mock through {@code add} and not removed through {@code remove} since.
+     */
+    static int registeredListeners(Object mock, String add, String remove) {
+        int count = 0;
+        for (Invocation invocation : mockingDetails(mock).getInvocations()) {
+            String name = invocation.getMethod().getName();
+            if (name.equals(add)) {
+                count++;
+            } else if (name.equals(remove)) {
+                count--;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,105 @@
+package ee.forgr.audio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import androidx.test.core.app.ApplicationProvider;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Size limit and file names of the plugin's disk caches.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 35)
+public class DiskCacheTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        dir = new File(context.getCacheDir(), "disk-cache-test");
+        dir.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void trimEvictsLeastRecentlyUsedFirst() throws Exception {
+        File oldest = write("a", 400, 1000);
+        File used = write("b", 400, 2000);
+        File newest = write("c", 400, 3000);
+        // Read again after the newest was written
+        used.setLastModified(4000);
+
+        DiskCache.trim(dir, 1000, ".tmp");
+
+        assertFalse(oldest.exists());
+        assertTrue(used.exists());
+        assertTrue(newest.exists());
+    }
+
+    @Test
+    public void trimKeepsCacheUnderLimit() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            write("file" + i, 300, 1000 + i);
+        }
+
+        DiskCache.trim(dir, 1000, ".tmp");
+
+        long total = 0;
+        for (File file : dir.listFiles()) {
+            total += file.length();
+        }
+        assertTrue("cache holds " + total + " bytes", total <= 1000);
+        assertEquals(3, dir.listFiles().length);
+    }
+
+    @Test
+    public void trimSkipsPartialFilesAndKeepsNewest() throws Exception {
+        File partial = write("a.tmp", 800, 1000);
+        File oldest = write("b", 400, 2000);
+        File newest = write("c", 1200, 3000);
+
+        DiskCache.trim(dir, 1000, ".tmp");
+
+        assertTrue(partial.exists());
+        assertFalse(oldest.exists());
+        assertTrue(newest.exists());
+    }
+
+    @Test
+    public void keyIsHexSha1OfUrl() {
+        assertEquals("a9993e364706816aba3e25717850c26c9cd0d89d", DiskCache.key("abc"));
+        assertEquals(DiskCache.key("https://example.com/a.mp3"), DiskCache.key("https://example.com/a.mp3"));
+        assertFalse(DiskCache.key("https://example.com/a.mp3").equals(DiskCache.key("https://example.com/b.mp3")));
+    }
+
+    private File write(String name, int bytes, long lastModified) throws Exception {
+        File file = new File(dir, name);
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[bytes]);
+        }
+        file.setLastModified(lastModified);
+        return file;
+    }
+}
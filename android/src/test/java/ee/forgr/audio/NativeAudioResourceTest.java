@@ -0,0 +1,412 @@
+package ee.forgr.audio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockConstruction;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.media.MediaPlayer;
+import android.media.PlaybackParams;
+import android.net.Uri;
+import android.os.Looper;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.media3.common.C;
+import androidx.media3.exoplayer.ExoPlayer;
+import com.getcapacitor.Bridge;
+import com.getcapacitor.CapConfig;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.MessageHandler;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginConfig;
+import com.getcapacitor.PluginHandle;
+import com.getcapacitor.PluginResult;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.MockedConstruction;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.shadows.ShadowMediaPlayer;
+
+/**
+ * Drives the plugin through hundreds of preload, play, stop and unload cycles and bounds the resources left
+ * behind, using the engine metrics.
+ *
+ * <p>The remote asset points at a closed local port, so those cycles also go through a failed load, and its
+ * listeners are counted on a mocked ExoPlayer. The local asset plays on the simulated {@link MediaPlayer} of
+ * Robolectric, so its cycles run the fades, the time updates and the completion.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 35, shadows = NativeAudioResourceTest.ShadowPlaybackParamsMediaPlayer.class)
+public class NativeAudioResourceTest {
+
+    private static final String ASSET_URL = "http://127.0.0.1:9/silence.mp3";
+    // Length the simulated MediaPlayer gives every local source
+    private static final int TRACK_MS = 1000;
+    private static final double FADE_SECONDS = 0.1;
+    private static final int WARMUP_CYCLES = 5;
+    private static final int CYCLES = 200;
+    // Each playing cycle waits for real fade threads
+    private static final int PLAYING_CYCLES = 20;
+    private static final int DEINIT_ASSETS = 10;
+    // Shared executors and loader threads may still be winding down when counted
+    private static final int THREAD_SLACK = 4;
+    private static final int MAX_MAIN_THREAD_HOPS_PER_CYCLE = 12;
+    private static final long GC_TIMEOUT_MS = 5000;
+
+    private final List<String> errors = new ArrayList<>();
+    private NativeAudio plugin;
+    private MessageHandler messageHandler;
+    private int callCount;
+    private String localUrl;
+
+    /**
+     * Robolectric does not simulate playback params, which {@link AudioDispatcher} sets on every player.
+     */
+    @Implements(MediaPlayer.class)
+    public static class ShadowPlaybackParamsMediaPlayer extends ShadowMediaPlayer {
+
+        private PlaybackParams playbackParams = new PlaybackParams();
+
+        @Implementation
+        protected PlaybackParams getPlaybackParams() {
+            return playbackParams;
+        }
+
+        @Implementation
+        protected void setPlaybackParams(PlaybackParams params) {
+            playbackParams = params;
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        ActivityController<AppCompatActivity> controller = Robolectric.buildActivity(AppCompatActivity.class);
+        controller.get().setTheme(androidx.appcompat.R.style.Theme_AppCompat);
+        AppCompatActivity activity = controller.setup().get();
+
+        File track = new File(activity.getCacheDir(), "silence.mp3");
+        try (OutputStream out = new FileOutputStream(track)) {
+            out.write(AudioFixtures.silentMp3(TRACK_MS / 1000.0));
+        }
+        localUrl = Uri.fromFile(track).toString();
+        ShadowMediaPlayer.setMediaInfoProvider((dataSource) -> new ShadowMediaPlayer.MediaInfo(TRACK_MS, 0));
+
+        // Every option read from capacitor.config.ts falls back to its default
+        PluginConfig pluginConfig = mock(PluginConfig.class, (invocation) ->
+            invocation.getArguments().length > 1 ? invocation.getArgument(1) : null
+        );
+        CapConfig capConfig = mock(CapConfig.class);
+        when(capConfig.getPluginConfiguration("NativeAudio")).thenReturn(pluginConfig);
+        Bridge bridge = mock(Bridge.class);
+        when(bridge.getActivity()).thenReturn(activity);
+        when(bridge.getContext()).thenReturn(activity);
+        when(bridge.getConfig()).thenReturn(capConfig);
+        PluginHandle handle = mock(PluginHandle.class);
+        when(handle.getId()).thenReturn("NativeAudio");
+
+        messageHandler = mock(MessageHandler.class);
+        doAnswer((invocation) -> {
+            PluginCall call = invocation.getArgument(0);
+            PluginResult error = invocation.getArgument(2);
+            if (error != null) {
+                errors.add(call.getMethodName() + ": " + error);
+            }
+            return null;
+        })
+            .when(messageHandler)
+            .sendResponseMessage(any(), any(), any());
+
+        plugin = new NativeAudio();
+        plugin.setBridge(bridge);
+        plugin.setPluginHandle(handle);
+        plugin.load();
+        idle();
+    }
+
+    @After
+    public void tearDown() {
+        plugin.handleOnDestroy();
+        idle();
+    }
+
+    @Test
+    public void cyclesDoNotLeakThreadsOrPlayers() throws Exception {
+        for (int i = 0; i < WARMUP_CYCLES; i++) {
+            cycle("warmup" + i);
+        }
+        JSObject before = EngineMetrics.snapshot();
+        int threadsBefore = Thread.activeCount();
+
+        for (int i = 0; i < CYCLES; i++) {
+            cycle("asset" + i);
+        }
+
+        JSObject after = EngineMetrics.snapshot();
+        assertEquals(errors.toString(), 0, errors.size());
+        assertEquals("loaded assets", 0, plugin.getAudioAssets().size());
+        assertEquals("exoPlayers", before.optLong("exoPlayers"), after.optLong("exoPlayers"));
+        assertEquals("handlerThreads", before.optLong("handlerThreads"), after.optLong("handlerThreads"));
+        assertTrue("fadeThreads " + after.optLong("fadeThreads"), after.optLong("fadeThreads") <= 1);
+        assertEquals("queuedMainThreadTasks", 0, after.optLong("queuedMainThreadTasks"));
+        long hops = after.optLong("mainThreadHops") - before.optLong("mainThreadHops");
+        assertTrue("main thread hops per cycle " + hops / CYCLES, hops <= (long) CYCLES * MAX_MAIN_THREAD_HOPS_PER_CYCLE);
+        assertTrue("threads " + threadsBefore + " -> " + Thread.activeCount(), awaitThreadCount(threadsBefore + THREAD_SLACK));
+    }
+
+    @Test
+    public void unloadedAssetIsNotRetained() throws Exception {
+        preloadPlayStop("retained");
+        WeakReference<AudioAsset> asset = new WeakReference<>(plugin.getAudioAssets().get("retained"));
+        call("unload", assetOptions("retained"));
+        idle();
+
+        assertTrue("asset still reachable after unload", awaitCollected(asset));
+    }
+
+    @Test
+    public void playingCyclesStopTheirFadesAndTimers() throws Exception {
+        for (int i = 0; i < WARMUP_CYCLES; i++) {
+            playingCycle("warmupPlayed" + i);
+        }
+        JSObject before = EngineMetrics.snapshot();
+        int threadsBefore = Thread.activeCount();
+
+        for (int i = 0; i < PLAYING_CYCLES; i++) {
+            playingCycle("played" + i);
+        }
+
+        JSObject after = EngineMetrics.snapshot();
+        assertEquals(errors.toString(), 0, errors.size());
+        assertEquals("loaded assets", 0, plugin.getAudioAssets().size());
+        // Time updates and completions of every cycle
+        assertTrue("events emitted", after.optLong("eventsEmitted") - before.optLong("eventsEmitted") >= 2L * PLAYING_CYCLES);
+        assertEquals("mediaPlayers", before.optLong("mediaPlayers"), after.optLong("mediaPlayers"));
+        assertEquals("scheduledFades", 0, after.optLong("scheduledFades"));
+        assertTrue("fadeThreads " + after.optLong("fadeThreads"), after.optLong("fadeThreads") <= 1);
+        assertEquals("queuedMainThreadTasks", 0, after.optLong("queuedMainThreadTasks"));
+        long hops = after.optLong("mainThreadHops") - before.optLong("mainThreadHops");
+        assertTrue(
+            "main thread hops per cycle " + hops / PLAYING_CYCLES,
+            hops <= (long) PLAYING_CYCLES * MAX_MAIN_THREAD_HOPS_PER_CYCLE
+        );
+        assertTrue("threads " + threadsBefore + " -> " + Thread.activeCount(), awaitThreadCount(threadsBefore + THREAD_SLACK));
+    }
+
+    @Test
+    public void remoteCyclesDoNotAddPlayerListeners() throws Exception {
+        ExoPlayer player = mock(ExoPlayer.class);
+        when(player.getDuration()).thenReturn(C.TIME_UNSET);
+        try (
+            MockedConstruction<ExoPlayer.Builder> builders = mockConstruction(
+                ExoPlayer.Builder.class,
+                withSettings().defaultAnswer(RETURNS_SELF),
+                (builder, context) -> when(builder.build()).thenReturn(player)
+            )
+        ) {
+            preloadPlayStop("remote");
+            assertFalse("player built", builders.constructed().isEmpty());
+            int listeners = AudioFixtures.registeredListeners(player, "addListener", "removeListener");
+            int analyticsListeners = AudioFixtures.registeredListeners(player, "addAnalyticsListener", "removeAnalyticsListener");
+
+            for (int i = 0; i < CYCLES; i++) {
+                call("play", assetOptions("remote"));
+                idle();
+                call("stop", assetOptions("remote"));
+                idle();
+            }
+
+            assertEquals(errors.toString(), 0, errors.size());
+            assertEquals("player listeners", listeners, AudioFixtures.registeredListeners(player, "addListener", "removeListener"));
+            assertEquals(
+                "analytics listeners",
+                analyticsListeners,
+                AudioFixtures.registeredListeners(player, "addAnalyticsListener", "removeAnalyticsListener")
+            );
+            call("unload", assetOptions("remote"));
+            idle();
+            verify(player).release();
+        }
+    }
+
+    @Test
+    public void deinitPluginStopsEveryAsset() throws Exception {
+        long mediaPlayersBefore = EngineMetrics.snapshot().optLong("mediaPlayers");
+        List<WeakReference<AudioAsset>> assets = new ArrayList<>();
+        for (int i = 0; i < DEINIT_ASSETS; i++) {
+            String assetId = "deinit" + i;
+            preloadLocal(assetId);
+            assets.add(new WeakReference<>(plugin.getAudioAssets().get(assetId)));
+            // Still fading in when the plugin is deinitialized
+            JSObject play = assetOptions(assetId);
+            play.put("fadeIn", true);
+            play.put("fadeInDuration", TRACK_MS / 1000.0);
+            call("play", play);
+        }
+        // Past the first time update
+        advance(TRACK_MS / 4);
+        assertTrue("fades running", EngineMetrics.snapshot().optLong("scheduledFades") > 0);
+
+        call("deinitPlugin", new JSObject());
+        idle();
+
+        assertEquals(errors.toString(), 0, errors.size());
+        for (AudioAsset asset : plugin.getAudioAssets().values()) {
+            assertFalse(asset.assetId + " still playing", asset.isPlaying());
+            assertEquals(asset.assetId + " time updates", null, asset.currentTimeRunnable);
+        }
+        JSObject afterDeinit = EngineMetrics.snapshot();
+        assertEquals("scheduledFades", 0, afterDeinit.optLong("scheduledFades"));
+        assertEquals("queuedMainThreadTasks", 0, afterDeinit.optLong("queuedMainThreadTasks"));
+        // deinitPlugin only stops, the players stay loaded until unloaded
+        assertEquals("mediaPlayers", mediaPlayersBefore + DEINIT_ASSETS, afterDeinit.optLong("mediaPlayers"));
+        advance(TRACK_MS);
+        assertEquals("events after deinitPlugin", afterDeinit.optLong("eventsEmitted"), EngineMetrics.snapshot().optLong("eventsEmitted"));
+
+        for (int i = 0; i < DEINIT_ASSETS; i++) {
+            call("unload", assetOptions("deinit" + i));
+        }
+        idle();
+        assertEquals("loaded assets", 0, plugin.getAudioAssets().size());
+        assertEquals("mediaPlayers", mediaPlayersBefore, EngineMetrics.snapshot().optLong("mediaPlayers"));
+        for (WeakReference<AudioAsset> asset : assets) {
+            assertTrue("asset still reachable after unload", awaitCollected(asset));
+        }
+    }
+
+    /**
+     * Fades in, fades out to a stop, then plays to the end before unloading.
+     */
+    private void playingCycle(String assetId) throws Exception {
+        preloadLocal(assetId);
+        JSObject play = assetOptions(assetId);
+        play.put("fadeIn", true);
+        play.put("fadeInDuration", FADE_SECONDS);
+        call("play", play);
+        advance(TRACK_MS / 4);
+        assertTrue("fade in finished", awaitFades());
+
+        JSObject stop = assetOptions(assetId);
+        stop.put("fadeOut", true);
+        stop.put("fadeOutDuration", FADE_SECONDS);
+        call("stop", stop);
+        idle();
+        assertTrue("fade out finished", awaitFades());
+
+        call("play", assetOptions(assetId));
+        advance(TRACK_MS + 200);
+        assertFalse(assetId + " still playing after its end", plugin.getAudioAssets().get(assetId).isPlaying());
+
+        call("unload", assetOptions(assetId));
+        idle();
+    }
+
+    private void preloadLocal(String assetId) throws Exception {
+        JSObject preload = assetOptions(assetId);
+        preload.put("assetPath", localUrl);
+        preload.put("isUrl", true);
+        call("preload", preload);
+        idle();
+    }
+
+    private void cycle(String assetId) throws Exception {
+        preloadPlayStop(assetId);
+        call("unload", assetOptions(assetId));
+        idle();
+    }
+
+    private void preloadPlayStop(String assetId) throws Exception {
+        JSObject preload = assetOptions(assetId);
+        preload.put("assetPath", ASSET_URL);
+        preload.put("isUrl", true);
+        call("preload", preload);
+        idle();
+        call("play", assetOptions(assetId));
+        idle();
+        call("stop", assetOptions(assetId));
+        idle();
+    }
+
+    private void call(String method, JSObject data) throws Exception {
+        PluginCall call = new PluginCall(messageHandler, "NativeAudio", String.valueOf(callCount++), method, data);
+        NativeAudio.class.getMethod(method, PluginCall.class).invoke(plugin, call);
+    }
+
+    private static JSObject assetOptions(String assetId) {
+        JSObject data = new JSObject();
+        data.put("assetId", assetId);
+        return data;
+    }
+
+    private static void idle() {
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    /**
+     * Runs the main looper with its clock moved forward, for time updates and the simulated playback.
+     */
+    private static void advance(long ms) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(ms));
+    }
+
+    /**
+     * Waits for the fades, which run on a real thread.
+     */
+    private static boolean awaitFades() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + GC_TIMEOUT_MS;
+        while (AudioAsset.getScheduledFadeCount() > 0) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            idle();
+            Thread.sleep(20);
+        }
+        idle();
+        return true;
+    }
+
+    private static boolean awaitThreadCount(int max) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + GC_TIMEOUT_MS;
+        while (Thread.activeCount() > max) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            idle();
+            Thread.sleep(50);
+        }
+        return true;
+    }
+
+    private static boolean awaitCollected(WeakReference<?> reference) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + GC_TIMEOUT_MS;
+        while (reference.get() != null) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            idle();
+            System.gc();
+            Thread.sleep(50);
+        }
+        return true;
+    }
+}
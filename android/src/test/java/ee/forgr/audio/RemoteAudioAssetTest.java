@@ -0,0 +1,136 @@
+package ee.forgr.audio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockConstruction;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import android.net.Uri;
+import androidx.media3.common.C;
+import androidx.media3.common.Player;
+import androidx.media3.exoplayer.ExoPlayer;
+import androidx.test.core.app.ApplicationProvider;
+import java.util.Collections;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedConstruction;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Listener bookkeeping of {@link RemoteAudioAsset} against a mocked ExoPlayer, so every listener it registers
+ * can be counted.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 35)
+public class RemoteAudioAssetTest {
+
+    private static final int CYCLES = 300;
+
+    private ExoPlayer player;
+    private NativeAudio owner;
+    private MockedConstruction<ExoPlayer.Builder> builders;
+
+    @Before
+    public void setUp() {
+        player = mock(ExoPlayer.class);
+        when(player.getDuration()).thenReturn(C.TIME_UNSET);
+        owner = mock(NativeAudio.class);
+        doAnswer((invocation) -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        })
+            .when(owner)
+            .runOnMainThread(any());
+        when(owner.getContext()).thenReturn(ApplicationProvider.getApplicationContext());
+        when(owner.getLatencyTracker()).thenReturn(new LatencyTracker());
+        builders = mockConstruction(ExoPlayer.Builder.class, withSettings().defaultAnswer(RETURNS_SELF), (builder, context) ->
+            when(builder.build()).thenReturn(player)
+        );
+    }
+
+    @After
+    public void tearDown() {
+        builders.close();
+    }
+
+    @Test
+    public void stopDoesNotAddListeners() throws Exception {
+        RemoteAudioAsset asset = newAsset();
+        int analyticsListeners = AudioFixtures.registeredListeners(player, "addAnalyticsListener", "removeAnalyticsListener");
+
+        for (int i = 0; i < CYCLES; i++) {
+            asset.play(0, 1f);
+            asset.stop();
+        }
+
+        assertEquals("player listeners", 1, AudioFixtures.registeredListeners(player, "addListener", "removeListener"));
+        assertEquals(
+            "analytics listeners",
+            analyticsListeners,
+            AudioFixtures.registeredListeners(player, "addAnalyticsListener", "removeAnalyticsListener")
+        );
+        asset.unload();
+        verify(player).release();
+    }
+
+    @Test
+    public void playWaitingForPlayerStartsOnce() throws Exception {
+        RemoteAudioAsset asset = newAsset();
+        Player.Listener listener = stateListener();
+
+        asset.play(0, 1f);
+        verify(player, never()).play();
+        listener.onPlaybackStateChanged(Player.STATE_READY);
+        // Ready again after a seek or a stop, the play already ran
+        listener.onPlaybackStateChanged(Player.STATE_READY);
+
+        verify(player, times(1)).play();
+        asset.unload();
+    }
+
+    @Test
+    public void stopDropsPlayWaitingForPlayer() throws Exception {
+        RemoteAudioAsset asset = newAsset();
+        Player.Listener listener = stateListener();
+
+        for (int i = 0; i < CYCLES; i++) {
+            asset.play(0, 1f);
+            asset.stop();
+        }
+        listener.onPlaybackStateChanged(Player.STATE_READY);
+
+        verify(player, never()).play();
+        asset.unload();
+    }
+
+    private RemoteAudioAsset newAsset() throws Exception {
+        RemoteAudioAsset asset = new RemoteAudioAsset(
+            owner,
+            "remote",
+            Uri.parse("http://127.0.0.1:9/silence.mp3"),
+            1,
+            1f,
+            Collections.emptyMap()
+        );
+        assertFalse("player built", builders.constructed().isEmpty());
+        return asset;
+    }
+
+    private Player.Listener stateListener() {
+        ArgumentCaptor<Player.Listener> captor = ArgumentCaptor.forClass(Player.Listener.class);
+        verify(player).addListener(captor.capture());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,71 @@
+package ee.forgr.audio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.net.Uri;
+import androidx.test.core.app.ApplicationProvider;
+import java.util.Collections;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * The data source stack of {@link RemoteAudioAsset} against {@link ThrottledHttpServer}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 35)
+public class RemoteCacheTest {
+
+    private static final byte[] MP3 = AudioFixtures.silentMp3(3);
+
+    private Context context;
+    private ThrottledHttpServer server;
+    private Uri uri;
+
+    @Before
+    public void setUp() throws Exception {
+        context = ApplicationProvider.getApplicationContext();
+        RemoteAudioAsset.clearCache(context);
+        server = new ThrottledHttpServer(1);
+        server.serve("/silence.mp3", MP3, "audio/mpeg");
+        uri = Uri.parse(server.url("/silence.mp3"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+        RemoteAudioAsset.clearCache(context);
+    }
+
+    @Test
+    public void warmReadIsServedFromCache() throws Exception {
+        StreamProbe probe = new StreamProbe(RemoteAudioAsset.newDataSourceFactory(context, null), 0);
+
+        StreamProbe.Result cold = probe.read(null, Collections.singletonList(uri), MP3.length);
+        assertEquals(MP3.length, cold.bytes);
+        assertEquals(MP3.length, server.getBytesServed());
+
+        server.resetStats();
+        StreamProbe.Result warm = probe.read(null, Collections.singletonList(uri), MP3.length);
+        assertEquals(MP3.length, warm.bytes);
+        assertEquals("network requests", 0, server.getRequestCount());
+    }
+
+    @Test
+    public void cutResponsesResumeWhereTheyStopped() throws Exception {
+        server.setTruncateAfter(MP3.length / 4);
+        StreamProbe probe = new StreamProbe(RemoteAudioAsset.newDataSourceFactory(context, null), 8);
+
+        StreamProbe.Result result = probe.read(null, Collections.singletonList(uri), MP3.length);
+
+        assertEquals(MP3.length, result.bytes);
+        // Retried by the probe or by the cache data source itself, never from the start
+        assertTrue("requests " + server.getRequestCount(), server.getRequestCount() >= 4);
+        assertEquals("bytes fetched", MP3.length, server.getBytesServed());
+    }
+}
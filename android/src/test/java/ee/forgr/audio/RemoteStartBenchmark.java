@@ -0,0 +1,240 @@
+package ee.forgr.audio;
+
+import static org.junit.Assume.assumeTrue;
+
+import android.content.Context;
+import android.net.Uri;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.DefaultHttpDataSource;
+import androidx.test.core.app.ApplicationProvider;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Start latency, rebuffering and bytes fetched of remote assets for each network profile and cache configuration,
+ * served by {@link ThrottledHttpServer}. Progressive streams go through the {@link RemoteAudioAsset} data source
+ * stack; HLS reads the playlist and then its segments through the same stack, as {@code StreamAudioAsset} does
+ * with {@code cacheSegments}.
+ *
+ * <p>Skipped unless run with {@code -PnativeAudio.benchmark=true}. Results are printed and written to
+ * {@code build/reports/benchmarks/remote-start.json}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 35)
+public class RemoteStartBenchmark {
+
+    private static final String BENCHMARK_PROPERTY = "nativeAudio.benchmark";
+    private static final String RUNS_PROPERTY = "nativeAudio.benchmark.runs";
+    private static final double TRACK_SECONDS = 6;
+    private static final int SEGMENT_COUNT = 3;
+    private static final int MAX_RETRIES = 10;
+    // Media needed before the player starts, from the buffer profile of remote assets
+    private static final long START_BYTES = (long) BufferBudget.Profile.MUSIC.bufferForPlaybackMs * AudioFixtures.MP3_BITRATE / 8000;
+
+    enum Network {
+        LOOPBACK(0, 0, 0, 0),
+        WIFI(2_500_000, 20, 5, 0),
+        CELLULAR(64_000, 120, 40, 0),
+        LOSSY_CELLULAR(64_000, 120, 40, 0.1);
+
+        final long bytesPerSecond;
+        final long latencyMs;
+        final long jitterMs;
+        final double failureRate;
+
+        Network(long bytesPerSecond, long latencyMs, long jitterMs, double failureRate) {
+            this.bytesPerSecond = bytesPerSecond;
+            this.latencyMs = latencyMs;
+            this.jitterMs = jitterMs;
+            this.failureRate = failureRate;
+        }
+    }
+
+    enum CacheMode {
+        /** Straight from the network, as HLS without cacheSegments. */
+        NONE,
+        /** Empty media cache. */
+        COLD,
+        /** Only the start window cached, as left by a preload window or an interrupted play. */
+        PREFIX,
+        /** Whole stream cached by an earlier play. */
+        WARM
+    }
+
+    private Context context;
+    private ThrottledHttpServer server;
+    private final JSONArray results = new JSONArray();
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue("Run with -P" + BENCHMARK_PROPERTY + "=true", Boolean.getBoolean(BENCHMARK_PROPERTY));
+        context = ApplicationProvider.getApplicationContext();
+        server = new ThrottledHttpServer(42);
+        byte[] track = AudioFixtures.silentMp3(TRACK_SECONDS);
+        server.serve("/track.mp3", track, "audio/mpeg");
+        // Segments are slices of the same track, on frame boundaries
+        byte[] segment = AudioFixtures.silentMp3(TRACK_SECONDS / SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            server.serve("/hls/segment" + i + ".mp3", segment, "audio/mpeg");
+        }
+        server.serve(
+            "/hls/playlist.m3u8",
+            AudioFixtures.hlsPlaylist(SEGMENT_COUNT, TRACK_SECONDS / SEGMENT_COUNT).getBytes(StandardCharsets.UTF_8),
+            "application/vnd.apple.mpegurl"
+        );
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (server != null) {
+            server.close();
+            RemoteAudioAsset.clearCache(context);
+        }
+    }
+
+    @Test
+    public void startLatency() throws Exception {
+        int runs = Integer.getInteger(RUNS_PROPERTY, 3);
+        Uri playlist = Uri.parse(server.url("/hls/playlist.m3u8"));
+        List<Uri> segments = new ArrayList<>();
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments.add(Uri.parse(server.url("/hls/segment" + i + ".mp3")));
+        }
+        List<Uri> track = Collections.singletonList(Uri.parse(server.url("/track.mp3")));
+
+        System.out.println(
+            String.format(
+                Locale.US,
+                "%-12s %-15s %-7s %9s %9s %9s %9s %10s %8s %7s",
+                "format",
+                "network",
+                "cache",
+                "ttfb ms",
+                "start ms",
+                "rebuf ms",
+                "total ms",
+                "net bytes",
+                "requests",
+                "retries"
+            )
+        );
+        for (Network network : Network.values()) {
+            server.setBandwidth(network.bytesPerSecond);
+            server.setLatency(network.latencyMs, network.jitterMs);
+            for (CacheMode cacheMode : CacheMode.values()) {
+                scenario("progressive", network, cacheMode, runs, null, track);
+                scenario("hls", network, cacheMode, runs, playlist, segments);
+            }
+        }
+
+        File report = new File("build/reports/benchmarks/remote-start.json");
+        report.getParentFile().mkdirs();
+        try (Writer writer = new FileWriter(report)) {
+            writer.write(results.toString(2));
+        }
+        System.out.println("Results written to " + report.getAbsolutePath());
+    }
+
+    private void scenario(String format, Network network, CacheMode cacheMode, int runs, Uri playlist, List<Uri> media)
+        throws Exception {
+        double[] firstByteMs = new double[runs];
+        double[] startMs = new double[runs];
+        double[] rebufferMs = new double[runs];
+        double[] totalMs = new double[runs];
+        long networkBytes = 0;
+        int requests = 0;
+        int retries = 0;
+        for (int run = 0; run < runs; run++) {
+            prepareCache(cacheMode, playlist, media);
+            // Built after the cache was cleared, which releases the cache instance bound by earlier factories
+            DataSource.Factory dataSourceFactory = cacheMode == CacheMode.NONE
+                ? new DefaultHttpDataSource.Factory()
+                : RemoteAudioAsset.newDataSourceFactory(context, null);
+            server.setFailureRate(network.failureRate);
+            server.resetStats();
+            StreamProbe.Result result = new StreamProbe(dataSourceFactory, MAX_RETRIES).read(playlist, media, START_BYTES);
+            firstByteMs[run] = result.firstByteMs;
+            startMs[run] = result.startMs;
+            rebufferMs[run] = result.rebufferMs;
+            totalMs[run] = result.totalMs;
+            networkBytes += server.getBytesServed();
+            requests += server.getRequestCount();
+            retries += result.retries;
+        }
+
+        JSONObject entry = new JSONObject();
+        entry.put("format", format);
+        entry.put("network", network.name().toLowerCase(Locale.US));
+        entry.put("cache", cacheMode.name().toLowerCase(Locale.US));
+        entry.put("runs", runs);
+        entry.put("firstByteMs", median(firstByteMs));
+        entry.put("startMs", median(startMs));
+        entry.put("rebufferMs", median(rebufferMs));
+        entry.put("totalMs", median(totalMs));
+        entry.put("networkBytes", networkBytes / runs);
+        entry.put("requests", (double) requests / runs);
+        entry.put("retries", (double) retries / runs);
+        results.put(entry);
+        System.out.println(
+            String.format(
+                Locale.US,
+                "%-12s %-15s %-7s %9.1f %9.1f %9.1f %9.1f %10d %8.1f %7.1f",
+                format,
+                entry.getString("network"),
+                entry.getString("cache"),
+                median(firstByteMs),
+                median(startMs),
+                median(rebufferMs),
+                median(totalMs),
+                networkBytes / runs,
+                (double) requests / runs,
+                (double) retries / runs
+            )
+        );
+    }
+
+    /**
+     * Brings the media cache to the state of the scenario. Filling it goes over an unthrottled, reliable link.
+     */
+    private void prepareCache(CacheMode cacheMode, Uri playlist, List<Uri> media) throws Exception {
+        RemoteAudioAsset.clearCache(context);
+        if (cacheMode != CacheMode.PREFIX && cacheMode != CacheMode.WARM) {
+            return;
+        }
+        long bandwidth = server.getBandwidth();
+        server.setBandwidth(0);
+        server.setFailureRate(0);
+        try {
+            StreamProbe probe = new StreamProbe(RemoteAudioAsset.newDataSourceFactory(context, null), MAX_RETRIES);
+            if (cacheMode == CacheMode.WARM) {
+                probe.read(playlist, media, START_BYTES);
+            } else {
+                probe.readPrefix(playlist, media, START_BYTES);
+            }
+        } finally {
+            server.setBandwidth(bandwidth);
+        }
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+}
@@ -0,0 +1,136 @@
+package ee.forgr.audio;
+
+import android.net.Uri;
+import androidx.media3.common.C;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.DataSpec;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Reads media through a data source stack the way a player would, and times how long the start of playback and
+ * the whole stream take. Failed or cut reads are resumed from the last byte received, like the player's load retry.
+ * Rebuffering is estimated from a {@link AudioFixtures#silentMp3} playhead that starts once the start window is in.
+ */
+final class StreamProbe {
+
+    static final class Result {
+
+        double firstByteMs;
+        double startMs;
+        double totalMs;
+        double rebufferMs;
+        long bytes;
+        int retries;
+    }
+
+    private final DataSource.Factory dataSourceFactory;
+    private final int maxRetries;
+    private final byte[] buffer = new byte[16 * 1024];
+
+    StreamProbe(DataSource.Factory dataSourceFactory, int maxRetries) {
+        this.dataSourceFactory = dataSourceFactory;
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * @param playlist read before the media, or null for a progressive stream
+     * @param media read in order as one stream
+     * @param startBytes media bytes needed before playback starts
+     */
+    Result read(Uri playlist, List<Uri> media, long startBytes) throws IOException {
+        return read(playlist, media, startBytes, false);
+    }
+
+    /**
+     * Like {@link #read} but stops once the start window is in, as a play stopped right after it started.
+     */
+    Result readPrefix(Uri playlist, List<Uri> media, long startBytes) throws IOException {
+        return read(playlist, media, startBytes, true);
+    }
+
+    private Result read(Uri playlist, List<Uri> media, long startBytes, boolean prefix) throws IOException {
+        Result result = new Result();
+        long startNanos = System.nanoTime();
+        if (playlist != null) {
+            readUri(playlist, result, startNanos, null, false);
+        }
+        long[] mediaBytes = { 0, startBytes };
+        for (Uri uri : media) {
+            if (readUri(uri, result, startNanos, mediaBytes, prefix)) {
+                break;
+            }
+        }
+        if (result.startMs == 0) {
+            // Shorter than the start window
+            result.startMs = elapsedMs(startNanos);
+        }
+        result.totalMs = elapsedMs(startNanos);
+        return result;
+    }
+
+    /**
+     * @param mediaBytes media bytes read so far and the start window, null for a playlist
+     * @return whether the read stopped at the end of the start window
+     */
+    private boolean readUri(Uri uri, Result result, long startNanos, long[] mediaBytes, boolean prefix) throws IOException {
+        long position = 0;
+        while (true) {
+            DataSource dataSource = dataSourceFactory.createDataSource();
+            try {
+                long length = dataSource.open(new DataSpec.Builder().setUri(uri).setPosition(position).build());
+                long read = 0;
+                int count;
+                while ((count = dataSource.read(buffer, 0, buffer.length)) != C.RESULT_END_OF_INPUT) {
+                    // Counted bytes are not read again on a retry
+                    read += count;
+                    position += count;
+                    onBytes(count, result, startNanos, mediaBytes);
+                    if (prefix && result.startMs != 0) {
+                        return true;
+                    }
+                }
+                if (length == C.LENGTH_UNSET || read >= length) {
+                    return false;
+                }
+                throw new IOException("Response cut after " + read + " of " + length + " bytes");
+            } catch (IOException e) {
+                if (result.retries >= maxRetries) {
+                    throw e;
+                }
+                result.retries++;
+            } finally {
+                dataSource.close();
+            }
+        }
+    }
+
+    private void onBytes(int count, Result result, long startNanos, long[] mediaBytes) {
+        result.bytes += count;
+        if (result.firstByteMs == 0) {
+            result.firstByteMs = elapsedMs(startNanos);
+        }
+        if (mediaBytes == null) {
+            return;
+        }
+        long before = mediaBytes[0];
+        mediaBytes[0] += count;
+        double now = elapsedMs(startNanos);
+        if (result.startMs == 0) {
+            if (mediaBytes[0] >= mediaBytes[1]) {
+                result.startMs = now;
+            }
+            return;
+        }
+        // Playhead ran past the media received before this read
+        double playhead = now - result.startMs - result.rebufferMs;
+        double available = AudioFixtures.mp3DurationMs(before);
+        if (playhead > available) {
+            result.rebufferMs += playhead - available;
+        }
+    }
+
+    private static double elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,265 @@
+package ee.forgr.audio;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process HTTP server standing in for a CDN. Serves in-memory files by path, honours single byte ranges, and
+ * shapes every response with a bandwidth limit shared by all connections, a latency with jitter before each
+ * response, and injected failures. One request per connection. The jitter and failures come from a seeded random,
+ * so a run can be repeated.
+ */
+final class ThrottledHttpServer implements Closeable {
+
+    private static final int CHUNK_BYTES = 1024;
+    private static final int SOCKET_TIMEOUT_MS = 15000;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newCachedThreadPool((runnable) -> {
+        Thread thread = new Thread(runnable, "ThrottledHttpServer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+    private final Map<String, String> contentTypes = new ConcurrentHashMap<>();
+    private final Random random;
+    private final AtomicLong bytesServed = new AtomicLong();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile long bytesPerSecond;
+    private volatile long latencyMs;
+    private volatile long jitterMs;
+    private volatile double failureRate;
+    private volatile long truncateAfterBytes = -1;
+    // Time the link is busy until, guarded by this
+    private long linkFreeNanos;
+
+    ThrottledHttpServer(long seed) throws IOException {
+        random = new Random(seed);
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        executor.execute(this::accept);
+    }
+
+    String url(String path) {
+        return "http://127.0.0.1:" + serverSocket.getLocalPort() + path;
+    }
+
+    void serve(String path, byte[] body, String contentType) {
+        files.put(path, body);
+        contentTypes.put(path, contentType);
+    }
+
+    /**
+     * @param bytesPerSecond shared by every response, 0 for no limit
+     */
+    void setBandwidth(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    long getBandwidth() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Delay before each response, uniformly spread over {@code latencyMs} plus or minus {@code jitterMs}.
+     */
+    void setLatency(long latencyMs, long jitterMs) {
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+    }
+
+    /**
+     * @param failureRate share of requests answered with a 503, between 0 and 1
+     */
+    void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    /**
+     * Drops the connection once that many body bytes were sent, -1 to send whole bodies.
+     */
+    void setTruncateAfter(long bytes) {
+        this.truncateAfterBytes = bytes;
+    }
+
+    long getBytesServed() {
+        return bytesServed.get();
+    }
+
+    int getRequestCount() {
+        return requests.get();
+    }
+
+    int getFailureCount() {
+        return failures.get();
+    }
+
+    void resetStats() {
+        bytesServed.set(0);
+        requests.set(0);
+        failures.set(0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                executor.execute(() -> handle(socket));
+            } catch (IOException e) {
+                // Closed
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (Socket connection = socket) {
+            connection.setSoTimeout(SOCKET_TIMEOUT_MS);
+            InputStream in = connection.getInputStream();
+            OutputStream out = connection.getOutputStream();
+            String requestLine = readLine(in);
+            if (requestLine == null || requestLine.isEmpty()) {
+                return;
+            }
+            String[] parts = requestLine.split(" ");
+            String method = parts[0];
+            String path = parts.length > 1 ? parts[1].split("\\?")[0] : "/";
+            String range = null;
+            for (String header = readLine(in); header != null && !header.isEmpty(); header = readLine(in)) {
+                int colon = header.indexOf(':');
+                if (colon > 0 && header.substring(0, colon).trim().equalsIgnoreCase("Range")) {
+                    range = header.substring(colon + 1).trim();
+                }
+            }
+            requests.incrementAndGet();
+            TimeUnit.MILLISECONDS.sleep(nextLatencyMs());
+
+            byte[] body = files.get(path);
+            if (body == null) {
+                writeHead(out, "404 Not Found", "text/plain", 0, null);
+                return;
+            }
+            if (nextFails()) {
+                failures.incrementAndGet();
+                writeHead(out, "503 Service Unavailable", "text/plain", 0, null);
+                return;
+            }
+            long start = 0;
+            long end = body.length - 1;
+            if (range != null && range.startsWith("bytes=") && !range.contains(",")) {
+                String[] bounds = range.substring("bytes=".length()).split("-", -1);
+                start = Long.parseLong(bounds[0]);
+                if (!bounds[1].isEmpty()) {
+                    end = Math.min(end, Long.parseLong(bounds[1]));
+                }
+                if (start >= body.length || start > end) {
+                    writeHead(out, "416 Range Not Satisfiable", "text/plain", 0, "bytes */" + body.length);
+                    return;
+                }
+            }
+            long length = end - start + 1;
+            String contentRange = range != null ? "bytes " + start + "-" + end + "/" + body.length : null;
+            writeHead(out, range != null ? "206 Partial Content" : "200 OK", contentTypes.get(path), length, contentRange);
+            if (method.equals("HEAD")) {
+                return;
+            }
+            long truncateAfter = truncateAfterBytes;
+            long sent = 0;
+            while (sent < length) {
+                if (truncateAfter >= 0 && sent >= truncateAfter) {
+                    failures.incrementAndGet();
+                    return;
+                }
+                int chunk = (int) Math.min(CHUNK_BYTES, length - sent);
+                if (truncateAfter >= 0) {
+                    chunk = (int) Math.min(chunk, truncateAfter - sent);
+                }
+                throttle(chunk);
+                out.write(body, (int) (start + sent), chunk);
+                out.flush();
+                sent += chunk;
+                bytesServed.addAndGet(chunk);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // The client went away
+        }
+    }
+
+    private synchronized long nextLatencyMs() {
+        long jitter = jitterMs > 0 ? (long) ((random.nextDouble() * 2 - 1) * jitterMs) : 0;
+        return Math.max(0, latencyMs + jitter);
+    }
+
+    private synchronized boolean nextFails() {
+        return failureRate > 0 && random.nextDouble() < failureRate;
+    }
+
+    /**
+     * Waits until the shared link had the time to carry {@code bytes}.
+     */
+    private void throttle(int bytes) throws InterruptedException {
+        long limit = bytesPerSecond;
+        if (limit <= 0) {
+            return;
+        }
+        long wakeNanos;
+        synchronized (this) {
+            linkFreeNanos = Math.max(linkFreeNanos, System.nanoTime()) + bytes * 1_000_000_000L / limit;
+            wakeNanos = linkFreeNanos;
+        }
+        long waitNanos = wakeNanos - System.nanoTime();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private static void writeHead(OutputStream out, String status, String contentType, long length, String contentRange)
+        throws IOException {
+        StringBuilder head = new StringBuilder("HTTP/1.1 ").append(status).append("\r\n");
+        head.append("Content-Type: ").append(contentType).append("\r\n");
+        head.append("Content-Length: ").append(length).append("\r\n");
+        head.append("Accept-Ranges: bytes\r\n");
+        if (contentRange != null) {
+            head.append("Content-Range: ").append(contentRange).append("\r\n");
+        }
+        head.append("Connection: close\r\n\r\n");
+        out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        for (int b = in.read(); b != '\n'; b = in.read()) {
+            if (b == -1) {
+                return line.size() > 0 ? line.toString("ISO-8859-1") : null;
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return line.toString("ISO-8859-1");
+    }
+}
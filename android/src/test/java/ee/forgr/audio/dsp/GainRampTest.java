@@ -0,0 +1,80 @@
+package ee.forgr.audio.dsp;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Fade and crossfade math of {@link GainRamp}.
+ */
+public class GainRampTest {
+
+    private static final double EPSILON = 1e-6;
+
+    @Test
+    public void stepCountIsAtLeastOne() {
+        assertEquals(10, GainRamp.stepCount(800, 80));
+        assertEquals(1, GainRamp.stepCount(50, 80));
+        assertEquals(1, GainRamp.stepCount(0, 80));
+    }
+
+    @Test
+    public void exponentialFadeReachesTarget() {
+        int steps = GainRamp.stepCount(800, 80);
+        double ratio = GainRamp.exponentialRatio(0.1f, 1f, steps);
+        float level = 0.1f;
+        for (int i = 0; i < steps; i++) {
+            float next = GainRamp.exponentialStep(level, ratio, 1f);
+            assertEquals(level * ratio, next, EPSILON);
+            level = next;
+        }
+        assertEquals(1f, level, 1e-4);
+    }
+
+    @Test
+    public void exponentialFadeFallsBackToTarget() {
+        assertEquals(1.0, GainRamp.exponentialRatio(0f, 1f, 10), 0);
+        assertEquals(1.0, GainRamp.exponentialRatio(1f, 0f, 10), 0);
+        assertEquals(1.0, GainRamp.exponentialRatio(0.5f, 0.5f, 10), 0);
+        assertEquals(1.0, GainRamp.exponentialRatio(0.5f, 1f, 0), 0);
+        assertEquals(0.7f, GainRamp.exponentialStep(0.2f, 1.0, 0.7f), 0);
+    }
+
+    @Test
+    public void linearFadeEndsOnTarget() {
+        assertEquals(0f, GainRamp.linearStep(0f, 1f, 0, 4), 0);
+        assertEquals(0.25f, GainRamp.linearStep(0f, 1f, 1, 4), EPSILON);
+        assertEquals(0.5f, GainRamp.linearStep(1f, 0f, 2, 4), EPSILON);
+        assertEquals(0f, GainRamp.linearStep(1f, 0f, 4, 4), 0);
+        assertEquals(0f, GainRamp.linearStep(1f, 0f, 6, 4), 0);
+    }
+
+    @Test
+    public void clampKeepsLevelInRange() {
+        assertEquals(0.001f, GainRamp.clamp(0f, 0.001f, 1f), 0);
+        assertEquals(1f, GainRamp.clamp(1.5f, 0.001f, 1f), 0);
+        assertEquals(0.5f, GainRamp.clamp(0.5f, 0.001f, 1f), 0);
+    }
+
+    @Test
+    public void linearCrossfadeKeepsSummedGain() {
+        for (int i = 0; i <= 10; i++) {
+            double progress = i / 10.0;
+            assertEquals(1.0, GainRamp.fadeOutGain(progress, false) + GainRamp.fadeInGain(progress, false), EPSILON);
+        }
+    }
+
+    @Test
+    public void equalPowerCrossfadeKeepsSummedPower() {
+        for (int i = 0; i <= 10; i++) {
+            double progress = i / 10.0;
+            double out = GainRamp.fadeOutGain(progress, true);
+            double in = GainRamp.fadeInGain(progress, true);
+            assertEquals(1.0, out * out + in * in, EPSILON);
+        }
+        assertEquals(1.0, GainRamp.fadeOutGain(0, true), EPSILON);
+        assertEquals(0.0, GainRamp.fadeInGain(0, true), EPSILON);
+        assertEquals(0.0, GainRamp.fadeOutGain(1, true), EPSILON);
+        assertEquals(1.0, GainRamp.fadeInGain(1, true), EPSILON);
+    }
+}
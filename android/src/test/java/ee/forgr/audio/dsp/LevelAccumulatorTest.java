@@ -0,0 +1,89 @@
+package ee.forgr.audio.dsp;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import org.junit.Test;
+
+/**
+ * Levels, clamping and mono mix of {@link LevelAccumulator}.
+ */
+public class LevelAccumulatorTest {
+
+    private static final float EPSILON = 1e-6f;
+
+    @Test
+    public void mixesChannelsToMonoOldestFirst() {
+        LevelAccumulator accumulator = new LevelAccumulator(4);
+        // Three stereo frames, the first one drops out of the window after the next add
+        accumulator.add(floats(0.2f, 0.4f, -0.5f, 0.5f, 1f, 0f), 4, 2);
+        accumulator.add(floats(0.25f, 0.25f, -1f, -0.5f), 4, 2);
+
+        float[] weights = new float[4];
+        Arrays.fill(weights, 1f);
+        float[] out = new float[4];
+        accumulator.copyWindow(weights, out);
+
+        assertEquals(0f, out[0], EPSILON);
+        assertEquals(0.5f, out[1], EPSILON);
+        assertEquals(0.25f, out[2], EPSILON);
+        assertEquals(-0.75f, out[3], EPSILON);
+    }
+
+    @Test
+    public void appliesWindowWeights() {
+        LevelAccumulator accumulator = new LevelAccumulator(2);
+        accumulator.add(floats(0.5f, 1f), 4, 1);
+
+        float[] out = new float[2];
+        accumulator.copyWindow(new float[] { 0.5f, 2f }, out);
+
+        assertEquals(0.25f, out[0], EPSILON);
+        assertEquals(2f, out[1], 0);
+    }
+
+    @Test
+    public void measuresPeakAndRms() {
+        LevelAccumulator accumulator = new LevelAccumulator(8);
+        accumulator.add(floats(0.5f, -0.5f, 0.5f, -0.5f), 4, 2);
+
+        assertEquals(4, accumulator.getSampleCount());
+        assertEquals(0.5f, accumulator.getPeak(), EPSILON);
+        assertEquals(0.5f, accumulator.getRms(), EPSILON);
+
+        accumulator.reset();
+        assertEquals(0f, accumulator.getPeak(), 0);
+        assertEquals(0f, accumulator.getRms(), 0);
+    }
+
+    @Test
+    public void clampsLevelsToFullScale() {
+        LevelAccumulator accumulator = new LevelAccumulator(2);
+        accumulator.add(floats(1.5f, -2f), 4, 1);
+
+        assertEquals(1f, accumulator.getPeak(), 0);
+        assertEquals(1f, accumulator.getRms(), 0);
+    }
+
+    @Test
+    public void readsSixteenBitPcm() {
+        ByteBuffer data = ByteBuffer.allocate(4).order(ByteOrder.nativeOrder());
+        data.putShort(Short.MIN_VALUE).putShort((short) 16384).flip();
+        LevelAccumulator accumulator = new LevelAccumulator(2);
+        accumulator.add(data, 2, 1);
+
+        assertEquals(1f, accumulator.getPeak(), EPSILON);
+        assertEquals(0, data.position());
+    }
+
+    private static ByteBuffer floats(float... samples) {
+        ByteBuffer data = ByteBuffer.allocate(samples.length * 4).order(ByteOrder.nativeOrder());
+        for (float sample : samples) {
+            data.putFloat(sample);
+        }
+        data.flip();
+        return data;
+    }
+}
@@ -33,6 +33,37 @@ export interface AssetVolume {
   duration?: number;
 }
 
+export interface CrossfadeOptions {
+  /**
+   * Playing asset to fade out
+   */
+  fromAssetId: string;
+  /**
+   * Loaded asset to fade in, started from the beginning
+   */
+  toAssetId: string;
+  /**
+   * Fade duration in seconds, counted from the moment the incoming asset actually plays
+   * @default 2
+   */
+  duration?: number;
+  /**
+   * `equalPower` keeps the perceived loudness constant, `linear` dips in the middle
+   * @default 'equalPower'
+   */
+  curve?: 'equalPower' | 'linear';
+  /**
+   * Volume the incoming asset fades to
+   * @default 1
+   */
+  volume?: number;
+  /**
+   * What happens to the outgoing asset once silent. It gets its volume back either way.
+   * @default 'stop'
+   */
+  outgoing?: 'stop' | 'pause';
+}
+
 export interface AssetRate {
   /**
    * Asset Id, unique identifier of the file
@@ -195,6 +226,25 @@ export interface ConfigureOptions {
    * @see https://github.com/Cap-go/capacitor-native-audio/issues/202
    */
   showNotification?: boolean;
+  /**
+   * Show the playback notification through a media3 `MediaSessionService` instead of a
+   * notification posted by the plugin (Android only). Requires `showNotification: true`.
+   *
+   * The system reads the position, duration and play state of the current asset directly, so
+   * the notification shows progress and only changes what changed. While audio plays, the
+   * service runs in the foreground, which also keeps `backgroundPlayback` going without a
+   * foreground service of your own. Your app needs the `POST_NOTIFICATIONS` permission on
+   * Android 13 and later for the notification to be visible.
+   *
+   * The plugin does not merge the service into your manifest. Declare `ee.forgr.audio.NativeAudioSessionService`
+   * and the foreground service permissions as shown in the README; without them the plugin
+   * notification is used instead.
+   *
+   * @default false
+   * @platform Android
+   * @since 8.4.0
+   */
+  mediaSessionService?: boolean;
   /**
    * Enable background audio playback (Android only)
    *
@@ -227,8 +277,273 @@ export interface ConfigureOptions {
    * @since 8.2.0
    */
   backgroundPlayback?: boolean;
+  /**
+   * Upper bound, in megabytes, on the memory all remote and streaming players may hold in their
+   * buffers combined (Android only). Every player draws from one shared allocator; once the total
+   * reaches this ceiling, players stop buffering ahead until memory is freed.
+   *
+   * @default 32
+   * @platform Android
+   * @since 8.4.0
+   */
+  maxBufferMemoryMB?: number;
+  /**
+   * How HLS streams recover from network errors (Android only).
+   * Failed loads are retried with exponential backoff; when playback still fails, the existing
+   * player is re-prepared after the same backoff, rejoining live streams at the live edge.
+   *
+   * @platform Android
+   * @since 8.4.0
+   */
+  streamRetry?: StreamRetryOptions;
+  /**
+   * Let HLS streams loaded afterwards pick their start threshold and buffer target from the
+   * measured segment download speed and its variance, within the given bounds (Android only).
+   * Replaces the fixed durations of the buffer profile. See `getAdaptiveBufferState`.
+   *
+   * @platform Android
+   * @since 8.4.0
+   */
+  adaptiveBuffer?: AdaptiveBufferOptions;
+  /**
+   * How long finished `playOnce` players stay loaded for the next `playOnce` of the same
+   * file (Android only).
+   *
+   * @platform Android
+   * @since 8.4.0
+   */
+  playOncePool?: PlayOncePoolOptions;
+  /**
+   * Start `warmUp` in the background (Android only). Set `prewarm: true` under
+   * `plugins.NativeAudio` in capacitor.config.ts to start it when the plugin loads instead.
+   *
+   * @platform Android
+   * @since 8.4.0
+   */
+  prewarm?: boolean;
+  /**
+   * Add system trace sections around preloading, seeking, fades, time updates and notification
+   * updates, plus counters for active voices and queued main-thread tasks, so the plugin's work
+   * shows up in Perfetto (Android only). Set `tracing: true` under `plugins.NativeAudio` in
+   * capacitor.config.ts to also trace startup. Counters need Android 10 or later.
+   *
+   * @default false
+   * @platform Android
+   * @since 8.4.0
+   */
+  tracing?: boolean;
+}
+
+export interface WarmUpResult {
+  /**
+   * Time spent opening the media cache
+   */
+  cacheMs: number;
+  /**
+   * Time spent loading the decoders of common formats
+   */
+  decodersMs: number;
+  /**
+   * Time spent building and releasing a player
+   */
+  playerMs: number;
+  /**
+   * Time spent playing a short silence to open the audio output
+   */
+  outputMs: number;
+  totalMs: number;
+}
+
+export interface EngineMetrics {
+  /**
+   * Live MediaPlayer instances, used for local files
+   */
+  mediaPlayers: number;
+  /**
+   * Live ExoPlayer instances, used for remote files, streams and queues
+   */
+  exoPlayers: number;
+  /**
+   * Running background threads of the plugin (metering, restore, warm-up)
+   */
+  handlerThreads: number;
+  /**
+   * Threads running volume fades
+   */
+  fadeThreads: number;
+  /**
+   * Fade steps waiting to run
+   */
+  scheduledFades: number;
+  /**
+   * Delayed plays waiting for their start time
+   */
+  scheduledPlays: number;
+  loadedAssets: number;
+  /**
+   * Loaded assets that are currently playing
+   */
+  activeVoices: number;
+  /**
+   * Finished `playOnce` players kept loaded for reuse
+   */
+  idlePlayOnceVoices: number;
+  /**
+   * PCM bytes rendered by ExoPlayer voices since the app started
+   */
+  decodedBytes: number;
+  /**
+   * Bytes currently held in the shared stream buffers
+   */
+  bufferedBytes: number;
+  /**
+   * Size of the remote media cache on disk, 0 until it is first used
+   */
+  cacheBytes: number;
+  cacheHitBytes: number;
+  cacheMissBytes: number;
+  /**
+   * Share of remote file bytes read from the cache rather than downloaded, between 0 and 1
+   */
+  cacheHitRatio: number;
+  eventsEmitted: number;
+  /**
+   * Average over the last 10 seconds
+   */
+  eventsPerSecond: number;
+  /**
+   * Events emitted while no listener was registered for them
+   */
+  eventsDropped: number;
+  /**
+   * Progress updates folded into a later event
+   */
+  eventsCoalesced: number;
+  /**
+   * Tasks posted to the main thread by the plugin and its remote and stream assets
+   */
+  mainThreadHops: number;
+  /**
+   * Of those, tasks still waiting for the main thread
+   */
+  queuedMainThreadTasks: number;
+}
+
+export interface RecentLogsOptions {
+  /**
+   * Empty the log once read
+   * @default false
+   */
+  clear?: boolean;
+}
+
+export interface LogEntry {
+  /**
+   * Milliseconds since the epoch
+   */
+  time: number;
+  level: 'error' | 'warning' | 'info' | 'debug' | 'verbose';
+  tag: string;
+  message: string;
+}
+
+export interface RecentLogs {
+  /**
+   * Oldest first
+   */
+  logs: LogEntry[];
+}
+
+export interface PlayOncePoolOptions {
+  /**
+   * Time an unused player stays loaded, in seconds
+   * @default 30
+   */
+  idleTtlSec?: number;
+  /**
+   * Maximum number of unused players kept across all files. 0 unloads them right away.
+   * @default 4
+   */
+  maxIdleVoices?: number;
+}
+
+export interface AdaptiveBufferOptions {
+  /**
+   * @default true
+   */
+  enabled?: boolean;
+  /**
+   * Buffer needed to start playing on a fast, steady connection
+   * @default 500
+   */
+  minStartMs?: number;
+  /**
+   * Buffer needed to start playing on a slow or jittery connection
+   * @default 5000
+   */
+  maxStartMs?: number;
+  /**
+   * Buffer target on a fast, steady connection
+   * @default 10000
+   */
+  minBufferMs?: number;
+  /**
+   * Buffer target on a slow or jittery connection
+   * @default 60000
+   */
+  maxBufferMs?: number;
+}
+
+export interface AdaptiveBufferState {
+  assetId: string;
+  /**
+   * Number of segment loads measured
+   */
+  samples: number;
+  /**
+   * Smoothed download time of a segment divided by its media duration. Below 1 the
+   * connection is faster than playback.
+   */
+  downloadRatioMean: number;
+  downloadRatioStdDev: number;
+  startThresholdMs: number;
+  rebufferThresholdMs: number;
+  /**
+   * Loading pauses once this much is buffered
+   */
+  bufferTargetMs: number;
+  /**
+   * Loading resumes once the buffer drops below this
+   */
+  resumeLoadingBelowMs: number;
+}
+
+export interface StreamRetryOptions {
+  /**
+   * Consecutive recovery attempts before giving up. The next `play` starts over.
+   * @default 5
+   */
+  maxRetries?: number;
+  /**
+   * Delay before the first retry, doubled for each following one
+   * @default 1000
+   */
+  initialDelayMs?: number;
+  /**
+   * Upper bound of the retry delay
+   * @default 30000
+   */
+  maxDelayMs?: number;
 }
 
+/**
+ * Buffer profile of a remote or streaming asset (Android only).
+ * - `sfx`: a few seconds ahead, for short clips
+ * - `music`: up to 30 seconds ahead, default for remote files
+ * - `live`: up to 30 seconds ahead with a short back buffer, default for HLS streams
+ */
+export type BufferProfile = 'sfx' | 'music' | 'live';
+
 /**
  * Metadata to display in the notification center, Control Center (iOS), and lock screen
  * when `showNotification` is enabled in `configure()`.
@@ -306,6 +621,14 @@ export interface PlayOnceOptions {
    * @since 7.10.0
    */
   headers?: Record<string, string>;
+  /**
+   * How much the player of a remote or streaming file buffers ahead (Android only).
+   * Defaults to `music` for remote files and `live` for HLS streams.
+   *
+   * @platform Android
+   * @since 8.4.0
+   */
+  bufferProfile?: BufferProfile;
 }
 
 export interface PlayOnceResult {
@@ -359,116 +682,567 @@ export interface PreloadOptions {
    * @since 7.10.0
    */
   headers?: Record<string, string>;
-}
-
-export interface CurrentTimeEvent {
-  /**
-   * Current time of the audio in seconds
-   * @since 6.5.0
-   */
-  currentTime: number;
   /**
-   * Asset Id of the audio
-   * @since 6.5.0
+   * Download a remote file once in the background and keep it as a local file (Android only).
+   *
+   * The first plays stream from the network as usual. Once the local copy is ready,
+   * later plays use the low-latency local file path, and later preloads of the same URL
+   * load the local copy directly. Ignored for local files and HLS streams.
+   *
+   * @default false
+   * @platform Android
+   * @since 8.4.0
    */
-  assetId: string;
-}
-
-export type CurrentTimeListener = (state: CurrentTimeEvent) => void;
-
-export interface NativeAudio {
+  localCopy?: boolean;
   /**
-   * Configure the audio player
-   * @since 5.0.0
-   * @param option {@link ConfigureOptions}
-   * @returns
+   * How much the player of a remote or streaming asset buffers ahead (Android only).
+   * Defaults to `music` for remote files and `live` for HLS streams.
+   *
+   * @platform Android
+   * @since 8.4.0
    */
-  configure(options: ConfigureOptions): Promise<void>;
-
+  bufferProfile?: BufferProfile;
   /**
-   * Load an audio file
-   * @since 5.0.0
-   * @param option {@link PreloadOptions}
-   * @returns
+   * Keep past segments of an HLS live stream on disk so it can be paused and rewound
+   * (Android only). See `getTimeShiftWindow`.
+   *
+   * @platform Android
+   * @since 8.4.0
    */
-  preload(options: PreloadOptions): Promise<void>;
+  timeShift?: TimeShiftOptions;
   /**
-   * Play an audio file once with automatic cleanup
-   *
-   * Method designed for simple, single-shot audio playback,
-   * such as notification sounds, UI feedback, or other short audio clips
-   * that don't require manual state management.
-   *
-   * **Key Features:**
-   * - **Fire-and-forget**: No need to manually preload, play, stop, or unload
-   * - **Auto-cleanup**: Asset is automatically unloaded after playback completes
-   * - **Optional file deletion**: Can delete local files after playback (useful for temp files)
-   * - **Returns assetId**: Can still control playback if needed (pause, stop, etc.)
-   *
-   * **Use Cases:**
-   * - Notification sounds
-   * - UI sound effects (button clicks, alerts)
-   * - Short audio clips that play once
-   * - Temporary audio files that should be cleaned up
-   *
-   * **Comparison with regular play():**
-   * - `play()`: Requires manual preload, play, and unload steps
-   * - `playOnce()`: Handles everything automatically with a single call
+   * Remember this asset and preload it again on the next cold start, in the background
+   * (Android only). Listen for `assetsRestored` to know when it is ready. Unloading the asset
+   * forgets it. Options, including headers, are stored on the device.
    *
-   * @example
-   * ```typescript
-   * // Simple one-shot playback
-   * await NativeAudio.playOnce({ assetPath: 'audio/notification.mp3' });
-   *
-   * // Play and delete the file after completion
-   * await NativeAudio.playOnce({
-   *   assetPath: 'file:///path/to/temp/audio.mp3',
-   *   isUrl: true,
-   *   deleteAfterPlay: true
-   * });
-   *
-   * // Get the assetId to control playback
-   * const { assetId } = await NativeAudio.playOnce({
-   *   assetPath: 'audio/long-track.mp3',
-   *   autoPlay: true
-   * });
-   * // Later, you can stop it manually if needed
-   * await NativeAudio.stop({ assetId });
-   * ```
+   * Preloading a restored asset again succeeds once: it is reloaded if the options changed, and
+   * it stays persisted only if that preload sets `persist` again.
    *
-   * @since 7.11.0
-   * @param options {@link PlayOnceOptions}
-   * @returns {Promise<PlayOnceResult>} Object containing the generated assetId
+   * @platform Android
+   * @since 8.4.0
+   * @default false
    */
-  playOnce(options: PlayOnceOptions): Promise<PlayOnceResult>;
+  persist?: boolean;
   /**
-   * Check if an audio file is preloaded
+   * Restore order of a persisted asset. `lazy` assets are restored a few seconds after the
+   * others, or as soon as they are played.
    *
-   * @since 6.1.0
-   * @param option {@link Assets}
-   * @returns {Promise<boolean>}
+   * @platform Android
+   * @since 8.4.0
+   * @default 'normal'
    */
-  isPreloaded(options: PreloadOptions): Promise<{ found: boolean }>;
+  priority?: 'critical' | 'high' | 'normal' | 'lazy';
+}
 
+export interface TimeShiftOptions {
   /**
-   * Play an audio file
-   * @since 5.0.0
-   * @param option {@link AssetPlayOptions}
-   * @returns
+   * How far back the stream can be rewound, in seconds
+   * @default 300
    */
-  play(options: AssetPlayOptions): Promise<void>;
-
+  maxDurationSec?: number;
   /**
-   * Pause an audio file
-   * @since 5.0.0
-   * @param option {@link AssetPauseOptions}
-   * @returns
+   * Disk space for past segments, in megabytes. Older segments are evicted first.
+   * @default 64
    */
-  pause(options: AssetPauseOptions): Promise<void>;
+  maxDiskMB?: number;
+}
 
+export interface TimeShiftWindow {
+  assetId: string;
+  isLive: boolean;
   /**
-   * Resume an audio file
-   * @since 5.0.0
+   * Earliest position `setCurrentTime` accepts, in seconds
+   */
+  startSec: number;
+  /**
+   * Live edge, in seconds
+   */
+  endSec: number;
+  positionSec: number;
+  /**
+   * Distance from the current position to the live edge, in seconds
+   */
+  behindLiveSec: number;
+  maxDurationSec: number;
+  /**
+   * Disk space used by past segments, in bytes
+   */
+  cachedBytes: number;
+}
+
+export interface QueueItem {
+  /**
+   * Path to the audio file, relative path of the file, absolute url (file://) or remote url (https://).
+   * HLS streams cannot be queued.
+   */
+  assetPath: string;
+  /**
+   * Is the audio file a URL, pass true if assetPath is a `file://` url or a remote url
+   * @default false
+   */
+  isUrl?: boolean;
+}
+
+export interface CreateQueueOptions {
+  /**
+   * Asset Id of the queue, used with play, pause, resume, stop, setVolume and unload
+   */
+  assetId: string;
+  /**
+   * Items to play back to back, in order
+   */
+  items: QueueItem[];
+  /**
+   * Volume of the queue, between 0.1 and 1.0
+   * @default 1.0
+   */
+  volume?: number;
+  /**
+   * Custom HTTP headers to include when fetching remote items.
+   */
+  headers?: Record<string, string>;
+}
+
+export interface EnqueueOptions {
+  /**
+   * Asset Id of the queue
+   */
+  assetId: string;
+  /**
+   * Items to append to the end of the queue
+   */
+  items: QueueItem[];
+}
+
+export interface PreloadWindowRanges {
+  /**
+   * Items at most this many positions away from `currentIndex` get their first `bufferMs` buffered
+   * @default 1
+   */
+  buffered?: number;
+  /**
+   * Items at most this many positions away from `currentIndex` get their source prepared.
+   * Items further away are released.
+   * @default 3
+   */
+  prepared?: number;
+  /**
+   * How much audio to buffer for each buffered item, in milliseconds
+   * @default 3000
+   */
+  bufferMs?: number;
+}
+
+export interface PreloadWindowOptions {
+  /**
+   * Remote URLs of the feed, in display order. Pass an empty array to release the window.
+   */
+  urls: string[];
+  /**
+   * Index in `urls` of the item currently on screen
+   * @default 0
+   */
+  currentIndex?: number;
+  /**
+   * How far around `currentIndex` to prepare and buffer items
+   */
+  ranges?: PreloadWindowRanges;
+  /**
+   * Custom HTTP headers to include when fetching the URLs.
+   */
+  headers?: Record<string, string>;
+}
+
+export interface LatencyStatsOptions {
+  /**
+   * Only include this asset in `assets`
+   */
+  assetId?: string;
+  /**
+   * Clear all histograms after reading them
+   * @default false
+   */
+  reset?: boolean;
+}
+
+export interface LatencyHistogram {
+  /**
+   * Number of plays measured
+   */
+  count: number;
+  minMs: number;
+  maxMs: number;
+  meanMs: number;
+  /**
+   * Median, estimated from the histogram buckets
+   */
+  p50Ms: number;
+  /**
+   * 95th percentile, estimated from the histogram buckets
+   */
+  p95Ms: number;
+  /**
+   * Upper bound of each bucket in milliseconds
+   */
+  upperBoundsMs: number[];
+  /**
+   * Plays per bucket. Has one more entry than `upperBoundsMs`, the last one counting everything slower.
+   */
+  counts: number[];
+}
+
+export interface LatencyStats {
+  /**
+   * Time from the bridge receiving `play` to running it on the main thread
+   */
+  dispatch: LatencyHistogram;
+  /**
+   * Time from the bridge receiving `play` to the player being ready to start
+   */
+  ready: LatencyHistogram;
+  /**
+   * Time from the bridge receiving `play` to the first audio frame being rendered
+   */
+  firstFrame: LatencyHistogram;
+}
+
+export interface LatencyStatsResult {
+  /**
+   * Histograms over every asset
+   */
+  global: LatencyStats;
+  /**
+   * Histograms per asset id
+   */
+  assets: Record<string, LatencyStats>;
+}
+
+export interface CurrentTimeEvent {
+  /**
+   * Current time of the audio in seconds
+   * @since 6.5.0
+   */
+  currentTime: number;
+  /**
+   * Asset Id of the audio
+   * @since 6.5.0
+   */
+  assetId: string;
+}
+
+export type CurrentTimeListener = (state: CurrentTimeEvent) => void;
+
+export interface MemoryPressureEvent {
+  /**
+   * Android `ComponentCallbacks2` trim level that triggered the event
+   */
+  level: number;
+  /**
+   * Assets whose players were released. They reload on their next `play`.
+   */
+  releasedAssetIds: string[];
+  /**
+   * Buffer memory ceiling now in effect, in bytes
+   */
+  bufferCeilingBytes: number;
+  /**
+   * Memory still held by player buffers, in bytes
+   */
+  bufferedBytes: number;
+}
+
+export type MemoryPressureListener = (event: MemoryPressureEvent) => void;
+
+export interface StreamErrorEvent {
+  assetId: string;
+  /**
+   * Error message from the player
+   */
+  message: string;
+  /**
+   * ExoPlayer error code name, for example `ERROR_CODE_IO_NETWORK_CONNECTION_FAILED`
+   */
+  code?: string;
+  /**
+   * Consecutive failure count, starting at 1
+   */
+  attempt: number;
+  /**
+   * False once the retry limit is reached
+   */
+  willRetry: boolean;
+  /**
+   * Delay before the next attempt, 0 when not retrying
+   */
+  retryInMs: number;
+}
+
+export type StreamErrorListener = (event: StreamErrorEvent) => void;
+
+export interface StreamRecoveredEvent {
+  assetId: string;
+  /**
+   * Number of failed attempts before the stream recovered
+   */
+  attempts: number;
+}
+
+export type StreamRecoveredListener = (event: StreamRecoveredEvent) => void;
+
+export interface PrecacheStreamOptions {
+  /**
+   * URL of the VOD HLS playlist (.m3u8)
+   */
+  assetPath: string;
+  /**
+   * Custom HTTP headers sent with every playlist and segment request
+   */
+  headers?: Record<string, string>;
+}
+
+export interface StreamPrecacheProgressEvent {
+  assetPath: string;
+  /**
+   * Downloaded share of the stream, from 0 to 100
+   */
+  percent: number;
+  bytesDownloaded: number;
+}
+
+export type StreamPrecacheProgressListener = (event: StreamPrecacheProgressEvent) => void;
+
+export interface MeteringOptions {
+  /**
+   * Assets to meter. All loaded assets when omitted.
+   */
+  assetIds?: string[];
+  /**
+   * Time between two `levels` events, in milliseconds. Minimum 16.
+   * @default 50
+   */
+  intervalMs?: number;
+  /**
+   * Number of logarithmic spectrum bands from 20 Hz to Nyquist, up to 64. 0 for levels only.
+   * @default 0
+   */
+  bands?: number;
+}
+
+export interface AssetLevels {
+  assetId: string;
+  /**
+   * Highest sample magnitude since the previous event, from 0 to 1
+   */
+  peak: number;
+  /**
+   * RMS level since the previous event, from 0 to 1
+   */
+  rms: number;
+  /**
+   * `peak` in dBFS, -100 for silence
+   */
+  peakDb: number;
+  /**
+   * `rms` in dBFS, -100 for silence
+   */
+  rmsDb: number;
+  /**
+   * Loudest magnitude of each band, from 0 to 1. Only present when `bands` was set.
+   */
+  bands?: number[];
+}
+
+export interface LevelsEvent {
+  timestamp: number;
+  /**
+   * One entry per metered asset that played since the previous event
+   */
+  levels: AssetLevels[];
+}
+
+export type LevelsListener = (event: LevelsEvent) => void;
+
+export interface WaveformOptions {
+  /**
+   * Preloaded asset to measure. HLS streams and queues are not supported.
+   */
+  assetId?: string;
+  /**
+   * File to measure when no `assetId` is given, as for `preload`
+   */
+  assetPath?: string;
+  /**
+   * Whether `assetPath` is a URL, as for `preload`
+   * @default false
+   */
+  isUrl?: boolean;
+  /**
+   * Custom HTTP headers for remote files
+   */
+  headers?: Record<string, string>;
+  /**
+   * Number of equal slices of the file, up to 10000
+   * @default 200
+   */
+  buckets?: number;
+}
+
+export interface Waveform {
+  /**
+   * Duration of the file in seconds
+   */
+  duration: number;
+  buckets: number;
+  /**
+   * Index of the first bucket in `min` and `max`, always 0 here
+   */
+  start: number;
+  /**
+   * Lowest sample of each bucket, from -1 to 0
+   */
+  min: number[];
+  /**
+   * Highest sample of each bucket, from 0 to 1
+   */
+  max: number[];
+}
+
+export interface WaveformProgressEvent {
+  /**
+   * Set when the waveform was requested by `assetId`
+   */
+  assetId?: string;
+  /**
+   * Set when the waveform was requested by `assetPath`
+   */
+  assetPath?: string;
+  /**
+   * Total number of buckets
+   */
+  buckets: number;
+  /**
+   * Index of the first bucket in `min` and `max`
+   */
+  start: number;
+  min: number[];
+  max: number[];
+  /**
+   * Decoded share of the file, from 0 to 1
+   */
+  progress: number;
+}
+
+export interface AssetsRestoredEvent {
+  tier: 'critical' | 'high' | 'normal' | 'lazy';
+  /**
+   * Persisted assets of the tier that are loaded
+   */
+  assetIds: string[];
+  /**
+   * Persisted assets of the tier that could not be loaded. They are no longer persisted.
+   */
+  failed: { assetId: string; error: string }[];
+}
+
+export type AssetsRestoredListener = (event: AssetsRestoredEvent) => void;
+
+export type WaveformProgressListener = (event: WaveformProgressEvent) => void;
+
+export interface NativeAudio {
+  /**
+   * Configure the audio player
+   * @since 5.0.0
+   * @param option {@link ConfigureOptions}
+   * @returns
+   */
+  configure(options: ConfigureOptions): Promise<void>;
+
+  /**
+   * Load an audio file
+   * @since 5.0.0
+   * @param option {@link PreloadOptions}
+   * @returns
+   */
+  preload(options: PreloadOptions): Promise<void>;
+  /**
+   * Play an audio file once with automatic cleanup
+   *
+   * Method designed for simple, single-shot audio playback,
+   * such as notification sounds, UI feedback, or other short audio clips
+   * that don't require manual state management.
+   *
+   * **Key Features:**
+   * - **Fire-and-forget**: No need to manually preload, play, stop, or unload
+   * - **Auto-cleanup**: Asset is automatically unloaded after playback completes. On Android the
+   *   player is kept for a while and reused by the next `playOnce` of the same file, see
+   *   `playOncePool` in `configure`
+   * - **Optional file deletion**: Can delete local files after playback (useful for temp files)
+   * - **Returns assetId**: Can still control playback if needed (pause, stop, etc.)
+   *
+   * **Use Cases:**
+   * - Notification sounds
+   * - UI sound effects (button clicks, alerts)
+   * - Short audio clips that play once
+   * - Temporary audio files that should be cleaned up
+   *
+   * **Comparison with regular play():**
+   * - `play()`: Requires manual preload, play, and unload steps
+   * - `playOnce()`: Handles everything automatically with a single call
+   *
+   * @example
+   * ```typescript
+   * // Simple one-shot playback
+   * await NativeAudio.playOnce({ assetPath: 'audio/notification.mp3' });
+   *
+   * // Play and delete the file after completion
+   * await NativeAudio.playOnce({
+   *   assetPath: 'file:///path/to/temp/audio.mp3',
+   *   isUrl: true,
+   *   deleteAfterPlay: true
+   * });
+   *
+   * // Get the assetId to control playback
+   * const { assetId } = await NativeAudio.playOnce({
+   *   assetPath: 'audio/long-track.mp3',
+   *   autoPlay: true
+   * });
+   * // Later, you can stop it manually if needed
+   * await NativeAudio.stop({ assetId });
+   * ```
+   *
+   * @since 7.11.0
+   * @param options {@link PlayOnceOptions}
+   * @returns {Promise<PlayOnceResult>} Object containing the generated assetId
+   */
+  playOnce(options: PlayOnceOptions): Promise<PlayOnceResult>;
+  /**
+   * Check if an audio file is preloaded
+   *
+   * @since 6.1.0
+   * @param option {@link Assets}
+   * @returns {Promise<boolean>}
+   */
+  isPreloaded(options: PreloadOptions): Promise<{ found: boolean }>;
+
+  /**
+   * Play an audio file
+   * @since 5.0.0
+   * @param option {@link AssetPlayOptions}
+   * @returns
+   */
+  play(options: AssetPlayOptions): Promise<void>;
+
+  /**
+   * Pause an audio file
+   * @since 5.0.0
+   * @param option {@link AssetPauseOptions}
+   * @returns
+   */
+  pause(options: AssetPauseOptions): Promise<void>;
+
+  /**
+   * Resume an audio file
+   * @since 5.0.0
    * @param option {@link AssetResumeOptions}
    * @returns
    */
@@ -484,6 +1258,9 @@ export interface NativeAudio {
 
   /**
    * Stop an audio file
+   *
+   * On Android, this also cancels a play or seek of a remote asset that is still waiting for
+   * the stream to load. Before, that play started as soon as loading finished, even after stop.
    * @since 5.0.0
    * @param option {@link AssetStopOptions}
    * @returns
@@ -547,6 +1324,219 @@ export interface NativeAudio {
    */
   isPlaying(options: Assets): Promise<{ isPlaying: boolean }>;
 
+  /**
+   * Create a queue that plays several files back to back without gaps (Android only).
+   *
+   * The next item is buffered while the current one plays, so transitions happen natively
+   * without waiting for the `complete` event. Queues containing a remote item are played
+   * through a single ExoPlayer playlist; queues of local files chain MediaPlayers.
+   * Control the queue with `play`, `pause`, `resume`, `stop`, `setVolume` and `unload`.
+   * `complete` is emitted once, when the last item finishes.
+   *
+   * @since 8.4.0
+   * @platform Android
+   * @param options {@link CreateQueueOptions}
+   * @returns {Promise<void>}
+   */
+  createQueue(options: CreateQueueOptions): Promise<void>;
+
+  /**
+   * Append items to the end of a queue (Android only).
+   * Queues created with only local files accept only local files.
+   *
+   * @since 8.4.0
+   * @platform Android
+   * @param options {@link EnqueueOptions}
+   * @returns {Promise<void>}
+   */
+  enqueue(options: EnqueueOptions): Promise<void>;
+
+  /**
+   * Skip to the next item of a queue. Skipping the last item stops the queue (Android only).
+   *
+   * @since 8.4.0
+   * @platform Android
+   * @param options {@link Assets}
+   * @returns {Promise<void>}
+   */
+  skip(options: Assets): Promise<void>;
+
+  /**
+   * Remove every item after the current one from a queue. The current item keeps playing (Android only).
+   *
+   * @since 8.4.0
+   * @platform Android
+   * @param options {@link Assets}
+   * @returns {Promise<void>}
+   */
+  clearQueue(options: Assets): Promise<void>;
+
+  /**
+   * Keep the remote items around the current position of a feed preloaded (Android only).
+   *
+   * Call it again whenever the current position changes. A `preload` with `isUrl: true` of one
+   * of the nearby URLs then plays from the already buffered source instead of waiting for it to
+   * prepare. Items outside the window are released.
+   *
+   * @since 8.4.0
+   * @platform Android
+   * @param options {@link PreloadWindowOptions}
+   * @returns {Promise<void>}
+   */
+  setPreloadWindow(options: PreloadWindowOptions): Promise<void>;
+
+  /**
+   * Get start latency histograms of `play` calls (Android only).
+   *
+   * Each stage is measured from the moment the native side receives the call. For ExoPlayer
+   * backed assets the first frame is reported by the audio renderer; for local files it is the
+   * moment MediaPlayer starts. Delayed plays are measured from the end of the delay.
+   *
+   * @since 8.4.0
+   * @platform Android
+   * @param options {@link LatencyStatsOptions}
+   * @returns {Promise<LatencyStatsResult>}
+   */
+  getLatencyStats(options?: LatencyStatsOptions): Promise<LatencyStatsResult>;
+
+  /**
+   * Download a whole VOD HLS stream into the media cache so it plays offline (Android only).
+   *
+   * Resolves once every segment is cached. Live playlists cannot be precached. Once a stream
+   * is known to be VOD, either from a precache or from playing it, its segments are served
+   * from the cache.
+   *
+   * @since 8.4.0
+   * @platform Android
+   * @param options {@link PrecacheStreamOptions}
+   * @returns {Promise<void>}
+   */
+  precacheStream(options: PrecacheStreamOptions): Promise<void>;
+
+  /**
+   * Cancel a running `precacheStream` (Android only). Already cached segments are kept.
+   *
+   * @since 8.4.0
+   * @platform Android
+   * @param options the `assetPath` passed to `precacheStream`
+   * @returns {Promise<void>}
+   */
+  cancelPrecache(options: { assetPath: string }): Promise<void>;
+
+  /**
+   * Get the seekable range of a live stream preloaded with `timeShift` (Android only).
+   *
+   * Positions are relative to the start of the server's playlist window, like `currentTime`.
+   * The range can never extend past that window: segments the server dropped from its live
+   * playlist cannot be played again, even when they are still on disk.
+   *
+   * @since 8.4.0
+   * @platform Android
+   * @param options {@link Assets}
+   * @returns {Promise<TimeShiftWindow>}
+   */
+  getTimeShiftWindow(options: Assets): Promise<TimeShiftWindow>;
+
+  /**
+   * Get the network measurements and buffer thresholds an HLS stream currently uses
+   * (Android only). Requires `adaptiveBuffer` to be enabled when the stream was loaded.
+   *
+   * @since 8.4.0
+   * @platform Android
+   * @param options {@link Assets}
+   * @returns {Promise<AdaptiveBufferState>}
+   */
+  getAdaptiveBufferState(options: Assets): Promise<AdaptiveBufferState>;
+
+  /**
+   * Crossfade from a playing asset to another one (Android only).
+   *
+   * Both volumes follow one clock, so the curves stay aligned for every asset type, including
+   * HLS streams. The fade starts once the incoming asset is buffered and playing, and the
+   * promise resolves when it is over. Stopping or unloading either asset cancels it.
+   *
+   * @since 8.4.0
+   * @platform Android
+   * @param options {@link CrossfadeOptions}
+   * @returns {Promise<void>}
+   */
+  crossfade(options: CrossfadeOptions): Promise<void>;
+
+  /**
+   * Start emitting `levels` events for the playing assets (Android only).
+   * Calling it again replaces the settings.
+   *
+   * Remote and HLS assets are measured from the decoded audio. Local assets use the
+   * platform Visualizer, which needs the RECORD_AUDIO permission and reports nothing without it.
+   *
+   * @since 8.4.0
+   * @platform Android
+   * @param options {@link MeteringOptions}
+   * @returns {Promise<void>}
+   */
+  startMetering(options?: MeteringOptions): Promise<void>;
+
+  /**
+   * Stop the `levels` events (Android only).
+   *
+   * @since 8.4.0
+   * @platform Android
+   * @returns {Promise<void>}
+   */
+  stopMetering(): Promise<void>;
+
+  /**
+   * Compute a waveform made of the min and max sample of equal slices of a file (Android only).
+   *
+   * The file is decoded in the background and the result cached on disk by content, so a later
+   * call for the same file resolves right away. While decoding, `waveformProgress` events carry
+   * the buckets computed so far.
+   *
+   * @since 8.4.0
+   * @platform Android
+   * @param options {@link WaveformOptions}
+   * @returns {Promise<Waveform>}
+   */
+  getWaveform(options: WaveformOptions): Promise<Waveform>;
+
+  /**
+   * Initialize the media cache, decoders, player and audio output in the background so the
+   * first play is as fast as later ones (Android only). Only the first call does the work,
+   * later calls resolve with the same timings.
+   *
+   * @since 8.4.0
+   * @platform Android
+   * @returns {Promise<WarmUpResult>}
+   */
+  warmUp(): Promise<WarmUpResult>;
+
+  /**
+   * Get a snapshot of the native audio engine's resources and activity (Android only).
+   *
+   * Counts of live players and threads show resource growth before it turns into memory
+   * pressure. Byte, event and hop counters add up from app start, so compare two snapshots
+   * to get rates.
+   *
+   * @since 8.4.0
+   * @platform Android
+   * @returns {Promise<EngineMetrics>}
+   */
+  getEngineMetrics(): Promise<EngineMetrics>;
+
+  /**
+   * Get the last native log entries, kept in memory to debug in the field without logcat
+   * (Android only).
+   *
+   * Up to 256 entries are kept. Warnings and errors are always recorded, other levels only
+   * while debug logging is enabled with `setDebugMode`.
+   *
+   * @since 8.4.0
+   * @platform Android
+   * @param options {@link RecentLogsOptions}
+   * @returns {Promise<RecentLogs>}
+   */
+  getRecentLogs(options?: RecentLogsOptions): Promise<RecentLogs>;
+
   /**
    * Listen for complete event
    *
@@ -563,6 +1553,80 @@ export interface NativeAudio {
    * return {@link CurrentTimeEvent}
    */
   addListener(eventName: 'currentTime', listenerFunc: CurrentTimeListener): Promise<PluginListenerHandle>;
+
+  /**
+   * Listen for memory pressure responses (Android only).
+   * Emitted when the system asks the app to trim memory, after the plugin shrank its buffers
+   * and released idle players.
+   *
+   * @since 8.4.0
+   * @platform Android
+   * return {@link MemoryPressureEvent}
+   */
+  addListener(eventName: 'memoryPressure', listenerFunc: MemoryPressureListener): Promise<PluginListenerHandle>;
+
+  /**
+   * Listen for HLS stream playback errors (Android only).
+   * Emitted on every failure, with whether and when the plugin retries.
+   *
+   * @since 8.4.0
+   * @platform Android
+   * return {@link StreamErrorEvent}
+   */
+  addListener(eventName: 'streamError', listenerFunc: StreamErrorListener): Promise<PluginListenerHandle>;
+
+  /**
+   * Listen for HLS streams playing again after errors (Android only).
+   *
+   * @since 8.4.0
+   * @platform Android
+   * return {@link StreamRecoveredEvent}
+   */
+  addListener(eventName: 'streamRecovered', listenerFunc: StreamRecoveredListener): Promise<PluginListenerHandle>;
+
+  /**
+   * Listen for `precacheStream` progress (Android only).
+   * Emitted at most once per percent downloaded.
+   *
+   * @since 8.4.0
+   * @platform Android
+   * return {@link StreamPrecacheProgressEvent}
+   */
+  addListener(
+    eventName: 'streamPrecacheProgress',
+    listenerFunc: StreamPrecacheProgressListener,
+  ): Promise<PluginListenerHandle>;
+
+  /**
+   * Listen for audio levels while metering is started (Android only).
+   * Emitted once per `intervalMs`, skipped when no metered asset played.
+   *
+   * @since 8.4.0
+   * @platform Android
+   * return {@link LevelsEvent}
+   */
+  addListener(eventName: 'levels', listenerFunc: LevelsListener): Promise<PluginListenerHandle>;
+
+  /**
+   * Listen for partial `getWaveform` results (Android only).
+   * Emitted at most every 250ms while decoding, never for cached waveforms.
+   *
+   * @since 8.4.0
+   * @platform Android
+   * return {@link WaveformProgressEvent}
+   */
+  addListener(eventName: 'waveformProgress', listenerFunc: WaveformProgressListener): Promise<PluginListenerHandle>;
+
+  /**
+   * Listen for persisted assets restored on cold start (Android only).
+   * Emitted once per tier, in priority order, even for empty tiers. Events emitted before
+   * the listener is added are delivered when it is.
+   *
+   * @since 8.4.0
+   * @platform Android
+   * return {@link AssetsRestoredEvent}
+   */
+  addListener(eventName: 'assetsRestored', listenerFunc: AssetsRestoredListener): Promise<PluginListenerHandle>;
   /**
    * Clear the audio cache for remote audio files
    * @since 6.5.0
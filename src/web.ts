@@ -2,6 +2,7 @@ import { WebPlugin } from '@capacitor/core';
 
 import { AudioAsset } from './audio-asset';
 import type {
+  AdaptiveBufferState,
   Assets,
   AssetPauseOptions,
   AssetPlayOptions,
@@ -11,9 +12,24 @@ import type {
   AssetStopOptions,
   AssetVolume,
   ConfigureOptions,
+  CreateQueueOptions,
+  CrossfadeOptions,
+  EngineMetrics,
+  EnqueueOptions,
+  LatencyStatsOptions,
+  LatencyStatsResult,
+  MeteringOptions,
   PlayOnceOptions,
   PlayOnceResult,
   PreloadOptions,
+  PrecacheStreamOptions,
+  PreloadWindowOptions,
+  RecentLogs,
+  RecentLogsOptions,
+  TimeShiftWindow,
+  Waveform,
+  WaveformOptions,
+  WarmUpResult,
 } from './definitions';
 import { NativeAudio } from './definitions';
 
@@ -509,6 +525,75 @@ export class NativeAudioWeb extends WebPlugin implements NativeAudio {
     this.logWarning('clearCache is not supported for web. No cache to clear.');
   }
 
+  async createQueue(options: CreateQueueOptions): Promise<void> {
+    throw `createQueue is not supported for web: ${JSON.stringify(options)}`;
+  }
+
+  async enqueue(options: EnqueueOptions): Promise<void> {
+    throw `enqueue is not supported for web: ${JSON.stringify(options)}`;
+  }
+
+  async skip(options: Assets): Promise<void> {
+    throw `skip is not supported for web: ${JSON.stringify(options)}`;
+  }
+
+  async clearQueue(options: Assets): Promise<void> {
+    throw `clearQueue is not supported for web: ${JSON.stringify(options)}`;
+  }
+
+  async setPreloadWindow(options: PreloadWindowOptions): Promise<void> {
+    throw `setPreloadWindow is not supported for web: ${JSON.stringify(options)}`;
+  }
+
+  async getLatencyStats(options?: LatencyStatsOptions): Promise<LatencyStatsResult> {
+    throw `getLatencyStats is not supported for web: ${JSON.stringify(options)}`;
+  }
+
+  async precacheStream(options: PrecacheStreamOptions): Promise<void> {
+    throw `precacheStream is not supported for web: ${JSON.stringify(options)}`;
+  }
+
+  async cancelPrecache(options: { assetPath: string }): Promise<void> {
+    throw `cancelPrecache is not supported for web: ${JSON.stringify(options)}`;
+  }
+
+  async getTimeShiftWindow(options: Assets): Promise<TimeShiftWindow> {
+    throw `getTimeShiftWindow is not supported for web: ${JSON.stringify(options)}`;
+  }
+
+  async getAdaptiveBufferState(options: Assets): Promise<AdaptiveBufferState> {
+    throw `getAdaptiveBufferState is not supported for web: ${JSON.stringify(options)}`;
+  }
+
+  async crossfade(options: CrossfadeOptions): Promise<void> {
+    throw `crossfade is not supported for web: ${JSON.stringify(options)}`;
+  }
+
+  async startMetering(options?: MeteringOptions): Promise<void> {
+    throw `startMetering is not supported for web: ${JSON.stringify(options)}`;
+  }
+
+  async stopMetering(): Promise<void> {
+    throw 'stopMetering is not supported for web';
+  }
+
+  async getWaveform(options: WaveformOptions): Promise<Waveform> {
+    throw `getWaveform is not supported for web: ${JSON.stringify(options)}`;
+  }
+
+  async warmUp(): Promise<WarmUpResult> {
+    this.logWarning('warmUp is not supported for web. Nothing to warm up.');
+    return { cacheMs: 0, decodersMs: 0, playerMs: 0, outputMs: 0, totalMs: 0 };
+  }
+
+  async getEngineMetrics(): Promise<EngineMetrics> {
+    throw 'getEngineMetrics is not supported for web';
+  }
+
+  async getRecentLogs(options?: RecentLogsOptions): Promise<RecentLogs> {
+    throw `getRecentLogs is not supported for web: ${JSON.stringify(options)}`;
+  }
+
   private getAudioAsset(assetId: string): AudioAsset {
     this.checkAssetId(assetId);
 